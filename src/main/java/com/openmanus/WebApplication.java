@@ -2,6 +2,7 @@ package com.openmanus;
 
 import com.openmanus.infra.config.OpenManusProperties;
 import com.openmanus.infra.sandbox.SandboxClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 
 /**
@@ -17,6 +19,7 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
  */
 @SpringBootApplication(scanBasePackages = "com.openmanus")
 @EnableConfigurationProperties(OpenManusProperties.class)
+@EnableScheduling
 public class WebApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(WebApplication.class);
@@ -37,7 +40,7 @@ public class WebApplication {
      * Configure sandbox client
      */
     @Bean
-    public SandboxClient sandboxClient(OpenManusProperties properties) {
-        return new SandboxClient(properties);
+    public SandboxClient sandboxClient(OpenManusProperties properties, MeterRegistry meterRegistry) {
+        return new SandboxClient(properties, meterRegistry);
     }
 }
\ No newline at end of file
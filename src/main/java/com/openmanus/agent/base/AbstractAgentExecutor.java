@@ -1,5 +1,15 @@
 package com.openmanus.agent.base;
 
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import com.openmanus.agent.tool.ToolResultCache;
+import com.openmanus.agent.tool.annotation.CacheableTool;
+import com.openmanus.agent.tool.annotation.SerialTool;
+import com.openmanus.agent.tool.annotation.ToolCacheEvict;
+import com.openmanus.infra.monitoring.AgentExecutionTracker;
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import com.openmanus.infra.tracing.ExecutionFlows;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import com.openmanus.infra.tracing.Span;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.agent.tool.ToolSpecifications;
@@ -9,17 +19,34 @@ import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.output.Response;
 import dev.langchain4j.service.tool.DefaultToolExecutor;
 import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 
 import java.lang.reflect.Method;
 
 import static com.openmanus.infra.log.LogMarkers.TO_FRONTEND;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -41,8 +68,19 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
     public static abstract class Builder<B extends AbstractAgentExecutor.Builder<B>> extends AbstractAgent.Builder<B> {
 
         ChatModel chatModel;
+        StreamingChatModel streamingChatModel;
+        AgentExecutionTracker agentExecutionTracker;
+        TokenUsageTracker tokenUsageTracker;
+        ContextWindowManager contextWindowManager;
+        ToolResultCache toolResultCache;
+        MeterRegistry meterRegistry = Metrics.globalRegistry;
+        ExecutionTracer tracer = ExecutionTracer.NOOP;
         SystemMessage systemMessage;
         final Map<String, Map.Entry<ToolSpecification, ToolExecutor>> tools = new HashMap<>();
+        final Map<String, Method> toolMethods = new HashMap<>();
+        final Set<String> serialTools = new HashSet<>();
+        boolean parallelToolCalls = false;
+        int maxConcurrentToolCalls = DEFAULT_MAX_CONCURRENT_TOOL_CALLS;
 
         /**
          * Sets the chat model to be used by the agent.
@@ -54,6 +92,82 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
             return result();
         }
 
+        /**
+         * Sets a streaming chat model. When present, every model turn is streamed and partial tokens are
+         * published to the session's execution topic as they arrive, instead of waiting for the blocking
+         * {@link ChatModel} call to return the whole response.
+         * @param model The {@link StreamingChatModel} instance, or {@code null} to use the blocking model.
+         * @return The builder instance for chaining.
+         */
+        public B streamingChatModel(StreamingChatModel model) {
+            this.streamingChatModel = model;
+            return result();
+        }
+
+        /**
+         * Sets the execution tracker used to publish agent events, such as streamed partial responses.
+         * @param agentExecutionTracker The {@link AgentExecutionTracker} instance.
+         * @return The builder instance for chaining.
+         */
+        public B agentExecutionTracker(AgentExecutionTracker agentExecutionTracker) {
+            this.agentExecutionTracker = agentExecutionTracker;
+            return result();
+        }
+
+        /**
+         * Sets the tracker whose per-session token and cost budget is checked before every model call.
+         * @param tokenUsageTracker The {@link TokenUsageTracker}, or {@code null} to disable budget checks.
+         * @return The builder instance for chaining.
+         */
+        public B tokenUsageTracker(TokenUsageTracker tokenUsageTracker) {
+            this.tokenUsageTracker = tokenUsageTracker;
+            return result();
+        }
+
+        /**
+         * Sets the context window manager that keeps every model request inside a token budget by compacting
+         * older tool results. Without one, the full history is resent on every iteration.
+         * @param contextWindowManager The {@link ContextWindowManager}, or {@code null} to disable budgeting.
+         * @return The builder instance for chaining.
+         */
+        public B contextWindowManager(ContextWindowManager contextWindowManager) {
+            this.contextWindowManager = contextWindowManager;
+            return result();
+        }
+
+        /**
+         * Sets the session-scoped cache used to memoize tools annotated with {@link CacheableTool} and to
+         * invalidate entries after tools annotated with {@link ToolCacheEvict} run.
+         * @param toolResultCache The {@link ToolResultCache}, or {@code null} to disable memoization.
+         * @return The builder instance for chaining.
+         */
+        public B toolResultCache(ToolResultCache toolResultCache) {
+            this.toolResultCache = toolResultCache;
+            return result();
+        }
+
+        /**
+         * Sets the registry that receives the executor's timers: whole executions, ReAct iterations,
+         * tool calls and LLM calls, tagged by agent, tool, model and outcome.
+         * @param meterRegistry The {@link MeterRegistry}; defaults to the global registry.
+         * @return The builder instance for chaining.
+         */
+        public B meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry cannot be null");
+            return result();
+        }
+
+        /**
+         * Sets the tracer that records the execution as a span, with one child span per model call and per
+         * tool call. Sub-agents registered as tools therefore appear as children of the dispatching tool span.
+         * @param tracer The {@link ExecutionTracer}; defaults to {@link ExecutionTracer#NOOP}.
+         * @return The builder instance for chaining.
+         */
+        public B tracer(ExecutionTracer tracer) {
+            this.tracer = Objects.requireNonNull(tracer, "tracer cannot be null");
+            return result();
+        }
+
         /**
          * Adds a pre-configured tool to the agent.
          * @param entry A map entry containing the tool's specification and its executor.
@@ -76,6 +190,10 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
                 Method method = findMethod(spec, objectWithTools);
                 ToolExecutor executor = new DefaultToolExecutor(objectWithTools, method);
                 tools.put(spec.name(), Map.entry(spec, executor));
+                toolMethods.put(spec.name(), method);
+                if (method.isAnnotationPresent(SerialTool.class)) {
+                    serialTools.add(spec.name());
+                }
             });
             return result();
         }
@@ -124,22 +242,108 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
             this.systemMessage = message;
             return result();
         }
+
+        /**
+         * Enables or disables concurrent dispatch of the tool calls requested in a single model turn.
+         * When enabled, the requests of one {@link AiMessage} run on virtual threads; results are still
+         * appended to the conversation in the original request order.
+         *
+         * @param enabled {@code true} to run independent tool calls of one turn in parallel.
+         * @return The builder instance for chaining.
+         */
+        public B parallelToolCalls(boolean enabled) {
+            this.parallelToolCalls = enabled;
+            return result();
+        }
+
+        /**
+         * Caps how many tool calls of one model turn may run at the same time when parallel dispatch is enabled.
+         *
+         * @param maxConcurrentToolCalls The maximum number of concurrently running tool calls (at least 1).
+         * @return The builder instance for chaining.
+         */
+        public B maxConcurrentToolCalls(int maxConcurrentToolCalls) {
+            if (maxConcurrentToolCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentToolCalls must be at least 1");
+            }
+            this.maxConcurrentToolCalls = maxConcurrentToolCalls;
+            return result();
+        }
+
+        /**
+         * Marks a tool as serial: it never overlaps with other tool calls of the same turn,
+         * even when parallel dispatch is enabled. Tool methods annotated with {@link SerialTool}
+         * are registered as serial automatically.
+         *
+         * @param toolName The name of the tool that must run serially.
+         * @return The builder instance for chaining.
+         */
+        public B serialTool(String toolName) {
+            serialTools.add(Objects.requireNonNull(toolName, "toolName cannot be null"));
+            return result();
+        }
     }
 
     private final ChatModel chatModel;
+    private final StreamingChatModel streamingChatModel;
+    private final AgentExecutionTracker agentExecutionTracker;
+    private final TokenUsageTracker tokenUsageTracker;
+    private final ContextWindowManager contextWindowManager;
+    private final MeterRegistry meterRegistry;
+    private final ExecutionTracer tracer;
     private final SystemMessage systemMessage;
     private final Map<String, Map.Entry<ToolSpecification, ToolExecutor>> tools;
     private final List<ToolSpecification> toolSpecifications;
+    private final Set<String> serialTools;
+    private final boolean parallelToolCalls;
+    private final int maxConcurrentToolCalls;
     private static final int MAX_ITERATIONS = 10; // To prevent infinite loops
+    private static final int DEFAULT_MAX_CONCURRENT_TOOL_CALLS = 4;
+
+    /**
+     * MDC key holding the name of the agent whose ReAct loop is currently running on this thread.
+     */
+    public static final String AGENT_NAME_MDC_KEY = "agentName";
+
+    private static final String METRIC_PREFIX = "openmanus.agent";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
 
     public AbstractAgentExecutor( Builder<B> builder ) {
         super( builder );
         this.chatModel = builder.chatModel;
+        this.streamingChatModel = builder.streamingChatModel;
+        this.agentExecutionTracker = builder.agentExecutionTracker;
+        this.tokenUsageTracker = builder.tokenUsageTracker;
+        this.contextWindowManager = builder.contextWindowManager;
+        this.meterRegistry = builder.meterRegistry;
+        this.tracer = builder.tracer;
         this.systemMessage = builder.systemMessage;
-        this.tools = builder.tools;
+        this.tools = decorateTools(builder);
         this.toolSpecifications = builder.tools.values().stream()
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
+        this.serialTools = Set.copyOf(builder.serialTools);
+        this.parallelToolCalls = builder.parallelToolCalls;
+        this.maxConcurrentToolCalls = builder.maxConcurrentToolCalls;
+    }
+
+    /**
+     * Wraps the executors of annotated tool methods with the session cache, if one is configured.
+     * This happens at construction time so the order of builder calls does not matter.
+     */
+    private static Map<String, Map.Entry<ToolSpecification, ToolExecutor>> decorateTools(Builder<?> builder) {
+        if (builder.toolResultCache == null) {
+            return builder.tools;
+        }
+        Map<String, Map.Entry<ToolSpecification, ToolExecutor>> decorated = new HashMap<>(builder.tools);
+        builder.toolMethods.forEach((name, method) -> {
+            Map.Entry<ToolSpecification, ToolExecutor> entry = decorated.get(name);
+            ToolExecutor executor = builder.toolResultCache.decorate(name, entry.getValue(),
+                    method.getAnnotation(CacheableTool.class), method.getAnnotation(ToolCacheEvict.class));
+            decorated.put(name, Map.entry(entry.getKey(), executor));
+        });
+        return decorated;
     }
 
     /**
@@ -153,9 +357,47 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
      *                 across multiple turns (if the underlying tools support it).
      * @return The final text response from the agent.
      * @throws RuntimeException if the agent exceeds the maximum number of iterations or if the model fails to respond.
+     * @throws com.openmanus.infra.exception.TokenLimitExceededException if the history cannot be compacted
+     *         under the token budget of the configured {@link ContextWindowManager}.
+     * @throws com.openmanus.infra.exception.TokenBudgetExceededException if the session has used up its token
+     *         or cost budget. It propagates through supervising agents, ending the whole workflow.
      */
     @Override
     public String execute(ToolExecutionRequest toolExecutionRequest, Object memoryId) {
+        // Expose the running agent to model decorators and tools; sub-agents run nested inside
+        // a supervisor's tool call, so the previous value is restored afterwards.
+        String previousAgent = MDC.get(AGENT_NAME_MDC_KEY);
+        MDC.put(AGENT_NAME_MDC_KEY, name());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            String answer = tracer.trace("invoke_agent " + name(), Span.Kind.AGENT, span -> {
+                span.setAttribute(ExecutionFlows.AGENT_NAME, name())
+                        .setInput(toolExecutionRequest.arguments());
+                String result = runReActLoop(toolExecutionRequest, memoryId);
+                span.setOutput(result);
+                return result;
+            });
+            outcome = OUTCOME_SUCCESS;
+            return answer;
+        } finally {
+            sample.stop(Timer.builder(METRIC_PREFIX + ".executions")
+                    .description("Agent executions from request to final answer")
+                    .tag("agent", name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            if (previousAgent != null) {
+                MDC.put(AGENT_NAME_MDC_KEY, previousAgent);
+            } else {
+                MDC.remove(AGENT_NAME_MDC_KEY);
+            }
+        }
+    }
+
+    /**
+     * Runs the ReAct loop described in {@link #execute(ToolExecutionRequest, Object)}.
+     */
+    private String runReActLoop(ToolExecutionRequest toolExecutionRequest, Object memoryId) {
         log.info("Starting agent execution with request: {}", toolExecutionRequest.toString());
         log.info("MemoryId: {}", memoryId != null ? memoryId.toString() : "null");
 
@@ -165,54 +407,367 @@ public abstract class AbstractAgentExecutor<B extends AbstractAgentExecutor.Buil
             messages.add(systemMessage);
         }
         messages.add(extractUserMessageFromRequest(toolExecutionRequest));
+        ContextWindowManager.Window contextWindow = contextWindowManager != null
+                ? contextWindowManager.open(toolSpecifications)
+                : null;
 
         // 2. Start the ReAct loop
-        for (int i = 0; i < MAX_ITERATIONS; i++) {
-            log.info("Agent Iteration #{}", i + 1);
-
-            // 3. Call the model with the current conversation history and available tools
-            // The standard ChatModel interface uses .generate(), which returns a Response<AiMessage>.
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .messages(messages)
-                    .toolSpecifications(toolSpecifications)
-                    .build();
-            ChatResponse response = chatModel.chat(chatRequest);
-            if (response == null || response.aiMessage() == null) {
-                throw new RuntimeException("LLM failed to generate a response.");
+        int iterations = 0;
+        String outcome = OUTCOME_ERROR;
+        try {
+            for (int i = 0; i < MAX_ITERATIONS; i++) {
+                iterations++;
+                Timer.Sample iteration = Timer.start(meterRegistry);
+                try {
+                    AiMessage finalMessage = runIteration(i, messages, contextWindow, memoryId);
+                    if (finalMessage != null) {
+                        outcome = OUTCOME_SUCCESS;
+                        return finalMessage.text();
+                    }
+                } finally {
+                    iteration.stop(Timer.builder(METRIC_PREFIX + ".iteration")
+                            .description("One ReAct iteration: a model turn plus the tool calls it requested")
+                            .tag("agent", name())
+                            .register(meterRegistry));
+                }
+            }
+            throw new RuntimeException("Agent exceeded maximum iterations (" + MAX_ITERATIONS + ")");
+        } finally {
+            DistributionSummary.builder(METRIC_PREFIX + ".iterations")
+                    .description("ReAct iterations needed per agent execution")
+                    .tag("agent", name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(iterations);
+        }
+    }
+
+    /**
+     * Runs one iteration of the ReAct loop: a model turn, then the tool calls it requested, if any.
+     *
+     * @return The model's final message, or {@code null} if it requested tools and the loop should continue.
+     */
+    private AiMessage runIteration(int i, List<ChatMessage> messages, ContextWindowManager.Window contextWindow,
+                                   Object memoryId) {
+        log.info("Agent Iteration #{}", i + 1);
+
+        // 3. Call the model with the current conversation history and available tools,
+        // streaming partial tokens to the frontend when a streaming model is configured.
+        // Older tool results are compacted first if the history exceeds the token budget.
+        // A session that has used up its budget is stopped before spending more.
+        if (tokenUsageTracker != null) {
+            tokenUsageTracker.checkBudget(MDC.get("sessionId"));
+        }
+        if (contextWindow != null) {
+            contextWindow.fit(messages);
+        }
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(messages)
+                .toolSpecifications(toolSpecifications)
+                .build();
+        ChatResponse response = timedChat(chatRequest);
+        if (response == null || response.aiMessage() == null) {
+            throw new RuntimeException("LLM failed to generate a response.");
+        }
+        AiMessage aiMessage = response.aiMessage();
+        messages.add(aiMessage); // Add AI's response to the history
+
+        // 4. Analyze the response
+        if (!aiMessage.hasToolExecutionRequests()) {
+            // If the AI message does not contain a tool execution request, it's considered the final answer.
+            log.info("Agent finished with a final answer.");
+            return aiMessage; // Task complete, the caller returns the final answer.
+        }
+
+        // 5. Execute the requested tool(s) and append the results in request order
+        messages.addAll(executeToolRequests(aiMessage.toolExecutionRequests(), memoryId));
+        return null;
+    }
+
+    /**
+     * Sends one model turn, through the streaming model if configured, as a child span of the agent and
+     * records its latency tagged with the model that answered and the outcome.
+     */
+    private ChatResponse timedChat(ChatRequest chatRequest) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String model = "unknown";
+        String outcome = OUTCOME_ERROR;
+        try {
+            ChatResponse response = tracer.trace("chat", Span.Kind.LLM, span -> {
+                span.setAttribute(ExecutionFlows.AGENT_NAME, name())
+                        .setInput(lastMessageText(chatRequest.messages()));
+                ChatResponse chatResponse = streamingChatModel != null
+                        ? streamChat(chatRequest)
+                        : chatModel.chat(chatRequest);
+                if (chatResponse != null) {
+                    recordResponse(span, chatResponse);
+                }
+                return chatResponse;
+            });
+            if (response != null) {
+                outcome = OUTCOME_SUCCESS;
+                if (response.modelName() != null) {
+                    model = response.modelName();
+                }
             }
-            AiMessage aiMessage = response.aiMessage();
-            messages.add(aiMessage); // Add AI's response to the history
-
-            // 4. Analyze the response
-            if (!aiMessage.hasToolExecutionRequests()) {
-                // If the AI message does not contain a tool execution request, it's considered the final answer.
-                log.info("Agent finished with a final answer.");
-                return aiMessage.text(); // Task complete, return the final answer.
+            return response;
+        } finally {
+            sample.stop(Timer.builder(METRIC_PREFIX + ".llm.calls")
+                    .description("LLM calls made by the ReAct loop")
+                    .tag("agent", name())
+                    .tag("model", model)
+                    .tag("mode", streamingChatModel != null ? "streaming" : "blocking")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the execution tracker configured for this agent, if any.
+     *
+     * @return The {@link AgentExecutionTracker}, or {@code null} if none was configured.
+     */
+    protected AgentExecutionTracker agentExecutionTracker() {
+        return agentExecutionTracker;
+    }
+
+    /**
+     * The text of the newest message of a request: the user prompt on the first turn, a tool result afterwards.
+     * The full history is not copied into the span.
+     */
+    private static String lastMessageText(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return null;
+        }
+        ChatMessage last = messages.get(messages.size() - 1);
+        return switch (last) {
+            case UserMessage user -> user.hasSingleText() ? user.singleText() : user.toString();
+            case ToolExecutionResultMessage toolResult -> toolResult.text();
+            case AiMessage ai -> ai.text();
+            case SystemMessage system -> system.text();
+            default -> last.toString();
+        };
+    }
+
+    /**
+     * Copies the model name, token usage and answer (or requested tool calls) of a response onto its span.
+     */
+    private static void recordResponse(Span span, ChatResponse response) {
+        span.setAttribute(ExecutionFlows.RESPONSE_MODEL, response.modelName());
+        if (response.tokenUsage() != null) {
+            span.setAttribute(ExecutionFlows.INPUT_TOKENS, response.tokenUsage().inputTokenCount())
+                    .setAttribute(ExecutionFlows.OUTPUT_TOKENS, response.tokenUsage().outputTokenCount());
+        }
+        AiMessage aiMessage = response.aiMessage();
+        if (aiMessage != null) {
+            span.setOutput(aiMessage.hasToolExecutionRequests()
+                    ? aiMessage.toolExecutionRequests().toString()
+                    : aiMessage.text());
+        }
+    }
+
+    /**
+     * Sends one model turn through the streaming chat model and blocks until the complete response arrives.
+     * Every partial token is published to the current session (taken from the MDC) via the tracker, so the
+     * frontend receives text as soon as the model produces it. Tool calls are part of the complete response:
+     * the streaming handler of the LangChain4j version in use only reports them once the turn finishes,
+     * at which point the loop dispatches them immediately. The time to the first token is recorded on the
+     * current LLM span.
+     *
+     * @param chatRequest The request for this turn.
+     * @return The aggregated {@link ChatResponse}, equivalent to what the blocking model would return.
+     */
+    private ChatResponse streamChat(ChatRequest chatRequest) {
+        String sessionId = MDC.get("sessionId");
+        CompletableFuture<ChatResponse> responseFuture = new CompletableFuture<>();
+        long start = System.nanoTime();
+        AtomicLong firstTokenNanos = new AtomicLong();
+
+        streamingChatModel.chat(chatRequest, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                firstTokenNanos.compareAndSet(0, System.nanoTime());
+                if (agentExecutionTracker != null) {
+                    agentExecutionTracker.publishStreamChunk(sessionId, name(), partialResponse);
+                }
             }
 
-            // 5. Execute the requested tool(s)
-            List<ToolExecutionRequest> requests = aiMessage.toolExecutionRequests();
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                responseFuture.complete(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                responseFuture.completeExceptionally(error);
+            }
+        });
+
+        try {
+            ChatResponse response = responseFuture.get();
+            long firstToken = firstTokenNanos.get() != 0 ? firstTokenNanos.get() : System.nanoTime();
+            tracer.currentSpan().ifPresent(span -> span.setAttribute(ExecutionFlows.TIME_TO_FIRST_TOKEN_MS,
+                    TimeUnit.NANOSECONDS.toMillis(firstToken - start)));
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while streaming LLM response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("LLM streaming failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Executes the tool calls requested in one model turn.
+     * With parallel dispatch disabled, or for a single request, the calls run one after another on the
+     * current thread. Otherwise consecutive non-serial requests are grouped into batches that run
+     * concurrently on virtual threads (bounded by {@code maxConcurrentToolCalls}), while serial tools
+     * act as barriers and run alone. Requests for unknown tools are skipped, as before.
+     *
+     * @param requests The tool execution requests of the current {@link AiMessage}.
+     * @param memoryId The memory id forwarded to each tool executor.
+     * @return The tool results, in the same order as {@code requests}.
+     */
+    private List<ToolExecutionResultMessage> executeToolRequests(List<ToolExecutionRequest> requests, Object memoryId) {
+        List<ToolExecutionResultMessage> results = new ArrayList<>(requests.size());
+        if (!parallelToolCalls || requests.size() < 2) {
             for (ToolExecutionRequest request : requests) {
-                log.debug("Executing tool: {}", request.name());
-                
-                // 通知前端工具执行开始
-                log.info(TO_FRONTEND, "│  🔧 执行工具: {}", request.name());
-                
-                Map.Entry<ToolSpecification, ToolExecutor> toolEntry = tools.get(request.name());
-                if (toolEntry != null) {
-                    // Execute the tool and get the outcome.
-                    String outcome = toolEntry.getValue().execute(request, memoryId);
-                    // Create a message with the tool's result.
-                    ToolExecutionResultMessage toolResultMessage = ToolExecutionResultMessage.from(request, outcome);
-                    messages.add(toolResultMessage); // Add the tool result to the conversation history for the next iteration.
-                    
-                    // 通知前端工具执行完成
-                    log.info(TO_FRONTEND, "│  ✔️  工具执行完成: {}", request.name());
+                ToolExecutionResultMessage result = executeTool(request, memoryId);
+                if (result != null) {
+                    results.add(result);
                 }
             }
+            return results;
+        }
+
+        List<ToolExecutionRequest> batch = new ArrayList<>();
+        for (ToolExecutionRequest request : requests) {
+            if (serialTools.contains(request.name())) {
+                results.addAll(executeBatch(batch, memoryId));
+                batch.clear();
+                ToolExecutionResultMessage result = executeTool(request, memoryId);
+                if (result != null) {
+                    results.add(result);
+                }
+            } else {
+                batch.add(request);
+            }
+        }
+        results.addAll(executeBatch(batch, memoryId));
+        return results;
+    }
+
+    /**
+     * Runs a batch of independent tool calls concurrently and collects their results in batch order.
+     * The caller's MDC context (notably {@code sessionId}, which keys the tracker's current phase)
+     * is copied onto every virtual thread. Results are awaited in completion order, so the first
+     * failure interrupts the remaining calls and is rethrown without waiting for slower siblings.
+     */
+    private List<ToolExecutionResultMessage> executeBatch(List<ToolExecutionRequest> batch, Object memoryId) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        if (batch.size() == 1) {
+            ToolExecutionResultMessage result = executeTool(batch.get(0), memoryId);
+            return result != null ? List.of(result) : List.of();
+        }
+
+        log.debug("Dispatching {} tool calls in parallel (max concurrency {})", batch.size(), maxConcurrentToolCalls);
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        Semaphore permits = new Semaphore(maxConcurrentToolCalls);
+        List<Future<ToolExecutionResultMessage>> futures = new ArrayList<>(batch.size());
+
+        // Not try-with-resources: close() would wait for every task, including the ones cancelled after a failure.
+        ExecutorService executor = TtlExecutors.getTtlExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+        CompletionService<ToolExecutionResultMessage> completion = new ExecutorCompletionService<>(executor);
+        try {
+            for (ToolExecutionRequest request : batch) {
+                futures.add(completion.submit(() -> {
+                    if (mdcContext != null) {
+                        MDC.setContextMap(mdcContext);
+                    }
+                    permits.acquire();
+                    try {
+                        return executeTool(request, memoryId);
+                    } finally {
+                        permits.release();
+                        MDC.clear();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                completion.take().get();
+            }
+
+            List<ToolExecutionResultMessage> results = new ArrayList<>(batch.size());
+            for (Future<ToolExecutionResultMessage> future : futures) {
+                ToolExecutionResultMessage result = future.resultNow();
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for parallel tool calls", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Tool execution failed: " + cause.getMessage(), cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes a single tool call and wraps its outcome as a {@link ToolExecutionResultMessage}.
+     *
+     * @return The result message, or {@code null} if no tool with the requested name is registered.
+     */
+    private ToolExecutionResultMessage executeTool(ToolExecutionRequest request, Object memoryId) {
+        log.debug("Executing tool: {}", request.name());
+
+        // 通知前端工具执行开始
+        log.info(TO_FRONTEND, "│  🔧 执行工具: {}", request.name());
+
+        Map.Entry<ToolSpecification, ToolExecutor> toolEntry = tools.get(request.name());
+        if (toolEntry == null) {
+            return null;
+        }
+
+        // Execute the tool and get the outcome.
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = OUTCOME_ERROR;
+        String outcome;
+        try {
+            outcome = tracer.trace("execute_tool " + request.name(), Span.Kind.TOOL, span -> {
+                span.setAttribute(ExecutionFlows.AGENT_NAME, name())
+                        .setAttribute(ExecutionFlows.TOOL_NAME, request.name())
+                        .setInput(request.arguments());
+                String toolResult = toolEntry.getValue().execute(request, memoryId);
+                span.setOutput(toolResult);
+                return toolResult;
+            });
+            result = OUTCOME_SUCCESS;
+        } finally {
+            sample.stop(Timer.builder(METRIC_PREFIX + ".tool.calls")
+                    .description("Tool calls dispatched by the ReAct loop")
+                    .tag("agent", name())
+                    .tag("tool", request.name())
+                    .tag("outcome", result)
+                    .register(meterRegistry));
         }
 
-        throw new RuntimeException("Agent exceeded maximum iterations (" + MAX_ITERATIONS + ")");
+        // 通知前端工具执行完成
+        log.info(TO_FRONTEND, "│  ✔️  工具执行完成: {}", request.name());
+        return ToolExecutionResultMessage.from(request, outcome);
     }
 
     /**
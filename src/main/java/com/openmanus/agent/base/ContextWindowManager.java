@@ -0,0 +1,152 @@
+package com.openmanus.agent.base;
+
+import com.openmanus.infra.exception.TokenLimitExceededException;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps the conversation of a ReAct loop inside a token budget.
+ * <p>
+ * Before every model call the executor hands its message history to a {@link Window}, which counts tokens
+ * locally with a {@link TokenCountEstimator}. When the history plus the tool specifications exceed
+ * {@code maxInputTokens}, older tool results (typically multi-KB web pages or script output) are replaced
+ * in place by truncated stubs that keep the head and tail of the original text. The most recent
+ * {@code keepRecentToolResults} results are only compacted as a last resort. Tool call ids are preserved,
+ * so every tool call still has its matching result. If the history still does not fit once every tool
+ * result has been compacted, a {@link TokenLimitExceededException} is thrown.
+ */
+@Slf4j
+public class ContextWindowManager {
+
+    private static final String COMPACTED_MARKER = "\n…[已压缩: 原始结果 %d 字符, 已省略 %d 字符]…\n";
+
+    private final TokenCountEstimator estimator;
+    private final int maxInputTokens;
+    private final int keepRecentToolResults;
+    private final int compactedToolResultChars;
+
+    /**
+     * @param estimator                The local token counter.
+     * @param maxInputTokens           The token budget for one model request (messages plus tool specifications).
+     * @param keepRecentToolResults    How many of the newest tool results are left untouched in the first pass.
+     * @param compactedToolResultChars How many characters of a tool result survive compaction.
+     */
+    public ContextWindowManager(TokenCountEstimator estimator, int maxInputTokens,
+                                int keepRecentToolResults, int compactedToolResultChars) {
+        if (maxInputTokens < 1) {
+            throw new IllegalArgumentException("maxInputTokens must be at least 1");
+        }
+        this.estimator = Objects.requireNonNull(estimator, "estimator cannot be null");
+        this.maxInputTokens = maxInputTokens;
+        this.keepRecentToolResults = Math.max(0, keepRecentToolResults);
+        this.compactedToolResultChars = Math.max(0, compactedToolResultChars);
+    }
+
+    /**
+     * Opens a window for one agent execution. The window caches per-message token counts, so each message
+     * is tokenized only once however many iterations the loop runs.
+     *
+     * @param toolSpecifications The tool specifications sent with every request of this execution.
+     * @return A new {@link Window}.
+     */
+    public Window open(List<ToolSpecification> toolSpecifications) {
+        int toolTokens = 0;
+        for (ToolSpecification specification : toolSpecifications) {
+            toolTokens += estimator.estimateTokenCountInText(specification.toString());
+        }
+        return new Window(toolTokens);
+    }
+
+    /**
+     * The token accounting of a single agent execution. Not thread-safe; the ReAct loop is single-threaded.
+     */
+    public class Window {
+
+        private final int toolTokens;
+        private final Map<ChatMessage, Integer> tokenCounts = new IdentityHashMap<>();
+        private final Set<ChatMessage> stubs = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Window(int toolTokens) {
+            this.toolTokens = toolTokens;
+        }
+
+        /**
+         * Compacts {@code messages} in place until the next request fits the budget.
+         *
+         * @param messages The conversation history that is about to be sent.
+         * @return The estimated number of input tokens after compaction.
+         * @throws TokenLimitExceededException if the history cannot be brought under the budget.
+         */
+        public int fit(List<ChatMessage> messages) {
+            int total = toolTokens;
+            for (ChatMessage message : messages) {
+                total += tokens(message);
+            }
+            if (total <= maxInputTokens) {
+                return total;
+            }
+
+            int before = total;
+            int toolResultCount = (int) messages.stream().filter(ToolExecutionResultMessage.class::isInstance).count();
+            // First pass spares the newest tool results, the second pass compacts them too.
+            total = compact(messages, total, Math.max(0, toolResultCount - keepRecentToolResults));
+            if (total > maxInputTokens) {
+                total = compact(messages, total, toolResultCount);
+            }
+            if (total > maxInputTokens) {
+                throw new TokenLimitExceededException(String.format(
+                        "Conversation needs %d tokens after compacting all tool results, budget is %d", total, maxInputTokens));
+            }
+            log.info("Compacted conversation history from {} to {} tokens (budget {})", before, total, maxInputTokens);
+            return total;
+        }
+
+        /**
+         * Compacts the first {@code limit} tool results, oldest first, until the budget is met.
+         */
+        private int compact(List<ChatMessage> messages, int total, int limit) {
+            int seen = 0;
+            for (int i = 0; i < messages.size() && seen < limit && total > maxInputTokens; i++) {
+                if (!(messages.get(i) instanceof ToolExecutionResultMessage result)) {
+                    continue;
+                }
+                seen++;
+                String text = result.text();
+                if (stubs.contains(result) || text == null || text.length() <= compactedToolResultChars) {
+                    continue;
+                }
+                ToolExecutionResultMessage stub = ToolExecutionResultMessage.from(result.id(), result.toolName(), truncate(text));
+                total += tokens(stub) - tokens(result);
+                tokenCounts.remove(result);
+                stubs.add(stub);
+                messages.set(i, stub);
+            }
+            return total;
+        }
+
+        private int tokens(ChatMessage message) {
+            return tokenCounts.computeIfAbsent(message, estimator::estimateTokenCountInMessage);
+        }
+    }
+
+    /**
+     * Keeps the head and the tail of a tool result, which usually carry the status line and the conclusion.
+     */
+    private String truncate(String text) {
+        int head = compactedToolResultChars * 2 / 3;
+        int tail = compactedToolResultChars - head;
+        return text.substring(0, head)
+                + String.format(COMPACTED_MARKER, text.length(), text.length() - head - tail)
+                + text.substring(text.length() - tail);
+    }
+}
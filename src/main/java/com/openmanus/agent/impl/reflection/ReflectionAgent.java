@@ -2,7 +2,6 @@ package com.openmanus.agent.impl.reflection;
 
 import com.openmanus.agent.base.AbstractAgentExecutor;
 import com.openmanus.domain.model.AgentExecutionEvent;
-import com.openmanus.infra.monitoring.AgentExecutionTracker;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.SystemMessage;
 import lombok.extern.slf4j.Slf4j;
@@ -27,8 +26,6 @@ import static com.openmanus.infra.log.LogMarkers.TO_FRONTEND;
 @Slf4j
 public class ReflectionAgent extends AbstractAgentExecutor<ReflectionAgent.Builder> {
 
-    private final AgentExecutionTracker agentExecutionTracker;
-
     // 状态常量
     private static final String STATUS_COMPLETE = "STATUS: COMPLETE";
     private static final String STATUS_INCOMPLETE = "STATUS: INCOMPLETE";
@@ -86,13 +83,6 @@ public class ReflectionAgent extends AbstractAgentExecutor<ReflectionAgent.Build
 
     public static class Builder extends AbstractAgentExecutor.Builder<Builder> {
 
-        private AgentExecutionTracker agentExecutionTracker;
-
-        public Builder agentExecutionTracker(AgentExecutionTracker agentExecutionTracker) {
-            this.agentExecutionTracker = agentExecutionTracker;
-            return this;
-        }
-
         public ReflectionAgent build() {
             this.name("reflection_agent")
                 .description("当任务执行完成后，使用此工具评估结果质量和完整性，决定是否需要进一步改进。适用于：评估执行结果、检查任务完成度、提供改进建议")
@@ -109,7 +99,6 @@ public class ReflectionAgent extends AbstractAgentExecutor<ReflectionAgent.Build
 
     public ReflectionAgent(Builder builder) {
         super(builder);
-        this.agentExecutionTracker = builder.agentExecutionTracker;
     }
 
     @Override
@@ -117,7 +106,7 @@ public class ReflectionAgent extends AbstractAgentExecutor<ReflectionAgent.Build
         String sessionId = memoryId != null ? memoryId.toString() : "unknown-session";
         String input = toolExecutionRequest.arguments();
         
-        agentExecutionTracker.startAgentExecution(sessionId, name(), "REFLECTION_START", input);
+        agentExecutionTracker().startAgentExecution(sessionId, name(), "REFLECTION_START", input);
         log.debug("ReflectionAgent.execute, ToolExecutionRequest:{}\n memoryId:{}", toolExecutionRequest, memoryId);
 
         // 反思阶段开始
@@ -142,7 +131,7 @@ public class ReflectionAgent extends AbstractAgentExecutor<ReflectionAgent.Build
             log.info(TO_FRONTEND, "│  🔄 需要进一步优化 · 启动下一轮迭代                        │");
             log.info(TO_FRONTEND, "└──────────────────────────────────────────────────────────┘");
         }
-        agentExecutionTracker.endAgentExecution(sessionId, name(), "REFLECTION_END", result, AgentExecutionEvent.ExecutionStatus.SUCCESS);
+        agentExecutionTracker().endAgentExecution(sessionId, name(), "REFLECTION_END", result, AgentExecutionEvent.ExecutionStatus.SUCCESS);
         
         return result;
     }
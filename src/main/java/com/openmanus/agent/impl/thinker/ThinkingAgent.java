@@ -1,7 +1,6 @@
 package com.openmanus.agent.impl.thinker;
 
 import com.openmanus.agent.base.AbstractAgentExecutor;
-import com.openmanus.infra.monitoring.AgentExecutionTracker;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.SystemMessage;
 import lombok.extern.slf4j.Slf4j;
@@ -26,8 +25,6 @@ import static com.openmanus.infra.log.LogMarkers.TO_FRONTEND;
 @Slf4j
 public class ThinkingAgent extends AbstractAgentExecutor<ThinkingAgent.Builder> {
 
-    private final AgentExecutionTracker agentExecutionTracker;
-
     // 系统消息模板提取为常量，便于维护
     private static final String SYSTEM_MESSAGE_TEMPLATE = """
         **角色**: 你是一位顶级的AI软件工程师和首席规划师。
@@ -89,13 +86,6 @@ public class ThinkingAgent extends AbstractAgentExecutor<ThinkingAgent.Builder>
 
     public static class Builder extends AbstractAgentExecutor.Builder<Builder> {
 
-        private AgentExecutionTracker agentExecutionTracker;
-
-        public Builder agentExecutionTracker(AgentExecutionTracker agentExecutionTracker) {
-            this.agentExecutionTracker = agentExecutionTracker;
-            return this;
-        }
-
         public ThinkingAgent build() {
             this.name("thinking_agent")
                 .description("当用户提出新任务或需要重新规划时，使用此工具进行任务分析和制定执行计划。适用于：分析复杂任务、制定执行步骤、重新规划策略")
@@ -112,7 +102,6 @@ public class ThinkingAgent extends AbstractAgentExecutor<ThinkingAgent.Builder>
 
     public ThinkingAgent(Builder builder) {
         super(builder);
-        this.agentExecutionTracker = builder.agentExecutionTracker;
     }
 
     @Override
@@ -120,7 +109,7 @@ public class ThinkingAgent extends AbstractAgentExecutor<ThinkingAgent.Builder>
         String sessionId = memoryId != null ? memoryId.toString() : "unknown-session";
         String input = toolExecutionRequest.arguments();
         
-        agentExecutionTracker.startAgentExecution(sessionId, name(), "THINKING_START", input);
+        agentExecutionTracker().startAgentExecution(sessionId, name(), "THINKING_START", input);
         log.debug("ThinkingAgent.execute, ToolExecutionRequest:{}\n memoryId:{}", toolExecutionRequest, memoryId);
         
         // 思考阶段开始
@@ -138,7 +127,7 @@ public class ThinkingAgent extends AbstractAgentExecutor<ThinkingAgent.Builder>
         log.info(TO_FRONTEND, "┌──────────────────────────────────────────────────────────┐");
         log.info(TO_FRONTEND, "│  ✅ 思考完成 · 已生成执行计划                              │");
         log.info(TO_FRONTEND, "└──────────────────────────────────────────────────────────┘");
-        agentExecutionTracker.endAgentExecution(sessionId, name(), "THINKING_END", result, AgentExecutionEvent.ExecutionStatus.SUCCESS);
+        agentExecutionTracker().endAgentExecution(sessionId, name(), "THINKING_END", result, AgentExecutionEvent.ExecutionStatus.SUCCESS);
 
         return result;
     }
@@ -1,10 +1,14 @@
 package com.openmanus.agent.tool;
 
+import com.openmanus.agent.tool.annotation.CacheableTool;
 import com.openmanus.domain.model.SessionSandboxInfo;
 import com.openmanus.domain.service.SessionSandboxManager;
+import com.openmanus.infra.concurrent.SingleFlight;
 import com.openmanus.infra.config.OpenManusProperties;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +22,7 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -36,6 +41,9 @@ import static com.openmanus.infra.log.LogMarkers.TO_FRONTEND;
  * 设计模式：
  * - 策略模式：不同搜索引擎可扩展
  * - 块解析模式：HTML 结果解析器
+ * 
+ * 指标：openmanus.browser.fetches（timer，operation=browse|search，outcome），只统计实际发出的网络请求，
+ * 合并到同一次请求的并发调用和缓存命中不计入
  */
 @Component
 @Slf4j
@@ -43,11 +51,16 @@ public class BrowserTool {
     
     private final SessionSandboxManager sessionSandboxManager;
     private final OpenManusProperties properties;
+    private final MeterRegistry meterRegistry;
+    // 合并并发的相同网络请求（相同 URL 或搜索词），避免突发流量打满上游限额
+    private final SingleFlight<String, String> networkCalls = new SingleFlight<>();
     
     @Autowired
-    public BrowserTool(SessionSandboxManager sessionSandboxManager, OpenManusProperties properties) {
+    public BrowserTool(SessionSandboxManager sessionSandboxManager, OpenManusProperties properties,
+                       MeterRegistry meterRegistry) {
         this.sessionSandboxManager = sessionSandboxManager;
         this.properties = properties;
+        this.meterRegistry = meterRegistry;
     }
     
     // 网络配置常量
@@ -66,6 +79,8 @@ public class BrowserTool {
     
     // 消息模板
     private static final String MSG_ACCESS_FAILED = "访问失败，HTTP状态码: ";
+    private static final String MSG_BROWSE_FAILED = "访问网页失败: ";
+    private static final String MSG_SEARCH_FAILED = "搜索失败";
     private static final String MSG_CONTENT_TRUNCATED = "\n... (内容已截断)";
     private static final String MSG_RESULT_TRUNCATED = "\n... (结果已截断)";
     
@@ -74,6 +89,7 @@ public class BrowserTool {
      * 首次调用时会自动创建 VNC 沙箱浏览器
      */
     @Tool("访问网页并获取内容")
+    @CacheableTool(ttlSeconds = 300, failurePrefixes = {MSG_BROWSE_FAILED, MSG_ACCESS_FAILED})
     public String browseWeb(@P("网页 URL") String url) {
         try {
             // 确保沙箱已创建（首次调用时触发）
@@ -87,29 +103,59 @@ public class BrowserTool {
             log.info(TO_FRONTEND, "│  🌐 BROWSER · 网页访问模块");
             log.info(TO_FRONTEND, "│  📄 正在访问: {}", url);
 
-            // 建立HTTP连接
-            HttpURLConnection connection = createConnection(url, USER_AGENT_BROWSER);
-            
-            // 检查响应状态
-            int responseCode = connection.getResponseCode();
-            if (responseCode != HTTP_OK) {
-                return MSG_ACCESS_FAILED + responseCode;
-            }
+            String targetUrl = url;
+            return networkCalls.execute("browse:" + targetUrl, () -> timedFetch("browse", () -> fetchPage(targetUrl)));
 
-            // 读取网页内容
-            String content = readContent(connection);
-            
-            // 限制返回内容长度
-            if (content.length() > MAX_CONTENT_LENGTH) {
-                content = content.substring(0, MAX_CONTENT_LENGTH) + MSG_CONTENT_TRUNCATED;
-            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return MSG_BROWSE_FAILED + "已取消";
+        } catch (Exception e) {
+            log.error("访问网页失败: {}", url, e);
+            return MSG_BROWSE_FAILED + e.getMessage();
+        }
+    }
+
+    /**
+     * 记录一次网络请求的耗时；HTTP 非 200 的网页访问记为 http_error
+     */
+    private String timedFetch(String operation, Callable<String> fetch) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String result = fetch.call();
+            outcome = result.startsWith(MSG_ACCESS_FAILED) ? "http_error" : "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("openmanus.browser.fetches")
+                    .description("Network requests made by the browser tool")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
 
-            return "网页内容:\n" + content;
+    /**
+     * 获取网页内容
+     */
+    private String fetchPage(String url) throws IOException {
+        // 建立HTTP连接
+        HttpURLConnection connection = createConnection(url, USER_AGENT_BROWSER);
 
-        } catch (IOException e) {
-            log.error("访问网页失败: {}", url, e);
-            return "访问网页失败: " + e.getMessage();
+        // 检查响应状态
+        int responseCode = connection.getResponseCode();
+        if (responseCode != HTTP_OK) {
+            return MSG_ACCESS_FAILED + responseCode;
+        }
+
+        // 读取网页内容
+        String content = readContent(connection);
+
+        // 限制返回内容长度
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            content = content.substring(0, MAX_CONTENT_LENGTH) + MSG_CONTENT_TRUNCATED;
         }
+
+        return "网页内容:\n" + content;
     }
     
     /**
@@ -117,6 +163,7 @@ public class BrowserTool {
      * 使用 Serper API 获取结构化搜索结果，同时通知前端展示搜索页面
      */
     @Tool("搜索网络内容")
+    @CacheableTool(ttlSeconds = 600, failurePrefixes = MSG_SEARCH_FAILED)
     public String searchWeb(@P("搜索关键词") String query) {
         int retryCount = 0;
         Exception lastException = null;
@@ -152,8 +199,9 @@ public class BrowserTool {
                     return fallbackSearch(query, encodedQuery);
                 }
                 
-                // 使用 Serper API 获取搜索结果
-                String results = searchWithSerperApi(query, searchConfig);
+                // 使用 Serper API 获取搜索结果，并发的相同查询共享一次请求
+                String results = networkCalls.execute("search:" + query,
+                        () -> timedFetch("search", () -> searchWithSerperApi(query, searchConfig)));
                 log.info(TO_FRONTEND, "┌──────────────────────────────────────────────────────────┐");
                 log.info(TO_FRONTEND, "│  ✅ 搜索完成 · 已获取相关结果                              │");
                 log.info(TO_FRONTEND, "└──────────────────────────────────────────────────────────┘");
@@ -167,7 +215,7 @@ public class BrowserTool {
         }
         
         log.error("搜索最终失败: {}", query, lastException);
-        return "搜索失败 (已重试 " + MAX_RETRIES + " 次): " + (lastException != null ? lastException.getMessage() : "Unknown error");
+        return MSG_SEARCH_FAILED + " (已重试 " + MAX_RETRIES + " 次): " + (lastException != null ? lastException.getMessage() : "Unknown error");
     }
     
     /**
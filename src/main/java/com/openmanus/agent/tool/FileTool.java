@@ -1,5 +1,8 @@
 package com.openmanus.agent.tool;
 
+import com.openmanus.agent.tool.annotation.CacheableTool;
+import com.openmanus.agent.tool.annotation.SerialTool;
+import com.openmanus.agent.tool.annotation.ToolCacheEvict;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +31,8 @@ import java.util.stream.Stream;
 public class FileTool {
 
     @Tool("读取文件内容")
+    @CacheableTool(ttlSeconds = 60, pathArgument = "filePath",
+            failurePrefixes = {"读取文件失败", "文件不存在", "文件不可读"})
     public String readFile(@P("文件路径") String filePath) {
         return executeFileOperation(filePath, path -> {
             if (!Files.exists(path)) {
@@ -41,6 +46,8 @@ public class FileTool {
     }
 
     @Tool("写入文件内容")
+    @SerialTool
+    @ToolCacheEvict(pathArgument = "filePath")
     public String writeFile(@P("文件路径") String filePath, @P("文件内容") String content) {
         return executeFileOperation(filePath, path -> {
             ensureParentExists(path);
@@ -50,6 +57,8 @@ public class FileTool {
     }
 
     @Tool("追加文件内容")
+    @SerialTool
+    @ToolCacheEvict(pathArgument = "filePath")
     public String appendFile(@P("文件路径") String filePath, @P("追加的内容") String content) {
         return executeFileOperation(filePath, path -> {
             ensureParentExists(path);
@@ -59,6 +68,8 @@ public class FileTool {
     }
     
     @Tool("列出目录内容")
+    @CacheableTool(ttlSeconds = 60, pathArgument = "dirPath",
+            failurePrefixes = {"列出目录失败", "目录不存在", "不是目录"})
     public String listDirectory(@P("目录路径") String dirPath) {
         return executeFileOperation(dirPath, path -> {
             if (!Files.exists(path)) {
@@ -83,6 +94,8 @@ public class FileTool {
     }
 
     @Tool("创建目录")
+    @SerialTool
+    @ToolCacheEvict(pathArgument = "dirPath")
     public String createDirectory(@P("目录路径") String dirPath) {
         return executeFileOperation(dirPath, path -> {
             Files.createDirectories(path);
@@ -91,6 +104,8 @@ public class FileTool {
     }
 
     @Tool("删除文件或目录")
+    @SerialTool
+    @ToolCacheEvict(pathArgument = "targetPath")
     public String deleteFile(@P("文件或目录路径") String targetPath) {
         return executeFileOperation(targetPath, path -> {
             if (!Files.exists(path)) {
@@ -108,12 +123,15 @@ public class FileTool {
     }
     
     @Tool("检查文件是否存在")
+    @CacheableTool(ttlSeconds = 60, pathArgument = "filePath", failurePrefixes = "文件不存在")
     public String fileExists(@P("文件路径") String filePath) {
         Path path = Paths.get(filePath);
         return Files.exists(path) ? "文件存在: " + filePath : "文件不存在: " + filePath;
     }
     
     @Tool("获取文件信息")
+    @CacheableTool(ttlSeconds = 60, pathArgument = "filePath",
+            failurePrefixes = {"获取文件信息失败", "文件不存在"})
     public String getFileInfo(@P("文件路径") String filePath) {
         return executeFileOperation(filePath, path -> {
             if (!Files.exists(path)) {
@@ -1,5 +1,6 @@
 package com.openmanus.agent.tool;
 
+import com.openmanus.agent.tool.annotation.ToolCacheEvict;
 import com.openmanus.infra.sandbox.ExecutionResult;
 import com.openmanus.infra.sandbox.SandboxClient;
 import dev.langchain4j.agent.tool.P;
@@ -40,6 +41,7 @@ public class PythonTool {
      * 执行 Python 代码字符串（在沙箱中）
      */
     @Tool("在沙箱中执行Python代码")
+    @ToolCacheEvict
     public String executePython(
             @P("思考过程或代码计划的简要说明") String thought,
             @P("要执行的Python代码") String code) {
@@ -60,6 +62,7 @@ public class PythonTool {
      * 执行 Python 文件（在沙箱中）
      */
     @Tool("执行Python文件")
+    @ToolCacheEvict
     public String executePythonFile(@P("Python文件路径") String filePath) {
         log.info("执行 Python 文件: {}", filePath);
         
@@ -0,0 +1,309 @@
+package com.openmanus.agent.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openmanus.agent.tool.annotation.CacheableTool;
+import com.openmanus.agent.tool.annotation.ToolCacheEvict;
+import com.openmanus.infra.config.OpenManusProperties;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 会话级工具结果缓存
+ *
+ * 功能：
+ * 1. 对标注了 {@link CacheableTool} 的工具，以「工具名 + 规范化 JSON 参数」为键缓存结果，作用域为当前会话（MDC sessionId）；
+ *    null 和匹配 {@link CacheableTool#failurePrefixes()} 的失败结果不缓存
+ * 2. 标注了 {@link ToolCacheEvict} 的工具执行后，按路径失效相关缓存条目
+ * 3. 统计命中/未命中次数，同时注册到 Micrometer（openmanus.tool.cache.requests）
+ * 4. 工作流结束时清除该会话的缓存；后台定期删除过期条目和空会话，不只在查找时淘汰
+ *
+ * 没有 sessionId 的调用（如单元测试、非 Web 入口）直接透传，不做缓存
+ */
+@Component
+@Slf4j
+public class ToolResultCache {
+
+    private static final String SESSION_ID_KEY = "sessionId";
+    private static final String METRIC_NAME = "openmanus.tool.cache.requests";
+
+    private final ObjectMapper canonicalMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private final Map<String, SessionCache> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final MeterRegistry meterRegistry;
+    private final int maxEntriesPerSession;
+    private final int maxSessions;
+
+    public ToolResultCache(OpenManusProperties properties, MeterRegistry meterRegistry) {
+        OpenManusProperties.AgentConfig.ToolCacheConfig config = properties.getAgent().getToolCache();
+        this.meterRegistry = meterRegistry;
+        this.maxEntriesPerSession = config.getMaxEntriesPerSession();
+        this.maxSessions = config.getMaxSessions();
+    }
+
+    /**
+     * 按工具方法上的注解包装执行器
+     *
+     * @param toolName 工具名
+     * @param executor 原始执行器
+     * @param cacheable 缓存策略，可为 null
+     * @param evict 失效策略，可为 null
+     * @return 包装后的执行器；两个注解都不存在时返回原执行器
+     */
+    public ToolExecutor decorate(String toolName, ToolExecutor executor, CacheableTool cacheable, ToolCacheEvict evict) {
+        if (cacheable != null) {
+            return (request, memoryId) -> executeCached(toolName, cacheable, executor, request, memoryId);
+        }
+        if (evict != null) {
+            return (request, memoryId) -> {
+                String result = executor.execute(request, memoryId);
+                if (evict.pathArgument().isEmpty()) {
+                    evictAllPaths(MDC.get(SESSION_ID_KEY));
+                } else {
+                    evictPath(MDC.get(SESSION_ID_KEY), argument(request, evict.pathArgument()));
+                }
+                return result;
+            };
+        }
+        return executor;
+    }
+
+    /**
+     * 失效会话中与指定路径相关的条目：同一路径、其祖先目录（如列目录结果）和其子路径（如删除目录）
+     */
+    public void evictPath(String sessionId, String rawPath) {
+        if (sessionId == null || rawPath == null) {
+            return;
+        }
+        SessionCache cache = sessions.get(sessionId);
+        Path changed = normalize(rawPath);
+        if (cache == null || changed == null) {
+            return;
+        }
+        int removed = cache.removeIf(entry -> entry.path != null
+                && (entry.path.startsWith(changed) || changed.startsWith(entry.path)));
+        if (removed > 0) {
+            evictions.add(removed);
+            log.debug("Evicted {} cached tool results for path {} in session {}", removed, changed, sessionId);
+        }
+    }
+
+    /**
+     * 失效会话中所有带路径的条目（文件读取、列目录等），网页和搜索结果保留
+     */
+    public void evictAllPaths(String sessionId) {
+        SessionCache cache = sessionId != null ? sessions.get(sessionId) : null;
+        if (cache == null) {
+            return;
+        }
+        int removed = cache.removeIf(entry -> entry.path != null);
+        if (removed > 0) {
+            evictions.add(removed);
+            log.debug("Evicted {} cached file results in session {}", removed, sessionId);
+        }
+    }
+
+    /**
+     * 清除整个会话的缓存
+     */
+    public void evictSession(String sessionId) {
+        if (sessionId != null) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    /**
+     * 定期删除过期条目，并移除不再有条目的会话
+     */
+    @Scheduled(fixedDelayString = "${openmanus.agent.tool-cache.eviction-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((sessionId, cache) -> {
+            int removed = cache.removeIf(entry -> entry.expiresAt <= now);
+            if (removed > 0) {
+                evictions.add(removed);
+            }
+            if (cache.size() == 0) {
+                sessions.remove(sessionId, cache);
+            }
+        });
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("sessions", sessions.size());
+        stats.put("entries", sessions.values().stream().mapToInt(SessionCache::size).sum());
+        return stats;
+    }
+
+    private String executeCached(String toolName, CacheableTool policy, ToolExecutor executor,
+                                 ToolExecutionRequest request, Object memoryId) {
+        String sessionId = MDC.get(SESSION_ID_KEY);
+        if (sessionId == null) {
+            return executor.execute(request, memoryId);
+        }
+
+        String key = toolName + ":" + canonicalize(request.arguments());
+        long now = System.currentTimeMillis();
+        SessionCache cache = sessionCache(sessionId, now);
+        Entry cached = cache.get(key, now);
+        if (cached != null) {
+            record(toolName, true);
+            log.debug("Tool cache hit: {} in session {}", key, sessionId);
+            return cached.result;
+        }
+
+        record(toolName, false);
+        String result = executor.execute(request, memoryId);
+        if (result != null && !isFailure(policy, result)) {
+            Path path = policy.pathArgument().isEmpty() ? null : normalize(argument(request, policy.pathArgument()));
+            cache.put(key, new Entry(result, path, now + policy.ttlSeconds() * 1000));
+        }
+        return result;
+    }
+
+    private static boolean isFailure(CacheableTool policy, String result) {
+        for (String prefix : policy.failurePrefixes()) {
+            if (result.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SessionCache sessionCache(String sessionId, long now) {
+        SessionCache cache = sessions.computeIfAbsent(sessionId, id -> new SessionCache(maxEntriesPerSession));
+        cache.lastAccess = now;
+        if (sessions.size() > maxSessions) {
+            // 超出会话上限时淘汰最久未访问的会话
+            sessions.entrySet().stream()
+                    .filter(e -> !e.getKey().equals(sessionId))
+                    .min(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                    .ifPresent(e -> sessions.remove(e.getKey()));
+        }
+        return cache;
+    }
+
+    private void record(String toolName, boolean hit) {
+        (hit ? hits : misses).increment();
+        String result = hit ? "hit" : "miss";
+        counters.computeIfAbsent(toolName + ":" + result, k -> Counter.builder(METRIC_NAME)
+                .description("Tool result cache lookups")
+                .tag("tool", toolName)
+                .tag("result", result)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 规范化参数：解析 JSON 后按键排序重新序列化，使键顺序和空白不同的相同参数命中同一条目
+     */
+    private String canonicalize(String arguments) {
+        if (arguments == null || arguments.isBlank()) {
+            return "{}";
+        }
+        try {
+            return canonicalMapper.writeValueAsString(canonicalMapper.readValue(arguments, Object.class));
+        } catch (Exception e) {
+            return arguments.trim();
+        }
+    }
+
+    private String argument(ToolExecutionRequest request, String name) {
+        try {
+            JsonNode value = canonicalMapper.readTree(request.arguments()).get(name);
+            return value != null && value.isTextual() ? value.asText() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Path normalize(String rawPath) {
+        if (rawPath == null) {
+            return null;
+        }
+        try {
+            return Paths.get(rawPath).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private record Entry(String result, Path path, long expiresAt) {
+    }
+
+    /**
+     * 单个会话的缓存，按访问顺序淘汰超出容量的条目
+     */
+    private static final class SessionCache {
+
+        private final LinkedHashMap<String, Entry> entries;
+        private volatile long lastAccess;
+
+        SessionCache(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Entry get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(String key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized int removeIf(Predicate<Entry> predicate) {
+            int before = entries.size();
+            entries.values().removeIf(predicate);
+            return before - entries.size();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
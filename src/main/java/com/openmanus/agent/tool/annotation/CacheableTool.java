@@ -0,0 +1,39 @@
+package com.openmanus.agent.tool.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 可缓存工具标记
+ *
+ * 标注在 {@link dev.langchain4j.agent.tool.Tool} 方法上，表示在同一会话内，相同参数的调用在 TTL 内返回相同结果，
+ * 执行器会以「工具名 + 规范化 JSON 参数」为键缓存结果，避免主管和子智能体重复发起相同的搜索、读取或网页访问。
+ *
+ * 工具以字符串形式报告失败时，用 failurePrefixes 声明失败结果的前缀，这些结果不会被缓存，下次调用重新执行；
+ * 「文件不存在」这类否定结果也应列入，文件可能随后被其他方式（如 Python 代码）创建。
+ *
+ * 使用方式: {@code @CacheableTool(ttlSeconds = 300, pathArgument = "filePath", failurePrefixes = "读取文件失败")}
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheableTool {
+
+    /**
+     * 缓存结果的有效期（秒）
+     */
+    long ttlSeconds() default 300;
+
+    /**
+     * 表示文件路径的参数名，非空时缓存条目会被 {@link ToolCacheEvict} 工具按路径失效
+     */
+    String pathArgument() default "";
+
+    /**
+     * 表示执行失败或否定结果的前缀，以其中任一前缀开头的结果不缓存
+     */
+    String[] failurePrefixes() default {};
+}
@@ -0,0 +1,21 @@
+package com.openmanus.agent.tool.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 串行工具标记
+ *
+ * 标注在 {@link dev.langchain4j.agent.tool.Tool} 方法上，表示该工具存在副作用，
+ * 即使开启了并行工具调度，也必须与同一轮中的其他工具调用按顺序串行执行。
+ *
+ * 使用方式: 在写文件、删除文件等修改外部状态的工具方法上添加 {@code @SerialTool}
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SerialTool {
+}
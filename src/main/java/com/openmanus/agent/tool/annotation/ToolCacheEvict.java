@@ -0,0 +1,28 @@
+package com.openmanus.agent.tool.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存失效工具标记
+ *
+ * 标注在修改文件系统的 {@link dev.langchain4j.agent.tool.Tool} 方法上，工具执行后，当前会话中路径与之相关的缓存条目
+ * （同一路径、其父目录或其子路径）都会失效，保证后续的读取、列目录等调用看到最新内容。
+ *
+ * 无法确定修改范围的工具（如执行任意 Python 代码）不指定 pathArgument，执行后会话中所有带路径的缓存条目都会失效。
+ *
+ * 使用方式: {@code @ToolCacheEvict(pathArgument = "filePath")}
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ToolCacheEvict {
+
+    /**
+     * 表示被修改路径的参数名，为空时失效会话中所有带路径的条目
+     */
+    String pathArgument() default "";
+}
@@ -1,12 +1,12 @@
 package com.openmanus.agent.workflow;
 
 import com.openmanus.agent.base.AgentHandoff;
+import com.openmanus.infra.config.AgentExecutorConfigurer;
 
 import com.openmanus.agent.impl.executor.CodeAgent;
 import com.openmanus.agent.impl.executor.FileAgent;
 import com.openmanus.agent.impl.executor.SearchAgent;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
-import dev.langchain4j.model.chat.ChatModel;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
@@ -31,19 +31,17 @@ public class FastThinkWorkflow {
     private final AgentHandoff handoffExecutor;
 
     /**
-     * 构造函数，由 Spring 自动注入 ChatLanguageModel。
-     * @param chatModel 用于所有 Agent 的语言模型
+     * 构造函数，主管 Agent 的模型由 agent.model-profiles 中 fast_think_agent 的绑定决定。
      * @throws Exception 如果构建失败
      */
-    public FastThinkWorkflow(ChatModel chatModel,
-                             SearchAgent searchAgent,
+    public FastThinkWorkflow(SearchAgent searchAgent,
                              CodeAgent codeAgent,
-                             FileAgent fileAgent) throws Exception {
+                             FileAgent fileAgent,
+                             AgentExecutorConfigurer executorConfigurer) throws Exception {
 
 
         // 4. 使用 AgentHandoff.builder() 构建快思考工作流
-        this.handoffExecutor = AgentHandoff.builder()
-                .chatModel(chatModel) // 为主管 Agent 设置大脑
+        this.handoffExecutor = executorConfigurer.apply(AgentHandoff.builder(), "fast_think_agent") // 为主管 Agent 设置大脑
                 .name("fast_think_agent") // <--- 添加名称
                 .description("一个快速响应的Agent，用于处理简单的用户请求") // <--- 添加描述
                 .systemMessage("""
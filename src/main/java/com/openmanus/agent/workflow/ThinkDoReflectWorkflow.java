@@ -1,13 +1,13 @@
 package com.openmanus.agent.workflow;
 
 import com.openmanus.agent.base.AgentHandoff;
+import com.openmanus.infra.config.AgentExecutorConfigurer;
 import com.openmanus.agent.impl.executor.SearchAgent;
 import com.openmanus.agent.impl.executor.CodeAgent;
 import com.openmanus.agent.impl.executor.FileAgent;
 import com.openmanus.agent.impl.reflection.ReflectionAgent;
 import com.openmanus.agent.impl.thinker.ThinkingAgent;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
-import dev.langchain4j.model.chat.ChatModel;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
@@ -25,17 +25,16 @@ public class ThinkDoReflectWorkflow {
     private final AgentHandoff handoffExecutor;
     
     public ThinkDoReflectWorkflow(
-            ChatModel chatModel,
             ThinkingAgent thinkingAgent,
             SearchAgent searchAgent,
             CodeAgent codeAgent,
             FileAgent fileAgent,
-            ReflectionAgent reflectionAgent) {
+            ReflectionAgent reflectionAgent,
+            AgentExecutorConfigurer executorConfigurer) {
         
         // 构建handoff工作流 - 取消Supervisor，让ChatModel自主选择
         // 但添加系统提示引导Think-Do-Reflect流程
-        this.handoffExecutor = AgentHandoff.builder()
-                .chatModel(chatModel)
+        this.handoffExecutor = executorConfigurer.apply(AgentHandoff.builder(), "agent_handoff_supervisor")
                 .systemMessage(dev.langchain4j.data.message.SystemMessage.from("""
                     你是一位顶级的AI项目主管（Supervisor），负责协调一个由多个专家AI组成的团队来端到端地解决用户请求。你的唯一职责是严格遵循既定工作流程来调度团队，你自己不直接执行具体任务。
 
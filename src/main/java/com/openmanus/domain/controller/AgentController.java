@@ -5,12 +5,15 @@ import com.openmanus.domain.model.WorkflowResponse;
 import com.openmanus.domain.service.AgentService;
 import com.openmanus.domain.service.SessionSandboxManager;
 import com.openmanus.domain.service.ThinkDoReflectService;
+import com.openmanus.infra.sse.SessionEventStreams;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,15 +33,18 @@ public class AgentController {
     private final AgentService agentService;
     private final ThinkDoReflectService thinkDoReflectService;
     private final SessionSandboxManager sessionSandboxManager;
+    private final SessionEventStreams sessionEventStreams;
     
     @Autowired
     public AgentController(
             AgentService agentService, 
             ThinkDoReflectService thinkDoReflectService,
-            SessionSandboxManager sessionSandboxManager) {
+            SessionSandboxManager sessionSandboxManager,
+            SessionEventStreams sessionEventStreams) {
         this.agentService = agentService;
         this.thinkDoReflectService = thinkDoReflectService;
         this.sessionSandboxManager = sessionSandboxManager;
+        this.sessionEventStreams = sessionEventStreams;
     }
     /**
      * 快思考模式 - 处理简单明确的任务，快速响应
@@ -106,6 +112,29 @@ public class AgentController {
         return ResponseEntity.ok(serviceResult);
     }
     
+    /**
+     * 以 Server-Sent Events 订阅会话执行流，内容与 WebSocket 主题一致
+     * 
+     * 事件名：event（执行事件数组）、log（日志）、result（最终结果，随后服务端结束流）。
+     * 事件 id 为会话内序号，重连时携带 Last-Event-ID 头（或 lastEventId 参数）从下一条继续
+     *
+     * @param sessionId 会话 ID
+     * @param lastEventId 已收到的最后一个事件 id
+     * @return 事件流
+     */
+    @GetMapping(value = "/sessions/{sessionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Session Event Stream",
+        description = "Streams the session's execution events, logs and final result as Server-Sent Events. " +
+                      "Supports resuming with the Last-Event-ID header."
+    )
+    public SseEmitter streamSession(
+            @PathVariable String sessionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        return sessionEventStreams.open(sessionId, lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+    }
+    
     /**
      * 查询会话信息（包括沙箱状态）
      * 
@@ -1,15 +1,26 @@
 package com.openmanus.domain.controller;
 
+import com.openmanus.agent.tool.ToolResultCache;
 import com.openmanus.infra.monitoring.AgentExecutionTracker;
+import com.openmanus.infra.monitoring.PayloadBlobStore;
+import com.openmanus.infra.monitoring.TimeSeriesStore;
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import com.openmanus.infra.tracing.Span;
+import com.openmanus.infra.tracing.Trace;
+import com.openmanus.infra.websocket.ClientBackpressure;
 import com.openmanus.domain.model.AgentExecutionEvent;
 import com.openmanus.domain.model.DetailedExecutionFlow;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,14 +36,30 @@ import java.util.stream.Collectors;
 public class AgentMonitoringController {
 
     private final AgentExecutionTracker agentExecutionTracker;
+    private final ToolResultCache toolResultCache;
+    private final ClientBackpressure clientBackpressure;
+    private final PayloadBlobStore payloadBlobStore;
+    private final ExecutionTracer executionTracer;
+    private final TokenUsageTracker tokenUsageTracker;
+    private final TimeSeriesStore timeSeriesStore;
 
     @Autowired
-    public AgentMonitoringController(AgentExecutionTracker agentExecutionTracker) {
+    public AgentMonitoringController(AgentExecutionTracker agentExecutionTracker, ToolResultCache toolResultCache,
+                                     ClientBackpressure clientBackpressure, PayloadBlobStore payloadBlobStore,
+                                     ExecutionTracer executionTracer, TokenUsageTracker tokenUsageTracker,
+                                     TimeSeriesStore timeSeriesStore) {
         this.agentExecutionTracker = agentExecutionTracker;
+        this.toolResultCache = toolResultCache;
+        this.clientBackpressure = clientBackpressure;
+        this.payloadBlobStore = payloadBlobStore;
+        this.executionTracer = executionTracer;
+        this.tokenUsageTracker = tokenUsageTracker;
+        this.timeSeriesStore = timeSeriesStore;
     }
 
     /**
      * 获取监控仪表板数据
+     * 只读取增量维护的计数器和耗时直方图，不遍历会话和执行流程
      */
     @GetMapping("/dashboard")
     @Operation(summary = "获取监控仪表板", description = "获取Agent执行监控的仪表板数据")
@@ -41,30 +68,20 @@ public class AgentMonitoringController {
             Map<String, Object> dashboard = new HashMap<>();
             
             // 活跃会话统计
-            Map<String, AgentExecutionEvent> activeSessions = agentExecutionTracker.getAllActiveSessions();
-            dashboard.put("totalActiveSessions", activeSessions.size());
-            
-            // 详细执行流程统计
-            Map<String, DetailedExecutionFlow> detailedFlows = agentExecutionTracker.getAllDetailedExecutionFlows();
-            dashboard.put("totalDetailedFlows", detailedFlows.size());
-            
-            // 运行中的工作流
-            long runningFlows = detailedFlows.values().stream()
-                    .filter(flow -> flow.getStatus() == DetailedExecutionFlow.WorkflowStatus.RUNNING)
-                    .count();
-            dashboard.put("runningFlows", runningFlows);
+            dashboard.put("totalActiveSessions", agentExecutionTracker.getActiveSessionCount());
             
-            // 已完成的工作流
-            long completedFlows = detailedFlows.values().stream()
-                    .filter(flow -> flow.getStatus() == DetailedExecutionFlow.WorkflowStatus.COMPLETED)
-                    .count();
-            dashboard.put("completedFlows", completedFlows);
+            // 执行流程统计：运行中、已完成、失败
+            ExecutionTracer.Statistics statistics = executionTracer.statistics();
+            dashboard.put("totalDetailedFlows", statistics.running() + statistics.completed() + statistics.failed());
+            dashboard.put("runningFlows", statistics.running());
+            dashboard.put("completedFlows", statistics.completed());
+            dashboard.put("failedFlows", statistics.failed());
             
-            // 失败的工作流
-            long failedFlows = detailedFlows.values().stream()
-                    .filter(flow -> flow.getStatus() == DetailedExecutionFlow.WorkflowStatus.FAILED)
-                    .count();
-            dashboard.put("failedFlows", failedFlows);
+            // 最近执行耗时分位数（毫秒）
+            dashboard.put("totalExecutions", statistics.executions());
+            dashboard.put("p50LatencyMs", statistics.p50Millis());
+            dashboard.put("p95LatencyMs", statistics.p95Millis());
+            dashboard.put("p99LatencyMs", statistics.p99Millis());
             
             return ResponseEntity.ok(dashboard);
         } catch (Exception e) {
@@ -157,6 +174,119 @@ public class AgentMonitoringController {
         }
     }
 
+    /**
+     * 获取会话最近一次执行的 Span 树和关键路径
+     */
+    @GetMapping("/sessions/{sessionId}/trace")
+    @Operation(summary = "获取执行链路", description = "获取会话最近一次执行的Span树（工作流→Agent→子Agent→工具/LLM）及关键路径")
+    public ResponseEntity<Map<String, Object>> getSessionTrace(@PathVariable String sessionId) {
+        try {
+            return executionTracer.sessionTrace(sessionId)
+                    .map(trace -> ResponseEntity.ok(traceView(trace)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Error getting trace for sessionId: {}", sessionId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static Map<String, Object> traceView(Trace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Span span : trace.getSpans()) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("spanId", span.getSpanId());
+            view.put("parentSpanId", span.getParentSpanId());
+            view.put("name", span.getName());
+            view.put("kind", span.getKind());
+            view.put("startTime", span.getStartTime());
+            view.put("endTime", span.getEndTime());
+            view.put("durationMs", span.getDuration().toMillis());
+            view.put("status", span.getStatus());
+            view.put("error", span.getError());
+            view.put("attributes", span.getAttributes());
+            spans.add(view);
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("traceId", trace.getTraceId());
+        view.put("sessionId", trace.getSessionId());
+        view.put("complete", trace.isComplete());
+        view.put("spans", spans);
+        view.put("criticalPath", trace.criticalPath().stream().map(Span::getSpanId).toList());
+        return view;
+    }
+
+    /**
+     * 获取会话 Token 用量
+     */
+    @GetMapping("/sessions/{sessionId}/token-usage")
+    @Operation(summary = "获取会话Token用量", description = "获取会话累计的Token数、调用次数和费用，并按Agent细分")
+    public ResponseEntity<TokenUsageTracker.SessionUsage> getSessionTokenUsage(@PathVariable String sessionId) {
+        try {
+            return tokenUsageTracker.sessionUsage(sessionId)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Error getting token usage for sessionId: {}", sessionId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取所有会话 Token 用量
+     */
+    @GetMapping("/token-usage")
+    @Operation(summary = "获取Token用量", description = "获取内存中所有会话的Token用量")
+    public ResponseEntity<Map<String, TokenUsageTracker.SessionUsage>> getTokenUsage() {
+        try {
+            return ResponseEntity.ok(tokenUsageTracker.allSessionUsage());
+        } catch (Exception e) {
+            log.error("Error getting token usage", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取耗时时间序列
+     */
+    @GetMapping("/timeseries")
+    @Operation(summary = "获取耗时时间序列",
+            description = "按分钟或小时分桶的耗时分位数与计数，metric 为 workflow、phase、tool 或 llm，"
+                    + "window 如 15m、1h、24h，key 为 Agent 或工具名（省略时合并全部）")
+    public ResponseEntity<TimeSeriesStore.TimeSeries> getTimeSeries(@RequestParam String metric,
+                                                                    @RequestParam(defaultValue = "1h") String window,
+                                                                    @RequestParam(required = false) String key) {
+        TimeSeriesStore.Metric parsedMetric;
+        Duration parsedWindow;
+        try {
+            parsedMetric = TimeSeriesStore.Metric.of(metric);
+            parsedWindow = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (parsedWindow.isNegative() || parsedWindow.isZero()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(timeSeriesStore.query(parsedMetric, key, parsedWindow));
+        } catch (Exception e) {
+            log.error("Error querying time series: metric={}, window={}, key={}", metric, window, key, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取时间序列的 key
+     */
+    @GetMapping("/timeseries/keys")
+    @Operation(summary = "获取时间序列key", description = "获取指标下已记录的Agent或工具名")
+    public ResponseEntity<List<String>> getTimeSeriesKeys(@RequestParam String metric) {
+        try {
+            return ResponseEntity.ok(timeSeriesStore.keys(TimeSeriesStore.Metric.of(metric)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * 获取会话统计信息
      */
@@ -191,4 +321,51 @@ public class AgentMonitoringController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * 获取工具结果缓存统计
+     */
+    @GetMapping("/tool-cache/stats")
+    @Operation(summary = "获取工具缓存统计", description = "获取会话级工具结果缓存的命中/未命中统计")
+    public ResponseEntity<Map<String, Object>> getToolCacheStats() {
+        try {
+            return ResponseEntity.ok(toolResultCache.getStats());
+        } catch (Exception e) {
+            log.error("Error getting tool cache stats", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取 WebSocket 客户端发送积压
+     */
+    @GetMapping("/websocket/clients")
+    @Operation(summary = "获取WebSocket客户端积压", description = "获取每个WebSocket连接的未发送帧、积压时间和降级状态")
+    public ResponseEntity<List<ClientBackpressure.ClientStats>> getWebSocketClients() {
+        try {
+            return ResponseEntity.ok(clientBackpressure.clientStats());
+        } catch (Exception e) {
+            log.error("Error getting WebSocket client stats", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取转存的完整内容（工具输出、LLM 请求/响应）
+     */
+    @GetMapping("/blobs/{blobId}")
+    @Operation(summary = "获取转存内容", description = "按事件或执行流程中的引用获取被转存的完整工具输出或LLM请求/响应")
+    public ResponseEntity<byte[]> getBlob(@PathVariable String blobId) {
+        try {
+            return payloadBlobStore.get(blobId)
+                    .map(blob -> ResponseEntity.ok()
+                            .contentType(blob.contentType())
+                            .header(HttpHeaders.CACHE_CONTROL, "private, max-age=86400, immutable")
+                            .body(blob.content()))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Error reading blob: {}", blobId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 }
@@ -56,13 +56,13 @@ public class AgentExecutionEvent {
     
     /**
      * 输入数据
-     * 被序列化为字符串以确保WebSocket传输的稳定性
+     * 复杂对象被转换为JSON树以确保WebSocket传输的稳定性
      */
     private Object input;
     
     /**
      * 输出数据
-     * 被序列化为字符串以确保WebSocket传输的稳定性
+     * 复杂对象被转换为JSON树以确保WebSocket传输的稳定性
      */
     private Object output;
     
@@ -104,15 +104,9 @@ public class AgentExecutionEvent {
         if (input instanceof String || input instanceof Number || input instanceof Boolean) {
             this.input = input;
         } else {
-            // 尝试将复杂对象转换为字符串表示
+            // 复杂对象转换为 JSON 树：推送时按客户端格式直接编码，不再作为转义后的字符串二次序列化
             try {
-                // 如果已经是字符串表示，则不需要再转换
-                if (input instanceof String) {
-                    this.input = input;
-                } else {
-                    // 将对象转换为JSON字符串
-                    this.input = objectMapper.writeValueAsString(input);
-                }
+                this.input = objectMapper.valueToTree(input);
             } catch (Exception e) {
                 // 如果序列化失败，则保存对象的简单字符串表示
                 this.input = input.toString();
@@ -133,15 +127,9 @@ public class AgentExecutionEvent {
         if (output instanceof String || output instanceof Number || output instanceof Boolean) {
             this.output = output;
         } else {
-            // 尝试将复杂对象转换为字符串表示
+            // 复杂对象转换为 JSON 树：推送时按客户端格式直接编码，不再作为转义后的字符串二次序列化
             try {
-                // 如果已经是字符串表示，则不需要再转换
-                if (output instanceof String) {
-                    this.output = output;
-                } else {
-                    // 将对象转换为JSON字符串
-                    this.output = objectMapper.writeValueAsString(output);
-                }
+                this.output = objectMapper.valueToTree(output);
             } catch (Exception e) {
                 // 如果序列化失败，则保存对象的简单字符串表示
                 this.output = output.toString();
@@ -166,6 +154,7 @@ public class AgentExecutionEvent {
         EXECUTION_END,      // 执行结束
         LLM_REQUEST,        // LLM请求
         LLM_RESPONSE,       // LLM响应
+        LLM_STREAM_CHUNK,   // LLM流式输出片段（仅推送，不持久化）
         ERROR,              // 错误事件
         HANDOFF,            // Agent交接
         STEP_START,         // 执行步骤开始
@@ -173,7 +162,8 @@ public class AgentExecutionEvent {
         DECISION_POINT,     // 决策点
         WORKFLOW_START,     // 工作流开始
         WORKFLOW_END,       // 工作流结束
-        INTERMEDIATE_RESULT // 中间结果
+        INTERMEDIATE_RESULT, // 中间结果
+        SUMMARY             // 慢客户端降级时合并的中间事件摘要（仅推送）
     }
     
     /**
@@ -238,6 +228,21 @@ public class AgentExecutionEvent {
         return event;
     }
     
+    /**
+     * 创建LLM流式输出片段事件
+     */
+    public static AgentExecutionEvent createStreamChunkEvent(String sessionId, String agentName, String chunk) {
+        return AgentExecutionEvent.builder()
+                .sessionId(sessionId)
+                .eventId(java.util.UUID.randomUUID().toString())
+                .agentName(agentName)
+                .agentType("LLM_STREAM")
+                .eventType(EventType.LLM_STREAM_CHUNK)
+                .status(ExecutionStatus.RUNNING)
+                .output(chunk)
+                .build();
+    }
+    
     /**
      * 创建错误事件
      */
@@ -206,15 +206,25 @@ public class DetailedExecutionFlow {
         private LocalDateTime responseTime;
         
         /**
-         * 请求内容
+         * 请求内容（超过转存阈值时为预览）
          */
         private String request;
         
         /**
-         * 响应内容
+         * 响应内容（超过转存阈值时为预览）
          */
         private String response;
         
+        /**
+         * 完整请求内容的引用，未转存时为空
+         */
+        private PayloadReference requestBlob;
+        
+        /**
+         * 完整响应内容的引用，未转存时为空
+         */
+        private PayloadReference responseBlob;
+        
         /**
          * 使用的模型
          */
@@ -229,6 +239,11 @@ public class DetailedExecutionFlow {
          * 响应时长（毫秒）
          */
         private Long responseTime_ms;
+        
+        /**
+         * 首个Token到达时长（毫秒），非流式调用等于响应时长
+         */
+        private Long timeToFirstToken_ms;
     }
     
     /**
@@ -261,12 +276,12 @@ public class DetailedExecutionFlow {
         private LocalDateTime completionTime;
         
         /**
-         * 调用参数
+         * 调用参数（超过转存阈值时为 {@link PayloadReference}）
          */
         private Object parameters;
         
         /**
-         * 调用结果
+         * 调用结果（超过转存阈值时为 {@link PayloadReference}）
          */
         private Object result;
         
@@ -0,0 +1,42 @@
+package com.openmanus.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 转存到 Blob 存储的大内容的引用
+ * 执行事件和执行流程中以它代替完整的工具输出或 LLM 请求/响应，完整内容通过 href 按需获取
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayloadReference {
+    
+    /**
+     * 内容的 SHA-256（十六进制），相同内容共用一个 Blob
+     */
+    private String blobId;
+    
+    /**
+     * 完整内容的字节数（UTF-8）
+     */
+    private long size;
+    
+    /**
+     * 内容类型：text/plain 或 application/json
+     */
+    private String contentType;
+    
+    /**
+     * 内容开头的预览
+     */
+    private String preview;
+    
+    /**
+     * 获取完整内容的地址
+     */
+    private String href;
+}
@@ -7,17 +7,23 @@ import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 向量存储服务
  * 
  * 提供文本嵌入的存储、检索和相似度搜索功能
  * 采用依赖注入模式，便于测试和扩展
+ * 
+ * 指标：openmanus.embedding.calls（timer，operation=embed|embed_all|search，outcome=success|error）
  */
 @Service
 @Slf4j
@@ -25,10 +31,32 @@ public class EmbeddingStoreService {
     
     private final EmbeddingStore<TextSegment> embeddingStore;
     private final EmbeddingModel embeddingModel;
+    private final MeterRegistry meterRegistry;
     
-    public EmbeddingStoreService(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel) {
+    public EmbeddingStoreService(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel,
+                                 MeterRegistry meterRegistry) {
         this.embeddingStore = embeddingStore;
         this.embeddingModel = embeddingModel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录一次嵌入模型或向量存储调用的耗时
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("openmanus.embedding.calls")
+                    .description("Embedding model and embedding store calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
     }
 
     /**
@@ -41,7 +69,7 @@ public class EmbeddingStoreService {
     public String store(String content, Map<String, Object> metadata) {
         try {
             TextSegment segment = TextSegment.from(content, Metadata.from(metadata));
-            Embedding embedding = embeddingModel.embed(content).content();
+            Embedding embedding = timed("embed", () -> embeddingModel.embed(content).content());
             return embeddingStore.add(embedding, segment);
         } catch (Exception e) {
             log.error("存储内容失败: {}", e.getMessage(), e);
@@ -49,6 +77,76 @@ public class EmbeddingStoreService {
         }
     }
 
+    /**
+     * 使用已计算好的向量存储文本内容及其元数据，避免重复调用嵌入模型
+     * 
+     * @param content 文本内容
+     * @param embedding 文本向量
+     * @param metadata 元数据
+     * @return 存储ID
+     */
+    public String store(String content, Embedding embedding, Map<String, Object> metadata) {
+        try {
+            return embeddingStore.add(embedding, TextSegment.from(content, Metadata.from(metadata)));
+        } catch (Exception e) {
+            log.error("存储内容失败: {}", e.getMessage(), e);
+            throw new RuntimeException("存储内容失败", e);
+        }
+    }
+
+    /**
+     * 计算文本向量
+     * 
+     * @param text 文本内容
+     * @return 文本向量
+     */
+    public Embedding embed(String text) {
+        try {
+            return timed("embed", () -> embeddingModel.embed(text).content());
+        } catch (Exception e) {
+            log.error("计算文本向量失败: {}", e.getMessage(), e);
+            throw new RuntimeException("计算文本向量失败", e);
+        }
+    }
+
+    /**
+     * 按元数据过滤条件搜索相似向量
+     * 
+     * @param embedding 查询向量
+     * @param maxResults 最大结果数
+     * @param minRelevance 最小相关度分数
+     * @param filter 元数据过滤条件
+     * @return 匹配结果列表
+     */
+    public List<EmbeddingMatch<TextSegment>> search(Embedding embedding, int maxResults, double minRelevance, Filter filter) {
+        try {
+            EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
+                    .queryEmbedding(embedding)
+                    .maxResults(maxResults)
+                    .minScore(minRelevance)
+                    .filter(filter)
+                    .build();
+            return timed("search", () -> embeddingStore.search(searchRequest).matches());
+        } catch (Exception e) {
+            log.error("搜索相似文本失败: {}", e.getMessage(), e);
+            throw new RuntimeException("搜索相似文本失败", e);
+        }
+    }
+
+    /**
+     * 删除满足元数据过滤条件的所有条目
+     * 
+     * @param filter 元数据过滤条件
+     */
+    public void removeAll(Filter filter) {
+        try {
+            embeddingStore.removeAll(filter);
+        } catch (Exception e) {
+            log.error("删除向量条目失败: {}", e.getMessage(), e);
+            throw new RuntimeException("删除向量条目失败", e);
+        }
+    }
+
     /**
      * 搜索相似文本
      * 
@@ -59,13 +157,13 @@ public class EmbeddingStoreService {
      */
     public List<EmbeddingMatch<TextSegment>> search(String query, int maxResults, double minRelevance) {
         try {
-            Embedding embedding = embeddingModel.embed(query).content();
+            Embedding embedding = timed("embed", () -> embeddingModel.embed(query).content());
             EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
                     .queryEmbedding(embedding)
                     .maxResults(maxResults)
                     .minScore(minRelevance)
                     .build();
-            return embeddingStore.search(searchRequest).matches();
+            return timed("search", () -> embeddingStore.search(searchRequest).matches());
         } catch (Exception e) {
             log.error("搜索相似文本失败: {}", e.getMessage(), e);
             throw new RuntimeException("搜索相似文本失败", e);
@@ -80,7 +178,7 @@ public class EmbeddingStoreService {
     public void addSegments(List<TextSegment> segments) {
         try {
             log.debug("添加 {} 个文本片段到向量存储", segments.size());
-            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            List<Embedding> embeddings = timed("embed_all", () -> embeddingModel.embedAll(segments).content());
             embeddingStore.addAll(embeddings, segments);
             log.debug("成功添加 {} 个文本片段", segments.size());
         } catch (Exception e) {
@@ -100,14 +198,14 @@ public class EmbeddingStoreService {
         try {
             log.debug("搜索相似文本片段: query='{}', maxResults={}", query, maxResults);
             
-            Embedding embedding = embeddingModel.embed(query).content();
+            Embedding embedding = timed("embed", () -> embeddingModel.embed(query).content());
             EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
                     .queryEmbedding(embedding)
                     .maxResults(maxResults)
                     .minScore(0.0)
                     .build();
             
-            List<TextSegment> results = embeddingStore.search(searchRequest).matches().stream()
+            List<TextSegment> results = timed("search", () -> embeddingStore.search(searchRequest).matches()).stream()
                     .map(EmbeddingMatch::embedded)
                     .toList();
             
@@ -3,6 +3,9 @@ package com.openmanus.domain.service;
 import com.openmanus.domain.model.SessionSandboxInfo;
 import com.openmanus.infra.sandbox.VncSandboxClient;
 import com.openmanus.infra.sandbox.VncSandboxInfo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -28,12 +31,15 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 单例模式：全局唯一的会话管理器
  * - 工厂模式：创建沙箱实例
  * - 缓存模式：内存缓存会话-沙箱映射
+ *
+ * 指标：openmanus.sandbox.provisions（timer，outcome=reused|created|error）、openmanus.sandbox.sessions（gauge）
  */
 @Service
 @Slf4j
 public class SessionSandboxManager {
 
     private final VncSandboxClient vncSandboxClient;
+    private final MeterRegistry meterRegistry;
 
     // 会话沙箱映射表 - 线程安全
     private final Map<String, SessionSandboxInfo> sessionSandboxMap = new ConcurrentHashMap<>();
@@ -42,8 +48,11 @@ public class SessionSandboxManager {
     private static final int SANDBOX_TIMEOUT_HOURS = 2;
 
     @Autowired
-    public SessionSandboxManager(VncSandboxClient vncSandboxClient) {
+    public SessionSandboxManager(VncSandboxClient vncSandboxClient, MeterRegistry meterRegistry) {
         this.vncSandboxClient = vncSandboxClient;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("openmanus.sandbox.sessions", sessionSandboxMap, Map::size)
+            .description("Sessions with a VNC sandbox").register(meterRegistry);
         log.info("SessionSandboxManager 初始化完成");
     }
 
@@ -74,13 +83,31 @@ public class SessionSandboxManager {
      * @return 沙箱信息
      */
     public synchronized SessionSandboxInfo getOrCreateSandbox(String sessionId) {
-        // 检查是否已存在
-        SessionSandboxInfo existing = sessionSandboxMap.get(sessionId);
-        if (existing != null && existing.isAvailable()) {
-            log.debug("复用现有沙箱: sessionId={}, vncUrl={}", sessionId, existing.getVncUrl());
-            return existing;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            // 检查是否已存在
+            SessionSandboxInfo existing = sessionSandboxMap.get(sessionId);
+            if (existing != null && existing.isAvailable()) {
+                log.debug("复用现有沙箱: sessionId={}, vncUrl={}", sessionId, existing.getVncUrl());
+                outcome = "reused";
+                return existing;
+            }
+            SessionSandboxInfo created = createSandbox(sessionId);
+            outcome = "created";
+            return created;
+        } finally {
+            sample.stop(Timer.builder("openmanus.sandbox.provisions")
+                .description("Sandbox lookups and creations for browser sessions")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
         }
+    }
 
+    /**
+     * 创建新的 VNC 沙箱，调用方持有锁
+     */
+    private SessionSandboxInfo createSandbox(String sessionId) {
         // 创建新沙箱
         log.info("为会话 {} 创建新的 VNC 沙箱", sessionId);
 
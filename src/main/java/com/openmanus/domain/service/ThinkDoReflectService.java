@@ -1,21 +1,26 @@
 package com.openmanus.domain.service;
 
+import com.openmanus.agent.tool.ToolResultCache;
 import com.openmanus.agent.workflow.ThinkDoReflectWorkflow;
 import com.openmanus.domain.model.AgentExecutionEvent;
 import com.openmanus.domain.model.WorkflowResponse;
 import com.openmanus.domain.model.WorkflowResultVO;
 import com.openmanus.infra.monitoring.AgentExecutionTracker;
+import com.openmanus.infra.monitoring.ExecutionEventDispatcher;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import com.openmanus.infra.tracing.Span;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.openmanus.infra.log.LogMarkers.TO_FRONTEND;
 
@@ -28,17 +33,23 @@ public class ThinkDoReflectService {
 
     private final ThinkDoReflectWorkflow thinkDoReflectWorkflow;
     private final AgentExecutionTracker executionTracker;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ExecutionEventDispatcher eventDispatcher;
+    private final ExecutionTracer executionTracer;
+    private final ToolResultCache toolResultCache;
     private final Executor asyncExecutor; // 注入自定义线程池
 
     @Autowired
     public ThinkDoReflectService(ThinkDoReflectWorkflow thinkDoReflectWorkflow,
                                  AgentExecutionTracker executionTracker,
-                                 SimpMessagingTemplate messagingTemplate,
+                                 ExecutionEventDispatcher eventDispatcher,
+                                 ExecutionTracer executionTracer,
+                                 ToolResultCache toolResultCache,
                                  @Qualifier("asyncExecutor") Executor asyncExecutor) {
         this.thinkDoReflectWorkflow = thinkDoReflectWorkflow;
         this.executionTracker = executionTracker;
-        this.messagingTemplate = messagingTemplate;
+        this.eventDispatcher = eventDispatcher;
+        this.executionTracer = executionTracer;
+        this.toolResultCache = toolResultCache;
         this.asyncExecutor = asyncExecutor;
     }
 
@@ -65,17 +76,29 @@ public class ThinkDoReflectService {
 
         String destination = "/topic/executions/" + sessionId;
 
-        AgentExecutionTracker.AgentExecutionEventListener listener = event -> {
-            log.debug("Sending event to {}: {}", destination, event);
-            messagingTemplate.convertAndSend(destination, event);
-        };
-        executionTracker.addListener(listener);
+        // Agent 线程只负责入队，序列化和发送由推送管道异步完成
+        AgentExecutionTracker.AgentExecutionEventListener listener = eventDispatcher::dispatch;
+        // 在提交任务前注册，保证不丢失工作流的第一个事件；只接收本会话的事件
+        AgentExecutionTracker.ListenerRegistration registration = executionTracker.addSessionListener(sessionId, listener);
 
-        // 直接使用注入的Executor来异步执行任务
+        // 直接使用注入的Executor来异步执行任务，并带上请求线程的MDC（如 LLM 缓存开关）
         final String finalSessionId = sessionId;
-        asyncExecutor.execute(() -> {
-            executeWorkflowInternal(userInput, finalSessionId, listener);
-        });
+        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        try {
+            asyncExecutor.execute(() -> {
+                if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                }
+                try {
+                    executeWorkflowInternal(userInput, finalSessionId, registration);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            registration.close();
+            throw e;
+        }
 
         // 立即返回sessionId，以便客户端可以开始监听
         return WorkflowResponse.builder()
@@ -89,9 +112,10 @@ public class ThinkDoReflectService {
      * 执行工作流的核心同步逻辑
      * @param userInput 用户输入
      * @param sessionId 会话ID
-     * @param listener 事件监听器
+     * @param registration 会话监听器的注册句柄，执行结束后注销
      */
-    public void executeWorkflowInternal(String userInput, String sessionId, AgentExecutionTracker.AgentExecutionEventListener listener) {
+    public void executeWorkflowInternal(String userInput, String sessionId,
+                                        AgentExecutionTracker.ListenerRegistration registration) {
         // 由于TtlExecutor已在线程池配置中应用，MDC上下文会自动传递
         final LocalDateTime startTime = LocalDateTime.now();
 
@@ -105,7 +129,13 @@ public class ThinkDoReflectService {
             log.info(TO_FRONTEND, "╚══════════════════════════════════════════════════════════════╝");
             
             executionTracker.startAgentExecution(sessionId, "workflow_manager", "WORKFLOW_START", userInput);
-            String result = thinkDoReflectWorkflow.executeSync(userInput);
+            // 工作流是 Trace 的根 Span，主管和子 Agent、工具、LLM 调用都是它的后代
+            String result = executionTracer.trace("workflow", Span.Kind.WORKFLOW, span -> {
+                span.setInput(userInput);
+                String output = thinkDoReflectWorkflow.executeSync(userInput);
+                span.setOutput(output);
+                return output;
+            });
 
             // 记录结束事件
             executionTracker.endAgentExecution(sessionId, "workflow_manager", "WORKFLOW_COMPLETE", result, AgentExecutionEvent.ExecutionStatus.SUCCESS);
@@ -140,21 +170,16 @@ public class ThinkDoReflectService {
             sendWorkflowResult(sessionId, userInput, "执行出错: " + e.getMessage(), "ERROR", LocalDateTime.now(), executionTimeMs);
             
         } finally {
-            try {
-                // 休眠以确保所有消息发送完成
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            
-            log.debug("异步任务执行结束，正在清理监听器。");
-            executionTracker.removeListener(listener);
+            // 事件在产生它的线程上同步入队，工作流返回时本会话的事件均已进入推送管道，可以直接注销
+            log.debug("异步任务执行结束，正在清理监听器和工具结果缓存。");
+            registration.close();
+            toolResultCache.evictSession(sessionId);
         }
     }
 
     /**
      * 发送工作流结果到前端
-     * 如果 WebSocket 会话已关闭，静默忽略错误
+     * 经推送管道排在本会话已入队的事件之后发送
      */
     private void sendWorkflowResult(String sessionId, String userInput, String result, 
                                    String status, LocalDateTime completedTime, long executionTimeMs) {
@@ -167,13 +192,7 @@ public class ThinkDoReflectService {
                 .executionTime(executionTimeMs)
                 .build();
 
-        String resultDestination = "/topic/executions/" + sessionId + "/result";
-        try {
-            log.debug("发送工作流结果到 {}", resultDestination);
-            messagingTemplate.convertAndSend(resultDestination, resultVO);
-        } catch (Exception e) {
-            // 静默处理：WebSocket 会话可能已关闭，这是正常的竞态条件
-            log.debug("无法发送结果到会话 {}: {}", sessionId, e.getMessage());
-        }
+        log.debug("发送工作流结果到会话 {}", sessionId);
+        eventDispatcher.send(sessionId, "/result", resultVO);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.openmanus.infra.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发上限（AIMD + 每输出 token 延迟梯度）
+ *
+ * 1. 加性增：请求成功且延迟正常时，上限增加 1/limit（约每一轮满并发增加 1）
+ * 2. 乘性减：收到限流响应（如 HTTP 429）时上限减半；每输出 token 延迟超过基线的 tolerance 倍时上限乘以 0.9
+ * 3. 基线跟踪近期最小的每 token 延迟，并缓慢向上漂移，以适应服务端整体变慢
+ *
+ * LLM 的响应耗时随输出长度增长，因此按输出 token 数归一化后再与基线比较，长生成不会被误判为过载。
+ * 输出少于 {@value #MIN_GRADIENT_TOKENS} 个 token（或未知）的调用耗时主要是网络和首 token 开销，
+ * 归一化后偏大，不参与梯度计算，只按成功加性增长
+ *
+ * 获取许可时超过当前上限的调用会排队等待，直到有许可释放或到达截止时间
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * 调用结果，用于调整上限
+     */
+    public enum Outcome {
+        /** 成功，参与延迟梯度计算 */
+        SUCCESS,
+        /** 被上游限流 */
+        THROTTLED,
+        /** 其他失败，不调整上限 */
+        IGNORED
+    }
+
+    static final int MIN_GRADIENT_TOKENS = 64;
+
+    private static final double THROTTLE_BACKOFF = 0.5;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private double limit;
+    private double baselineNanosPerToken = Double.NaN;
+    private int inFlight;
+    private int waiting;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("require 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 获取一个许可，超过当前上限时等待
+     *
+     * @param deadlineNanos 截止时间（{@link System#nanoTime()} 基准）
+     * @return 是否在截止时间前获取成功
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean acquire(long deadlineNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    permitReleased.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放许可并根据结果调整上限
+     *
+     * @param latencyNanos 调用耗时
+     * @param outputTokens 实际输出 token 数，未知时为 0
+     * @param outcome 调用结果
+     */
+    public void release(long latencyNanos, long outputTokens, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            switch (outcome) {
+                case THROTTLED -> limit = Math.max(minLimit, limit * THROTTLE_BACKOFF);
+                case SUCCESS -> onSuccess(latencyNanos, outputTokens);
+                case IGNORED -> {
+                }
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(long latencyNanos, long outputTokens) {
+        if (outputTokens >= MIN_GRADIENT_TOKENS) {
+            double nanosPerToken = (double) latencyNanos / outputTokens;
+            if (Double.isNaN(baselineNanosPerToken) || nanosPerToken < baselineNanosPerToken) {
+                baselineNanosPerToken = nanosPerToken;
+            } else {
+                baselineNanosPerToken += (nanosPerToken - baselineNanosPerToken) * BASELINE_DRIFT;
+            }
+            if (nanosPerToken > baselineNanosPerToken * latencyTolerance) {
+                limit = Math.max(minLimit, limit * LATENCY_BACKOFF);
+                return;
+            }
+        }
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    /**
+     * 当前并发上限（取整后生效）
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正在排队等待许可的调用数
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前每输出 token 的延迟基线（毫秒），尚无样本时为 NaN
+     */
+    public double getBaselineMillisPerToken() {
+        lock.lock();
+        try {
+            return baselineNanosPerToken / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.openmanus.infra.concurrent;
+
+import java.util.Arrays;
+
+/**
+ * 滑动窗口延迟统计
+ *
+ * 保留最近 N 个延迟样本（环形缓冲区），按需排序计算分位数
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    /**
+     * @param capacity 保留的样本数
+     */
+    public LatencyWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * 记录一个延迟样本
+     */
+    public synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    /**
+     * 当前样本数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param quantile 分位点，取值 0~1，如 0.95
+     * @return 延迟（纳秒），没有样本时返回 -1
+     */
+    public long percentile(double quantile) {
+        long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
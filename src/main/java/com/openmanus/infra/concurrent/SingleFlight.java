@@ -0,0 +1,85 @@
+package com.openmanus.infra.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 请求合并（single-flight）
+ *
+ * 同一个键同时只有一次调用在执行：第一个到达的线程（leader）执行调用，其余并发到达的线程挂到同一个 future 上等待结果。
+ * 调用结束后立即移除该键，不缓存结果，之后的调用会重新执行。
+ *
+ * 语义：
+ * 1. 成功：所有等待者拿到同一个结果
+ * 2. 失败：所有等待者收到同一个异常
+ * 3. leader 被中断（取消）：等待者不会收到取消，而是重新竞争执行，避免一个请求的取消波及其他请求
+ * 4. 等待者自身被中断：只有它自己抛出 InterruptedException，不影响 leader 和其他等待者
+ *
+ * @param <K> 键类型
+ * @param <V> 结果类型
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行调用，若已有相同键的调用在执行则等待其结果
+     *
+     * @param key 请求键，相同键的并发调用会被合并
+     * @param call 实际调用
+     * @return 调用结果
+     * @throws Exception 调用抛出的原始异常，或等待时的 InterruptedException
+     */
+    public V execute(K key, Callable<? extends V> call) throws Exception {
+        while (true) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, call);
+            }
+
+            log.debug("Coalescing with in-flight call: {}", key);
+            try {
+                return existing.get();
+            } catch (CancellationException e) {
+                // leader 被取消，重新竞争执行
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+
+    /**
+     * 当前正在执行的键数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Callable<? extends V> call) throws Exception {
+        try {
+            V value = call.call();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (Throwable t) {
+            inFlight.remove(key, flight);
+            if (t instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(t);
+            }
+            throw t;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.openmanus.infra.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶
+ *
+ * 按「每分钟 N 个」的速率连续补充令牌，桶容量为一分钟的配额。获取令牌时如果余量不足，
+ * 会预留令牌（余量变为负数）并在锁外睡眠到令牌补足为止，因此等待者按到达顺序依次放行；
+ * 如果预计等待时间超过截止时间，则不预留，直接返回 false。
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param perMinute 每分钟补充的令牌数，同时也是桶容量
+     */
+    public TokenBucket(long perMinute) {
+        if (perMinute < 1) {
+            throw new IllegalArgumentException("perMinute must be at least 1");
+        }
+        this.capacity = perMinute;
+        this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.tokens = perMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取令牌，必要时等待
+     *
+     * @param amount 需要的令牌数，超过桶容量时按容量计算
+     * @param deadlineNanos 截止时间（{@link System#nanoTime()} 基准）
+     * @return 是否在截止时间前获取成功
+     * @throws InterruptedException 等待时被中断，此时已预留的令牌会归还
+     */
+    public boolean acquire(long amount, long deadlineNanos) throws InterruptedException {
+        long waitNanos;
+        long needed = Math.min(amount, capacity);
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            waitNanos = tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) / tokensPerNano);
+            if (waitNanos > 0 && now + waitNanos - deadlineNanos > 0) {
+                return false;
+            }
+            tokens -= needed;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                refund(needed);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 归还已获取但未使用的令牌（如后续限流环节超时），余量不超过桶容量
+     *
+     * @param amount 获取时的令牌数，超过桶容量时按容量计算
+     */
+    public synchronized void refund(long amount) {
+        refill(System.nanoTime());
+        tokens = Math.min(capacity, tokens + Math.min(amount, capacity));
+    }
+
+    /**
+     * 事后扣减令牌（如响应中实际消耗的输出 token），余量可以变为负数，由后续请求等待补足
+     */
+    public synchronized void debit(long amount) {
+        refill(System.nanoTime());
+        tokens -= amount;
+    }
+
+    /**
+     * 当前可用令牌数，负数表示已被预留
+     */
+    public synchronized double available() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,88 @@
+package com.openmanus.infra.config;
+
+import com.openmanus.agent.base.AbstractAgentExecutor;
+import com.openmanus.agent.base.ContextWindowManager;
+import com.openmanus.agent.tool.ToolResultCache;
+import com.openmanus.infra.llm.ChatModelProfiles;
+import com.openmanus.infra.monitoring.AgentExecutionTracker;
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agent执行器通用配置器
+ *
+ * 将 OpenManusProperties 中与执行器相关的通用配置统一应用到各个 Agent 的 Builder 上，
+ * 子智能体（SubAgentConfig）和工作流主管（AgentHandoff）共用同一套配置入口
+ */
+@Component
+public class AgentExecutorConfigurer {
+
+    private final OpenManusProperties properties;
+    private final AgentExecutionTracker agentExecutionTracker;
+    private final StreamingChatModel streamingChatModel;
+    private final ContextWindowManager contextWindowManager;
+    private final ToolResultCache toolResultCache;
+    private final ChatModelProfiles chatModelProfiles;
+    private final MeterRegistry meterRegistry;
+    private final ExecutionTracer executionTracer;
+    private final TokenUsageTracker tokenUsageTracker;
+
+    public AgentExecutorConfigurer(OpenManusProperties properties,
+                                   AgentExecutionTracker agentExecutionTracker,
+                                   StreamingChatModel streamingChatModel,
+                                   ContextWindowManager contextWindowManager,
+                                   ToolResultCache toolResultCache,
+                                   ChatModelProfiles chatModelProfiles,
+                                   MeterRegistry meterRegistry,
+                                   ExecutionTracer executionTracer,
+                                   TokenUsageTracker tokenUsageTracker) {
+        this.properties = properties;
+        this.agentExecutionTracker = agentExecutionTracker;
+        this.streamingChatModel = streamingChatModel;
+        this.contextWindowManager = contextWindowManager;
+        this.toolResultCache = toolResultCache;
+        this.chatModelProfiles = chatModelProfiles;
+        this.meterRegistry = meterRegistry;
+        this.executionTracer = executionTracer;
+        this.tokenUsageTracker = tokenUsageTracker;
+    }
+
+    /**
+     * 应用通用执行器配置
+     * 需要在调用 build() 之前调用
+     *
+     * @param builder 任意 Agent 执行器的 Builder
+     * @return 同一个 Builder，便于链式调用
+     */
+    public <B extends AbstractAgentExecutor.Builder<B>> B apply(B builder) {
+        OpenManusProperties.AgentConfig agentConfig = properties.getAgent();
+        return builder
+                .agentExecutionTracker(agentExecutionTracker)
+                .meterRegistry(meterRegistry)
+                .tracer(executionTracer)
+                .tokenUsageTracker(tokenUsageTracker)
+                .streamingChatModel(agentConfig.isStreamingResponses() ? streamingChatModel : null)
+                .contextWindowManager(properties.getLlm().getContext().isEnabled() ? contextWindowManager : null)
+                .toolResultCache(agentConfig.getToolCache().isEnabled() ? toolResultCache : null)
+                .parallelToolCalls(agentConfig.isParallelToolCalls())
+                .maxConcurrentToolCalls(agentConfig.getMaxConcurrentToolCalls());
+    }
+
+    /**
+     * 应用通用执行器配置，并按 agent.model-profiles 为 Agent 绑定模型组
+     * 需要在调用 build() 之前调用
+     *
+     * @param builder 任意 Agent 执行器的 Builder
+     * @param agentName Agent 名称，用于查找绑定的模型组
+     * @return 同一个 Builder，便于链式调用
+     */
+    public <B extends AbstractAgentExecutor.Builder<B>> B apply(B builder, String agentName) {
+        ChatModelProfiles.Profile profile = chatModelProfiles.forAgent(agentName);
+        return apply(builder)
+                .chatModel(profile.chatModel())
+                .streamingChatModel(properties.getAgent().isStreamingResponses() ? profile.streamingChatModel() : null);
+    }
+}
@@ -1,16 +1,45 @@
 package com.openmanus.infra.config;
 
+import com.openmanus.agent.base.ContextWindowManager;
+import com.openmanus.domain.service.EmbeddingStoreService;
+import com.openmanus.infra.concurrent.AdaptiveConcurrencyLimit;
+import com.openmanus.infra.concurrent.CircuitBreaker;
+import com.openmanus.infra.concurrent.LatencyWindow;
+import com.openmanus.infra.concurrent.TokenBucket;
+import com.openmanus.infra.llm.CachingChatModel;
+import com.openmanus.infra.llm.ChatModelProfiles;
+import com.openmanus.infra.llm.LlmResponseCache;
+import com.openmanus.infra.llm.OutboundLimiter;
+import com.openmanus.infra.llm.RateLimitedChatModel;
+import com.openmanus.infra.llm.RateLimitedEmbeddingModel;
+import com.openmanus.infra.llm.RateLimitedStreamingChatModel;
+import com.openmanus.infra.llm.RoutingChatModel;
+import com.openmanus.infra.llm.SemanticCachingChatModel;
+import com.openmanus.infra.llm.SingleFlightChatModel;
+import com.openmanus.infra.llm.UsageRecordingChatModel;
+import com.openmanus.infra.llm.UsageRecordingStreamingChatModel;
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import io.micrometer.core.instrument.MeterRegistry;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.TokenCountEstimator;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
 import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * LangChain4j配置类
@@ -24,9 +53,11 @@ public class LangChain4jConfig {
     private static final int MAX_MEMORY_MESSAGES = 100;  // 增加到 100 条（原：50 条）
     
     private final OpenManusProperties properties;
+    private final TokenUsageTracker tokenUsageTracker;
 
-    public LangChain4jConfig(OpenManusProperties properties) {
+    public LangChain4jConfig(OpenManusProperties properties, TokenUsageTracker tokenUsageTracker) {
         this.properties = properties;
+        this.tokenUsageTracker = tokenUsageTracker;
     }
 
     /**
@@ -44,12 +75,198 @@ public class LangChain4jConfig {
 
     /**
      * 聊天模型
-     * 基于配置文件创建LLM实例
+     * 基于配置文件创建LLM实例，由内向外依次包装：用量记录 -> 出站限流 -> 多端点路由 -> 请求合并 -> 精确匹配缓存 -> 语义缓存
      */
     @Bean
-    public ChatModel chatModel() {
-        OpenManusProperties.LlmConfig.DefaultLLM llmConfig = properties.getLlm().getDefaultLlm();
+    public ChatModel chatModel(LlmResponseCache llmResponseCache,
+                               EmbeddingStoreService embeddingStoreService,
+                               MeterRegistry meterRegistry,
+                               OutboundLimiter chatLimiter,
+                               TokenCountEstimator tokenCountEstimator) {
+        ChatModel model = outbound(
+                openAiChatModel(properties.getLlm().getDefaultLlm()), chatLimiter, tokenCountEstimator);
+        if (!properties.getLlm().getEndpoints().isEmpty()) {
+            model = routingChatModel(model, meterRegistry, tokenCountEstimator);
+        }
+        return withCaches(model, llmResponseCache, embeddingStoreService, meterRegistry);
+    }
+
+    /**
+     * 模型分级
+     * llm.profiles 中的每个模型组拥有独立的限流器，并与默认模型共用缓存层；
+     * agent.model-profiles 将 Agent 按名称绑定到模型组
+     */
+    @Bean
+    public ChatModelProfiles chatModelProfiles(ChatModel chatModel,
+                                               StreamingChatModel streamingChatModel,
+                                               LlmResponseCache llmResponseCache,
+                                               EmbeddingStoreService embeddingStoreService,
+                                               MeterRegistry meterRegistry,
+                                               TokenCountEstimator tokenCountEstimator) {
+        Map<String, ChatModelProfiles.Profile> profiles = new HashMap<>();
+        properties.getLlm().getProfiles().forEach((name, profileConfig) -> {
+            OpenManusProperties.LlmConfig.DefaultLLM settings = settingsFor(
+                    profileConfig.getModel(), profileConfig.getBaseUrl(), profileConfig.getApiKey(),
+                    profileConfig.getTemperature(), profileConfig.getMaxTokens());
+            OutboundLimiter limiter = outboundLimiter("chat-" + name, properties.getLlm().getRateLimit(), meterRegistry);
+            ChatModel profileModel = withCaches(
+                    outbound(openAiChatModel(settings), limiter, tokenCountEstimator),
+                    llmResponseCache, embeddingStoreService, meterRegistry);
+            StreamingChatModel profileStreamingModel = outbound(
+                    openAiStreamingChatModel(settings), limiter, tokenCountEstimator);
+            profiles.put(name, new ChatModelProfiles.Profile(profileModel, profileStreamingModel));
+        });
+
+        return new ChatModelProfiles(
+                new ChatModelProfiles.Profile(chatModel, streamingChatModel),
+                profiles,
+                properties.getAgent().getModelProfiles());
+    }
+
+    /**
+     * 在限流（及路由）之外依次包装：请求合并 -> 精确匹配缓存 -> 语义缓存
+     */
+    private ChatModel withCaches(ChatModel model, LlmResponseCache llmResponseCache,
+                                 EmbeddingStoreService embeddingStoreService, MeterRegistry meterRegistry) {
+        if (properties.getLlm().isSingleFlight()) {
+            model = new SingleFlightChatModel(model);
+        }
+        if (properties.getLlm().getCache().isEnabled()) {
+            model = new CachingChatModel(model, llmResponseCache, meterRegistry);
+        }
+        OpenManusProperties.LlmConfig.SemanticCacheConfig semanticCacheConfig = properties.getLlm().getSemanticCache();
+        if (semanticCacheConfig.isEnabled()) {
+            model = new SemanticCachingChatModel(model, embeddingStoreService, meterRegistry,
+                    semanticCacheConfig.getSimilarityThreshold(),
+                    Duration.ofMinutes(semanticCacheConfig.getTtlMinutes()));
+        }
+        return model;
+    }
+
+    /**
+     * LLM 响应缓存
+     * 堆内热点层 + 磁盘 LRU 层
+     */
+    @Bean
+    public LlmResponseCache llmResponseCache() {
+        OpenManusProperties.LlmConfig.CacheConfig cacheConfig = properties.getLlm().getCache();
+
+        return new LlmResponseCache(
+                Paths.get(cacheConfig.getDirectory()),
+                cacheConfig.getMaxDiskBytes(),
+                cacheConfig.getMaxHeapEntries());
+    }
+
+    /**
+     * 聊天模型出站限流器
+     * 同步与流式调用共享同一组令牌桶和并发上限
+     */
+    @Bean
+    public OutboundLimiter chatLimiter(MeterRegistry meterRegistry) {
+        return outboundLimiter("chat", properties.getLlm().getRateLimit(), meterRegistry);
+    }
+
+    /**
+     * 嵌入模型出站限流器
+     */
+    @Bean
+    public OutboundLimiter embeddingLimiter(MeterRegistry meterRegistry) {
+        return outboundLimiter("embedding", properties.getLlm().getEmbeddingRateLimit(), meterRegistry);
+    }
 
+    private OutboundLimiter outboundLimiter(String endpoint, OpenManusProperties.LlmConfig.RateLimitConfig config,
+                                            MeterRegistry meterRegistry) {
+        return new OutboundLimiter(
+                endpoint,
+                config.getRequestsPerMinute() > 0 ? new TokenBucket(config.getRequestsPerMinute()) : null,
+                config.getTokensPerMinute() > 0 ? new TokenBucket(config.getTokensPerMinute()) : null,
+                new AdaptiveConcurrencyLimit(
+                        config.getInitialConcurrency(),
+                        config.getMinConcurrency(),
+                        config.getMaxConcurrency(),
+                        config.getLatencyTolerance()),
+                Duration.ofSeconds(config.getMaxWaitSeconds()),
+                meterRegistry);
+    }
+
+    /**
+     * 多端点路由
+     * 默认端点与 llm.endpoints 中的端点各自拥有限流器、熔断器和延迟统计
+     */
+    private ChatModel routingChatModel(ChatModel defaultModel, MeterRegistry meterRegistry,
+                                       TokenCountEstimator tokenCountEstimator) {
+        OpenManusProperties.LlmConfig llm = properties.getLlm();
+        OpenManusProperties.LlmConfig.RoutingConfig routing = llm.getRouting();
+
+        List<RoutingChatModel.Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(routingEndpoint("default", defaultModel, llm.getDefaultLlm().getWeight()));
+        for (OpenManusProperties.LlmConfig.EndpointConfig endpointConfig : llm.getEndpoints()) {
+            ChatModel endpointModel = outbound(
+                    openAiChatModel(settingsFor(endpointConfig.getModel(), endpointConfig.getBaseUrl(),
+                            endpointConfig.getApiKey(), null, null)),
+                    outboundLimiter("chat-" + endpointConfig.getName(), llm.getRateLimit(), meterRegistry),
+                    tokenCountEstimator);
+            endpoints.add(routingEndpoint(endpointConfig.getName(), endpointModel, endpointConfig.getWeight()));
+        }
+
+        return new RoutingChatModel(
+                endpoints,
+                routing.isHedgeEnabled(),
+                routing.getHedgePercentile(),
+                Duration.ofMillis(routing.getInitialHedgeDelayMillis()),
+                Duration.ofMillis(routing.getMinHedgeDelayMillis()),
+                meterRegistry);
+    }
+
+    private RoutingChatModel.Endpoint routingEndpoint(String name, ChatModel model, int weight) {
+        OpenManusProperties.LlmConfig.RoutingConfig routing = properties.getLlm().getRouting();
+
+        return new RoutingChatModel.Endpoint(
+                name,
+                model,
+                weight,
+                new CircuitBreaker(routing.getFailureThreshold(), Duration.ofSeconds(routing.getOpenSeconds())),
+                new LatencyWindow(routing.getLatencyWindowSize()));
+    }
+
+    /**
+     * 出站模型：记录每次真实调用的 Token 用量，再按配置限流
+     */
+    private ChatModel outbound(ChatModel model, OutboundLimiter limiter, TokenCountEstimator tokenCountEstimator) {
+        ChatModel recorded = new UsageRecordingChatModel(model, tokenUsageTracker, tokenCountEstimator);
+        if (!properties.getLlm().getRateLimit().isEnabled()) {
+            return recorded;
+        }
+        return new RateLimitedChatModel(recorded, limiter, tokenCountEstimator);
+    }
+
+    private StreamingChatModel outbound(StreamingChatModel model, OutboundLimiter limiter,
+                                        TokenCountEstimator tokenCountEstimator) {
+        StreamingChatModel recorded = new UsageRecordingStreamingChatModel(model, tokenUsageTracker, tokenCountEstimator);
+        if (!properties.getLlm().getRateLimit().isEnabled()) {
+            return recorded;
+        }
+        return new RateLimitedStreamingChatModel(recorded, limiter, tokenCountEstimator);
+    }
+
+    /**
+     * 以 defaultLlm 为基础，覆盖非空的模型设置
+     */
+    private OpenManusProperties.LlmConfig.DefaultLLM settingsFor(String model, String baseUrl, String apiKey,
+                                                                 Double temperature, Integer maxTokens) {
+        OpenManusProperties.LlmConfig.DefaultLLM defaults = properties.getLlm().getDefaultLlm();
+
+        OpenManusProperties.LlmConfig.DefaultLLM settings = new OpenManusProperties.LlmConfig.DefaultLLM();
+        settings.setModel(model != null ? model : defaults.getModel());
+        settings.setBaseUrl(baseUrl != null ? baseUrl : defaults.getBaseUrl());
+        settings.setApiKey(apiKey == null || apiKey.isBlank() ? defaults.getApiKey() : apiKey);
+        settings.setTemperature(temperature != null ? temperature : defaults.getTemperature());
+        settings.setMaxTokens(maxTokens != null ? maxTokens : defaults.getMaxTokens());
+        settings.setTimeout(defaults.getTimeout());
+        return settings;
+    }
+
+    private ChatModel openAiChatModel(OpenManusProperties.LlmConfig.DefaultLLM llmConfig) {
         return OpenAiChatModel.builder()
                 .baseUrl(llmConfig.getBaseUrl())
                 .apiKey(llmConfig.getApiKey())
@@ -60,20 +277,68 @@ public class LangChain4jConfig {
                 .build();
     }
 
+    /**
+     * 流式聊天模型
+     * 与 chatModel 使用相同的配置，逐 token 返回响应，用于降低首字节延迟
+     */
+    @Bean
+    public StreamingChatModel streamingChatModel(OutboundLimiter chatLimiter, TokenCountEstimator tokenCountEstimator) {
+        return outbound(openAiStreamingChatModel(properties.getLlm().getDefaultLlm()), chatLimiter, tokenCountEstimator);
+    }
+
+    private StreamingChatModel openAiStreamingChatModel(OpenManusProperties.LlmConfig.DefaultLLM llmConfig) {
+        return OpenAiStreamingChatModel.builder()
+                .baseUrl(llmConfig.getBaseUrl())
+                .apiKey(llmConfig.getApiKey())
+                .modelName(llmConfig.getModel())
+                .temperature(llmConfig.getTemperature())
+                .maxTokens(llmConfig.getMaxTokens())
+                .timeout(Duration.ofSeconds(llmConfig.getTimeout()))
+                .build();
+    }
+
     /**
      * 嵌入模型
      * 用于文本向量化和语义搜索
      */
     @Bean
-    public EmbeddingModel embeddingModel() {
+    public EmbeddingModel embeddingModel(OutboundLimiter embeddingLimiter, TokenCountEstimator tokenCountEstimator) {
         OpenManusProperties.LlmConfig.DefaultLLM llmConfig = properties.getLlm().getDefaultLlm();
         
-        return OpenAiEmbeddingModel.builder()
+        EmbeddingModel model = OpenAiEmbeddingModel.builder()
                 .baseUrl(llmConfig.getBaseUrl())
                 .apiKey(llmConfig.getApiKey())
                 .modelName(llmConfig.getEmbeddingModel())
                 .logRequests(true)
                 .logResponses(true)
                 .build();
+        if (properties.getLlm().getEmbeddingRateLimit().isEnabled()) {
+            model = new RateLimitedEmbeddingModel(model, embeddingLimiter, tokenCountEstimator);
+        }
+        return model;
+    }
+
+    /**
+     * 本地Token计数器
+     * 使用 jtokkit 在本地估算 Token 数量，无需请求模型服务
+     */
+    @Bean
+    public TokenCountEstimator tokenCountEstimator() {
+        return new OpenAiTokenCountEstimator(properties.getLlm().getContext().getTokenizerModel());
+    }
+
+    /**
+     * 上下文窗口管理器
+     * 每次调用模型前估算历史消息的 Token 数，超出预算时压缩较早的工具结果
+     */
+    @Bean
+    public ContextWindowManager contextWindowManager(TokenCountEstimator tokenCountEstimator) {
+        OpenManusProperties.LlmConfig.ContextConfig contextConfig = properties.getLlm().getContext();
+
+        return new ContextWindowManager(
+                tokenCountEstimator,
+                contextConfig.getMaxInputTokens(),
+                contextConfig.getKeepRecentToolResults(),
+                contextConfig.getCompactedToolResultChars());
     }
-} 
\ No newline at end of file
+}
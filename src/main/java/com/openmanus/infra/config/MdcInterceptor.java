@@ -1,5 +1,6 @@
 package com.openmanus.infra.config;
 
+import com.openmanus.infra.llm.CachingChatModel;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
@@ -19,6 +20,7 @@ public class MdcInterceptor implements HandlerInterceptor {
 
     private static final String SESSION_ID_HEADER = "X-Session-ID";
     private static final String SESSION_ID_MDC_KEY = "sessionId";
+    private static final String LLM_CACHE_HEADER = "X-LLM-Cache";
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -27,6 +29,12 @@ public class MdcInterceptor implements HandlerInterceptor {
             sessionId = UUID.randomUUID().toString();
         }
         MDC.put(SESSION_ID_MDC_KEY, sessionId);
+
+        // 显式开启 LLM 响应缓存（用于回放、压测等需要可复现结果的场景）
+        String llmCache = request.getHeader(LLM_CACHE_HEADER);
+        if (llmCache != null) {
+            MDC.put(CachingChatModel.OPT_IN_MDC_KEY, llmCache.trim());
+        }
         return true;
     }
 
@@ -34,5 +42,6 @@ public class MdcInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, 
                                Object handler, Exception ex) {
         MDC.remove(SESSION_ID_MDC_KEY);
+        MDC.remove(CachingChatModel.OPT_IN_MDC_KEY);
     }
 }
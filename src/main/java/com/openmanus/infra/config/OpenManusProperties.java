@@ -1,10 +1,17 @@
 package com.openmanus.infra.config;
 
+import com.openmanus.infra.monitoring.ExecutionEventDispatcher;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import lombok.Data;
 import jakarta.annotation.PostConstruct;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * OpenManus Configuration Properties
  *
@@ -56,6 +63,24 @@ public class OpenManusProperties {
      */
     @NestedConfigurationProperty
     private RunflowConfig runflow = new RunflowConfig();
+    
+    /**
+     * Agent executor configuration
+     */
+    @NestedConfigurationProperty
+    private AgentConfig agent = new AgentConfig();
+    
+    /**
+     * Execution monitoring configuration
+     */
+    @NestedConfigurationProperty
+    private MonitoringConfig monitoring = new MonitoringConfig();
+    
+    /**
+     * WebSocket messaging configuration
+     */
+    @NestedConfigurationProperty
+    private WebSocketSettings websocket = new WebSocketSettings();
 
     @PostConstruct
     void applyEnvFallbacks() {
@@ -125,6 +150,54 @@ public class OpenManusProperties {
     public static class LlmConfig {
         @NestedConfigurationProperty
         private DefaultLLM defaultLlm = new DefaultLLM();
+
+        @NestedConfigurationProperty
+        private ContextConfig context = new ContextConfig();
+
+        @NestedConfigurationProperty
+        private CacheConfig cache = new CacheConfig();
+
+        @NestedConfigurationProperty
+        private SemanticCacheConfig semanticCache = new SemanticCacheConfig();
+
+        /**
+         * Whether identical concurrent requests share one in-flight model call
+         */
+        private boolean singleFlight = true;
+
+        /**
+         * Outbound limits for chat model calls (sync and streaming share one limiter)
+         */
+        @NestedConfigurationProperty
+        private RateLimitConfig rateLimit = new RateLimitConfig();
+
+        /**
+         * Outbound limits for embedding model calls
+         */
+        @NestedConfigurationProperty
+        private RateLimitConfig embeddingRateLimit = new RateLimitConfig();
+
+        /**
+         * Additional chat endpoints; when present, calls are routed across defaultLlm and these endpoints
+         */
+        private List<EndpointConfig> endpoints = new ArrayList<>();
+
+        /**
+         * Hedging and failover across chat endpoints
+         */
+        @NestedConfigurationProperty
+        private RoutingConfig routing = new RoutingConfig();
+
+        /**
+         * Named model profiles (e.g. fast, reasoning, cheap) that agents can be bound to via agent.modelProfiles
+         */
+        private Map<String, ProfileConfig> profiles = new LinkedHashMap<>();
+
+        /**
+         * Per-session token and cost budgets, and the prices used to compute cost
+         */
+        @NestedConfigurationProperty
+        private BudgetConfig budget = new BudgetConfig();
         
         @Data
         public static class DefaultLLM {
@@ -136,6 +209,236 @@ public class OpenManusProperties {
             private Integer maxTokens = 8192;
             private Integer timeout = 120;
             private String apiKey = "";
+            private int weight = 1;
+        }
+
+        /**
+         * Additional chat endpoint; temperature, maxTokens and timeout are taken from defaultLlm
+         */
+        @Data
+        public static class EndpointConfig {
+            private String name;
+            private String model;
+            private String baseUrl;
+            /**
+             * Falls back to defaultLlm.apiKey when blank
+             */
+            private String apiKey = "";
+            private int weight = 1;
+        }
+
+        /**
+         * Named model profile; unset fields are taken from defaultLlm
+         */
+        @Data
+        public static class ProfileConfig {
+            private String model;
+            private String baseUrl;
+            private String apiKey;
+            private Double temperature;
+            private Integer maxTokens;
+        }
+
+        /**
+         * Token usage budgets; a session that has used up its budget fails its next model call
+         */
+        @Data
+        public static class BudgetConfig {
+            /**
+             * Input plus output tokens one session may consume, 0 for unlimited
+             */
+            private long maxTokensPerSession = 0;
+
+            /**
+             * Cost one session may incur, in the currency of the prices below, 0 for unlimited
+             */
+            private double maxCostPerSession = 0;
+
+            /**
+             * Price per million input tokens for models without an entry in modelPrices
+             */
+            private double inputPricePerMillionTokens = 0;
+
+            /**
+             * Price per million output tokens for models without an entry in modelPrices
+             */
+            private double outputPricePerMillionTokens = 0;
+
+            /**
+             * Prices keyed by the model name reported in the response
+             */
+            private Map<String, ModelPrice> modelPrices = new LinkedHashMap<>();
+
+            @Data
+            public static class ModelPrice {
+                private double inputPerMillionTokens;
+                private double outputPerMillionTokens;
+            }
+        }
+
+        /**
+         * Hedged requests and per-endpoint circuit breakers
+         */
+        @Data
+        public static class RoutingConfig {
+            /**
+             * Whether a duplicate request is sent to the next endpoint when the first one is slow
+             */
+            private boolean hedgeEnabled = true;
+
+            /**
+             * Latency percentile of the first endpoint after which the hedge is sent
+             */
+            private double hedgePercentile = 0.95;
+
+            /**
+             * Hedge delay used until an endpoint has enough latency samples
+             */
+            private long initialHedgeDelayMillis = 15000;
+
+            /**
+             * Lower bound of the hedge delay
+             */
+            private long minHedgeDelayMillis = 1000;
+
+            /**
+             * Number of recent latency samples kept per endpoint
+             */
+            private int latencyWindowSize = 200;
+
+            /**
+             * Consecutive failures that open an endpoint's circuit
+             */
+            private int failureThreshold = 5;
+
+            /**
+             * Seconds an open circuit waits before letting a trial request through
+             */
+            private int openSeconds = 30;
+        }
+
+        /**
+         * Context window budgeting for the agent ReAct loop
+         */
+        @Data
+        public static class ContextConfig {
+            /**
+             * Whether the message history is compacted to stay within the token budget
+             */
+            private boolean enabled = true;
+
+            /**
+             * Token budget of one model request (messages plus tool specifications)
+             */
+            private int maxInputTokens = 24000;
+
+            /**
+             * jtokkit model name used for local token counting
+             */
+            private String tokenizerModel = "gpt-4o";
+
+            /**
+             * Number of newest tool results left untouched while older ones are compacted
+             */
+            private int keepRecentToolResults = 2;
+
+            /**
+             * Characters of a tool result kept after compaction
+             */
+            private int compactedToolResultChars = 800;
+        }
+
+        /**
+         * Exact-match response cache for deterministic LLM requests
+         */
+        @Data
+        public static class CacheConfig {
+            /**
+             * Whether deterministic requests (temperature 0 or X-LLM-Cache header) are served from the cache
+             */
+            private boolean enabled = true;
+
+            /**
+             * Directory of the on-disk tier
+             */
+            private String directory = "./workspace/.llm-cache";
+
+            /**
+             * Size limit of the on-disk tier in bytes, least recently used entries are evicted first
+             */
+            private long maxDiskBytes = 256L * 1024 * 1024;
+
+            /**
+             * Number of responses kept in the in-heap hot tier
+             */
+            private int maxHeapEntries = 512;
+        }
+
+        /**
+         * Semantic response cache for paraphrased single-turn prompts
+         */
+        @Data
+        public static class SemanticCacheConfig {
+            /**
+             * Whether answers to similar earlier prompts of the same agent are reused
+             */
+            private boolean enabled = false;
+
+            /**
+             * Minimum cosine similarity for a cached prompt to count as a match
+             */
+            private double similarityThreshold = 0.92;
+
+            /**
+             * Lifetime of a cached answer in minutes
+             */
+            private int ttlMinutes = 60;
+        }
+
+        /**
+         * Token-bucket and adaptive concurrency limits in front of a model endpoint
+         */
+        @Data
+        public static class RateLimitConfig {
+            /**
+             * Whether calls are queued behind the limiter
+             */
+            private boolean enabled = true;
+
+            /**
+             * Requests per minute allowed by the provider, 0 disables the request bucket
+             */
+            private long requestsPerMinute = 0;
+
+            /**
+             * Tokens per minute allowed by the provider, 0 disables the token bucket
+             */
+            private long tokensPerMinute = 0;
+
+            /**
+             * Concurrency limit before any calls complete
+             */
+            private int initialConcurrency = 8;
+
+            /**
+             * Lower bound of the adaptive concurrency limit
+             */
+            private int minConcurrency = 1;
+
+            /**
+             * Upper bound of the adaptive concurrency limit
+             */
+            private int maxConcurrency = 32;
+
+            /**
+             * Maximum time a call waits in the queue before failing
+             */
+            private int maxWaitSeconds = 120;
+
+            /**
+             * Latency per output token above this multiple of the baseline shrinks the concurrency limit
+             */
+            private double latencyTolerance = 2.0;
         }
     }
     
@@ -224,4 +527,341 @@ public class OpenManusProperties {
         private int maxSteps = 50;      // 增加到 50 步（原：20 步）
         private int timeout = 600;      // 增加到 600 秒（原：300 秒）
     }
-}
\ No newline at end of file
+    
+    /**
+     * Agent executor configuration
+     */
+    @Data
+    public static class AgentConfig {
+        /**
+         * Whether tool calls requested in one model turn run concurrently
+         */
+        private boolean parallelToolCalls = true;
+        
+        /**
+         * Maximum number of concurrently running tool calls per turn
+         */
+        private int maxConcurrentToolCalls = 4;
+        
+        /**
+         * Whether model turns are streamed, pushing partial tokens to the session topic as they arrive
+         */
+        private boolean streamingResponses = false;
+
+        /**
+         * Agent name -> llm.profiles entry; agents without a binding use defaultLlm
+         */
+        private Map<String, String> modelProfiles = new HashMap<>();
+        
+        /**
+         * Per-session tool result memoization
+         */
+        @NestedConfigurationProperty
+        private ToolCacheConfig toolCache = new ToolCacheConfig();
+        
+        @Data
+        public static class ToolCacheConfig {
+            /**
+             * Whether results of tools annotated with @CacheableTool are memoized per session
+             */
+            private boolean enabled = true;
+            
+            /**
+             * Maximum number of cached results per session
+             */
+            private int maxEntriesPerSession = 256;
+            
+            /**
+             * Maximum number of sessions holding cached results
+             */
+            private int maxSessions = 512;
+
+            /**
+             * Interval of the background sweep that drops expired entries and empty sessions
+             */
+            private int evictionIntervalSeconds = 60;
+        }
+    }
+    
+    /**
+     * Execution monitoring configuration
+     */
+    @Data
+    public static class MonitoringConfig {
+        @NestedConfigurationProperty
+        private EventStoreConfig events = new EventStoreConfig();
+        
+        @NestedConfigurationProperty
+        private DispatchConfig dispatch = new DispatchConfig();
+        
+        @NestedConfigurationProperty
+        private ReplayConfig replay = new ReplayConfig();
+        
+        @NestedConfigurationProperty
+        private BlobConfig blobs = new BlobConfig();
+        
+        @NestedConfigurationProperty
+        private TracingConfig tracing = new TracingConfig();
+        
+        @NestedConfigurationProperty
+        private TimeSeriesConfig timeseries = new TimeSeriesConfig();
+        
+        /**
+         * Bounded in-memory store behind AgentExecutionTracker
+         */
+        @Data
+        public static class EventStoreConfig {
+            /**
+             * Maximum events kept per session; older events are dropped first
+             */
+            private int maxEventsPerSession = 1000;
+            
+            /**
+             * Estimated heap budget for all buffered events; least recently active sessions are evicted beyond it
+             */
+            private long maxTotalBytes = 64L * 1024 * 1024;
+            
+            /**
+             * Sessions without new events for this long are evicted
+             */
+            private int idleTtlMinutes = 30;
+            
+            /**
+             * How often idle sessions are evicted
+             */
+            private int evictionIntervalSeconds = 60;
+        }
+        
+        /**
+         * Asynchronous, batched push of execution events to WebSocket subscribers
+         */
+        @Data
+        public static class DispatchConfig {
+            /**
+             * Consumer threads; sessions are sharded across them so per-session order is kept
+             */
+            private int consumers = 2;
+            
+            /**
+             * Total capacity of the dispatch queues
+             */
+            private int queueCapacity = 8192;
+            
+            /**
+             * Window in which events of one session are coalesced into a single frame
+             */
+            private long batchWindowMillis = 30;
+            
+            /**
+             * Maximum messages drained per batch
+             */
+            private int maxBatchSize = 256;
+            
+            /**
+             * What producers do when the queue is full
+             */
+            private ExecutionEventDispatcher.OverflowPolicy overflowPolicy =
+                    ExecutionEventDispatcher.OverflowPolicy.DROP_LOW_PRIORITY;
+            
+            /**
+             * How long a high-priority event waits for queue space under DROP_LOW_PRIORITY
+             */
+            private long offerTimeoutMillis = 1000;
+        }
+        
+        /**
+         * Per-session replay buffer of pushed frames for late or reconnecting subscribers
+         */
+        @Data
+        public static class ReplayConfig {
+            /**
+             * Maximum frames kept per session; older frames are dropped first
+             */
+            private int maxFramesPerSession = 1000;
+            
+            /**
+             * Maximum serialized bytes kept per session; older frames are dropped first
+             */
+            private long maxBytesPerSession = 4L * 1024 * 1024;
+            
+            /**
+             * Sessions without new frames for this long are evicted
+             */
+            private int idleTtlMinutes = 10;
+            
+            /**
+             * How often idle sessions are evicted
+             */
+            private int evictionIntervalSeconds = 60;
+        }
+        
+        /**
+         * Content-addressed disk store for large tool and LLM payloads; events and flows keep a preview and a handle
+         */
+        @Data
+        public static class BlobConfig {
+            /**
+             * Payloads larger than this (UTF-8 bytes) are offloaded; 0 disables offloading
+             */
+            private int thresholdBytes = 8 * 1024;
+            
+            /**
+             * Characters of an offloaded payload kept inline as a preview
+             */
+            private int previewChars = 512;
+            
+            /**
+             * Parent directory for blob files; each instance writes to its own openmanus-blobs* subdirectory
+             * here and removes it on shutdown. Defaults to java.io.tmpdir
+             */
+            private String directory;
+            
+            /**
+             * Disk budget for all blobs; least recently read or written blobs are deleted beyond it
+             */
+            private long maxTotalBytes = 1024L * 1024 * 1024;
+            
+            /**
+             * Blobs not read or written for this long are deleted
+             */
+            private int ttlHours = 24;
+            
+            /**
+             * How often expired blobs are deleted
+             */
+            private int evictionIntervalSeconds = 300;
+        }
+        
+        /**
+         * Span tracing of workflow, agent, tool and LLM calls; detailed execution flows are derived from the spans
+         */
+        @Data
+        public static class TracingConfig {
+            /**
+             * Record spans; when disabled no traces are kept or exported and detailed flows are unavailable
+             */
+            private boolean enabled = true;
+            
+            /**
+             * Completed traces kept in memory; the oldest are dropped beyond it
+             */
+            private int maxTraces = 200;
+            
+            /**
+             * Append every completed trace as one OTLP/JSON line to a daily file in the directory
+             */
+            private boolean fileExport = true;
+            
+            /**
+             * Directory for trace files; defaults to openmanus-traces under java.io.tmpdir
+             */
+            private String directory;
+            
+            /**
+             * OTLP/HTTP traces endpoint, e.g. http://localhost:4318/v1/traces; empty disables pushing
+             */
+            private String otlpEndpoint;
+            
+            /**
+             * service.name resource attribute of exported traces
+             */
+            private String serviceName = "openmanus";
+        }
+        
+        /**
+         * Rolling latency histograms and counters per minute and per hour for workflows, agents, tools and LLM calls
+         */
+        @Data
+        public static class TimeSeriesConfig {
+            /**
+             * Per-minute buckets kept per series, i.e. the longest window served at minute resolution
+             */
+            private int minuteBuckets = 60;
+            
+            /**
+             * Per-hour buckets kept per series
+             */
+            private int hourBuckets = 24;
+            
+            /**
+             * Distinct keys (agent or tool names) tracked per metric; further keys are counted under "_other".
+             * Memory is bounded by metrics x keys x (minuteBuckets + hourBuckets) x ~1.4 KB
+             */
+            private int maxSeriesPerMetric = 50;
+        }
+    }
+    
+    @Data
+    public static class WebSocketSettings {
+        @NestedConfigurationProperty
+        private BrokerConfig broker = new BrokerConfig();
+        
+        @NestedConfigurationProperty
+        private BackpressureConfig backpressure = new BackpressureConfig();
+        
+        /**
+         * Per-client send queues; clients that fall behind get a reduced stream instead of blocking send threads
+         */
+        @Data
+        public static class BackpressureConfig {
+            /**
+             * A client whose oldest unsent frame is older than this switches to degraded mode
+             */
+            private long degradeLagMillis = 2000;
+            
+            /**
+             * A client with more unsent bytes than this switches to degraded mode
+             */
+            private long degradeQueuedBytes = 256 * 1024;
+            
+            /**
+             * A client with more unsent bytes than this is disconnected; it can reconnect and replay from its last seq
+             */
+            private long maxQueuedBytes = 4L * 1024 * 1024;
+        }
+        
+        /**
+         * Message broker behind the /topic destinations
+         */
+        @Data
+        public static class BrokerConfig {
+            /**
+             * SIMPLE keeps subscriptions in memory (single instance); RELAY forwards /topic traffic to an external
+             * STOMP broker so a workflow on one instance reaches browsers connected to another
+             */
+            private Mode mode = Mode.SIMPLE;
+            
+            private String relayHost = "localhost";
+            
+            private int relayPort = 61613;
+            
+            /**
+             * Credentials of the per-browser connections the relay opens to the broker
+             */
+            private String clientLogin = "guest";
+            
+            private String clientPasscode = "guest";
+            
+            /**
+             * Credentials of the shared connection used to publish server-side messages
+             */
+            private String systemLogin = "guest";
+            
+            private String systemPasscode = "guest";
+            
+            /**
+             * Virtual host sent in the STOMP CONNECT frame; blank uses the relay host
+             */
+            private String virtualHost;
+            
+            private long systemHeartbeatSendIntervalMillis = 10000;
+            
+            private long systemHeartbeatReceiveIntervalMillis = 10000;
+            
+            public enum Mode {
+                SIMPLE,
+                RELAY
+            }
+        }
+    }
+}
@@ -8,8 +8,6 @@ import com.openmanus.agent.impl.thinker.ThinkingAgent;
 import com.openmanus.agent.tool.BrowserTool;
 import com.openmanus.agent.tool.FileTool;
 import com.openmanus.agent.tool.PythonTool;
-import com.openmanus.infra.monitoring.AgentExecutionTracker;
-import dev.langchain4j.model.chat.ChatModel;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,19 +16,23 @@ import org.springframework.context.annotation.Configuration;
  * 
  * 采用工厂模式配置Think-Do-Reflect工作流中的所有智能体实例
  * 确保各智能体之间的协作和依赖关系正确配置
+ * 各智能体使用的模型由 agent.model-profiles 按名称绑定，未绑定时使用默认模型
  */
 @Configuration
 public class SubAgentConfig {
 
+    private final AgentExecutorConfigurer executorConfigurer;
+
+    public SubAgentConfig(AgentExecutorConfigurer executorConfigurer) {
+        this.executorConfigurer = executorConfigurer;
+    }
+
     /**
      * 思考智能体 - 负责任务分析和规划
      */
     @Bean
-    public ThinkingAgent thinkingAgent(ChatModel chatModel, 
-                                      AgentExecutionTracker agentExecutionTracker) {
-        return ThinkingAgent.builder()
-                .chatModel(chatModel)
-                .agentExecutionTracker(agentExecutionTracker)
+    public ThinkingAgent thinkingAgent() {
+        return executorConfigurer.apply(ThinkingAgent.builder(), "thinking_agent")
                 .build();
     }
 
@@ -38,9 +40,8 @@ public class SubAgentConfig {
      * 搜索智能体 - 负责网络搜索和信息检索
      */
     @Bean
-    public SearchAgent searchAgent(ChatModel chatModel, BrowserTool browserTool) {
-        return SearchAgent.builder()
-                .chatModel(chatModel)
+    public SearchAgent searchAgent(BrowserTool browserTool) {
+        return executorConfigurer.apply(SearchAgent.builder(), "search_agent")
                 .browserTool(browserTool)
                 .build();
     }
@@ -49,9 +50,8 @@ public class SubAgentConfig {
      * 代码智能体 - 负责代码执行和计算
      */
     @Bean
-    public CodeAgent codeAgent(ChatModel chatModel, PythonTool pythonTool) {
-        return CodeAgent.builder()
-                .chatModel(chatModel)
+    public CodeAgent codeAgent(PythonTool pythonTool) {
+        return executorConfigurer.apply(CodeAgent.builder(), "code_agent")
                 .pythonTool(pythonTool)
                 .build();
     }
@@ -60,9 +60,8 @@ public class SubAgentConfig {
      * 文件智能体 - 负责文件操作
      */
     @Bean
-    public FileAgent fileAgent(ChatModel chatModel, FileTool fileTool) {
-        return FileAgent.builder()
-                .chatModel(chatModel)
+    public FileAgent fileAgent(FileTool fileTool) {
+        return executorConfigurer.apply(FileAgent.builder(), "file_agent")
                 .fileTool(fileTool)
                 .build();
     }
@@ -71,11 +70,8 @@ public class SubAgentConfig {
      * 反思智能体 - 负责结果评估和质量保证
      */
     @Bean
-    public ReflectionAgent reflectionAgent(ChatModel chatModel, 
-                                          AgentExecutionTracker agentExecutionTracker) {
-        return ReflectionAgent.builder()
-                .chatModel(chatModel)
-                .agentExecutionTracker(agentExecutionTracker)
+    public ReflectionAgent reflectionAgent() {
+        return executorConfigurer.apply(ReflectionAgent.builder(), "reflection_agent")
                 .build();
     }
 }
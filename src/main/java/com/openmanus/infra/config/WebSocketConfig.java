@@ -1,12 +1,19 @@
 package com.openmanus.infra.config;
 
+import com.openmanus.infra.monitoring.SessionReplayBuffer;
+import com.openmanus.infra.websocket.ClientBackpressure;
+import com.openmanus.infra.websocket.WireEncodings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -35,9 +42,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private static final long SOCKJS_DISCONNECT_DELAY = 60000; // 60秒
 
     private final MappingJackson2MessageConverter messageConverter;
+    private final SessionReplayBuffer replayBuffer;
+    private final OpenManusProperties.WebSocketSettings.BrokerConfig brokerConfig;
+    private final ClientBackpressure clientBackpressure;
+    private final WireEncodings wireEncodings;
     
-    public WebSocketConfig(MappingJackson2MessageConverter messageConverter) {
+    /**
+     * @param replayBuffer 延迟注入：它依赖本配置参与创建的消息模板和 WebSocket 处理器
+     */
+    public WebSocketConfig(MappingJackson2MessageConverter messageConverter, @Lazy SessionReplayBuffer replayBuffer,
+                           OpenManusProperties properties, ClientBackpressure clientBackpressure,
+                           WireEncodings wireEncodings) {
         this.messageConverter = messageConverter;
+        this.replayBuffer = replayBuffer;
+        this.brokerConfig = properties.getWebsocket().getBroker();
+        this.clientBackpressure = clientBackpressure;
+        this.wireEncodings = wireEncodings;
     }
 
     /**
@@ -53,14 +73,51 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         return scheduler;
     }
 
+    /**
+     * 消息代理：默认使用内存中的简单代理；RELAY 模式把 /topic 的订阅和消息转发到外部 STOMP 代理
+     * （如 RabbitMQ STOMP 插件、ActiveMQ Artemis），多个实例共享订阅，需要 reactor-netty（-Pbroker-relay）
+     */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic")
-              .setHeartbeatValue(new long[]{HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL})
-              .setTaskScheduler(webSocketTaskScheduler());
+        if (brokerConfig.getMode() == OpenManusProperties.WebSocketSettings.BrokerConfig.Mode.RELAY) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(brokerConfig.getRelayHost())
+                    .setRelayPort(brokerConfig.getRelayPort())
+                    .setClientLogin(brokerConfig.getClientLogin())
+                    .setClientPasscode(brokerConfig.getClientPasscode())
+                    .setSystemLogin(brokerConfig.getSystemLogin())
+                    .setSystemPasscode(brokerConfig.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(brokerConfig.getSystemHeartbeatSendIntervalMillis())
+                    .setSystemHeartbeatReceiveInterval(brokerConfig.getSystemHeartbeatReceiveIntervalMillis())
+                    .setTaskScheduler(webSocketTaskScheduler());
+            if (StringUtils.hasText(brokerConfig.getVirtualHost())) {
+                relay.setVirtualHost(brokerConfig.getVirtualHost());
+            }
+            log.info("WebSocket消息代理配置完成 - 外部 STOMP 代理: {}:{}",
+                    brokerConfig.getRelayHost(), brokerConfig.getRelayPort());
+        } else {
+            config.enableSimpleBroker("/topic")
+                  .setHeartbeatValue(new long[]{HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL})
+                  .setTaskScheduler(webSocketTaskScheduler());
+            log.info("WebSocket消息代理配置完成 - 心跳间隔: {}ms", HEARTBEAT_INTERVAL);
+        }
         config.setApplicationDestinationPrefixes("/app");
-        
-        log.info("WebSocket消息代理配置完成 - 心跳间隔: {}ms", HEARTBEAT_INTERVAL);
+    }
+
+    /**
+     * CONNECT 时协商推送帧编码；订阅时携带 fromSeq 头的客户端先收到回放缓冲中的历史帧
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(wireEncodings, replayBuffer);
+    }
+
+    /**
+     * 推送给积压客户端的帧在入队前降级（丢弃日志、合并中间事件），再按客户端协商的格式取出编码
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(clientBackpressure, wireEncodings);
     }
 
     @Override
@@ -77,11 +134,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 SOCKJS_HEARTBEAT_TIME, SOCKJS_DISCONNECT_DELAY);
     }
     
+    /**
+     * 每个连接套上独立的发送队列，实际写出在连接专属的虚拟线程上完成；
+     * 因此发送缓冲和发送超时限制基本不会触发，慢客户端由 ClientBackpressure 按积压降级或断开
+     */
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
         registration.setMessageSizeLimit(MESSAGE_SIZE_LIMIT)
                    .setSendBufferSizeLimit(SEND_BUFFER_SIZE_LIMIT)
-                   .setSendTimeLimit(SEND_TIME_LIMIT);
+                   .setSendTimeLimit(SEND_TIME_LIMIT)
+                   .addDecoratorFactory(clientBackpressure)
+                   .addDecoratorFactory(wireEncodings);
         
         log.info("WebSocket传输配置完成 - 消息大小: {}KB, 发送超时: {}ms", 
                 MESSAGE_SIZE_LIMIT / 1024, SEND_TIME_LIMIT);
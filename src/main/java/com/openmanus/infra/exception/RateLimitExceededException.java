@@ -0,0 +1,16 @@
+package com.openmanus.infra.exception;
+
+/**
+ * Exception raised when an outbound call cannot obtain a rate limit or concurrency permit
+ * before its deadline.
+ */
+public class RateLimitExceededException extends OpenManusException {
+    
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+    
+    public RateLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
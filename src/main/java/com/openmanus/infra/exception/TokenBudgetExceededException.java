@@ -0,0 +1,12 @@
+package com.openmanus.infra.exception;
+
+/**
+ * Exception raised when a session has used up its token or cost budget; the model call that
+ * would have exceeded it is not sent.
+ */
+public class TokenBudgetExceededException extends OpenManusException {
+
+    public TokenBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,104 @@
+package com.openmanus.infra.llm;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 精确匹配的 LLM 响应缓存装饰器
+ *
+ * 以「消息 + 工具定义 + 模型名 + 温度」的 SHA-256 作为键，命中时直接返回缓存的响应，跳过一次完整的模型往返。
+ * 只有确定性的请求才会走缓存：温度为 0，或者请求头 {@code X-LLM-Cache: true} 显式开启（经 MDC 传递）。
+ */
+@Slf4j
+public class CachingChatModel implements ChatModel {
+
+    /**
+     * MDC 中表示显式开启 LLM 缓存的键，由 MdcInterceptor 根据请求头设置
+     */
+    public static final String OPT_IN_MDC_KEY = "llmCache";
+
+    private static final String METRIC_NAME = "openmanus.llm.cache.requests";
+
+    private final ChatModel delegate;
+    private final LlmResponseCache cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingChatModel(ChatModel delegate, LlmResponseCache cache, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        if (!isDeterministic(chatRequest)) {
+            return delegate.chat(chatRequest);
+        }
+
+        String key = keyOf(chatRequest);
+        ChatResponse cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            log.debug("LLM cache hit: {}", key);
+            return cached;
+        }
+
+        misses.increment();
+        ChatResponse response = delegate.chat(chatRequest);
+        if (response != null && response.aiMessage() != null) {
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private static boolean isDeterministic(ChatRequest chatRequest) {
+        Double temperature = chatRequest.parameters().temperature();
+        return (temperature != null && temperature == 0.0) || "true".equalsIgnoreCase(MDC.get(OPT_IN_MDC_KEY));
+    }
+
+    /**
+     * 计算稳定的缓存键，消息使用 LangChain4j 的 JSON 序列化，工具定义按声明顺序拼接
+     */
+    static String keyOf(ChatRequest chatRequest) {
+        ChatRequestParameters parameters = chatRequest.parameters();
+        List<ToolSpecification> tools = parameters.toolSpecifications();
+        StringBuilder material = new StringBuilder()
+                .append(parameters.modelName()).append('\n')
+                .append(parameters.temperature()).append('\n')
+                .append(ChatMessageSerializer.messagesToJson(chatRequest.messages())).append('\n');
+        if (tools != null) {
+            tools.forEach(tool -> material.append(tool).append('\n'));
+        }
+        return Digests.sha256(material.toString());
+    }
+}
@@ -0,0 +1,64 @@
+package com.openmanus.infra.llm;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 模型分级
+ *
+ * 按名称管理多组模型（如 fast / reasoning / cheap），并按 Agent 名称解析其绑定的模型组，
+ * 未绑定或绑定了未知模型组的 Agent 使用默认模型
+ */
+@Slf4j
+public class ChatModelProfiles {
+
+    /**
+     * 一组同步与流式模型
+     */
+    public record Profile(ChatModel chatModel, StreamingChatModel streamingChatModel) {
+    }
+
+    private final Profile defaultProfile;
+    private final Map<String, Profile> profiles;
+    private final Map<String, String> agentProfiles;
+
+    /**
+     * @param defaultProfile 默认模型组
+     * @param profiles 模型组名称 -> 模型组
+     * @param agentProfiles Agent 名称 -> 模型组名称
+     */
+    public ChatModelProfiles(Profile defaultProfile, Map<String, Profile> profiles, Map<String, String> agentProfiles) {
+        this.defaultProfile = defaultProfile;
+        this.profiles = Map.copyOf(profiles);
+        this.agentProfiles = Map.copyOf(agentProfiles);
+        agentProfiles.forEach((agent, profile) -> {
+            if (!profiles.containsKey(profile)) {
+                log.warn("Agent {} is bound to unknown model profile '{}', using the default model", agent, profile);
+            }
+        });
+    }
+
+    /**
+     * 解析 Agent 使用的模型组
+     *
+     * @param agentName Agent 名称
+     * @return 绑定的模型组，未绑定时返回默认模型组
+     */
+    public Profile forAgent(String agentName) {
+        String profileName = agentProfiles.get(agentName);
+        return profileName == null ? defaultProfile : profiles.getOrDefault(profileName, defaultProfile);
+    }
+
+    /**
+     * 按名称获取模型组
+     *
+     * @param profileName 模型组名称
+     * @return 模型组，不存在时返回默认模型组
+     */
+    public Profile forProfile(String profileName) {
+        return profiles.getOrDefault(profileName, defaultProfile);
+    }
+}
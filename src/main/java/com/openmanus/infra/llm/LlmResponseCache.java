@@ -0,0 +1,206 @@
+package com.openmanus.infra.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * LLM 响应的两级缓存存储
+ *
+ * 1. 堆内热点层：按访问顺序淘汰的 LinkedHashMap，最多 maxHeapEntries 条
+ * 2. 磁盘层：每个键一个 JSON 文件，总大小超过 maxDiskBytes 时按 LRU 删除最久未访问的文件；
+ *    文件修改时间记录最近访问时间，重启后仍能按 LRU 顺序恢复索引
+ *
+ * 键由调用方计算（见 {@link CachingChatModel}），这里只负责存取
+ */
+@Slf4j
+public class LlmResponseCache {
+
+    private static final String SUFFIX = ".json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final Map<String, ChatResponse> heap;
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    public LlmResponseCache(Path directory, long maxDiskBytes, int maxHeapEntries) {
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.heap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ChatResponse> eldest) {
+                return size() > maxHeapEntries;
+            }
+        };
+        loadIndex();
+    }
+
+    /**
+     * 查询缓存，磁盘命中会提升到堆内层
+     *
+     * @return 缓存的响应，未命中返回 null
+     */
+    public ChatResponse get(String key) {
+        synchronized (heap) {
+            ChatResponse response = heap.get(key);
+            if (response != null) {
+                return response;
+            }
+        }
+
+        synchronized (diskIndex) {
+            if (diskIndex.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = fileFor(key);
+        try {
+            ChatResponse response = fromJson(Files.readString(file));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (heap) {
+                heap.put(key, response);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping unreadable LLM cache entry {}: {}", key, e.getMessage());
+            removeFromDisk(key);
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存：同时写入堆内层和磁盘层，磁盘写入失败只记录日志
+     */
+    public void put(String key, ChatResponse response) {
+        synchronized (heap) {
+            heap.put(key, response);
+        }
+        Path file = fileFor(key);
+        try {
+            byte[] bytes = toJson(response).getBytes(StandardCharsets.UTF_8);
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (diskIndex) {
+                Long previous = diskIndex.put(key, (long) bytes.length);
+                diskBytes += bytes.length - (previous != null ? previous : 0);
+                evictToLimit();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist LLM cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (heap) {
+            stats.put("heapEntries", heap.size());
+        }
+        synchronized (diskIndex) {
+            stats.put("diskEntries", diskIndex.size());
+            stats.put("diskBytes", diskBytes);
+        }
+        return stats;
+    }
+
+    private void evictToLimit() {
+        Iterator<Map.Entry<String, Long>> eldest = diskIndex.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            diskBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(fileFor(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted LLM cache entry {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void removeFromDisk(String key) {
+        synchronized (diskIndex) {
+            Long size = diskIndex.remove(key);
+            if (size != null) {
+                diskBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException ignored) {
+            // 下次写入同一键时会覆盖
+        }
+    }
+
+    /**
+     * 启动时按最近访问时间从旧到新重建磁盘索引
+     */
+    private void loadIndex() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparingLong(LlmResponseCache::lastModified))
+                        .forEach(file -> {
+                            String name = file.getFileName().toString();
+                            long size = file.toFile().length();
+                            diskIndex.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                            diskBytes += size;
+                        });
+            }
+            synchronized (diskIndex) {
+                evictToLimit();
+            }
+            log.info("LLM response cache at {}: {} entries, {} bytes", directory, diskIndex.size(), diskBytes);
+        } catch (IOException e) {
+            log.warn("LLM response cache directory {} is not usable: {}", directory, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private String toJson(ChatResponse response) throws IOException {
+        Map<String, Object> json = new HashMap<>();
+        json.put("aiMessage", ChatMessageSerializer.messageToJson(response.aiMessage()));
+        json.put("modelName", response.modelName());
+        json.put("finishReason", response.finishReason() != null ? response.finishReason().name() : null);
+        return objectMapper.writeValueAsString(json);
+    }
+
+    private ChatResponse fromJson(String content) throws IOException {
+        Map<?, ?> json = objectMapper.readValue(content, Map.class);
+        Object finishReason = json.get("finishReason");
+        return ChatResponse.builder()
+                .aiMessage((AiMessage) ChatMessageDeserializer.messageFromJson((String) json.get("aiMessage")))
+                .modelName((String) json.get("modelName"))
+                .finishReason(finishReason != null ? FinishReason.valueOf((String) finishReason) : null)
+                .build();
+    }
+}
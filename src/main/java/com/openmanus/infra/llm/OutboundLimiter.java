@@ -0,0 +1,200 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.AdaptiveConcurrencyLimit;
+import com.openmanus.infra.concurrent.TokenBucket;
+import com.openmanus.infra.exception.RateLimitExceededException;
+import dev.langchain4j.exception.RateLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+/**
+ * 出站限流器
+ *
+ * 对同一个上游端点的调用依次经过：
+ * 1. 每分钟请求数令牌桶（RPM）
+ * 2. 每分钟 token 数令牌桶（TPM），先按估算的输入 token 预扣，响应返回后再补扣实际输出 token
+ * 3. 自适应并发上限（AIMD），依据 429 响应和每输出 token 的延迟调整
+ *
+ * 获取不到许可的调用会排队等待，超过 maxWait 仍未放行时抛出 {@link RateLimitExceededException}，
+ * 并归还前面环节已获取的令牌。
+ *
+ * 通过 Micrometer 导出（actuator /actuator/metrics）：
+ * openmanus.llm.limiter.limit / inflight / queue / rpm.available / tpm.available（gauge），
+ * openmanus.llm.limiter.throttled / timeouts（counter），均带 endpoint 标签
+ */
+@Slf4j
+public class OutboundLimiter {
+
+    private static final String METRIC_PREFIX = "openmanus.llm.limiter";
+
+    private final String endpoint;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Duration maxWait;
+    private final Counter throttled;
+    private final Counter timeouts;
+
+    /**
+     * @param endpoint 端点名称，用作指标标签
+     * @param requestBucket 每分钟请求数限制，null 表示不限制
+     * @param tokenBucket 每分钟 token 数限制，null 表示不限制
+     * @param concurrencyLimit 自适应并发上限
+     * @param maxWait 排队等待的最长时间
+     * @param meterRegistry 指标注册表
+     */
+    public OutboundLimiter(String endpoint, TokenBucket requestBucket, TokenBucket tokenBucket,
+                           AdaptiveConcurrencyLimit concurrencyLimit, Duration maxWait, MeterRegistry meterRegistry) {
+        this.endpoint = endpoint;
+        this.requestBucket = requestBucket;
+        this.tokenBucket = tokenBucket;
+        this.concurrencyLimit = concurrencyLimit;
+        this.maxWait = maxWait;
+
+        Gauge.builder(METRIC_PREFIX + ".limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit").tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".inflight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Calls holding a concurrency permit").tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".queue", concurrencyLimit, AdaptiveConcurrencyLimit::getWaiting)
+                .description("Calls waiting for a concurrency permit").tag("endpoint", endpoint).register(meterRegistry);
+        if (requestBucket != null) {
+            Gauge.builder(METRIC_PREFIX + ".rpm.available", requestBucket, TokenBucket::available)
+                    .description("Available request tokens").tag("endpoint", endpoint).register(meterRegistry);
+        }
+        if (tokenBucket != null) {
+            Gauge.builder(METRIC_PREFIX + ".tpm.available", tokenBucket, TokenBucket::available)
+                    .description("Available LLM tokens").tag("endpoint", endpoint).register(meterRegistry);
+        }
+        this.throttled = Counter.builder(METRIC_PREFIX + ".throttled")
+                .description("Calls rejected by the upstream with a rate limit error").tag("endpoint", endpoint)
+                .register(meterRegistry);
+        this.timeouts = Counter.builder(METRIC_PREFIX + ".timeouts")
+                .description("Calls that gave up waiting for a permit").tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在限流许可下执行一次同步调用
+     *
+     * @param estimatedTokens 预估的输入 token 数
+     * @param call 实际调用
+     * @param extraTokens 根据结果计算需要补扣的 token 数（如实际输出 token）
+     * @return 调用结果
+     */
+    public <T> T execute(long estimatedTokens, Callable<T> call, ToLongFunction<T> extraTokens) {
+        Permit permit = acquire(estimatedTokens);
+        try {
+            T result = call.call();
+            permit.release(AdaptiveConcurrencyLimit.Outcome.SUCCESS, result != null ? extraTokens.applyAsLong(result) : 0);
+            return result;
+        } catch (RuntimeException e) {
+            permit.release(outcomeOf(e), 0);
+            throw e;
+        } catch (Exception e) {
+            permit.release(outcomeOf(e), 0);
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取一个许可，用于异步（流式）调用；调用结束后必须调用 {@link Permit#release}
+     *
+     * @param estimatedTokens 预估的输入 token 数
+     * @return 许可
+     * @throws RateLimitExceededException 在 maxWait 内未能获取许可
+     */
+    public Permit acquire(long estimatedTokens) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        boolean requestAcquired = false;
+        boolean tokensAcquired = false;
+        try {
+            if (requestBucket != null) {
+                if (!requestBucket.acquire(1, deadline)) {
+                    throw timeout("requests per minute");
+                }
+                requestAcquired = true;
+            }
+            if (tokenBucket != null) {
+                if (!tokenBucket.acquire(estimatedTokens, deadline)) {
+                    throw timeout("tokens per minute");
+                }
+                tokensAcquired = true;
+            }
+            if (!concurrencyLimit.acquire(deadline)) {
+                throw timeout("concurrency limit " + concurrencyLimit.getLimit());
+            }
+            return new Permit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            refund(requestAcquired, tokensAcquired, estimatedTokens);
+            throw new RateLimitExceededException("Interrupted while waiting for " + endpoint + " permit", e);
+        } catch (RateLimitExceededException e) {
+            refund(requestAcquired, tokensAcquired, estimatedTokens);
+            throw e;
+        }
+    }
+
+    /**
+     * 后续环节超时或被中断时归还前面环节已获取的令牌，未发出的调用不占用 RPM / TPM 配额
+     */
+    private void refund(boolean requestAcquired, boolean tokensAcquired, long estimatedTokens) {
+        if (requestAcquired) {
+            requestBucket.refund(1);
+        }
+        if (tokensAcquired) {
+            tokenBucket.refund(estimatedTokens);
+        }
+    }
+
+    /**
+     * 根据异常判断调用结果，429 限流会让并发上限减半
+     */
+    public AdaptiveConcurrencyLimit.Outcome outcomeOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitException) {
+                throttled.increment();
+                log.warn("{} returned a rate limit error, lowering concurrency limit", endpoint);
+                return AdaptiveConcurrencyLimit.Outcome.THROTTLED;
+            }
+        }
+        return AdaptiveConcurrencyLimit.Outcome.IGNORED;
+    }
+
+    private RateLimitExceededException timeout(String what) {
+        timeouts.increment();
+        return new RateLimitExceededException(String.format(
+                "Waited more than %ds for %s permit (%s)", maxWait.toSeconds(), endpoint, what));
+    }
+
+    /**
+     * 一次调用持有的并发许可
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        /**
+         * 释放许可，重复调用无效
+         *
+         * @param outcome 调用结果
+         * @param extraTokens 需要补扣的 token 数
+         */
+        public synchronized void release(AdaptiveConcurrencyLimit.Outcome outcome, long extraTokens) {
+            if (released) {
+                return;
+            }
+            released = true;
+            concurrencyLimit.release(System.nanoTime() - startNanos, extraTokens, outcome);
+            if (tokenBucket != null && extraTokens > 0) {
+                tokenBucket.debit(extraTokens);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.openmanus.infra.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Set;
+
+/**
+ * 出站限流装饰器
+ *
+ * 每次调用前按本地估算的输入 token 数向 {@link OutboundLimiter} 申请许可，响应返回后补扣实际输出 token
+ */
+public class RateLimitedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final OutboundLimiter limiter;
+    private final TokenCountEstimator tokenCountEstimator;
+
+    public RateLimitedChatModel(ChatModel delegate, OutboundLimiter limiter, TokenCountEstimator tokenCountEstimator) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.tokenCountEstimator = tokenCountEstimator;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return limiter.execute(
+                tokenCountEstimator.estimateTokenCountInMessages(chatRequest.messages()),
+                () -> delegate.chat(chatRequest),
+                RateLimitedChatModel::outputTokens);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    static long outputTokens(ChatResponse response) {
+        if (response.tokenUsage() == null || response.tokenUsage().outputTokenCount() == null) {
+            return 0;
+        }
+        return response.tokenUsage().outputTokenCount();
+    }
+}
@@ -0,0 +1,41 @@
+package com.openmanus.infra.llm;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * 嵌入模型的出站限流装饰器
+ *
+ * 按所有文本片段的估算 token 数申请 {@link OutboundLimiter} 许可
+ */
+public class RateLimitedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final OutboundLimiter limiter;
+    private final TokenCountEstimator tokenCountEstimator;
+
+    public RateLimitedEmbeddingModel(EmbeddingModel delegate, OutboundLimiter limiter,
+                                     TokenCountEstimator tokenCountEstimator) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.tokenCountEstimator = tokenCountEstimator;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        long tokens = textSegments.stream()
+                .mapToLong(segment -> tokenCountEstimator.estimateTokenCountInText(segment.text()))
+                .sum();
+        return limiter.execute(tokens, () -> delegate.embedAll(textSegments), response -> 0);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
@@ -0,0 +1,78 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.AdaptiveConcurrencyLimit;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+import java.util.Set;
+
+/**
+ * 流式模型的出站限流装饰器
+ *
+ * 与 {@link RateLimitedChatModel} 共用同一个 {@link OutboundLimiter}：发起流式请求前获取许可，
+ * 在完成或出错的回调中释放许可
+ */
+public class RateLimitedStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final OutboundLimiter limiter;
+    private final TokenCountEstimator tokenCountEstimator;
+
+    public RateLimitedStreamingChatModel(StreamingChatModel delegate, OutboundLimiter limiter,
+                                         TokenCountEstimator tokenCountEstimator) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.tokenCountEstimator = tokenCountEstimator;
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        OutboundLimiter.Permit permit = limiter.acquire(
+                tokenCountEstimator.estimateTokenCountInMessages(chatRequest.messages()));
+        try {
+            delegate.chat(chatRequest, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    handler.onPartialResponse(partialResponse);
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    permit.release(AdaptiveConcurrencyLimit.Outcome.SUCCESS,
+                            RateLimitedChatModel.outputTokens(completeResponse));
+                    handler.onCompleteResponse(completeResponse);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    permit.release(limiter.outcomeOf(error), 0);
+                    handler.onError(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            permit.release(limiter.outcomeOf(e), 0);
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
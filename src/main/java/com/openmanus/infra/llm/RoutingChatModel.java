@@ -0,0 +1,321 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.CircuitBreaker;
+import com.openmanus.infra.concurrent.LatencyWindow;
+import com.openmanus.infra.exception.OpenManusException;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多端点路由装饰器
+ *
+ * 1. 选路：在熔断器放行的端点中按权重随机选出首选端点，其余端点按权重降序作为备选
+ * 2. 对冲：首选端点超过其近期 p95 延迟仍未返回时，向下一个端点发出一份相同请求，
+ *    先返回者胜出，落败的请求被取消
+ * 3. 故障转移：某个端点调用失败时记入其熔断器，并立即改用下一个端点
+ *
+ * 每个端点使用自己的模型名称，请求中的其余参数保持不变
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel {
+
+    private static final String METRIC_PREFIX = "openmanus.llm.router";
+
+    /**
+     * 对冲延迟只有在样本数足够时才按分位数计算
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final List<Endpoint> endpoints;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final Duration initialHedgeDelay;
+    private final Duration minHedgeDelay;
+    private final MeterRegistry meterRegistry;
+    private final Counter hedges;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param endpoints 端点列表，第一个端点提供默认请求参数
+     * @param hedgeEnabled 是否发送对冲请求
+     * @param hedgePercentile 触发对冲的延迟分位点，如 0.95
+     * @param initialHedgeDelay 样本不足时使用的对冲延迟
+     * @param minHedgeDelay 对冲延迟下限
+     * @param meterRegistry 指标注册表
+     */
+    public RoutingChatModel(List<Endpoint> endpoints, boolean hedgeEnabled, double hedgePercentile,
+                            Duration initialHedgeDelay, Duration minHedgeDelay, MeterRegistry meterRegistry) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("at least one endpoint is required");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.initialHedgeDelay = initialHedgeDelay;
+        this.minHedgeDelay = minHedgeDelay;
+        this.meterRegistry = meterRegistry;
+        this.hedges = Counter.builder(METRIC_PREFIX + ".hedges")
+                .description("Hedged duplicate requests sent to a second endpoint").register(meterRegistry);
+        for (Endpoint endpoint : this.endpoints) {
+            Gauge.builder(METRIC_PREFIX + ".circuit.open", endpoint.breaker,
+                            breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .description("Whether the endpoint circuit breaker is open").tag("endpoint", endpoint.name)
+                    .register(meterRegistry);
+            Gauge.builder(METRIC_PREFIX + ".latency.p95", endpoint.latencies,
+                            latencies -> latencies.percentile(0.95) / 1e6)
+                    .description("Recent p95 latency in milliseconds").tag("endpoint", endpoint.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        List<Endpoint> candidates = candidates();
+        if (candidates.isEmpty()) {
+            throw new OpenManusException("All LLM endpoints are unavailable (circuit open)");
+        }
+
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        ExecutorCompletionService<ChatResponse> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<ChatResponse>, Attempt> running = new HashMap<>();
+        Attempt first = submit(completion, running, candidates.get(0), chatRequest, mdcContext);
+        int next = 1;
+        boolean hedged = false;
+        Throwable lastError = null;
+
+        try {
+            while (!running.isEmpty()) {
+                Future<ChatResponse> done;
+                if (hedgeEnabled && !hedged && next < candidates.size() && running.containsValue(first)) {
+                    long remaining = first.startNanos + hedgeDelayNanos(first.endpoint) - System.nanoTime();
+                    done = completion.poll(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        hedged = true;
+                        hedges.increment();
+                        log.info("LLM endpoint {} exceeded its hedge delay, hedging to {}",
+                                first.endpoint.name, candidates.get(next).name);
+                        submit(completion, running, candidates.get(next++), chatRequest, mdcContext);
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+
+                Attempt attempt = running.remove(done);
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    lastError = e.getCause();
+                    log.warn("LLM endpoint {} failed: {}", attempt.endpoint.name, lastError.getMessage());
+                    if (next < candidates.size()) {
+                        submit(completion, running, candidates.get(next++), chatRequest, mdcContext);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenManusException("Interrupted while waiting for LLM response", e);
+        } finally {
+            running.values().forEach(Attempt::abandon);
+            running.keySet().forEach(future -> future.cancel(true));
+            // 未被使用的备选端点归还 HALF_OPEN 状态下的试探机会
+            for (int i = next; i < candidates.size(); i++) {
+                candidates.get(i).breaker.onAbandoned();
+            }
+        }
+
+        if (lastError instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new OpenManusException("LLM request failed on every endpoint: " + lastError.getMessage(), lastError);
+    }
+
+    /**
+     * 熔断器放行的端点：按权重随机选出首选，其余按权重降序
+     */
+    private List<Endpoint> candidates() {
+        List<Endpoint> available = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.breaker.tryAcquire()) {
+                available.add(endpoint);
+            }
+        }
+        if (available.size() < 2) {
+            return available;
+        }
+
+        int totalWeight = available.stream().mapToInt(endpoint -> endpoint.weight).sum();
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        Endpoint picked = available.get(available.size() - 1);
+        for (Endpoint endpoint : available) {
+            pick -= endpoint.weight;
+            if (pick < 0) {
+                picked = endpoint;
+                break;
+            }
+        }
+        Endpoint primary = picked;
+
+        List<Endpoint> ordered = new ArrayList<>(available.size());
+        ordered.add(primary);
+        available.stream()
+                .filter(endpoint -> endpoint != primary)
+                .sorted(Comparator.comparingInt((Endpoint endpoint) -> endpoint.weight).reversed())
+                .forEach(ordered::add);
+        return ordered;
+    }
+
+    private long hedgeDelayNanos(Endpoint endpoint) {
+        if (endpoint.latencies.size() < MIN_LATENCY_SAMPLES) {
+            return initialHedgeDelay.toNanos();
+        }
+        return Math.max(minHedgeDelay.toNanos(), endpoint.latencies.percentile(hedgePercentile));
+    }
+
+    private Attempt submit(ExecutorCompletionService<ChatResponse> completion,
+                           Map<Future<ChatResponse>, Attempt> running,
+                           Endpoint endpoint, ChatRequest chatRequest, Map<String, String> mdcContext) {
+        Attempt attempt = new Attempt(endpoint, running.isEmpty());
+        ChatRequest routed = ChatRequest.builder()
+                .messages(chatRequest.messages())
+                .parameters(chatRequest.parameters().overrideWith(ChatRequestParameters.builder()
+                        .modelName(endpoint.model.defaultRequestParameters().modelName())
+                        .build()))
+                .build();
+        Future<ChatResponse> future = completion.submit(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                return attempt.run(routed);
+            } finally {
+                MDC.clear();
+            }
+        });
+        running.put(future, attempt);
+        return attempt;
+    }
+
+    private void count(Endpoint endpoint, String result) {
+        Counter.builder(METRIC_PREFIX + ".requests")
+                .description("LLM calls per endpoint and result")
+                .tag("endpoint", endpoint.name)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return endpoints.get(0).model.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return endpoints.get(0).model.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return endpoints.get(0).model.supportedCapabilities();
+    }
+
+    /**
+     * 路由目标端点
+     */
+    public static class Endpoint {
+
+        private final String name;
+        private final ChatModel model;
+        private final int weight;
+        private final CircuitBreaker breaker;
+        private final LatencyWindow latencies;
+
+        /**
+         * @param name 端点名称，用于日志和指标
+         * @param model 端点对应的模型
+         * @param weight 选为首选端点的权重
+         * @param breaker 端点熔断器
+         * @param latencies 端点延迟统计
+         */
+        public Endpoint(String name, ChatModel model, int weight, CircuitBreaker breaker, LatencyWindow latencies) {
+            this.name = name;
+            this.model = model;
+            this.weight = Math.max(1, weight);
+            this.breaker = breaker;
+            this.latencies = latencies;
+        }
+    }
+
+    /**
+     * 一次对某个端点的调用
+     */
+    private final class Attempt {
+
+        private final Endpoint endpoint;
+        private final boolean primary;
+        private final long startNanos = System.nanoTime();
+        private volatile boolean abandoned;
+
+        private Attempt(Endpoint endpoint, boolean primary) {
+            this.endpoint = endpoint;
+            this.primary = primary;
+        }
+
+        private ChatResponse run(ChatRequest request) {
+            try {
+                ChatResponse response = endpoint.model.chat(request);
+                if (!abandoned) {
+                    endpoint.latencies.record(System.nanoTime() - startNanos);
+                }
+                endpoint.breaker.onSuccess();
+                count(endpoint, "success");
+                return response;
+            } catch (RuntimeException e) {
+                if (abandoned) {
+                    endpoint.breaker.onAbandoned();
+                } else {
+                    endpoint.breaker.onFailure();
+                    count(endpoint, "failure");
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 落败或被放弃的调用：不计入熔断器；首选端点的耗时作为延迟下限样本记录，
+         * 避免慢请求被取消后 p95 只剩下快样本
+         */
+        private void abandon() {
+            abandoned = true;
+            if (primary) {
+                endpoint.latencies.record(System.nanoTime() - startNanos);
+            }
+            count(endpoint, "cancelled");
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.agent.base.AbstractAgentExecutor;
+import com.openmanus.domain.service.EmbeddingStoreService;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+/**
+ * 语义 LLM 缓存装饰器
+ *
+ * 对「全新的单轮提问」（可选系统消息 + 一条用户消息）通过 {@link EmbeddingStoreService} 计算用户消息向量，
+ * 在同一命名空间（当前 Agent，取自 MDC agentName）和同一上下文（系统消息 + 工具定义的指纹）内查找最相似的历史提问，
+ * 相似度达到阈值且未过期时直接返回缓存的答案。只缓存不含工具调用的最终答案。
+ *
+ * 导出指标：
+ * - openmanus.llm.semantic_cache.requests{namespace,result}：命中/未命中次数
+ * - openmanus.llm.semantic_cache.similarity{namespace}：每次查询最佳匹配的相似度分布，用于调整阈值
+ */
+@Slf4j
+public class SemanticCachingChatModel implements ChatModel {
+
+    private static final String METRIC_PREFIX = "openmanus.llm.semantic_cache";
+    private static final String DEFAULT_NAMESPACE = "default";
+    private static final String KEY_TYPE = "type";
+    private static final String TYPE_VALUE = "llm_semantic_cache";
+    private static final String KEY_NAMESPACE = "namespace";
+    private static final String KEY_CONTEXT = "context";
+    private static final String KEY_EXPIRES_AT = "expiresAt";
+    private static final String KEY_ANSWER = "answer";
+    private static final int PURGE_EVERY_N_STORES = 100;
+
+    private final ChatModel delegate;
+    private final EmbeddingStoreService embeddingStoreService;
+    private final MeterRegistry meterRegistry;
+    private final double similarityThreshold;
+    private final Duration ttl;
+    private final AtomicLong stores = new AtomicLong();
+
+    public SemanticCachingChatModel(ChatModel delegate, EmbeddingStoreService embeddingStoreService,
+                                    MeterRegistry meterRegistry, double similarityThreshold, Duration ttl) {
+        this.delegate = delegate;
+        this.embeddingStoreService = embeddingStoreService;
+        this.meterRegistry = meterRegistry;
+        this.similarityThreshold = similarityThreshold;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        UserMessage prompt = freshPrompt(chatRequest.messages());
+        if (prompt == null) {
+            return delegate.chat(chatRequest);
+        }
+
+        String namespace = currentNamespace();
+        String context = contextFingerprint(chatRequest);
+        Embedding embedding;
+        try {
+            embedding = embeddingStoreService.embed(prompt.singleText());
+        } catch (RuntimeException e) {
+            log.debug("Semantic cache bypassed, embedding failed: {}", e.getMessage());
+            return delegate.chat(chatRequest);
+        }
+
+        ChatResponse cached = lookup(embedding, namespace, context);
+        if (cached != null) {
+            return cached;
+        }
+
+        ChatResponse response = delegate.chat(chatRequest);
+        if (response != null && response.aiMessage() != null && !response.aiMessage().hasToolExecutionRequests()
+                && response.aiMessage().text() != null) {
+            store(prompt.singleText(), embedding, namespace, context, response.aiMessage().text());
+        }
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private ChatResponse lookup(Embedding embedding, String namespace, String context) {
+        Filter filter = metadataKey(KEY_TYPE).isEqualTo(TYPE_VALUE)
+                .and(metadataKey(KEY_NAMESPACE).isEqualTo(namespace))
+                .and(metadataKey(KEY_CONTEXT).isEqualTo(context))
+                .and(metadataKey(KEY_EXPIRES_AT).isGreaterThan(System.currentTimeMillis()));
+        List<EmbeddingMatch<TextSegment>> matches;
+        try {
+            matches = embeddingStoreService.search(embedding, 1, 0.0, filter);
+        } catch (RuntimeException e) {
+            log.debug("Semantic cache lookup failed: {}", e.getMessage());
+            return null;
+        }
+
+        if (!matches.isEmpty()) {
+            DistributionSummary.builder(METRIC_PREFIX + ".similarity")
+                    .description("Similarity of the best semantic cache candidate")
+                    .tag(KEY_NAMESPACE, namespace)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(0.01)
+                    .maximumExpectedValue(1.0)
+                    .register(meterRegistry)
+                    .record(matches.get(0).score());
+        }
+
+        boolean hit = !matches.isEmpty() && matches.get(0).score() >= similarityThreshold;
+        Counter.builder(METRIC_PREFIX + ".requests")
+                .tag(KEY_NAMESPACE, namespace)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+        if (!hit) {
+            return null;
+        }
+
+        EmbeddingMatch<TextSegment> match = matches.get(0);
+        log.debug("Semantic cache hit in {} (score {}): {}", namespace, match.score(), match.embedded().text());
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(match.embedded().metadata().getString(KEY_ANSWER)))
+                .build();
+    }
+
+    private void store(String prompt, Embedding embedding, String namespace, String context, String answer) {
+        try {
+            long now = System.currentTimeMillis();
+            embeddingStoreService.store(prompt, embedding, Map.of(
+                    KEY_TYPE, TYPE_VALUE,
+                    KEY_NAMESPACE, namespace,
+                    KEY_CONTEXT, context,
+                    KEY_EXPIRES_AT, now + ttl.toMillis(),
+                    KEY_ANSWER, answer));
+            if (stores.incrementAndGet() % PURGE_EVERY_N_STORES == 0) {
+                embeddingStoreService.removeAll(metadataKey(KEY_TYPE).isEqualTo(TYPE_VALUE)
+                        .and(metadataKey(KEY_EXPIRES_AT).isLessThanOrEqualTo(now)));
+            }
+        } catch (RuntimeException e) {
+            log.debug("Semantic cache store failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 只有全新的单轮提问才能走语义缓存：除可选的系统消息外，只有一条用户消息
+     */
+    private static UserMessage freshPrompt(List<ChatMessage> messages) {
+        UserMessage prompt = null;
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage) {
+                continue;
+            }
+            if (prompt != null || !(message instanceof UserMessage userMessage) || !userMessage.hasSingleText()) {
+                return null;
+            }
+            prompt = userMessage;
+        }
+        return prompt;
+    }
+
+    private static String currentNamespace() {
+        String agentName = MDC.get(AbstractAgentExecutor.AGENT_NAME_MDC_KEY);
+        return agentName != null ? agentName : DEFAULT_NAMESPACE;
+    }
+
+    /**
+     * 系统消息、工具定义和模型名的指纹，三者一致才认为工具上下文兼容
+     */
+    private static String contextFingerprint(ChatRequest chatRequest) {
+        StringBuilder material = new StringBuilder().append(chatRequest.parameters().modelName()).append('\n');
+        for (ChatMessage message : chatRequest.messages()) {
+            if (message instanceof SystemMessage systemMessage) {
+                material.append(systemMessage.text()).append('\n');
+            }
+        }
+        List<ToolSpecification> tools = chatRequest.parameters().toolSpecifications();
+        if (tools != null) {
+            tools.forEach(tool -> material.append(tool).append('\n'));
+        }
+        return Digests.sha256(material.toString());
+    }
+}
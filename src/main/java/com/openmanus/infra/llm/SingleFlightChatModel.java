@@ -0,0 +1,56 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.SingleFlight;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Set;
+
+/**
+ * 请求合并装饰器
+ *
+ * 完全相同的请求（键与 {@link CachingChatModel} 相同）同时到达时只向模型服务发出一次调用，
+ * 其余请求等待并共享同一个响应，突发流量下保护上游的速率限制
+ */
+public class SingleFlightChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final SingleFlight<String, ChatResponse> flights = new SingleFlight<>();
+
+    public SingleFlightChatModel(ChatModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        try {
+            return flights.execute(CachingChatModel.keyOf(chatRequest), () -> delegate.chat(chatRequest));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for LLM response", e);
+        } catch (Exception e) {
+            throw new RuntimeException("LLM request failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,112 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Token 用量记录装饰器
+ *
+ * 直接包装模型服务客户端（位于限流之内），只记录真实的模型往返，缓存命中不计入用量。
+ * 会话和 Agent 取自 MDC（sessionId、agentName），路由对冲线程会复制调用方的 MDC。
+ * 模型未返回 token 用量时按本地估算值记录
+ */
+public class UsageRecordingChatModel implements ChatModel {
+
+    static final String SESSION_ID_MDC_KEY = "sessionId";
+    static final String AGENT_NAME_MDC_KEY = "agentName";
+
+    private final ChatModel delegate;
+    private final TokenUsageTracker usageTracker;
+    private final TokenCountEstimator tokenCountEstimator;
+
+    public UsageRecordingChatModel(ChatModel delegate, TokenUsageTracker usageTracker,
+                                   TokenCountEstimator tokenCountEstimator) {
+        this.delegate = delegate;
+        this.usageTracker = usageTracker;
+        this.tokenCountEstimator = tokenCountEstimator;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.chat(chatRequest);
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        if (response != null) {
+            usageTracker.record(MDC.get(SESSION_ID_MDC_KEY), MDC.get(AGENT_NAME_MDC_KEY),
+                    usageOf(chatRequest, response, "blocking", duration, duration, tokenCountEstimator));
+        }
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    static TokenUsageTracker.LlmCall usageOf(ChatRequest request, ChatResponse response, String mode,
+                                             Duration timeToFirstToken, Duration duration,
+                                             TokenCountEstimator tokenCountEstimator) {
+        AiMessage aiMessage = response.aiMessage();
+        TokenUsage tokenUsage = response.tokenUsage();
+        boolean reported = tokenUsage != null
+                && tokenUsage.inputTokenCount() != null && tokenUsage.outputTokenCount() != null;
+        long inputTokens = reported
+                ? tokenUsage.inputTokenCount()
+                : tokenCountEstimator.estimateTokenCountInMessages(request.messages());
+        long outputTokens = reported
+                ? tokenUsage.outputTokenCount()
+                : aiMessage != null ? tokenCountEstimator.estimateTokenCountInMessage(aiMessage) : 0;
+        long requestChars = request.messages().stream().mapToLong(UsageRecordingChatModel::textLength).sum();
+        long responseChars = aiMessage != null ? textLength(aiMessage) : 0;
+        return new TokenUsageTracker.LlmCall(response.modelName(), mode, inputTokens, outputTokens, !reported,
+                requestChars, responseChars, timeToFirstToken, duration);
+    }
+
+    private static long textLength(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage system -> system.text().length();
+            case UserMessage user -> user.contents().stream()
+                    .filter(TextContent.class::isInstance)
+                    .mapToLong(content -> ((TextContent) content).text().length())
+                    .sum();
+            case AiMessage ai -> (ai.text() != null ? ai.text().length() : 0)
+                    + (ai.hasToolExecutionRequests()
+                    ? ai.toolExecutionRequests().stream().mapToLong(UsageRecordingChatModel::argumentsLength).sum()
+                    : 0);
+            case ToolExecutionResultMessage toolResult -> toolResult.text() != null ? toolResult.text().length() : 0;
+            default -> 0;
+        };
+    }
+
+    private static long argumentsLength(ToolExecutionRequest request) {
+        return request.arguments() != null ? request.arguments().length() : 0;
+    }
+}
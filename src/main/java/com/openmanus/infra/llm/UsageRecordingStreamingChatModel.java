@@ -0,0 +1,84 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 流式模型的 Token 用量记录装饰器
+ *
+ * 与 {@link UsageRecordingChatModel} 相同，额外记录首个 Token 到达的时间。
+ * 回调在模型客户端的线程上执行，会话和 Agent 在发起请求时从 MDC 读取
+ */
+public class UsageRecordingStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final TokenUsageTracker usageTracker;
+    private final TokenCountEstimator tokenCountEstimator;
+
+    public UsageRecordingStreamingChatModel(StreamingChatModel delegate, TokenUsageTracker usageTracker,
+                                            TokenCountEstimator tokenCountEstimator) {
+        this.delegate = delegate;
+        this.usageTracker = usageTracker;
+        this.tokenCountEstimator = tokenCountEstimator;
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        String sessionId = MDC.get(UsageRecordingChatModel.SESSION_ID_MDC_KEY);
+        String agentName = MDC.get(UsageRecordingChatModel.AGENT_NAME_MDC_KEY);
+        long start = System.nanoTime();
+        delegate.chat(chatRequest, new StreamingChatResponseHandler() {
+            private volatile long firstTokenNanos;
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (firstTokenNanos == 0) {
+                    firstTokenNanos = System.nanoTime();
+                }
+                handler.onPartialResponse(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                long end = System.nanoTime();
+                // 只返回工具调用的响应没有部分文本，首 Token 时间按完成时间计
+                long firstToken = firstTokenNanos != 0 ? firstTokenNanos : end;
+                usageTracker.record(sessionId, agentName, UsageRecordingChatModel.usageOf(chatRequest,
+                        completeResponse, "streaming", Duration.ofNanos(firstToken - start),
+                        Duration.ofNanos(end - start), tokenCountEstimator));
+                handler.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                handler.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -1,8 +1,11 @@
 package com.openmanus.infra.log;
 
+import com.openmanus.infra.monitoring.SessionReplayBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -15,6 +18,7 @@ import java.util.Map;
  * 设计说明：
  * - 使用静态实例方式是因为 Logback Appender 不是 Spring Bean
  * - 通过 @PostConstruct 初始化静态实例，确保 Spring 容器启动后可访问
+ * - 容器关闭时清除静态实例，追加器不再向已关闭的回放缓冲发送
  */
 @Slf4j
 @Service
@@ -22,10 +26,14 @@ public class LogRelayService {
 
     private static volatile LogRelayService instance;
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SessionReplayBuffer replayBuffer;
+    private final Counter discardedLogs;
 
-    public LogRelayService(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public LogRelayService(SessionReplayBuffer replayBuffer, MeterRegistry meterRegistry) {
+        this.replayBuffer = replayBuffer;
+        this.discardedLogs = Counter.builder("openmanus.log.relay.discarded")
+                .description("Frontend log lines discarded because the appender queue was full or relaying failed")
+                .register(meterRegistry);
     }
 
     @PostConstruct
@@ -34,23 +42,41 @@ public class LogRelayService {
         log.info("LogRelayService initialized");
     }
 
+    @PreDestroy
+    public void destroy() {
+        if (instance == this) {
+            instance = null;
+        }
+    }
+
     public static LogRelayService getInstance() {
         return instance;
     }
 
     /**
-     * 中继日志到前端
+     * 中继日志到前端，经回放缓冲发送，迟到或重连的订阅者也能收到
      * 如果 WebSocket 会话已关闭，静默忽略错误
+     *
+     * @return 是否已发送，失败时由调用方计入丢弃
      */
-    public void relayLog(String sessionId, Map<String, Object> logMessage) {
+    public boolean relayLog(String sessionId, Map<String, Object> logMessage) {
         if (sessionId == null || logMessage == null) {
-            return;
+            return false;
         }
         try {
-            messagingTemplate.convertAndSend("/topic/executions/" + sessionId + "/logs", logMessage);
+            replayBuffer.publish(sessionId, "/topic/executions/" + sessionId + "/logs", logMessage);
+            return true;
         } catch (Exception e) {
             // 静默处理：WebSocket 会话可能已关闭，这是正常的竞态条件
             log.debug("无法发送日志到会话 {}: {}", sessionId, e.getMessage());
+            return false;
         }
     }
+
+    /**
+     * 记录日志追加器因队列已满或发送失败丢弃的日志数
+     */
+    public void recordDiscarded(long count) {
+        discardedLogs.increment(count);
+    }
 }
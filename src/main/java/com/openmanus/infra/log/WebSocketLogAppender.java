@@ -2,12 +2,17 @@ package com.openmanus.infra.log;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
+import com.openmanus.infra.concurrent.MpscRingBuffer;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * WebSocket 日志追加器（过滤器模式）
@@ -17,36 +22,86 @@ import java.util.Map;
  * 工作流程：
  * 1. 过滤：只处理带有 TO_FRONTEND 标记的日志
  * 2. 提取：从 MDC 中获取 sessionId
- * 3. 构建：格式化日志消息
- * 4. 发送：通过 LogRelayService 发送到前端
+ * 3. 入队：日志线程只把原始字段放入无锁有界队列，队列满时直接丢弃并计数，从不阻塞
+ * 4. 发送：独立的发送线程每隔 flushIntervalMillis 取出日志，将同一会话、同一级别的连续日志
+ *    合并为一帧（如多行横幅），通过 LogRelayService 发送到前端
+ * 
+ * LogRelayService 初始化之前的日志留在队列中等待发送，发送失败的帧中的日志计入丢弃。
+ * 停止时发送线程会先发送完队列中剩余的日志再退出
  */
 public class WebSocketLogAppender extends AppenderBase<ILoggingEvent> {
 
     private static final DateTimeFormatter TIME_FORMATTER = 
         DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
 
+    private int queueSize = 1024;
+    private long flushIntervalMillis = 20;
+    private int maxLinesPerFrame = 50;
+
+    private MpscRingBuffer<LogLine> queue;
+    private Thread sender;
+    private volatile boolean running;
+    private final AtomicLong discarded = new AtomicLong();
+    /** 当前帧合并的日志行数，仅发送线程访问 */
+    private int frameLineCount;
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public void setMaxLinesPerFrame(int maxLinesPerFrame) {
+        this.maxLinesPerFrame = maxLinesPerFrame;
+    }
+
+    /**
+     * 被丢弃的日志数：队列已满、所在帧发送失败，或停止时 LogRelayService 仍不可用
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    @Override
+    public void start() {
+        queue = new MpscRingBuffer<>(queueSize);
+        running = true;
+        sender = Thread.ofPlatform().daemon().name("websocket-log-sender").unstarted(this::sendLoop);
+        sender.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        running = false;
+        if (sender != null) {
+            LockSupport.unpark(sender);
+            try {
+                sender.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Override
     protected void append(ILoggingEvent event) {
         if (!shouldProcess(event)) {
             return;
         }
 
-        try {
-            String sessionId = extractSessionId(event);
-            if (sessionId == null) {
-                return;
-            }
-
-            LogRelayService service = LogRelayService.getInstance();
-            if (service == null) {
-                return;
-            }
-
-            Map<String, Object> logMessage = buildLogMessage(event);
-            service.relayLog(sessionId, logMessage);
+        String sessionId = extractSessionId(event);
+        if (sessionId == null) {
+            return;
+        }
 
-        } catch (Exception e) {
-            // 避免日志循环，静默处理异常
+        LogLine line = new LogLine(sessionId, event.getTimeStamp(), event.getLevel().toString(),
+                event.getThreadName(), event.getLoggerName(), event.getFormattedMessage());
+        if (!queue.offer(line)) {
+            discarded.incrementAndGet();
         }
     }
 
@@ -60,13 +115,97 @@ public class WebSocketLogAppender extends AppenderBase<ILoggingEvent> {
         return (sessionId != null && !sessionId.trim().isEmpty()) ? sessionId : null;
     }
 
-    private Map<String, Object> buildLogMessage(ILoggingEvent event) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("timestamp", TIME_FORMATTER.format(Instant.ofEpochMilli(event.getTimeStamp())));
-        message.put("level", event.getLevel().toString());
-        message.put("thread", event.getThreadName());
-        message.put("logger", event.getLoggerName());
-        message.put("message", event.getFormattedMessage());
-        return message;
+    private void sendLoop() {
+        Map<String, Object> frame = new HashMap<>();
+        StringBuilder lines = new StringBuilder();
+        long reportedDiscards = 0;
+        while (running || !queue.isEmpty()) {
+            // LogRelayService 尚未初始化时日志留在队列中，队列满后由 append 计入丢弃
+            LogRelayService service = LogRelayService.getInstance();
+            if (service == null && !running) {
+                discardRemaining();
+                return;
+            }
+            if (service == null || queue.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+                continue;
+            }
+            LogLine first = queue.poll();
+            if (first == null) {
+                // 生产者已占用槽位但尚未写入
+                Thread.onSpinWait();
+                continue;
+            }
+            while (first != null) {
+                LogLine next = mergeFollowing(first, lines);
+                send(service, first, lines, frame);
+                first = next;
+            }
+            long discards = discarded.get();
+            if (discards > reportedDiscards) {
+                service.recordDiscarded(discards - reportedDiscards);
+                reportedDiscards = discards;
+            }
+        }
+    }
+
+    /**
+     * 停止时 LogRelayService 仍不可用，队列中剩余的日志计入丢弃
+     */
+    private void discardRemaining() {
+        while (!queue.isEmpty()) {
+            if (queue.poll() != null) {
+                discarded.incrementAndGet();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * 将紧随其后的同一会话、同一级别的日志合并到 lines 中，合并的行数记入 frameLineCount
+     *
+     * @return 第一条不能合并的日志，队列已空时返回 null
+     */
+    private LogLine mergeFollowing(LogLine first, StringBuilder lines) {
+        lines.setLength(0);
+        lines.append(first.message);
+        frameLineCount = 1;
+        LogLine next;
+        while ((next = queue.poll()) != null) {
+            if (frameLineCount >= maxLinesPerFrame || !next.sessionId.equals(first.sessionId)
+                    || !Objects.equals(next.level, first.level)) {
+                return next;
+            }
+            lines.append('\n').append(next.message);
+            frameLineCount++;
+        }
+        return null;
+    }
+
+    /**
+     * 复用同一个 Map 构建帧：convertAndSend 在返回前已完成序列化
+     */
+    private void send(LogRelayService service, LogLine first, StringBuilder lines, Map<String, Object> frame) {
+        frame.put("timestamp", TIME_FORMATTER.format(Instant.ofEpochMilli(first.timestamp)));
+        frame.put("level", first.level);
+        frame.put("thread", first.thread);
+        frame.put("logger", first.logger);
+        frame.put("message", lines.toString());
+        boolean relayed = false;
+        try {
+            relayed = service.relayLog(first.sessionId, frame);
+        } catch (Exception e) {
+            // 避免日志循环，静默处理异常
+        } finally {
+            if (!relayed) {
+                discarded.addAndGet(frameLineCount);
+            }
+            frame.clear();
+        }
+    }
+
+    private record LogLine(String sessionId, long timestamp, String level, String thread, String logger,
+                           String message) {
     }
 }
@@ -2,14 +2,24 @@ package com.openmanus.infra.monitoring;
 
 import com.openmanus.domain.model.AgentExecutionEvent;
 import com.openmanus.domain.model.DetailedExecutionFlow;
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.tracing.ExecutionFlows;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import com.openmanus.infra.tracing.Trace;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Agent 执行跟踪服务（观察者模式）
@@ -17,9 +27,13 @@ import java.util.stream.Collectors;
  * 核心职责：
  * 1. 跟踪 Agent 执行事件（开始、结束、错误）
  * 2. 记录工具调用
- * 3. 管理详细执行流程
- * 4. 提供事件监听机制
+ * 3. 提供详细执行流程（由 {@link ExecutionTracer} 记录的 Span 树生成）
+ * 4. 提供事件监听机制（按会话路由的监听器 + 接收所有会话事件的通配监听器）
  * 5. 提供统计查询接口
+ * 6. 会话事件保存在有界存储中（{@link SessionEventStore}），空闲会话由调度器定期淘汰
+ * 7. 超过阈值的工具输入输出转存到 {@link PayloadBlobStore}，事件中只保留预览和引用
+ * 
+ * 活跃 Agent 按会话保存为栈：嵌套的子 Agent 入栈，结束时按名称出栈，不会覆盖外层 Agent 的开始事件
  * 
  * 设计模式：
  * - 观察者模式：支持多个监听器订阅执行事件
@@ -31,12 +45,26 @@ public class AgentExecutionTracker {
     
     // ==================== 数据存储 ====================
     
-    private final Map<String, List<AgentExecutionEvent>> sessionEvents = new ConcurrentHashMap<>();
-    private final Map<String, AgentExecutionEvent> activeAgents = new ConcurrentHashMap<>();
-    private final Map<String, DetailedExecutionFlow> detailedFlows = new ConcurrentHashMap<>();
-    private final Map<String, DetailedExecutionFlow.ExecutionPhase> currentPhases = new ConcurrentHashMap<>();
+    private final SessionEventStore sessionEvents;
+    private final PayloadBlobStore blobStore;
+    private final ExecutionTracer tracer;
+    private final Map<String, Deque<AgentExecutionEvent>> activeAgents = new ConcurrentHashMap<>();
+    private final Map<String, SessionStatistics> sessionStatistics = new ConcurrentHashMap<>();
+    private final Map<String, List<AgentExecutionEventListener>> sessionListeners = new ConcurrentHashMap<>();
     private final List<AgentExecutionEventListener> listeners = new CopyOnWriteArrayList<>();
     
+    public AgentExecutionTracker(OpenManusProperties properties, MeterRegistry meterRegistry,
+                                 PayloadBlobStore blobStore, ExecutionTracer tracer) {
+        this.blobStore = blobStore;
+        this.tracer = tracer;
+        OpenManusProperties.MonitoringConfig.EventStoreConfig eventsConfig = properties.getMonitoring().getEvents();
+        this.sessionEvents = new SessionEventStore(
+                eventsConfig.getMaxEventsPerSession(),
+                eventsConfig.getMaxTotalBytes(),
+                Duration.ofMinutes(eventsConfig.getIdleTtlMinutes()),
+                meterRegistry);
+    }
+    
     // ==================== 核心事件追踪方法 ====================
     
     /**
@@ -44,7 +72,7 @@ public class AgentExecutionTracker {
      */
     public void startAgentExecution(String sessionId, String agentName, String agentType, Object input) {
         AgentExecutionEvent event = AgentExecutionEvent.createStartEvent(sessionId, agentName, agentType, input);
-        activeAgents.put(sessionId, event);
+        activeAgents.computeIfAbsent(sessionId, k -> new ConcurrentLinkedDeque<>()).push(event);
         recordEvent(sessionId, event);
         log.info("Agent started - Session: {}, Agent: {}, Type: {}", sessionId, agentName, agentType);
     }
@@ -57,13 +85,12 @@ public class AgentExecutionTracker {
         AgentExecutionEvent event = AgentExecutionEvent.createEndEvent(sessionId, agentName, agentType, output, status);
         
         // 计算执行时间
-        AgentExecutionEvent startEvent = activeAgents.get(sessionId);
+        AgentExecutionEvent startEvent = popActiveAgent(sessionId, agentName);
         if (startEvent != null) {
             event.setStartTime(startEvent.getStartTime());
             event.calculateDuration();
         }
         
-        activeAgents.remove(sessionId);
         recordEvent(sessionId, event);
         log.info("Agent ended - Session: {}, Agent: {}, Status: {}, Duration: {}ms", 
                 sessionId, agentName, status, event.getDuration());
@@ -74,11 +101,28 @@ public class AgentExecutionTracker {
      */
     public void recordAgentError(String sessionId, String agentName, String agentType, String error) {
         AgentExecutionEvent event = AgentExecutionEvent.createErrorEvent(sessionId, agentName, agentType, error);
-        activeAgents.remove(sessionId);
+        popActiveAgent(sessionId, agentName);
         recordEvent(sessionId, event);
         log.error("Agent error - Session: {}, Agent: {}, Error: {}", sessionId, agentName, error);
     }
     
+    /**
+     * 移除会话中最近开始的同名 Agent，栈空时移除会话
+     */
+    private AgentExecutionEvent popActiveAgent(String sessionId, String agentName) {
+        AgentExecutionEvent[] removed = new AgentExecutionEvent[1];
+        activeAgents.computeIfPresent(sessionId, (k, stack) -> {
+            for (AgentExecutionEvent started : stack) {
+                if (Objects.equals(started.getAgentName(), agentName) && stack.removeFirstOccurrence(started)) {
+                    removed[0] = started;
+                    break;
+                }
+            }
+            return stack.isEmpty() ? null : stack;
+        });
+        return removed[0];
+    }
+    
     // ==================== 工具调用追踪 ====================
     
     /**
@@ -95,6 +139,8 @@ public class AgentExecutionTracker {
                               boolean success, String error, long durationMs) {
         LocalDateTime callTime = LocalDateTime.now().minusNanos(durationMs * 1_000_000);
         LocalDateTime completionTime = LocalDateTime.now();
+        Object storedInput = blobStore.offload(input);
+        Object storedOutput = blobStore.offload(output);
         
         AgentExecutionEvent event = AgentExecutionEvent.builder()
                 .sessionId(sessionId)
@@ -109,13 +155,10 @@ public class AgentExecutionTracker {
                 .metadata(Map.of("toolName", toolName))
                 .build();
 
-        event.setInput(input);
-        event.setOutput(output);
+        event.setInput(storedInput);
+        event.setOutput(storedOutput);
         event.calculateDuration();
         recordEvent(sessionId, event);
-
-        // 同步到详细执行流程
-        addToolCallToPhase(sessionId, toolName, callTime, completionTime, input, output, success, error, durationMs);
         
         log.info("Tool call - Session: {}, Tool: {}, Status: {}", sessionId, toolName, success ? "SUCCESS" : "FAILED");
     }
@@ -129,60 +172,92 @@ public class AgentExecutionTracker {
     }
     
     /**
-     * 模板方法：统一的事件记录流程
+     * 推送LLM流式输出片段
+     * 片段只通知监听器（推送到前端），不写入会话事件列表，避免逐 token 累积
      */
-    private void recordEvent(String sessionId, AgentExecutionEvent event) {
-        sessionEvents.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).add(event);
-        notifyListeners(event);
+    public void publishStreamChunk(String sessionId, String agentName, String chunk) {
+        if (sessionId == null || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        notifyListeners(AgentExecutionEvent.createStreamChunkEvent(sessionId, agentName, chunk));
     }
     
     /**
-     * 辅助方法：添加工具调用到执行阶段
+     * 模板方法：统一的事件记录流程
      */
-    private void addToolCallToPhase(String sessionId, String toolName, LocalDateTime callTime, 
-                                    LocalDateTime completionTime, Object input, Object output, 
-                                    boolean success, String error, long durationMs) {
-        DetailedExecutionFlow.ExecutionPhase phase = currentPhases.get(sessionId);
-        if (phase != null) {
-            DetailedExecutionFlow.ToolCall toolCall = DetailedExecutionFlow.ToolCall.builder()
-                    .callId(UUID.randomUUID().toString())
-                    .toolName(toolName)
-                    .callTime(callTime)
-                    .completionTime(completionTime)
-                    .parameters(input)
-                    .result(output)
-                    .status(success ? "SUCCESS" : "FAILED")
-                    .error(error)
-                    .duration(durationMs)
-                    .build();
-            phase.getToolCalls().add(toolCall);
-        }
+    private void recordEvent(String sessionId, AgentExecutionEvent event) {
+        sessionEvents.append(sessionId, event).forEach(this::forgetSession);
+        sessionStatistics.computeIfAbsent(sessionId, id -> new SessionStatistics()).record(event);
+        notifyListeners(event);
     }
     
     // ==================== 查询方法 ====================
     
     public List<AgentExecutionEvent> getSessionEvents(String sessionId) {
-        return new ArrayList<>(sessionEvents.getOrDefault(sessionId, Collections.emptyList()));
+        return sessionEvents.snapshot(sessionId);
     }
     
+    /**
+     * 会话中最内层（最近开始）的活跃 Agent
+     */
     public AgentExecutionEvent getCurrentActiveAgent(String sessionId) {
-        return activeAgents.get(sessionId);
+        Deque<AgentExecutionEvent> stack = activeAgents.get(sessionId);
+        return stack != null ? stack.peekFirst() : null;
+    }
+    
+    /**
+     * 有 Agent 正在执行的会话数
+     */
+    public int getActiveSessionCount() {
+        return activeAgents.size();
     }
     
     public Map<String, AgentExecutionEvent> getAllActiveSessions() {
-        return new HashMap<>(activeAgents);
+        Map<String, AgentExecutionEvent> sessions = new HashMap<>();
+        activeAgents.forEach((sessionId, stack) -> {
+            AgentExecutionEvent innermost = stack.peekFirst();
+            if (innermost != null) {
+                sessions.put(sessionId, innermost);
+            }
+        });
+        return sessions;
     }
     
     public void clearSession(String sessionId) {
         sessionEvents.remove(sessionId);
-        activeAgents.remove(sessionId);
-        detailedFlows.remove(sessionId);
-        currentPhases.remove(sessionId);
+        forgetSession(sessionId);
         log.info("Session cleared: {}", sessionId);
     }
     
+    /**
+     * 定期淘汰空闲会话
+     * 仍有 Agent 在执行的会话不会被淘汰
+     */
+    @Scheduled(fixedDelayString = "${openmanus.monitoring.events.eviction-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void evictIdleSessions() {
+        List<String> evicted = sessionEvents.evictIdle(activeAgents::containsKey);
+        evicted.forEach(this::forgetSession);
+        
+        if (!evicted.isEmpty()) {
+            log.info("Evicted {} idle sessions, {} sessions buffered (~{} KB)",
+                    evicted.size(), sessionEvents.sessionCount(), sessionEvents.totalBytes() / 1024);
+        }
+    }
+    
+    /**
+     * 移除会话的执行状态和统计（事件已由存储移除）
+     */
+    private void forgetSession(String sessionId) {
+        activeAgents.remove(sessionId);
+        sessionStatistics.remove(sessionId);
+    }
+    
     // ==================== 观察者模式：事件监听 ====================
     
+    /**
+     * 注册通配监听器，接收所有会话的事件（用于监控）
+     */
     public void addListener(AgentExecutionEventListener listener) {
         listeners.add(listener);
         log.debug("Listener added: {}", listener.getClass().getSimpleName());
@@ -193,14 +268,55 @@ public class AgentExecutionTracker {
         log.debug("Listener removed: {}", listener.getClass().getSimpleName());
     }
     
+    /**
+     * 注册会话监听器，只接收该会话的事件
+     *
+     * @param sessionId 会话ID
+     * @param listener 监听器
+     * @return 注册句柄，关闭即注销（可重复关闭）
+     */
+    public ListenerRegistration addSessionListener(String sessionId, AgentExecutionEventListener listener) {
+        sessionListeners.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).add(listener);
+        log.debug("Session listener added - Session: {}", sessionId);
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                sessionListeners.computeIfPresent(sessionId, (k, sessionList) -> {
+                    sessionList.remove(listener);
+                    return sessionList.isEmpty() ? null : sessionList;
+                });
+                log.debug("Session listener removed - Session: {}", sessionId);
+            }
+        };
+    }
+    
+    /**
+     * 分发事件：该会话的监听器 + 通配监听器，开销与该会话的监听器数量成正比
+     */
     private void notifyListeners(AgentExecutionEvent event) {
-        listeners.forEach(listener -> {
-            try {
-                listener.onEvent(event);
-            } catch (Exception e) {
-                log.error("Error notifying listener: {}", listener.getClass().getSimpleName(), e);
+        if (event.getSessionId() != null) {
+            List<AgentExecutionEventListener> sessionList = sessionListeners.get(event.getSessionId());
+            if (sessionList != null) {
+                sessionList.forEach(listener -> notifyListener(listener, event));
             }
-        });
+        }
+        listeners.forEach(listener -> notifyListener(listener, event));
+    }
+    
+    private void notifyListener(AgentExecutionEventListener listener, AgentExecutionEvent event) {
+        try {
+            listener.onEvent(event);
+        } catch (Exception e) {
+            log.error("Error notifying listener: {}", listener.getClass().getSimpleName(), e);
+        }
+    }
+    
+    /**
+     * 会话监听器的注册句柄
+     */
+    public interface ListenerRegistration extends AutoCloseable {
+        @Override
+        void close();
     }
     
     /**
@@ -213,161 +329,40 @@ public class AgentExecutionTracker {
     
     /**
      * 获取会话统计信息
+     * 由记录事件时维护的累计计数器直接生成，不扫描事件
      */
     public Map<String, Object> getSessionStatistics(String sessionId) {
-        List<AgentExecutionEvent> events = getSessionEvents(sessionId);
-        if (events.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        long successCount = events.stream()
-                .filter(e -> e.getStatus() == AgentExecutionEvent.ExecutionStatus.SUCCESS)
-                .count();
-        long errorCount = events.stream()
-                .filter(e -> e.getStatus() == AgentExecutionEvent.ExecutionStatus.FAILED)
-                .count();
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalEvents", events.size());
-        stats.put("agentCount", events.stream().map(AgentExecutionEvent::getAgentName).distinct().count());
-        stats.put("successCount", successCount);
-        stats.put("errorCount", errorCount);
-        stats.put("totalDuration", events.stream()
-                .filter(e -> e.getDuration() != null)
-                .mapToLong(AgentExecutionEvent::getDuration)
-                .sum());
-        stats.put("agentTypeStats", events.stream()
-                .collect(Collectors.groupingBy(AgentExecutionEvent::getAgentType, Collectors.counting())));
-        stats.put("eventTypeStats", events.stream()
-                .collect(Collectors.groupingBy(e -> e.getEventType().toString(), Collectors.counting())));
-        stats.put("successRate", (double) successCount / events.size() * 100);
-
-        return stats;
+        SessionStatistics statistics = sessionStatistics.get(sessionId);
+        return statistics != null ? statistics.snapshot() : Collections.emptyMap();
     }
 
-    // ==================== 详细执行流程追踪 ====================
-
-    public void startWorkflowTracking(String sessionId, String userInput) {
-        DetailedExecutionFlow flow = DetailedExecutionFlow.builder()
-                .sessionId(sessionId)
-                .userInput(userInput)
-                .startTime(LocalDateTime.now())
-                .status(DetailedExecutionFlow.WorkflowStatus.RUNNING)
-                .phases(new ArrayList<>())
-                .build();
-        detailedFlows.put(sessionId, flow);
-        log.info("Workflow tracking started - Session: {}", sessionId);
-    }
-
-    public void endWorkflowTracking(String sessionId, String finalResult, boolean success) {
-        DetailedExecutionFlow flow = detailedFlows.get(sessionId);
-        if (flow == null) {
-            return;
-        }
-        
-        flow.setEndTime(LocalDateTime.now());
-        flow.setFinalResult(finalResult);
-        flow.setStatus(success ? DetailedExecutionFlow.WorkflowStatus.COMPLETED : DetailedExecutionFlow.WorkflowStatus.FAILED);
-        
-        if (flow.getStartTime() != null) {
-            flow.setTotalDuration(java.time.Duration.between(flow.getStartTime(), flow.getEndTime()).toMillis());
-        }
-        
-        log.info("Workflow tracking ended - Session: {}, Status: {}", sessionId, flow.getStatus());
-    }
-
-    public void startPhaseTracking(String sessionId, String phaseName, DetailedExecutionFlow.PhaseType phaseType,
-                                  String agentName, String agentType, Object input) {
-        DetailedExecutionFlow flow = detailedFlows.computeIfAbsent(sessionId, k -> {
-            log.warn("No workflow found for session: {}, creating new one", k);
-            DetailedExecutionFlow newFlow = DetailedExecutionFlow.builder()
-                    .sessionId(k)
-                    .userInput("Unknown")
-                    .startTime(LocalDateTime.now())
-                    .status(DetailedExecutionFlow.WorkflowStatus.RUNNING)
-                    .phases(new ArrayList<>())
-                    .build();
-            return newFlow;
-        });
-
-        DetailedExecutionFlow.ExecutionPhase phase = DetailedExecutionFlow.ExecutionPhase.builder()
-                .phaseId(UUID.randomUUID().toString())
-                .phaseName(phaseName)
-                .phaseType(phaseType)
-                .agentName(agentName)
-                .agentType(agentType)
-                .startTime(LocalDateTime.now())
-                .status(DetailedExecutionFlow.PhaseStatus.RUNNING)
-                .input(input)
-                .llmInteractions(new ArrayList<>())
-                .toolCalls(new ArrayList<>())
-                .metadata(new HashMap<>())
-                .build();
-
-        flow.getPhases().add(phase);
-        currentPhases.put(sessionId, phase);
-        log.info("Phase tracking started - Session: {}, Phase: {}", sessionId, phaseName);
-    }
-
-    public void endPhaseTracking(String sessionId, Object output, boolean success, String error) {
-        DetailedExecutionFlow.ExecutionPhase phase = currentPhases.remove(sessionId);
-        if (phase == null) {
-            return;
-        }
-        
-        phase.setEndTime(LocalDateTime.now());
-        phase.setOutput(output);
-        phase.setStatus(success ? DetailedExecutionFlow.PhaseStatus.COMPLETED : DetailedExecutionFlow.PhaseStatus.FAILED);
-        phase.setError(error);
-        
-        if (phase.getStartTime() != null) {
-            phase.setDuration(java.time.Duration.between(phase.getStartTime(), phase.getEndTime()).toMillis());
-        }
-        
-        log.info("Phase tracking ended - Session: {}, Phase: {}, Status: {}", 
-                sessionId, phase.getPhaseName(), phase.getStatus());
-    }
-
-    public void recordLLMInteraction(String sessionId, String request, String response, String model,
-                                   DetailedExecutionFlow.TokenUsage tokenUsage, long responseTimeMs) {
-        DetailedExecutionFlow.ExecutionPhase phase = currentPhases.get(sessionId);
-        if (phase == null) {
-            return;
-        }
-        
-        DetailedExecutionFlow.LLMInteraction interaction = DetailedExecutionFlow.LLMInteraction.builder()
-                .interactionId(UUID.randomUUID().toString())
-                .requestTime(LocalDateTime.now().minusNanos(responseTimeMs * 1_000_000))
-                .responseTime(LocalDateTime.now())
-                .request(request)
-                .response(response)
-                .model(model)
-                .tokenUsage(tokenUsage)
-                .responseTime_ms(responseTimeMs)
-                .build();
-
-        phase.getLlmInteractions().add(interaction);
-        log.debug("LLM interaction recorded - Session: {}, Model: {}", sessionId, model);
-    }
+    // ==================== 详细执行流程 ====================
 
+    /**
+     * 会话最近一次执行的详细流程，由该执行的 Span 树生成
+     *
+     * @return 执行流程，会话没有 Trace（未执行、追踪未启用或已被淘汰）时为 null
+     */
     public DetailedExecutionFlow getDetailedExecutionFlow(String sessionId) {
-        return detailedFlows.get(sessionId);
+        return tracer.sessionTrace(sessionId).map(ExecutionFlows::from).orElse(null);
     }
 
+    /**
+     * 内存中保留的所有会话的详细流程
+     */
     public Map<String, DetailedExecutionFlow> getAllDetailedExecutionFlows() {
-        return new HashMap<>(detailedFlows);
+        Map<String, DetailedExecutionFlow> flows = new HashMap<>();
+        for (Trace trace : tracer.sessionTraces()) {
+            flows.put(trace.getSessionId(), ExecutionFlows.from(trace));
+        }
+        return flows;
     }
 
+    /**
+     * 清理结束时间早于指定小时数的执行流程
+     */
     public void cleanupCompletedFlows(int maxAgeHours) {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(maxAgeHours);
-        int removedCount = detailedFlows.size();
-        
-        detailedFlows.entrySet().removeIf(entry -> {
-            DetailedExecutionFlow flow = entry.getValue();
-            return flow.getEndTime() != null && flow.getEndTime().isBefore(cutoff);
-        });
-        
-        removedCount -= detailedFlows.size();
-        log.info("Cleaned up {} flows older than {} hours", removedCount, maxAgeHours);
+        int evicted = tracer.evictCompletedBefore(Instant.now().minus(Duration.ofHours(maxAgeHours)));
+        log.info("Cleaned up {} completed execution flows older than {} hours", evicted, maxAgeHours);
     }
 }
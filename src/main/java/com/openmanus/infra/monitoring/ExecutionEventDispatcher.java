@@ -0,0 +1,264 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.domain.model.AgentExecutionEvent;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行事件异步推送管道
+ *
+ * Agent 线程只负责入队，序列化和 STOMP 发送在消费线程上完成：
+ * 1. 按 sessionId 哈希分片到若干有界环形队列（ArrayBlockingQueue），每个分片一个消费线程，
+ *    保证同一会话的消息顺序
+ * 2. 消费线程在一个短时间窗口（batchWindowMillis）内聚合事件，按会话合并为一帧（JSON 数组）发送，
+ *    同一 Agent 连续的流式片段合并为一个片段
+ * 3. 队列已满时按 overflowPolicy 处理：DROP_LOW_PRIORITY 丢弃低优先级事件（如流式片段），
+ *    其余事件最多等待 offerTimeoutMillis；BLOCK 一直等待
+ *
+ * 通过 Micrometer 导出：openmanus.dispatch.queue.depth（gauge）、openmanus.dispatch.lag（timer，入队到发送）、
+ * openmanus.dispatch.batch.size（distribution）、openmanus.dispatch.dropped（counter，带 reason 标签）
+ */
+@Slf4j
+@Component
+public class ExecutionEventDispatcher {
+
+    private static final String METRIC_PREFIX = "openmanus.dispatch";
+    private static final String DESTINATION_PREFIX = "/topic/executions/";
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 队列满时可以丢弃的事件类型
+     */
+    private static final Set<AgentExecutionEvent.EventType> LOW_PRIORITY = EnumSet.of(
+            AgentExecutionEvent.EventType.LLM_STREAM_CHUNK,
+            AgentExecutionEvent.EventType.INTERMEDIATE_RESULT,
+            AgentExecutionEvent.EventType.DECISION_POINT);
+
+    /**
+     * 溢出策略
+     */
+    public enum OverflowPolicy {
+        /** 丢弃低优先级事件，其余事件限时等待 */
+        DROP_LOW_PRIORITY,
+        /** 阻塞生产者直到有空间 */
+        BLOCK
+    }
+
+    /**
+     * 帧发送器，生产环境为 {@link SessionReplayBuffer#publish}
+     */
+    @FunctionalInterface
+    public interface FrameSender {
+        void send(String sessionId, String destination, Object payload);
+    }
+
+    private final FrameSender sender;
+    private final List<BlockingQueue<Envelope>> shards = new ArrayList<>();
+    private final List<Thread> consumers = new ArrayList<>();
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+    private final MeterRegistry meterRegistry;
+    private final Timer lag;
+    private final DistributionSummary batchSize;
+    private volatile boolean running = true;
+
+    @Autowired
+    public ExecutionEventDispatcher(SessionReplayBuffer replayBuffer, OpenManusProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this(replayBuffer::publish, properties.getMonitoring().getDispatch(), meterRegistry);
+    }
+
+    ExecutionEventDispatcher(FrameSender sender, OpenManusProperties.MonitoringConfig.DispatchConfig config,
+                             MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(config.getBatchWindowMillis());
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getOfferTimeoutMillis());
+        this.meterRegistry = meterRegistry;
+        this.lag = Timer.builder(METRIC_PREFIX + ".lag")
+                .description("Time from enqueue to WebSocket send").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                .description("Messages drained per batch").register(meterRegistry);
+
+        int consumerCount = Math.max(1, config.getConsumers());
+        int capacity = Math.max(1, config.getQueueCapacity() / consumerCount);
+        for (int i = 0; i < consumerCount; i++) {
+            BlockingQueue<Envelope> shard = new ArrayBlockingQueue<>(capacity);
+            shards.add(shard);
+            Thread consumer = Thread.ofPlatform().daemon().name("event-dispatch-" + i).unstarted(() -> consume(shard));
+            consumers.add(consumer);
+            consumer.start();
+        }
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", shards, queues -> queues.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Messages waiting to be pushed").register(meterRegistry);
+    }
+
+    /**
+     * 推送执行事件到 /topic/executions/{sessionId}
+     */
+    public void dispatch(AgentExecutionEvent event) {
+        if (event.getSessionId() == null) {
+            return;
+        }
+        enqueue(new Envelope(event.getSessionId(), null, event, System.nanoTime()),
+                LOW_PRIORITY.contains(event.getEventType()));
+    }
+
+    /**
+     * 推送其他消息到 /topic/executions/{sessionId}{suffix}，排在该会话已入队的事件之后
+     *
+     * @param sessionId 会话ID
+     * @param suffix 目的地后缀，如 /result
+     * @param payload 消息内容
+     */
+    public void send(String sessionId, String suffix, Object payload) {
+        enqueue(new Envelope(sessionId, suffix, payload, System.nanoTime()), false);
+    }
+
+    private void enqueue(Envelope envelope, boolean lowPriority) {
+        BlockingQueue<Envelope> shard = shards.get(Math.floorMod(envelope.sessionId.hashCode(), shards.size()));
+        try {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                shard.put(envelope);
+            } else if (lowPriority) {
+                if (!shard.offer(envelope)) {
+                    dropped("low_priority");
+                }
+            } else if (!shard.offer(envelope, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                dropped("timeout");
+                log.warn("Event queue full, dropped message for session {}", envelope.sessionId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped("interrupted");
+        }
+    }
+
+    private void consume(BlockingQueue<Envelope> shard) {
+        List<Envelope> batch = new ArrayList<>(maxBatchSize);
+        while (running || !shard.isEmpty()) {
+            try {
+                Envelope first = shard.poll(POLL_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + batchWindowNanos;
+                long remaining;
+                while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    Envelope next = shard.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                shard.drainTo(batch, maxBatchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Event dispatch failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按会话聚合一批消息并发送；非事件消息发送前先推送该会话已聚合的事件，保证顺序
+     */
+    private void flush(List<Envelope> batch) {
+        batchSize.record(batch.size());
+        Map<String, List<AgentExecutionEvent>> frames = new LinkedHashMap<>();
+        for (Envelope envelope : batch) {
+            if (envelope.suffix == null) {
+                coalesce(frames.computeIfAbsent(envelope.sessionId, id -> new ArrayList<>()),
+                        (AgentExecutionEvent) envelope.payload);
+            } else {
+                List<AgentExecutionEvent> pending = frames.remove(envelope.sessionId);
+                if (pending != null) {
+                    sendFrame(envelope.sessionId, DESTINATION_PREFIX + envelope.sessionId, pending);
+                }
+                sendFrame(envelope.sessionId, DESTINATION_PREFIX + envelope.sessionId + envelope.suffix, envelope.payload);
+            }
+            lag.record(System.nanoTime() - envelope.enqueuedNanos, TimeUnit.NANOSECONDS);
+        }
+        frames.forEach((sessionId, events) -> sendFrame(sessionId, DESTINATION_PREFIX + sessionId, events));
+    }
+
+    /**
+     * 同一 Agent 连续的流式片段合并为一个片段
+     */
+    private static void coalesce(List<AgentExecutionEvent> frame, AgentExecutionEvent event) {
+        if (!frame.isEmpty() && event.getEventType() == AgentExecutionEvent.EventType.LLM_STREAM_CHUNK) {
+            AgentExecutionEvent previous = frame.get(frame.size() - 1);
+            if (previous.getEventType() == AgentExecutionEvent.EventType.LLM_STREAM_CHUNK
+                    && Objects.equals(previous.getAgentName(), event.getAgentName())) {
+                frame.set(frame.size() - 1, AgentExecutionEvent.createStreamChunkEvent(event.getSessionId(),
+                        event.getAgentName(), String.valueOf(previous.getOutput()) + event.getOutput()));
+                return;
+            }
+        }
+        frame.add(event);
+    }
+
+    private void sendFrame(String sessionId, String destination, Object payload) {
+        try {
+            sender.send(sessionId, destination, payload);
+        } catch (Exception e) {
+            // 静默处理：WebSocket 会话可能已关闭，这是正常的竞态条件
+            log.debug("无法发送消息到 {}: {}", destination, e.getMessage());
+        }
+    }
+
+    private void dropped(String reason) {
+        Counter.builder(METRIC_PREFIX + ".dropped")
+                .description("Messages dropped because the dispatch queue was full")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 停止接收新的轮询，消费线程发送完队列中剩余的消息后退出
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private record Envelope(String sessionId, String suffix, Object payload, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.openmanus.infra.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * 固定内存的对数-线性延迟直方图（HdrHistogram 的简化版）
+ *
+ * 小于 16ms 的值精确计数；更大的值按 2 的幂分段，每段再等分为 16 个子桶，相对误差不超过 1/16。
+ * 超过约 4.6 小时（2^24 ms）的值计入最高的桶，最大值单独精确记录。
+ * 352 个 int 计数，可合并，适合按时间桶大量保存。非线程安全，由调用方同步
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 24;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long millis) {
+        long value = Math.max(0, millis);
+        counts[indexOf(Math.min(value, MAX_TRACKABLE))]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * 分位数对应的值（毫秒），取所在桶的中点，不超过最大值
+     *
+     * @param percentile 0 到 1 之间，如 0.99
+     */
+    double valueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(midpointOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static double midpointOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + subBucket) * width;
+        return lower + (width - 1) / 2.0;
+    }
+}
@@ -0,0 +1,321 @@
+package com.openmanus.infra.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.model.PayloadReference;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大内容转存（按内容寻址的磁盘 Blob 存储）
+ *
+ * 工具输入输出、LLM 请求/响应超过阈值时写入磁盘，文件名为内容的 SHA-256，相同内容只存一份；
+ * 执行事件和执行流程中只保留预览和 {@link PayloadReference}，推送和堆内存中不再重复携带完整内容。
+ *
+ * Blob 只在本进程生命周期内有效：每个实例在配置的目录（默认 java.io.tmpdir）下创建自己的子目录，
+ * 同一主机上的多个实例互不影响，关闭时删除该子目录；超过 ttl 未被读写或总大小超过上限时删除最久未用的。
+ * 通过 Micrometer 导出：openmanus.blobs.count / openmanus.blobs.bytes（gauge）、
+ * openmanus.blobs.offloaded（counter）、openmanus.blobs.evicted（counter）
+ */
+@Slf4j
+@Component
+public class PayloadBlobStore {
+
+    public static final String HREF_PREFIX = "/api/agent-monitoring/blobs/";
+
+    private static final String METRIC_PREFIX = "openmanus.blobs";
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    /**
+     * Blob 内容及类型
+     */
+    public record Blob(byte[] content, MediaType contentType) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int thresholdBytes;
+    private final int previewChars;
+    private final Path baseDirectory;
+    private final long maxTotalBytes;
+    private final long ttlMillis;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Counter offloaded;
+    private final Counter evicted;
+    private final Path directory;
+
+    @Autowired
+    public PayloadBlobStore(ObjectMapper objectMapper, OpenManusProperties properties, MeterRegistry meterRegistry) {
+        this(objectMapper, properties.getMonitoring().getBlobs(), meterRegistry);
+    }
+
+    PayloadBlobStore(ObjectMapper objectMapper, OpenManusProperties.MonitoringConfig.BlobConfig config,
+                     MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.thresholdBytes = config.getThresholdBytes();
+        this.previewChars = config.getPreviewChars();
+        this.baseDirectory = StringUtils.hasText(config.getDirectory())
+                ? Path.of(config.getDirectory())
+                : Path.of(System.getProperty("java.io.tmpdir"));
+        this.maxTotalBytes = config.getMaxTotalBytes();
+        this.ttlMillis = Duration.ofHours(config.getTtlHours()).toMillis();
+        this.offloaded = Counter.builder(METRIC_PREFIX + ".offloaded")
+                .description("Payloads moved out of events and flows into the blob store").register(meterRegistry);
+        this.evicted = Counter.builder(METRIC_PREFIX + ".evicted")
+                .description("Blobs deleted because they expired or the disk budget was exceeded").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".count", entries, Map::size)
+                .description("Blobs on disk").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".bytes", totalBytes, AtomicLong::get)
+                .description("Bytes of all blobs on disk").baseUnit("bytes").register(meterRegistry);
+        this.directory = thresholdBytes > 0 ? prepareDirectory() : null;
+    }
+
+    /**
+     * 内容超过阈值时转存并返回引用，否则原样返回
+     *
+     * @param value 工具输入输出等任意内容；字符串按 text/plain 保存，其他对象序列化为 JSON
+     * @return 原内容或 {@link PayloadReference}
+     */
+    public Object offload(Object value) {
+        if (value instanceof String text) {
+            PayloadReference reference = offloadText(text);
+            return reference != null ? reference : text;
+        }
+        if (thresholdBytes <= 0 || value == null || value instanceof Number || value instanceof Boolean
+                || value instanceof PayloadReference) {
+            return value;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            return value;
+        }
+        if (json.length <= thresholdBytes) {
+            return value;
+        }
+        PayloadReference reference = store(json, MediaType.APPLICATION_JSON, new String(json, StandardCharsets.UTF_8));
+        return reference != null ? reference : value;
+    }
+
+    /**
+     * 文本超过阈值时转存
+     *
+     * @return 引用，未超过阈值或写入失败时为 null
+     */
+    public PayloadReference offloadText(String text) {
+        // UTF-8 每个字符至少 1 字节、最多 3 字节（代理对 4 字节对应 2 个字符）
+        if (thresholdBytes <= 0 || text == null || text.length() <= thresholdBytes / 3) {
+            return null;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= thresholdBytes) {
+            return null;
+        }
+        return store(bytes, TEXT_UTF8, text);
+    }
+
+    /**
+     * 读取 Blob
+     *
+     * @param blobId 内容的 SHA-256
+     * @return Blob，不存在或已被删除时为空
+     */
+    public Optional<Blob> get(String blobId) {
+        Entry entry = entries.get(blobId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            byte[] content = Files.readAllBytes(entry.path);
+            entry.lastAccessMillis = System.currentTimeMillis();
+            return Optional.of(new Blob(content, entry.contentType));
+        } catch (NoSuchFileException e) {
+            forget(blobId, entry);
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + blobId, e);
+        }
+    }
+
+    /**
+     * 写入 Blob；磁盘写入失败时返回 null，调用方保留原内容，不影响 Agent 执行
+     */
+    private PayloadReference store(byte[] content, MediaType contentType, String text) {
+        String blobId = sha256(content);
+        Entry entry;
+        try {
+            entry = entries.compute(blobId, (id, existing) -> write(id, existing, content, contentType));
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to offload payload of {} bytes: {}", content.length, e.getMessage());
+            return null;
+        }
+        offloaded.increment();
+        if (totalBytes.get() > maxTotalBytes) {
+            evictLeastRecentlyUsed(blobId);
+        }
+        return PayloadReference.builder()
+                .blobId(blobId)
+                .size(content.length)
+                .contentType(entry.contentType.toString())
+                .preview(text.length() <= previewChars ? text : text.substring(0, previewChars))
+                .href(HREF_PREFIX + blobId)
+                .build();
+    }
+
+    /**
+     * 在 entries.compute 内写入文件：先写临时文件再原子改名，读取方不会看到不完整的内容
+     */
+    private Entry write(String id, Entry existing, byte[] content, MediaType contentType) {
+        if (existing != null) {
+            existing.lastAccessMillis = System.currentTimeMillis();
+            return existing;
+        }
+        Path path = directory.resolve(id + (MediaType.APPLICATION_JSON.equals(contentType) ? ".json" : ".txt"));
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, id, ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to write blob " + id, e);
+        }
+        totalBytes.addAndGet(content.length);
+        return new Entry(path, contentType, content.length);
+    }
+
+    /**
+     * 定期删除超过 ttl 未被读写的 Blob
+     */
+    @Scheduled(fixedDelayString = "${openmanus.monitoring.blobs.eviction-interval-seconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        entries.forEach((blobId, entry) -> {
+            if (entry.lastAccessMillis < cutoff) {
+                delete(blobId, entry);
+            }
+        });
+    }
+
+    /**
+     * 总大小超过上限时按最近读写时间删除，刚写入的 Blob 保留
+     */
+    private void evictLeastRecentlyUsed(String justStored) {
+        entries.entrySet().stream()
+                .filter(e -> !e.getKey().equals(justStored))
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessMillis))
+                .takeWhile(e -> totalBytes.get() > maxTotalBytes)
+                .forEach(e -> delete(e.getKey(), e.getValue()));
+    }
+
+    private void delete(String blobId, Entry entry) {
+        if (!forget(blobId, entry)) {
+            return;
+        }
+        evicted.increment();
+        deleteQuietly(entry.path);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete blob file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean forget(String blobId, Entry entry) {
+        if (entries.remove(blobId, entry)) {
+            totalBytes.addAndGet(-entry.size);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 在基础目录下创建本实例专用的子目录，不清理基础目录中的任何已有文件
+     */
+    private Path prepareDirectory() {
+        try {
+            Files.createDirectories(baseDirectory);
+            Path created = Files.createTempDirectory(baseDirectory, "openmanus-blobs");
+            log.info("Payload blob store at {} (threshold {} bytes)", created, thresholdBytes);
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare blob directory under " + baseDirectory, e);
+        }
+    }
+
+    /**
+     * 删除本实例写入的 Blob 和子目录
+     */
+    @PreDestroy
+    public void close() {
+        if (directory == null) {
+            return;
+        }
+        entries.forEach(this::forget);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list blob directory {}: {}", directory, e.getMessage());
+        }
+        deleteQuietly(directory);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final Path path;
+        private final MediaType contentType;
+        private final long size;
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        private Entry(Path path, MediaType contentType, long size) {
+            this.path = path;
+            this.contentType = contentType;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.domain.model.AgentExecutionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 有界的会话事件存储
+ *
+ * 1. 每个会话一个环形缓冲区（ArrayDeque），超过 maxEventsPerSession 时丢弃最早的事件，追加为 O(1)
+ * 2. 全局内存预算：按事件内容估算占用，超出预算时按最近活跃时间淘汰最久未活跃的整个会话，
+ *    直到回落到预算的 90%
+ * 3. 空闲会话 TTL：{@link #evictIdle} 淘汰超过 TTL 未追加事件的会话，由调度器定期调用
+ *
+ * 通过 Micrometer 导出：openmanus.tracker.evicted.events / evicted.sessions（counter，带 reason 标签），
+ * openmanus.tracker.sessions / bytes（gauge）
+ */
+public class SessionEventStore {
+
+    private static final String METRIC_PREFIX = "openmanus.tracker";
+
+    /**
+     * 单个事件对象本身（不含字符串内容）的估算开销
+     */
+    private static final int EVENT_OVERHEAD_BYTES = 256;
+
+    private static final double BUDGET_LOW_WATERMARK = 0.9;
+
+    private final int maxEventsPerSession;
+    private final long maxTotalBytes;
+    private final long idleTtlNanos;
+    private final Map<String, SessionBuffer> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param maxEventsPerSession 每个会话保留的最大事件数
+     * @param maxTotalBytes 所有会话事件的估算内存预算
+     * @param idleTtl 会话空闲多久后被淘汰
+     * @param meterRegistry 指标注册表
+     */
+    public SessionEventStore(int maxEventsPerSession, long maxTotalBytes, Duration idleTtl, MeterRegistry meterRegistry) {
+        if (maxEventsPerSession < 1) {
+            throw new IllegalArgumentException("maxEventsPerSession must be at least 1");
+        }
+        this.maxEventsPerSession = maxEventsPerSession;
+        this.maxTotalBytes = maxTotalBytes;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(METRIC_PREFIX + ".sessions", sessions, Map::size)
+                .description("Sessions with buffered execution events").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".bytes", totalBytes, AtomicLong::get)
+                .description("Estimated heap used by buffered execution events").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 追加事件
+     *
+     * @param sessionId 会话ID
+     * @param event 事件
+     * @return 因超出全局内存预算而被整体淘汰的会话ID
+     */
+    public List<String> append(String sessionId, AgentExecutionEvent event) {
+        int bytes = estimateBytes(event);
+        while (true) {
+            SessionBuffer buffer = sessions.computeIfAbsent(sessionId, id -> new SessionBuffer());
+            synchronized (buffer) {
+                if (buffer.removed) {
+                    continue;
+                }
+                buffer.events.addLast(new Stored(event, bytes));
+                buffer.bytes += bytes;
+                buffer.lastAppendNanos = System.nanoTime();
+                totalBytes.addAndGet(bytes);
+                int dropped = 0;
+                while (buffer.events.size() > maxEventsPerSession) {
+                    Stored oldest = buffer.events.pollFirst();
+                    buffer.bytes -= oldest.bytes;
+                    totalBytes.addAndGet(-oldest.bytes);
+                    dropped++;
+                }
+                if (dropped > 0) {
+                    evictedEvents("cap", dropped);
+                }
+            }
+            break;
+        }
+        return totalBytes.get() > maxTotalBytes ? enforceBudget(sessionId) : List.of();
+    }
+
+    /**
+     * 获取会话事件快照
+     */
+    public List<AgentExecutionEvent> snapshot(String sessionId) {
+        SessionBuffer buffer = sessions.get(sessionId);
+        if (buffer == null) {
+            return new ArrayList<>();
+        }
+        synchronized (buffer) {
+            List<AgentExecutionEvent> events = new ArrayList<>(buffer.events.size());
+            buffer.events.forEach(stored -> events.add(stored.event));
+            return events;
+        }
+    }
+
+    /**
+     * 删除会话
+     */
+    public void remove(String sessionId) {
+        SessionBuffer buffer = sessions.remove(sessionId);
+        if (buffer != null) {
+            release(buffer);
+        }
+    }
+
+    /**
+     * 淘汰空闲超过 TTL 的会话
+     *
+     * @param keep 即使空闲也需要保留的会话（如仍有 Agent 在执行）
+     * @return 被淘汰的会话ID
+     */
+    public List<String> evictIdle(Predicate<String> keep) {
+        long now = System.nanoTime();
+        List<String> evicted = new ArrayList<>();
+        sessions.forEach((sessionId, buffer) -> {
+            if (now - buffer.lastAppendNanos > idleTtlNanos && !keep.test(sessionId)
+                    && sessions.remove(sessionId, buffer)) {
+                evictedEvents("ttl", release(buffer));
+                evicted.add(sessionId);
+            }
+        });
+        if (!evicted.isEmpty()) {
+            evictedSessions("ttl", evicted.size());
+        }
+        return evicted;
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * 按最近活跃时间淘汰会话，直到回落到预算的低水位；当前正在写入的会话最后才考虑，只裁剪其最早的事件
+     */
+    private List<String> enforceBudget(String currentSessionId) {
+        long target = (long) (maxTotalBytes * BUDGET_LOW_WATERMARK);
+        List<Map.Entry<String, SessionBuffer>> candidates = new ArrayList<>(sessions.entrySet());
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAppendNanos));
+
+        List<String> evicted = new ArrayList<>();
+        for (Map.Entry<String, SessionBuffer> entry : candidates) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            if (!entry.getKey().equals(currentSessionId) && sessions.remove(entry.getKey(), entry.getValue())) {
+                evictedEvents("budget", release(entry.getValue()));
+                evicted.add(entry.getKey());
+            }
+        }
+        if (!evicted.isEmpty()) {
+            evictedSessions("budget", evicted.size());
+        }
+
+        SessionBuffer current = sessions.get(currentSessionId);
+        if (current != null && totalBytes.get() > target) {
+            int dropped = 0;
+            synchronized (current) {
+                while (current.events.size() > 1 && totalBytes.get() > target) {
+                    Stored oldest = current.events.pollFirst();
+                    current.bytes -= oldest.bytes;
+                    totalBytes.addAndGet(-oldest.bytes);
+                    dropped++;
+                }
+            }
+            if (dropped > 0) {
+                evictedEvents("budget", dropped);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 释放已从索引中移除的会话缓冲区
+     *
+     * @return 释放的事件数
+     */
+    private int release(SessionBuffer buffer) {
+        synchronized (buffer) {
+            buffer.removed = true;
+            totalBytes.addAndGet(-buffer.bytes);
+            int count = buffer.events.size();
+            buffer.events.clear();
+            buffer.bytes = 0;
+            return count;
+        }
+    }
+
+    private void evictedEvents(String reason, int count) {
+        if (count > 0) {
+            Counter.builder(METRIC_PREFIX + ".evicted.events")
+                    .description("Execution events dropped from the session store")
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment(count);
+        }
+    }
+
+    private void evictedSessions(String reason, int count) {
+        Counter.builder(METRIC_PREFIX + ".evicted.sessions")
+                .description("Sessions evicted from the session store")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * 估算事件占用的堆内存：固定开销 + 字符串内容（UTF-16 按 2 字节计）
+     */
+    static int estimateBytes(AgentExecutionEvent event) {
+        long chars = length(event.getInput()) + length(event.getOutput()) + length(event.getError())
+                + length(event.getAgentName()) + length(event.getAgentType()) + length(event.getEventId())
+                + length(event.getSessionId()) + length(event.getMetadata());
+        return (int) Math.min(Integer.MAX_VALUE, EVENT_OVERHEAD_BYTES + 2 * chars);
+    }
+
+    private static long length(Object value) {
+        return value == null ? 0 : String.valueOf(value).length();
+    }
+
+    private record Stored(AgentExecutionEvent event, int bytes) {
+    }
+
+    private static final class SessionBuffer {
+        private final ArrayDeque<Stored> events = new ArrayDeque<>();
+        private long bytes;
+        private volatile long lastAppendNanos = System.nanoTime();
+        private boolean removed;
+    }
+}
@@ -0,0 +1,314 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.websocket.WireEncodings;
+import com.openmanus.infra.websocket.WireFormat;
+import com.openmanus.infra.websocket.WireFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话消息回放缓冲
+ *
+ * 推送到 /topic/executions/{sessionId}（及其 /logs、/result）的每一帧都经由这里发送：
+ * 1. 为每帧分配会话内单调递增的序号，作为 STOMP 头 seq 随消息下发
+ * 2. 帧由 {@link WireEncodings} 序列化（每种格式一次），保存在每个会话的有界缓冲中（按 JSON 编码的帧数和字节数限制，
+ *    超出时丢弃最早的帧），补发时按订阅者协商的格式取出编码
+ * 3. 客户端订阅时携带 fromSeq 头，会先收到该目的地序号不小于 fromSeq 的历史帧，再收到实时消息
+ *
+ * 作为 clientInboundChannel 的拦截器，在简单代理处理 SUBSCRIBE 前持有会话锁并把历史帧直接写入客户端连接，
+ * 订阅注册后才释放；发布同样持有这把锁，因此每一帧要么在补发中、要么作为实时消息送达，不重复、不遗漏且顺序不变。
+ * 这依赖简单代理在发布线程上同步处理 brokerChannel 消息（默认配置）。
+ * 使用外部代理（RELAY 模式）时订阅异步生效，且缓冲只包含本实例发布的帧，补发为尽力而为，客户端按 seq 去重
+ *
+ * 不经 STOMP 的消费者（如 SSE 流）通过 {@link #listen} 在同一把锁下先取历史帧、再接收实时帧
+ */
+@Slf4j
+@Component
+public class SessionReplayBuffer implements ExecutorChannelInterceptor {
+
+    public static final String SEQ_HEADER = "seq";
+    public static final String FROM_SEQ_HEADER = "fromSeq";
+
+    /**
+     * 会话帧监听器，在会话锁内按序号顺序调用，实现中不能阻塞
+     */
+    @FunctionalInterface
+    public interface FrameListener {
+        /**
+         * @param seq 会话内序号
+         * @param destination 完整目的地
+         * @param payload 推送帧，SSE 等文本通道使用其 JSON 编码
+         */
+        void onFrame(long seq, String destination, WireFrame payload);
+    }
+
+    private static final String DESTINATION_PREFIX = "/topic/executions/";
+    private static final String METRIC_PREFIX = "openmanus.replay";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageHandler clientHandler;
+    private final WireEncodings encodings;
+    private final int maxFramesPerSession;
+    private final long maxBytesPerSession;
+    private final long idleTtlNanos;
+    private final ConcurrentMap<String, SessionFrames> sessions = new ConcurrentHashMap<>();
+    private final ThreadLocal<SessionFrames> heldBySubscribe = new ThreadLocal<>();
+    private final Counter replayedFrames;
+
+    @Autowired
+    public SessionReplayBuffer(SimpMessagingTemplate messagingTemplate,
+                               @Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler,
+                               WireEncodings encodings, OpenManusProperties properties, MeterRegistry meterRegistry) {
+        this(messagingTemplate, (MessageHandler) webSocketHandler, encodings, properties.getMonitoring().getReplay(),
+                meterRegistry);
+    }
+
+    /**
+     * @param messagingTemplate 实时发布使用的模板
+     * @param clientHandler 把补发的帧写入客户端连接的处理器（生产环境为 SubProtocolWebSocketHandler）
+     * @param encodings 帧编码
+     * @param config 缓冲配置
+     * @param meterRegistry 指标注册表
+     */
+    SessionReplayBuffer(SimpMessagingTemplate messagingTemplate, MessageHandler clientHandler, WireEncodings encodings,
+                        OpenManusProperties.MonitoringConfig.ReplayConfig config, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientHandler = clientHandler;
+        this.encodings = encodings;
+        this.maxFramesPerSession = Math.max(1, config.getMaxFramesPerSession());
+        this.maxBytesPerSession = config.getMaxBytesPerSession();
+        this.idleTtlNanos = Duration.ofMinutes(config.getIdleTtlMinutes()).toNanos();
+        this.replayedFrames = Counter.builder(METRIC_PREFIX + ".frames")
+                .description("Frames re-sent to late or reconnecting subscribers").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".sessions", sessions, ConcurrentMap::size)
+                .description("Sessions with a replay backlog").register(meterRegistry);
+    }
+
+    /**
+     * 分配序号、写入回放缓冲并发布到目的地
+     *
+     * @param sessionId 会话ID
+     * @param destination 完整目的地，如 /topic/executions/{sessionId}/logs
+     * @param payload 消息内容，在返回前完成序列化，调用方之后可以复用该对象
+     * @return 分配的序号
+     */
+    public long publish(String sessionId, String destination, Object payload) {
+        SessionFrames frames = lockSession(sessionId);
+        try {
+            long seq = ++frames.lastSeq;
+            WireFrame wire = encodings.frame(payload);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setNativeHeader(SEQ_HEADER, Long.toString(seq));
+            accessor.setContentType(WireFormat.JSON.getMimeType());
+            accessor.setLeaveMutable(true);
+            frames.append(new Frame(seq, destination, wire), maxFramesPerSession, maxBytesPerSession);
+            frames.lastActiveNanos = System.nanoTime();
+            messagingTemplate.send(destination,
+                    MessageBuilder.createMessage(encodings.brokerPayload(wire), accessor.getMessageHeaders()));
+            for (FrameListener listener : frames.listeners) {
+                listener.onFrame(seq, destination, wire);
+            }
+            return seq;
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * 监听会话的所有目的地：先收到序号不小于 fromSeq 的历史帧，再按顺序收到之后发布的帧
+     *
+     * @param sessionId 会话ID
+     * @param fromSeq 起始序号，1 表示从缓冲中最早的帧开始
+     * @param listener 帧监听器
+     * @return 取消监听的操作
+     */
+    public Runnable listen(String sessionId, long fromSeq, FrameListener listener) {
+        SessionFrames frames = lockSession(sessionId);
+        try {
+            int replayed = 0;
+            for (Frame frame : frames.frames) {
+                if (frame.seq >= fromSeq) {
+                    listener.onFrame(frame.seq, frame.destination, frame.wire);
+                    replayed++;
+                }
+            }
+            replayedFrames.increment(replayed);
+            frames.listeners.add(listener);
+            frames.lastActiveNanos = System.nanoTime();
+        } finally {
+            frames.lock.unlock();
+        }
+        return () -> {
+            frames.lock.lock();
+            try {
+                frames.listeners.remove(listener);
+                frames.lastActiveNanos = System.nanoTime();
+            } finally {
+                frames.lock.unlock();
+            }
+        };
+    }
+
+    /**
+     * 简单代理处理携带 fromSeq 的 SUBSCRIBE 前：锁住会话并补发历史帧，锁在订阅注册后释放
+     */
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (!(handler instanceof AbstractBrokerMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return message;
+        }
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(message);
+        String destination = subscribe.getDestination();
+        String fromSeq = subscribe.getFirstNativeHeader(FROM_SEQ_HEADER);
+        String sessionId = sessionIdOf(destination);
+        if (sessionId == null || fromSeq == null) {
+            return message;
+        }
+
+        SessionFrames frames = lockSession(sessionId);
+        heldBySubscribe.set(frames);
+        try {
+            replay(frames, subscribe, Long.parseLong(fromSeq.trim()));
+        } catch (Exception e) {
+            log.warn("Replay to subscription {} on {} failed: {}", subscribe.getSubscriptionId(), destination, e.getMessage());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        SessionFrames frames = heldBySubscribe.get();
+        if (frames != null) {
+            heldBySubscribe.remove();
+            frames.lock.unlock();
+        }
+    }
+
+    private void replay(SessionFrames frames, SimpMessageHeaderAccessor subscribe, long fromSeq) {
+        int replayed = 0;
+        long firstAvailable = frames.frames.isEmpty() ? frames.lastSeq + 1 : frames.frames.peekFirst().seq;
+        for (Frame frame : frames.frames) {
+            if (frame.seq < fromSeq || !frame.destination.equals(subscribe.getDestination())) {
+                continue;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(subscribe.getSessionId());
+            accessor.setSubscriptionId(subscribe.getSubscriptionId());
+            accessor.setDestination(frame.destination);
+            accessor.setNativeHeader(SEQ_HEADER, Long.toString(frame.seq));
+            clientHandler.handleMessage(encodings.toClient(frame.wire, accessor));
+            replayed++;
+        }
+        replayedFrames.increment(replayed);
+        if (fromSeq < firstAvailable) {
+            log.debug("Replay for {} requested from seq {}, oldest buffered is {}",
+                    subscribe.getDestination(), fromSeq, firstAvailable);
+        }
+    }
+
+    /**
+     * 定期丢弃空闲会话的回放缓冲；正被锁住或仍有监听器的会话跳过
+     */
+    @Scheduled(fixedDelayString = "${openmanus.monitoring.replay.eviction-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void evictIdleSessions() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(frames -> {
+            if (now - frames.lastActiveNanos < idleTtlNanos || !frames.lock.tryLock()) {
+                return false;
+            }
+            try {
+                if (!frames.listeners.isEmpty()) {
+                    return false;
+                }
+                frames.evicted = true;
+                return true;
+            } finally {
+                frames.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 当前缓冲的会话数
+     */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 获取会话锁；会话恰好被淘汰时改用新建的缓冲
+     */
+    private SessionFrames lockSession(String sessionId) {
+        while (true) {
+            SessionFrames frames = sessions.computeIfAbsent(sessionId, id -> new SessionFrames());
+            frames.lock.lock();
+            if (!frames.evicted) {
+                return frames;
+            }
+            frames.lock.unlock();
+        }
+    }
+
+    private static String sessionIdOf(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return null;
+        }
+        String rest = destination.substring(DESTINATION_PREFIX.length());
+        int slash = rest.indexOf('/');
+        String sessionId = slash < 0 ? rest : rest.substring(0, slash);
+        return sessionId.isEmpty() ? null : sessionId;
+    }
+
+    private static final class SessionFrames {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private final List<FrameListener> listeners = new ArrayList<>(1);
+        private long lastSeq;
+        private long bytes;
+        private boolean evicted;
+        private volatile long lastActiveNanos = System.nanoTime();
+
+        private void append(Frame frame, int maxFrames, long maxBytes) {
+            frames.addLast(frame);
+            bytes += frame.bytes();
+            while (frames.size() > 1 && (frames.size() > maxFrames || bytes > maxBytes)) {
+                bytes -= frames.removeFirst().bytes();
+            }
+        }
+    }
+
+    private record Frame(long seq, String destination, WireFrame wire) {
+
+        private long bytes() {
+            return wire.json().length;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.domain.model.AgentExecutionEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话事件的累计统计
+ *
+ * 事件记录时增量更新，查询只读取计数器，耗时与会话的事件数无关。
+ * 统计覆盖会话记录过的全部事件，包括已被环形缓冲区丢弃的较早事件
+ */
+final class SessionStatistics {
+
+    private final LongAdder totalEvents = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalDuration = new LongAdder();
+    private final Set<String> agentNames = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, LongAdder> agentTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> eventTypes = new ConcurrentHashMap<>();
+
+    void record(AgentExecutionEvent event) {
+        totalEvents.increment();
+        if (event.getStatus() == AgentExecutionEvent.ExecutionStatus.SUCCESS) {
+            successCount.increment();
+        } else if (event.getStatus() == AgentExecutionEvent.ExecutionStatus.FAILED) {
+            errorCount.increment();
+        }
+        if (event.getDuration() != null) {
+            totalDuration.add(event.getDuration());
+        }
+        if (event.getAgentName() != null) {
+            agentNames.add(event.getAgentName());
+        }
+        agentTypes.computeIfAbsent(String.valueOf(event.getAgentType()), type -> new LongAdder()).increment();
+        eventTypes.computeIfAbsent(String.valueOf(event.getEventType()), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * 统计快照，字段与原先逐事件扫描得到的结果一致
+     */
+    Map<String, Object> snapshot() {
+        long total = totalEvents.sum();
+        long success = successCount.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalEvents", total);
+        stats.put("agentCount", agentNames.size());
+        stats.put("successCount", success);
+        stats.put("errorCount", errorCount.sum());
+        stats.put("totalDuration", totalDuration.sum());
+        stats.put("agentTypeStats", sums(agentTypes));
+        stats.put("eventTypeStats", sums(eventTypes));
+        stats.put("successRate", total > 0 ? (double) success / total * 100 : 0.0);
+        return stats;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+}
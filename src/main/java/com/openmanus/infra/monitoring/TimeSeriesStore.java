@@ -0,0 +1,283 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.tracing.ExecutionFlows;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import com.openmanus.infra.tracing.Span;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 滚动时间序列存储：按分钟和小时分桶的延迟直方图与计数
+ *
+ * 1. 数据来自 {@link ExecutionTracer} 结束的 Span：根 Span 计入 workflow，Agent Span 按 Agent 计入 phase，
+ *    工具 Span 按工具计入 tool，LLM Span 按发起调用的 Agent 计入 llm
+ * 2. 每个序列（指标 + Agent / 工具名）有一个分钟环和一个小时环，每次记录同时写入两者，小时桶即分钟桶的汇总；
+ *    桶过期后原地复用，内存不随流量增长
+ * 3. 查询窗口不超过分钟环长度时按分钟返回，否则按小时返回，不指定 key 时合并该指标的所有序列
+ *
+ * 每个指标最多跟踪 max-series-per-metric 个 key，超出的计入 {@value #OTHER_KEY}
+ */
+@Component
+public class TimeSeriesStore {
+
+    /**
+     * 时间序列指标
+     */
+    public enum Metric {
+        WORKFLOW,
+        PHASE,
+        TOOL,
+        LLM;
+
+        /**
+         * 按名称（不区分大小写）解析
+         *
+         * @throws IllegalArgumentException 未知的指标名
+         */
+        public static Metric of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 一个时间桶的统计，延迟单位为毫秒
+     */
+    public record Point(Instant start, long count, long errors, double mean,
+                       double p50, double p95, double p99, long max) {
+    }
+
+    /**
+     * 查询结果
+     *
+     * @param key 查询的 key，合并所有序列时为 null
+     * @param window 实际覆盖的窗口（超过保留时长时被截断）
+     * @param resolution 桶宽度：1 分钟或 1 小时
+     * @param summary 整个窗口的统计
+     * @param points 按时间顺序的桶，没有数据的桶计数为 0
+     */
+    public record TimeSeries(String metric, String key, Duration window, Duration resolution,
+                             Point summary, List<Point> points) {
+    }
+
+    static final String OTHER_KEY = "_other";
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private final int minuteBuckets;
+    private final int hourBuckets;
+    private final int maxSeriesPerMetric;
+    private final Clock clock;
+    private final ExecutionTracer tracer;
+    private final Map<Metric, ConcurrentMap<String, Series>> series = new EnumMap<>(Metric.class);
+
+    @Autowired
+    public TimeSeriesStore(OpenManusProperties properties, ExecutionTracer tracer) {
+        this(properties.getMonitoring().getTimeseries(), Clock.systemUTC(), tracer);
+    }
+
+    TimeSeriesStore(OpenManusProperties.MonitoringConfig.TimeSeriesConfig config, Clock clock) {
+        this(config, clock, null);
+    }
+
+    private TimeSeriesStore(OpenManusProperties.MonitoringConfig.TimeSeriesConfig config, Clock clock,
+                            ExecutionTracer tracer) {
+        if (config.getMinuteBuckets() < 1 || config.getHourBuckets() < 1) {
+            throw new IllegalArgumentException("minuteBuckets and hourBuckets must be at least 1");
+        }
+        this.minuteBuckets = config.getMinuteBuckets();
+        this.hourBuckets = config.getHourBuckets();
+        this.maxSeriesPerMetric = config.getMaxSeriesPerMetric();
+        this.clock = clock;
+        this.tracer = tracer;
+        for (Metric metric : Metric.values()) {
+            series.put(metric, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 构造完成后再订阅 Span，监听器不会在对象初始化完成前被调用
+     */
+    @PostConstruct
+    public void init() {
+        if (tracer != null) {
+            tracer.addSpanListener(this::record);
+        }
+    }
+
+    /**
+     * 记录结束的 Span
+     */
+    void record(Span span) {
+        long millis = span.getDuration().toMillis();
+        boolean error = span.getStatus() == Span.Status.ERROR;
+        Object agentName = span.getAttribute(ExecutionFlows.AGENT_NAME);
+        if (span.getParentSpanId() == null) {
+            record(Metric.WORKFLOW, agentName != null ? agentName.toString() : span.getName(), millis, error);
+        }
+        switch (span.getKind()) {
+            case AGENT -> record(Metric.PHASE, String.valueOf(agentName), millis, error);
+            case TOOL -> record(Metric.TOOL, String.valueOf(span.getAttribute(ExecutionFlows.TOOL_NAME)), millis, error);
+            case LLM -> record(Metric.LLM, String.valueOf(agentName), millis, error);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(Metric metric, String key, long millis, boolean error) {
+        ConcurrentMap<String, Series> metricSeries = series.get(metric);
+        Series target = metricSeries.get(key);
+        if (target == null) {
+            String seriesKey = metricSeries.size() < maxSeriesPerMetric ? key : OTHER_KEY;
+            target = metricSeries.computeIfAbsent(seriesKey, k -> new Series(minuteBuckets, hourBuckets));
+        }
+        target.record(clock.millis(), millis, error);
+    }
+
+    /**
+     * 指标下已记录的 key
+     */
+    public List<String> keys(Metric metric) {
+        return List.copyOf(new TreeSet<>(series.get(metric).keySet()));
+    }
+
+    /**
+     * 查询最近一段时间的序列
+     *
+     * @param key Agent 或工具名，为 null 时合并该指标的所有序列
+     * @param window 时间窗口，超过保留时长时截断
+     */
+    public TimeSeries query(Metric metric, String key, Duration window) {
+        boolean byMinute = window.compareTo(MINUTE.multipliedBy(minuteBuckets)) <= 0;
+        Duration resolution = byMinute ? MINUTE : HOUR;
+        int retained = byMinute ? minuteBuckets : hourBuckets;
+        int buckets = (int) Math.max(1, Math.min(retained,
+                (window.toMillis() + resolution.toMillis() - 1) / resolution.toMillis()));
+
+        List<Series> matched = new ArrayList<>();
+        if (key != null) {
+            Series single = series.get(metric).get(key);
+            if (single != null) {
+                matched.add(single);
+            }
+        } else {
+            matched.addAll(series.get(metric).values());
+        }
+
+        long resolutionMillis = resolution.toMillis();
+        long lastBucket = clock.millis() / resolutionMillis;
+        long firstBucket = lastBucket - buckets + 1;
+        LatencyHistogram total = new LatencyHistogram();
+        long totalErrors = 0;
+        List<Point> points = new ArrayList<>(buckets);
+        LatencyHistogram merged = new LatencyHistogram();
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+            merged.reset();
+            long errors = 0;
+            for (Series candidate : matched) {
+                errors += candidate.collect(byMinute, bucket, merged);
+            }
+            total.add(merged);
+            totalErrors += errors;
+            points.add(point(Instant.ofEpochMilli(bucket * resolutionMillis), merged, errors));
+        }
+        Point summary = point(Instant.ofEpochMilli(firstBucket * resolutionMillis), total, totalErrors);
+        return new TimeSeries(metric.name().toLowerCase(Locale.ROOT), key, resolution.multipliedBy(buckets),
+                resolution, summary, points);
+    }
+
+    private static Point point(Instant start, LatencyHistogram histogram, long errors) {
+        return new Point(start, histogram.count(), errors, histogram.mean(),
+                histogram.valueAtPercentile(0.5), histogram.valueAtPercentile(0.95),
+                histogram.valueAtPercentile(0.99), histogram.max());
+    }
+
+    /**
+     * 一个序列的分钟环和小时环
+     */
+    private static final class Series {
+        private final Ring minutes;
+        private final Ring hours;
+
+        private Series(int minuteBuckets, int hourBuckets) {
+            this.minutes = new Ring(MINUTE.toMillis(), minuteBuckets);
+            this.hours = new Ring(HOUR.toMillis(), hourBuckets);
+        }
+
+        private synchronized void record(long nowMillis, long millis, boolean error) {
+            minutes.record(nowMillis, millis, error);
+            hours.record(nowMillis, millis, error);
+        }
+
+        /**
+         * 把指定桶合并到 target
+         *
+         * @return 该桶的错误数
+         */
+        private synchronized long collect(boolean byMinute, long bucket, LatencyHistogram target) {
+            return (byMinute ? minutes : hours).collect(bucket, target);
+        }
+    }
+
+    /**
+     * 固定长度的时间桶环，桶号为 epoch 毫秒 / 桶宽度，过期的槽位在下次写入时重置
+     */
+    private static final class Ring {
+        private final long bucketMillis;
+        private final long[] bucketIds;
+        private final long[] errors;
+        private final LatencyHistogram[] histograms;
+
+        private Ring(long bucketMillis, int size) {
+            this.bucketMillis = bucketMillis;
+            this.bucketIds = new long[size];
+            this.errors = new long[size];
+            this.histograms = new LatencyHistogram[size];
+            Arrays.fill(bucketIds, -1);
+        }
+
+        private void record(long nowMillis, long millis, boolean error) {
+            long bucket = nowMillis / bucketMillis;
+            int slot = (int) (bucket % bucketIds.length);
+            if (histograms[slot] == null) {
+                histograms[slot] = new LatencyHistogram();
+            }
+            if (bucketIds[slot] != bucket) {
+                bucketIds[slot] = bucket;
+                errors[slot] = 0;
+                histograms[slot].reset();
+            }
+            histograms[slot].record(millis);
+            if (error) {
+                errors[slot]++;
+            }
+        }
+
+        private long collect(long bucket, LatencyHistogram target) {
+            int slot = (int) (bucket % bucketIds.length);
+            if (bucketIds[slot] != bucket) {
+                return 0;
+            }
+            target.add(histograms[slot]);
+            return errors[slot];
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.exception.TokenBudgetExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM Token 用量与预算
+ *
+ * 1. 每次真实发往模型服务的调用（缓存命中不计）由模型装饰器记录：Token 数、请求 / 响应字符数、首 Token 时间和总耗时
+ * 2. 按会话累计，会话内再按 Agent（即执行阶段）细分，并按模型价格折算费用
+ * 3. 预算：会话累计 Token 或费用达到上限后，{@link #checkBudget} 拒绝该会话的后续模型调用，终止失控的工作流
+ *
+ * 通过 Micrometer 导出：openmanus.llm.tokens（counter，带 agent / model / type 标签）、openmanus.llm.cost、
+ * openmanus.llm.request.chars / response.chars（summary）、openmanus.llm.time.to.first.token / duration（timer）、
+ * openmanus.llm.budget.exceeded（counter，带 limit 标签）
+ */
+@Slf4j
+@Component
+public class TokenUsageTracker {
+
+    private static final String METRIC_PREFIX = "openmanus.llm";
+
+    /**
+     * MDC 中没有会话或 Agent 时使用的标签值
+     */
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * 一次模型调用的用量
+     *
+     * @param model 响应中的模型名
+     * @param mode blocking 或 streaming
+     * @param inputTokens 输入 Token 数（模型未返回时为本地估算值）
+     * @param outputTokens 输出 Token 数（模型未返回时为本地估算值）
+     * @param estimated Token 数是否为本地估算
+     * @param requestChars 请求消息的字符数
+     * @param responseChars 响应文本的字符数
+     * @param timeToFirstToken 首个 Token 到达的时间，非流式调用等于总耗时
+     * @param duration 总耗时
+     */
+    public record LlmCall(String model, String mode, long inputTokens, long outputTokens, boolean estimated,
+                          long requestChars, long responseChars, Duration timeToFirstToken, Duration duration) {
+    }
+
+    /**
+     * 累计用量快照
+     */
+    public record Totals(long calls, long inputTokens, long outputTokens, double cost) {
+
+        public long totalTokens() {
+            return inputTokens + outputTokens;
+        }
+    }
+
+    /**
+     * 会话用量快照，agents 按 Agent 名称细分
+     */
+    public record SessionUsage(String sessionId, Totals total, Map<String, Totals> agents) {
+    }
+
+    private final OpenManusProperties.LlmConfig.BudgetConfig budget;
+    private final long idleTtlNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenUsageTracker(OpenManusProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getLlm().getBudget(),
+                Duration.ofMinutes(properties.getMonitoring().getEvents().getIdleTtlMinutes()),
+                meterRegistry);
+    }
+
+    TokenUsageTracker(OpenManusProperties.LlmConfig.BudgetConfig budget, Duration idleTtl,
+                      MeterRegistry meterRegistry) {
+        this.budget = budget;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录一次模型调用
+     *
+     * @param sessionId 会话ID，为 null 时只记录指标
+     * @param agentName 发起调用的 Agent，为 null 时记为 unknown
+     */
+    public void record(String sessionId, String agentName, LlmCall call) {
+        String agent = agentName != null ? agentName : UNKNOWN;
+        String model = call.model() != null ? call.model() : UNKNOWN;
+        double cost = costOf(model, call.inputTokens(), call.outputTokens());
+
+        if (sessionId != null) {
+            Session session = sessions.computeIfAbsent(sessionId, id -> new Session());
+            session.total.add(call, cost);
+            session.agents.computeIfAbsent(agent, name -> new Accumulator()).add(call, cost);
+            session.lastActivityNanos = System.nanoTime();
+        }
+
+        tokens(agent, model, "input").increment(call.inputTokens());
+        tokens(agent, model, "output").increment(call.outputTokens());
+        Counter.builder(METRIC_PREFIX + ".cost")
+                .description("Cost of LLM calls computed from the configured token prices")
+                .tag("agent", agent)
+                .tag("model", model)
+                .register(meterRegistry)
+                .increment(cost);
+        DistributionSummary.builder(METRIC_PREFIX + ".request.chars")
+                .description("Characters sent to the model per call")
+                .tag("agent", agent)
+                .register(meterRegistry)
+                .record(call.requestChars());
+        DistributionSummary.builder(METRIC_PREFIX + ".response.chars")
+                .description("Characters received from the model per call")
+                .tag("agent", agent)
+                .register(meterRegistry)
+                .record(call.responseChars());
+        Timer.builder(METRIC_PREFIX + ".time.to.first.token")
+                .description("Time until the first token of a model response arrived")
+                .tag("model", model)
+                .tag("mode", call.mode())
+                .register(meterRegistry)
+                .record(call.timeToFirstToken());
+        Timer.builder(METRIC_PREFIX + ".duration")
+                .description("Time until a model response was complete")
+                .tag("model", model)
+                .tag("mode", call.mode())
+                .register(meterRegistry)
+                .record(call.duration());
+
+        log.debug("LLM usage - Session: {}, Agent: {}, Model: {}, Tokens: {}/{}{}, TTFT: {}ms, Total: {}ms",
+                sessionId, agent, model, call.inputTokens(), call.outputTokens(),
+                call.estimated() ? " (estimated)" : "", call.timeToFirstToken().toMillis(), call.duration().toMillis());
+    }
+
+    /**
+     * 检查会话预算，在发起模型调用前调用
+     *
+     * @throws TokenBudgetExceededException 会话累计 Token 或费用已达到上限
+     */
+    public void checkBudget(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        long maxTokens = budget.getMaxTokensPerSession();
+        long usedTokens = session.total.inputTokens.sum() + session.total.outputTokens.sum();
+        if (maxTokens > 0 && usedTokens >= maxTokens) {
+            throw exceeded(sessionId, "tokens", String.format(
+                    "Session %s has used %d tokens, budget is %d", sessionId, usedTokens, maxTokens));
+        }
+        double maxCost = budget.getMaxCostPerSession();
+        double usedCost = session.total.cost.sum();
+        if (maxCost > 0 && usedCost >= maxCost) {
+            throw exceeded(sessionId, "cost", String.format(
+                    "Session %s has incurred cost %.4f, budget is %.4f", sessionId, usedCost, maxCost));
+        }
+    }
+
+    /**
+     * 会话的累计用量
+     */
+    public Optional<SessionUsage> sessionUsage(String sessionId) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        return Optional.ofNullable(session).map(s -> s.snapshot(sessionId));
+    }
+
+    /**
+     * 所有会话的累计用量
+     */
+    public Map<String, SessionUsage> allSessionUsage() {
+        Map<String, SessionUsage> usage = new TreeMap<>();
+        sessions.forEach((sessionId, session) -> usage.put(sessionId, session.snapshot(sessionId)));
+        return usage;
+    }
+
+    /**
+     * 淘汰超过事件 TTL 未调用模型的会话
+     */
+    @Scheduled(fixedDelayString = "${openmanus.monitoring.events.eviction-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void evictIdleSessions() {
+        long now = System.nanoTime();
+        sessions.entrySet().removeIf(entry -> now - entry.getValue().lastActivityNanos > idleTtlNanos);
+    }
+
+    private double costOf(String model, long inputTokens, long outputTokens) {
+        OpenManusProperties.LlmConfig.BudgetConfig.ModelPrice price = budget.getModelPrices().get(model);
+        double inputPrice = price != null ? price.getInputPerMillionTokens() : budget.getInputPricePerMillionTokens();
+        double outputPrice = price != null ? price.getOutputPerMillionTokens() : budget.getOutputPricePerMillionTokens();
+        return (inputTokens * inputPrice + outputTokens * outputPrice) / 1_000_000d;
+    }
+
+    private Counter tokens(String agent, String model, String type) {
+        return Counter.builder(METRIC_PREFIX + ".tokens")
+                .description("Tokens consumed by LLM calls")
+                .tag("agent", agent)
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private TokenBudgetExceededException exceeded(String sessionId, String limit, String message) {
+        Counter.builder(METRIC_PREFIX + ".budget.exceeded")
+                .description("Model calls rejected because the session budget was used up")
+                .tag("limit", limit)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Token budget exceeded - Session: {}, {}", sessionId, message);
+        return new TokenBudgetExceededException(message);
+    }
+
+    private static final class Session {
+        private final Accumulator total = new Accumulator();
+        private final ConcurrentMap<String, Accumulator> agents = new ConcurrentHashMap<>();
+        private volatile long lastActivityNanos = System.nanoTime();
+
+        private SessionUsage snapshot(String sessionId) {
+            Map<String, Totals> byAgent = new TreeMap<>();
+            agents.forEach((agent, accumulator) -> byAgent.put(agent, accumulator.snapshot()));
+            return new SessionUsage(sessionId, total.snapshot(), byAgent);
+        }
+    }
+
+    private static final class Accumulator {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final DoubleAdder cost = new DoubleAdder();
+
+        private void add(LlmCall call, double callCost) {
+            calls.increment();
+            inputTokens.add(call.inputTokens());
+            outputTokens.add(call.outputTokens());
+            cost.add(callCost);
+        }
+
+        private Totals snapshot() {
+            return new Totals(calls.sum(), inputTokens.sum(), outputTokens.sum(), cost.sum());
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.github.dockerjava.api.command.InspectExecResponse;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.core.command.ExecStartResultCallback;
 import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,8 @@ import java.util.concurrent.TimeUnit;
  * 3. 支持本地执行模式（禁用沙箱时）
  * 
  * 设计：单例容器，应用启动时初始化并持续运行
+ * 
+ * 指标：openmanus.sandbox.commands（timer，mode=docker|local，outcome=success|failure|timeout|error）
  */
 @Component
 public class SandboxClient implements Closeable {
@@ -33,12 +37,14 @@ public class SandboxClient implements Closeable {
     
     private final DockerClientManager dockerManager;
     private final OpenManusProperties.SandboxSettings config;
+    private final MeterRegistry meterRegistry;
     private String containerId;
     private boolean isRunning = false;
     
     @Autowired
-    public SandboxClient(OpenManusProperties properties) {
+    public SandboxClient(OpenManusProperties properties, MeterRegistry meterRegistry) {
         this.config = properties.getSandbox();
+        this.meterRegistry = meterRegistry;
         
         if (!config.isUseSandbox()) {
             this.dockerManager = null;
@@ -97,10 +103,40 @@ public class SandboxClient implements Closeable {
      * @return 执行结果
      */
     public ExecutionResult executeCommand(String command, int timeoutSeconds) {
-        if (!config.isUseSandbox()) {
-            return executeLocally(command, timeoutSeconds);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ExecutionResult result = null;
+        try {
+            result = config.isUseSandbox()
+                ? executeInContainer(command, timeoutSeconds)
+                : executeLocally(command, timeoutSeconds);
+            return result;
+        } finally {
+            sample.stop(Timer.builder("openmanus.sandbox.commands")
+                .description("Commands executed in the code sandbox")
+                .tag("mode", config.isUseSandbox() ? "docker" : "local")
+                .tag("outcome", outcome(result))
+                .register(meterRegistry));
         }
-        
+    }
+    
+    /**
+     * 执行结果对应的指标标签：退出码 0 为 success，124 为 timeout，其他退出码为 failure，抛出异常为 error
+     */
+    private static String outcome(ExecutionResult result) {
+        if (result == null) {
+            return "error";
+        }
+        return switch (result.getExitCode()) {
+            case 0 -> "success";
+            case 124 -> "timeout";
+            default -> "failure";
+        };
+    }
+    
+    /**
+     * 在沙箱容器中执行命令
+     */
+    private ExecutionResult executeInContainer(String command, int timeoutSeconds) {
         if (!isRunning) {
             throw new IllegalStateException("沙箱容器未运行");
         }
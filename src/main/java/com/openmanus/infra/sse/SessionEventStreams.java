@@ -0,0 +1,181 @@
+package com.openmanus.infra.sse;
+
+import com.openmanus.infra.monitoring.SessionReplayBuffer;
+import com.openmanus.infra.websocket.WireFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 会话执行流的 Server-Sent Events 推送
+ *
+ * 与 WebSocket 主题推送相同的内容，来自 {@link SessionReplayBuffer}：
+ * 1. 事件名 event（/topic/executions/{sessionId}，执行事件数组）、log（/logs）、result（/result，发送后结束流）
+ * 2. 事件 id 为会话内序号，断线重连时浏览器 EventSource 自动携带 Last-Event-ID，从下一帧继续
+ * 3. 请求线程在返回 SseEmitter 后立即释放，每个流由一个虚拟线程写出，数千个打开的流不占用 Tomcat 工作线程
+ *
+ * SSE 只能传输文本，事件数据总是 JSON，直接使用推送帧已有的 JSON 编码，不再次序列化。
+ * 每个流的待发送帧数有上限，写出跟不上时结束该流，客户端可凭 Last-Event-ID 重连补发
+ */
+@Slf4j
+@Component
+public class SessionEventStreams {
+
+    private static final String DESTINATION_PREFIX = "/topic/executions/";
+    private static final String METRIC_PREFIX = "openmanus.sse";
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final int MAX_PENDING_FRAMES = 4096;
+
+    private final SessionReplayBuffer replayBuffer;
+    private final Set<Stream> streams = ConcurrentHashMap.newKeySet();
+    private final Counter overflowed;
+
+    public SessionEventStreams(SessionReplayBuffer replayBuffer, MeterRegistry meterRegistry) {
+        this.replayBuffer = replayBuffer;
+        this.overflowed = Counter.builder(METRIC_PREFIX + ".streams.overflowed")
+                .description("SSE streams closed because the client fell too far behind").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".streams", streams, Set::size)
+                .description("Open SSE session streams").register(meterRegistry);
+    }
+
+    /**
+     * 打开会话的事件流
+     *
+     * @param sessionId 会话ID
+     * @param lastEventId 客户端已收到的最后一个事件 id，为空时从缓冲中最早的帧开始
+     * @return 已开始推送的 SseEmitter
+     */
+    public SseEmitter open(String sessionId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        Stream stream = new Stream(sessionId, emitter);
+        streams.add(stream);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        stream.unsubscribe = replayBuffer.listen(sessionId, fromSeq(lastEventId), stream::offer);
+        stream.writer = Thread.ofVirtual().name("sse-" + sessionId).start(stream::writeLoop);
+        return emitter;
+    }
+
+    /**
+     * 当前打开的流数量
+     */
+    public int streamCount() {
+        return streams.size();
+    }
+
+    private static long fromSeq(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return 1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim()) + 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static String eventName(String sessionId, String destination) {
+        String suffix = destination.substring(Math.min(destination.length(),
+                DESTINATION_PREFIX.length() + sessionId.length()));
+        return switch (suffix) {
+            case "" -> "event";
+            case "/logs" -> "log";
+            case "/result" -> "result";
+            default -> suffix.substring(1);
+        };
+    }
+
+    private final class Stream {
+
+        private final String sessionId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Pending> pending = new ArrayBlockingQueue<>(MAX_PENDING_FRAMES);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Runnable unsubscribe;
+        private volatile Thread writer;
+
+        private Stream(String sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * 在回放缓冲的会话锁内调用，只入队
+         */
+        private void offer(long seq, String destination, WireFrame payload) {
+            if (!closed.get() && !pending.offer(new Pending(seq, destination, payload))) {
+                overflowed.increment();
+                log.debug("SSE stream for session {} fell behind, closing at seq {}", sessionId, seq);
+                pending.clear();
+                pending.offer(Pending.OVERFLOW);
+            }
+        }
+
+        private void writeLoop() {
+            try {
+                while (!closed.get()) {
+                    Pending next = pending.poll(HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                        continue;
+                    }
+                    if (next == Pending.OVERFLOW) {
+                        emitter.complete();
+                        return;
+                    }
+                    String name = eventName(sessionId, next.destination);
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(next.seq))
+                            .name(name)
+                            .data(new String(next.payload.json(), StandardCharsets.UTF_8), MediaType.APPLICATION_JSON));
+                    if ("result".equals(name)) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.debug("SSE stream for session {} closed: {}", sessionId, e.getMessage());
+                emitter.completeWithError(e);
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            streams.remove(this);
+            Runnable cancel = unsubscribe;
+            if (cancel != null) {
+                cancel.run();
+            }
+            Thread thread = writer;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+            pending.clear();
+        }
+    }
+
+    private record Pending(long seq, String destination, WireFrame payload) {
+        private static final Pending OVERFLOW = new Pending(-1, "", null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.openmanus.infra.tracing;
+
+import com.openmanus.domain.model.DetailedExecutionFlow;
+import com.openmanus.domain.model.PayloadReference;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由 Trace 的 Span 树生成详细执行流程
+ *
+ * 每个子 Agent 的 Span 是一个阶段（只有一个 Agent 时即为该 Agent），阶段内的 LLM 交互和工具调用是
+ * 最近的 Agent 祖先为该阶段的 LLM / 工具 Span；嵌套和并行的子 Agent 各自成为独立阶段
+ */
+public final class ExecutionFlows {
+
+    public static final String AGENT_NAME = "gen_ai.agent.name";
+    public static final String TOOL_NAME = "gen_ai.tool.name";
+    public static final String RESPONSE_MODEL = "gen_ai.response.model";
+    public static final String INPUT_TOKENS = "gen_ai.usage.input_tokens";
+    public static final String OUTPUT_TOKENS = "gen_ai.usage.output_tokens";
+    public static final String TIME_TO_FIRST_TOKEN_MS = "openmanus.llm.time_to_first_token_ms";
+
+    private ExecutionFlows() {
+    }
+
+    public static DetailedExecutionFlow from(Trace trace) {
+        Span root = trace.getRoot();
+        List<Span> spans = trace.getSpans();
+        Map<String, Span> byId = new HashMap<>();
+        spans.forEach(span -> byId.put(span.getSpanId(), span));
+
+        List<Span> agents = spans.stream().filter(span -> span.getKind() == Span.Kind.AGENT).toList();
+        List<Span> subAgents = agents.stream().filter(agent -> agentAncestor(agent, byId) != null).toList();
+        List<Span> phaseSpans = subAgents.isEmpty() ? agents : subAgents;
+
+        Map<String, DetailedExecutionFlow.ExecutionPhase> phases = new HashMap<>();
+        List<DetailedExecutionFlow.ExecutionPhase> ordered = new ArrayList<>();
+        for (Span agent : phaseSpans) {
+            DetailedExecutionFlow.ExecutionPhase phase = phase(agent);
+            phases.put(agent.getSpanId(), phase);
+            ordered.add(phase);
+        }
+        for (Span span : spans) {
+            if (span.getKind() != Span.Kind.LLM && span.getKind() != Span.Kind.TOOL) {
+                continue;
+            }
+            Span owner = agentAncestor(span, byId);
+            DetailedExecutionFlow.ExecutionPhase phase = owner != null ? phases.get(owner.getSpanId()) : null;
+            if (phase == null) {
+                continue;
+            }
+            if (span.getKind() == Span.Kind.LLM) {
+                phase.getLlmInteractions().add(llmInteraction(span));
+            } else {
+                phase.getToolCalls().add(toolCall(span));
+            }
+        }
+
+        DetailedExecutionFlow flow = DetailedExecutionFlow.builder()
+                .sessionId(trace.getSessionId())
+                .phases(ordered)
+                .build();
+        if (root != null) {
+            flow.setUserInput(text(root.getInput()));
+            flow.setStartTime(toLocal(root.getStartTime()));
+            flow.setEndTime(toLocal(root.getEndTime()));
+            flow.setFinalResult(text(root.getOutput()));
+            flow.setError(root.getError());
+            if (root.isEnded()) {
+                flow.setTotalDuration(root.getDuration().toMillis());
+                flow.setStatus(root.getStatus() == Span.Status.ERROR
+                        ? DetailedExecutionFlow.WorkflowStatus.FAILED
+                        : DetailedExecutionFlow.WorkflowStatus.COMPLETED);
+            } else {
+                flow.setStatus(DetailedExecutionFlow.WorkflowStatus.RUNNING);
+            }
+        }
+        return flow;
+    }
+
+    private static Span agentAncestor(Span span, Map<String, Span> byId) {
+        Span parent = span.getParentSpanId() != null ? byId.get(span.getParentSpanId()) : null;
+        while (parent != null && parent.getKind() != Span.Kind.AGENT) {
+            parent = parent.getParentSpanId() != null ? byId.get(parent.getParentSpanId()) : null;
+        }
+        return parent;
+    }
+
+    private static DetailedExecutionFlow.ExecutionPhase phase(Span agent) {
+        String agentName = String.valueOf(agent.getAttribute(AGENT_NAME));
+        DetailedExecutionFlow.PhaseStatus status = !agent.isEnded() ? DetailedExecutionFlow.PhaseStatus.RUNNING
+                : agent.getStatus() == Span.Status.ERROR ? DetailedExecutionFlow.PhaseStatus.FAILED
+                : DetailedExecutionFlow.PhaseStatus.COMPLETED;
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("spanId", agent.getSpanId());
+        metadata.put("parentSpanId", agent.getParentSpanId());
+        return DetailedExecutionFlow.ExecutionPhase.builder()
+                .phaseId(agent.getSpanId())
+                .phaseName(agent.getName())
+                .phaseType(phaseType(agentName))
+                .agentName(agentName)
+                .agentType(agent.getKind().name())
+                .startTime(toLocal(agent.getStartTime()))
+                .endTime(toLocal(agent.getEndTime()))
+                .duration(agent.isEnded() ? agent.getDuration().toMillis() : null)
+                .status(status)
+                .input(agent.getInput())
+                .output(agent.getOutput())
+                .error(agent.getError())
+                .llmInteractions(new ArrayList<>())
+                .toolCalls(new ArrayList<>())
+                .metadata(metadata)
+                .build();
+    }
+
+    private static DetailedExecutionFlow.PhaseType phaseType(String agentName) {
+        return switch (agentName) {
+            case "thinking_agent" -> DetailedExecutionFlow.PhaseType.THINKING;
+            case "reflection_agent" -> DetailedExecutionFlow.PhaseType.REFLECTION;
+            default -> DetailedExecutionFlow.PhaseType.EXECUTION;
+        };
+    }
+
+    private static DetailedExecutionFlow.LLMInteraction llmInteraction(Span span) {
+        Object input = span.getInput();
+        Object output = span.getOutput();
+        Integer inputTokens = (Integer) span.getAttribute(INPUT_TOKENS);
+        Integer outputTokens = (Integer) span.getAttribute(OUTPUT_TOKENS);
+        DetailedExecutionFlow.TokenUsage tokenUsage = inputTokens == null && outputTokens == null ? null
+                : DetailedExecutionFlow.TokenUsage.builder()
+                .inputTokens(inputTokens)
+                .outputTokens(outputTokens)
+                .totalTokens(inputTokens != null && outputTokens != null ? inputTokens + outputTokens : null)
+                .build();
+        return DetailedExecutionFlow.LLMInteraction.builder()
+                .interactionId(span.getSpanId())
+                .requestTime(toLocal(span.getStartTime()))
+                .responseTime(toLocal(span.getEndTime()))
+                .request(text(input))
+                .response(text(output))
+                .requestBlob(input instanceof PayloadReference reference ? reference : null)
+                .responseBlob(output instanceof PayloadReference reference ? reference : null)
+                .model((String) span.getAttribute(RESPONSE_MODEL))
+                .tokenUsage(tokenUsage)
+                .responseTime_ms(span.isEnded() ? span.getDuration().toMillis() : null)
+                .timeToFirstToken_ms(timeToFirstToken(span))
+                .build();
+    }
+
+    private static Long timeToFirstToken(Span span) {
+        if (span.getAttribute(TIME_TO_FIRST_TOKEN_MS) instanceof Long millis) {
+            return millis;
+        }
+        return span.isEnded() ? span.getDuration().toMillis() : null;
+    }
+
+    private static DetailedExecutionFlow.ToolCall toolCall(Span span) {
+        return DetailedExecutionFlow.ToolCall.builder()
+                .callId(span.getSpanId())
+                .toolName((String) span.getAttribute(TOOL_NAME))
+                .callTime(toLocal(span.getStartTime()))
+                .completionTime(toLocal(span.getEndTime()))
+                .parameters(span.getInput())
+                .result(span.getOutput())
+                .status(!span.isEnded() ? "RUNNING" : span.getStatus() == Span.Status.ERROR ? "FAILED" : "SUCCESS")
+                .error(span.getError())
+                .duration(span.isEnded() ? span.getDuration().toMillis() : null)
+                .build();
+    }
+
+    /**
+     * 文本内容；转存的内容取预览
+     */
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof PayloadReference reference ? reference.getPreview() : String.valueOf(value);
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneId.systemDefault()) : null;
+    }
+}
@@ -0,0 +1,305 @@
+package com.openmanus.infra.tracing;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.monitoring.PayloadBlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 执行链路追踪（工作流 → 主管 Agent → 子 Agent → 工具 / LLM 调用）
+ *
+ * 1. 当前 Span 保存在 TransmittableThreadLocal 中，经 TtlExecutors 包装的线程池（异步工作流、并行工具调用）
+ *    自动传递给子任务，嵌套和并行的子 Agent 各自挂在正确的父 Span 下
+ * 2. 每个会话保留最近一次执行的 Trace，执行流程（DetailedExecutionFlow）由 Span 树生成
+ * 3. 根 Span 结束后由单个导出线程编码为 OTLP/JSON，写入本地文件或推送到 OTLP/HTTP 端点，不阻塞 Agent 线程
+ *
+ * 内存中最多保留 max-traces 个已完成的 Trace，超出后丢弃最早完成的。
+ * 执行中、已保留的成功 / 失败 Trace 数随 Trace 开始、完成和淘汰增量维护，执行耗时记录到带分位数的
+ * openmanus.workflow.duration 计时器，{@link #statistics()} 不扫描 Trace
+ */
+@Slf4j
+@Component
+public class ExecutionTracer {
+
+    /**
+     * 执行统计快照
+     *
+     * @param running 执行中的 Trace 数
+     * @param completed 内存中保留的成功 Trace 数
+     * @param failed 内存中保留的失败 Trace 数
+     * @param executions 启动以来完成的执行数
+     * @param p50Millis 最近执行耗时的 p50（毫秒），由计时器的滑动窗口直方图计算
+     * @param p95Millis 最近执行耗时的 p95（毫秒）
+     * @param p99Millis 最近执行耗时的 p99（毫秒）
+     */
+    public record Statistics(int running, int completed, int failed, long executions,
+                             double p50Millis, double p95Millis, double p99Millis) {
+    }
+
+    private static final String DURATION_METRIC = "openmanus.workflow.duration";
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    /**
+     * 未启用追踪时使用的实例：Span 照常创建供调用方设置属性，但不保存也不导出
+     */
+    public static final ExecutionTracer NOOP = new ExecutionTracer();
+
+    private final boolean enabled;
+    private final int maxTraces;
+    private final UnaryOperator<Object> payloads;
+    private final OtlpTraceExporter exporter;
+    private final ExecutorService exportExecutor;
+    private final TransmittableThreadLocal<Span> current = new TransmittableThreadLocal<>();
+    private final ConcurrentMap<String, Trace> traces = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Trace> sessionTraces = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Trace> completed = new ConcurrentLinkedDeque<>();
+    private final List<Consumer<Span>> spanListeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger completedOk = new AtomicInteger();
+    private final AtomicInteger completedFailed = new AtomicInteger();
+    private final Timer duration;
+
+    @Autowired
+    public ExecutionTracer(OpenManusProperties properties, PayloadBlobStore blobStore, ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this(properties.getMonitoring().getTracing(), blobStore::offload, objectMapper, meterRegistry);
+    }
+
+    ExecutionTracer(OpenManusProperties.MonitoringConfig.TracingConfig config, UnaryOperator<Object> payloads,
+                    ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.duration = Timer.builder(DURATION_METRIC)
+                .description("Executions from root span start to end (workflow, or a top-level agent)")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+        this.enabled = config.isEnabled();
+        this.maxTraces = config.getMaxTraces();
+        this.payloads = payloads;
+        Path directory = !config.isFileExport() ? null
+                : StringUtils.hasText(config.getDirectory())
+                ? Path.of(config.getDirectory())
+                : Path.of(System.getProperty("java.io.tmpdir"), "openmanus-traces");
+        URI endpoint = StringUtils.hasText(config.getOtlpEndpoint()) ? URI.create(config.getOtlpEndpoint()) : null;
+        OtlpTraceExporter traceExporter = new OtlpTraceExporter(objectMapper, config.getServiceName(), directory, endpoint);
+        this.exporter = enabled && traceExporter.isEnabled() ? traceExporter : null;
+        this.exportExecutor = exporter != null
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("trace-export").daemon().factory())
+                : null;
+        if (exporter != null) {
+            log.info("Execution traces exported to {}{}", directory != null ? directory : "",
+                    endpoint != null ? " " + endpoint : "");
+        }
+    }
+
+    private ExecutionTracer() {
+        this.enabled = false;
+        this.maxTraces = 0;
+        this.payloads = UnaryOperator.identity();
+        this.exporter = null;
+        this.exportExecutor = null;
+        this.duration = null;
+    }
+
+    /**
+     * 在新的 Span 中执行
+     *
+     * 当前线程已有 Span 时作为其子 Span，否则开始新的 Trace（会话ID取自 MDC）。
+     * 抛出的异常记录到 Span 后原样抛出
+     *
+     * @param name Span 名称，如 "invoke_agent thinking_agent"
+     * @param kind Span 类型
+     * @param body 执行体，可在其中设置属性和输入输出
+     */
+    public <T> T trace(String name, Span.Kind kind, Function<Span, T> body) {
+        Span parent = current.get();
+        Span span = start(name, kind, parent);
+        current.set(span);
+        Throwable failure = null;
+        try {
+            return body.apply(span);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (parent != null) {
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+            span.end(failure);
+            notifySpanListeners(span);
+            if (parent == null) {
+                complete(span);
+            }
+        }
+    }
+
+    /**
+     * 注册 Span 结束监听器，在结束 Span 的线程上同步调用，追踪未启用时同样生效
+     */
+    public void addSpanListener(Consumer<Span> listener) {
+        spanListeners.add(listener);
+    }
+
+    /**
+     * 当前线程所在的 Span
+     */
+    public Optional<Span> currentSpan() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * 会话最近一次执行的 Trace，可能仍在执行
+     */
+    public Optional<Trace> sessionTrace(String sessionId) {
+        return sessionId == null ? Optional.empty() : Optional.ofNullable(sessionTraces.get(sessionId));
+    }
+
+    /**
+     * 每个会话最近一次执行的 Trace
+     */
+    public Collection<Trace> sessionTraces() {
+        return List.copyOf(sessionTraces.values());
+    }
+
+    /**
+     * 丢弃根 Span 在指定时间之前结束的 Trace
+     *
+     * @return 丢弃的 Trace 数量
+     */
+    public int evictCompletedBefore(Instant cutoff) {
+        int evicted = 0;
+        for (Trace trace : completed) {
+            Span root = trace.getRoot();
+            if (root.getEndTime().isBefore(cutoff) && completed.remove(trace)) {
+                forget(trace);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 执行统计，读取增量维护的计数器和计时器直方图
+     */
+    public Statistics statistics() {
+        double[] millis = new double[PERCENTILES.length];
+        long executions = 0;
+        if (duration != null) {
+            HistogramSnapshot snapshot = duration.takeSnapshot();
+            executions = snapshot.count();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    if (value.percentile() == PERCENTILES[i]) {
+                        millis[i] = value.value(TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        }
+        return new Statistics(traces.size(), completedOk.get(), completedFailed.get(), executions,
+                millis[0], millis[1], millis[2]);
+    }
+
+    private Span start(String name, Span.Kind kind, Span parent) {
+        if (parent != null) {
+            Span span = new Span(parent.getTraceId(), parent.getSpanId(), name, kind, parent.getSessionId(), payloads);
+            Trace trace = traces.get(parent.getTraceId());
+            if (trace != null) {
+                trace.add(span);
+            }
+            return span;
+        }
+        String sessionId = MDC.get("sessionId");
+        Span root = new Span(Span.randomHex(16), null, name, kind, sessionId, payloads);
+        if (enabled) {
+            Trace trace = new Trace(root.getTraceId(), sessionId);
+            trace.add(root);
+            traces.put(trace.getTraceId(), trace);
+            if (sessionId != null) {
+                sessionTraces.put(sessionId, trace);
+            }
+        }
+        return root;
+    }
+
+    private void complete(Span root) {
+        if (duration != null) {
+            duration.record(root.getDuration());
+        }
+        Trace trace = traces.remove(root.getTraceId());
+        if (trace == null) {
+            return;
+        }
+        completed.addLast(trace);
+        counterOf(trace).incrementAndGet();
+        while (completedOk.get() + completedFailed.get() > maxTraces) {
+            Trace evicted = completed.pollFirst();
+            if (evicted == null) {
+                break;
+            }
+            forget(evicted);
+        }
+        if (exporter != null) {
+            try {
+                exportExecutor.execute(() -> exporter.export(trace));
+            } catch (RejectedExecutionException e) {
+                log.debug("Trace export skipped during shutdown: {}", trace.getTraceId());
+            }
+        }
+    }
+
+    private void notifySpanListeners(Span span) {
+        for (Consumer<Span> listener : spanListeners) {
+            try {
+                listener.accept(span);
+            } catch (RuntimeException e) {
+                log.warn("Span listener failed for {}: {}", span.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void forget(Trace trace) {
+        counterOf(trace).decrementAndGet();
+        if (trace.getSessionId() != null) {
+            sessionTraces.remove(trace.getSessionId(), trace);
+        }
+    }
+
+    private AtomicInteger counterOf(Trace trace) {
+        return trace.getRoot().getStatus() == Span.Status.ERROR ? completedFailed : completedOk;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdown();
+        }
+    }
+}
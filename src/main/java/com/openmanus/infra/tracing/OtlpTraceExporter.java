@@ -0,0 +1,173 @@
+package com.openmanus.infra.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * 把完成的 Trace 编码为 OTLP/JSON（ExportTraceServiceRequest）
+ *
+ * 1. 本地文件：每个 Trace 一行追加到 {directory}/traces-yyyy-MM-dd.jsonl，
+ *    可直接交给 OpenTelemetry Collector 的 otlpjsonfile 接收器，或用脚本做关键路径分析
+ * 2. OTLP/HTTP：配置了 endpoint（如 http://localhost:4318/v1/traces）时同时推送，失败只记录日志
+ *
+ * 只在 {@link ExecutionTracer} 的单个导出线程上调用
+ */
+@Slf4j
+class OtlpTraceExporter {
+
+    private static final String SCOPE_NAME = "com.openmanus.tracing";
+    private static final Duration OTLP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper;
+    private final String serviceName;
+    private final Path directory;
+    private final URI otlpEndpoint;
+    private final HttpClient httpClient;
+
+    /**
+     * @param directory 本地导出目录，为 null 时不写文件
+     * @param otlpEndpoint OTLP/HTTP traces 地址，为 null 时不推送
+     */
+    OtlpTraceExporter(ObjectMapper objectMapper, String serviceName, Path directory, URI otlpEndpoint) {
+        this.objectMapper = objectMapper;
+        this.serviceName = serviceName;
+        this.directory = directory;
+        this.otlpEndpoint = otlpEndpoint;
+        this.httpClient = otlpEndpoint != null
+                ? HttpClient.newBuilder().connectTimeout(OTLP_TIMEOUT).build()
+                : null;
+    }
+
+    boolean isEnabled() {
+        return directory != null || otlpEndpoint != null;
+    }
+
+    void export(Trace trace) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(encode(trace));
+        } catch (IOException e) {
+            log.warn("Failed to encode trace {}: {}", trace.getTraceId(), e.getMessage());
+            return;
+        }
+        if (directory != null) {
+            writeFile(trace, body);
+        }
+        if (otlpEndpoint != null) {
+            post(trace, body);
+        }
+    }
+
+    private void writeFile(Trace trace, byte[] body) {
+        Path file = directory.resolve("traces-" + LocalDate.now(ZoneId.systemDefault()) + ".jsonl");
+        try {
+            Files.createDirectories(directory);
+            byte[] line = new byte[body.length + 1];
+            System.arraycopy(body, 0, line, 0, body.length);
+            line[body.length] = '\n';
+            Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to write trace {} to {}: {}", trace.getTraceId(), file, e.getMessage());
+        }
+    }
+
+    private void post(Trace trace, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(otlpEndpoint)
+                .timeout(OTLP_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                log.warn("OTLP endpoint rejected trace {}: HTTP {} {}", trace.getTraceId(), response.statusCode(),
+                        response.body());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to send trace {} to {}: {}", trace.getTraceId(), otlpEndpoint, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    ObjectNode encode(Trace trace) {
+        ObjectNode request = objectMapper.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        ArrayNode resourceAttributes = resourceSpans.putObject("resource").putArray("attributes");
+        addAttribute(resourceAttributes, "service.name", serviceName);
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", SCOPE_NAME);
+        ArrayNode spans = scopeSpans.putArray("spans");
+        for (Span span : trace.getSpans()) {
+            spans.add(encode(span));
+        }
+        return request;
+    }
+
+    private ObjectNode encode(Span span) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("traceId", span.getTraceId());
+        node.put("spanId", span.getSpanId());
+        if (span.getParentSpanId() != null) {
+            node.put("parentSpanId", span.getParentSpanId());
+        }
+        node.put("name", span.getName());
+        // SPAN_KIND_INTERNAL = 1, SPAN_KIND_CLIENT = 3
+        node.put("kind", span.getKind() == Span.Kind.LLM ? 3 : 1);
+        node.put("startTimeUnixNano", Long.toString(unixNanos(span.getStartTime())));
+        Instant end = span.getEndTime() != null ? span.getEndTime() : Instant.now();
+        node.put("endTimeUnixNano", Long.toString(unixNanos(end)));
+        ArrayNode attributes = node.putArray("attributes");
+        addAttribute(attributes, "openmanus.span.kind", span.getKind().name());
+        if (span.getSessionId() != null) {
+            addAttribute(attributes, "session.id", span.getSessionId());
+        }
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            addAttribute(attributes, attribute.getKey(), attribute.getValue());
+        }
+        ObjectNode status = node.putObject("status");
+        // STATUS_CODE_UNSET = 0, STATUS_CODE_OK = 1, STATUS_CODE_ERROR = 2
+        status.put("code", span.getStatus().ordinal());
+        if (span.getError() != null) {
+            status.put("message", span.getError());
+        }
+        return node;
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, Object value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        ObjectNode anyValue = attribute.putObject("value");
+        if (value instanceof Boolean bool) {
+            anyValue.put("boolValue", bool);
+        } else if (value instanceof Integer || value instanceof Long) {
+            // int64 在 OTLP/JSON 中编码为字符串
+            anyValue.put("intValue", value.toString());
+        } else if (value instanceof Number number) {
+            anyValue.put("doubleValue", number.doubleValue());
+        } else {
+            anyValue.put("stringValue", String.valueOf(value));
+        }
+    }
+
+    private static long unixNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
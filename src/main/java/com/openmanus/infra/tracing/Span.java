@@ -0,0 +1,183 @@
+package com.openmanus.infra.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * 执行链路中的一个 Span：工作流、Agent、工具调用或 LLM 调用
+ *
+ * 由 {@link ExecutionTracer#trace} 创建和结束，父子关系由调用嵌套决定。
+ * 属性命名沿用 OpenTelemetry 语义约定（gen_ai.*、session.id），导出为 OTLP/JSON；
+ * 输入输出只保存在内存中用于生成执行流程，超过阈值时转存为 Blob 引用，不随 Span 导出
+ */
+public final class Span {
+
+    /**
+     * Span 类型
+     */
+    public enum Kind {
+        WORKFLOW,
+        AGENT,
+        TOOL,
+        LLM
+    }
+
+    /**
+     * 结束状态
+     */
+    public enum Status {
+        UNSET,
+        OK,
+        ERROR
+    }
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Kind kind;
+    private final String sessionId;
+    private final Instant startTime = Instant.now();
+    private final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final UnaryOperator<Object> payloads;
+    private volatile Instant endTime;
+    private volatile Status status = Status.UNSET;
+    private volatile String error;
+    private volatile Object input;
+    private volatile Object output;
+
+    Span(String traceId, String parentSpanId, String name, Kind kind, String sessionId,
+         UnaryOperator<Object> payloads) {
+        this.traceId = traceId;
+        this.spanId = randomHex(8);
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.sessionId = sessionId;
+        this.payloads = payloads;
+    }
+
+    static String randomHex(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    /**
+     * 设置属性，值为 null 时忽略
+     */
+    public Span setAttribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 记录输入（工具参数、LLM 请求、Agent 输入），超过转存阈值时保存为引用
+     */
+    public Span setInput(Object input) {
+        this.input = payloads.apply(input);
+        return this;
+    }
+
+    /**
+     * 记录输出（工具结果、LLM 响应、Agent 输出），超过转存阈值时保存为引用
+     */
+    public Span setOutput(Object output) {
+        this.output = payloads.apply(output);
+        return this;
+    }
+
+    void end(Throwable failure) {
+        if (failure != null) {
+            status = Status.ERROR;
+            error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getName();
+        } else if (status == Status.UNSET) {
+            status = Status.OK;
+        }
+        endTime = Instant.now();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 结束时间，仍在执行时为 null
+     */
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public boolean isEnded() {
+        return endTime != null;
+    }
+
+    /**
+     * 持续时间，仍在执行时计算到当前
+     */
+    public Duration getDuration() {
+        Instant end = endTime;
+        return Duration.between(startTime, end != null ? end : Instant.now());
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Object getInput() {
+        return input;
+    }
+
+    public Object getOutput() {
+        return output;
+    }
+
+    /**
+     * 属性快照
+     */
+    public Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    public Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+}
@@ -0,0 +1,105 @@
+package com.openmanus.infra.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * 一次执行的全部 Span，根 Span 结束时完成
+ */
+public final class Trace {
+
+    private final String traceId;
+    private final String sessionId;
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+    private volatile Span root;
+
+    Trace(String traceId, String sessionId) {
+        this.traceId = traceId;
+        this.sessionId = sessionId;
+    }
+
+    void add(Span span) {
+        if (span.getParentSpanId() == null) {
+            root = span;
+        }
+        spans.add(span);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    /**
+     * 按开始顺序排列的 Span 快照，包括仍在执行的
+     */
+    public List<Span> getSpans() {
+        return List.copyOf(spans);
+    }
+
+    public boolean isComplete() {
+        Span rootSpan = root;
+        return rootSpan != null && rootSpan.isEnded();
+    }
+
+    public Instant getStartTime() {
+        Span rootSpan = root;
+        return rootSpan != null ? rootSpan.getStartTime() : null;
+    }
+
+    /**
+     * 按父 Span 分组的子 Span
+     */
+    public Map<String, List<Span>> children() {
+        return spans.stream()
+                .filter(span -> span.getParentSpanId() != null)
+                .collect(Collectors.groupingBy(Span::getParentSpanId));
+    }
+
+    /**
+     * 关键路径：从根 Span 开始，每层取最晚结束的子 Span，再向前取在它开始之前结束的兄弟 Span，
+     * 得到决定总耗时的串行调用链；缩短路径之外的 Span 不会缩短整体执行时间
+     *
+     * @return 按开始时间排列的关键路径 Span，未完成的 Span 按当前时间计算
+     */
+    public List<Span> criticalPath() {
+        Span rootSpan = root;
+        if (rootSpan == null) {
+            return List.of();
+        }
+        List<Span> path = new ArrayList<>();
+        collectCriticalPath(rootSpan, children(), path);
+        path.sort(Comparator.comparing(Span::getStartTime));
+        return path;
+    }
+
+    private static void collectCriticalPath(Span span, Map<String, List<Span>> children, List<Span> path) {
+        path.add(span);
+        List<Span> candidates = new ArrayList<>(children.getOrDefault(span.getSpanId(), List.of()));
+        candidates.sort(Comparator.comparing(Trace::endOf).reversed());
+        Instant cursor = endOf(span);
+        for (Span child : candidates) {
+            if (!endOf(child).isAfter(cursor)) {
+                collectCriticalPath(child, children, path);
+                cursor = child.getStartTime();
+            }
+        }
+    }
+
+    private static Instant endOf(Span span) {
+        Instant end = span.getEndTime();
+        return end != null ? end : Instant.now();
+    }
+}
@@ -0,0 +1,266 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.openmanus.domain.model.AgentExecutionEvent;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * WebSocket 客户端背压
+ *
+ * 1. 作为 WebSocketHandler 装饰器，为每个连接套上 {@link ClientSendQueue}：发送只入队，由该连接专属的虚拟线程写出，
+ *    慢客户端不会占住为其他会话服务的代理线程
+ * 2. 作为 clientOutboundChannel 拦截器，在帧入队前检查目标客户端的积压；处于降级模式的客户端：
+ *    丢弃日志帧（/logs），保留结果帧（/result）和状态事件（开始/结束/交接/错误），
+ *    连续的中间事件（流式片段、工具调用、思考等）合并为一个 SUMMARY 事件
+ *
+ * 通过 Micrometer 导出：openmanus.websocket.client.lag（timer，帧从入队到写出）、
+ * openmanus.websocket.clients / clients.degraded / clients.queued.bytes（gauge）、
+ * openmanus.websocket.client.dropped（counter，reason=logs|collapsed）、openmanus.websocket.client.terminated（counter）；
+ * 每个客户端的积压明细见 {@link #clientStats()}
+ */
+@Slf4j
+@Component
+public class ClientBackpressure implements WebSocketHandlerDecoratorFactory, ChannelInterceptor {
+
+    private static final String METRIC_PREFIX = "openmanus.websocket";
+    private static final String DESTINATION_PREFIX = "/topic/executions/";
+    private static final String LOGS_SUFFIX = "/logs";
+
+    /**
+     * 降级模式下仍逐条推送的状态事件
+     */
+    private static final Set<String> STATUS_EVENTS = EnumSet.of(
+            AgentExecutionEvent.EventType.WORKFLOW_START,
+            AgentExecutionEvent.EventType.WORKFLOW_END,
+            AgentExecutionEvent.EventType.AGENT_START,
+            AgentExecutionEvent.EventType.AGENT_END,
+            AgentExecutionEvent.EventType.HANDOFF,
+            AgentExecutionEvent.EventType.ERROR).stream().map(Enum::name).collect(Collectors.toSet());
+
+    /**
+     * 客户端统计
+     *
+     * @param sessionId WebSocket 会话ID
+     * @param queuedFrames 未发送的帧数
+     * @param queuedBytes 未发送的字节数
+     * @param lagMillis 最早的未发送帧已等待的毫秒数
+     * @param degraded 是否处于降级模式
+     * @param sentFrames 已发送的帧数
+     * @param droppedFrames 降级时丢弃或合并掉的帧/事件数
+     */
+    public record ClientStats(String sessionId, int queuedFrames, long queuedBytes, long lagMillis, boolean degraded,
+                              long sentFrames, long droppedFrames) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final OpenManusProperties.WebSocketSettings.BackpressureConfig config;
+    private final ConcurrentMap<String, ClientSendQueue> clients = new ConcurrentHashMap<>();
+    private final Timer lag;
+    private final Counter droppedLogs;
+    private final Counter collapsedEvents;
+    private final Counter terminated;
+
+    public ClientBackpressure(ObjectMapper objectMapper, OpenManusProperties properties, MeterRegistry meterRegistry) {
+        this(objectMapper, properties.getWebsocket().getBackpressure(), meterRegistry);
+    }
+
+    ClientBackpressure(ObjectMapper objectMapper, OpenManusProperties.WebSocketSettings.BackpressureConfig config,
+                       MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.lag = Timer.builder(METRIC_PREFIX + ".client.lag")
+                .description("Time a frame waits in a client's send queue").register(meterRegistry);
+        this.droppedLogs = dropped(meterRegistry, "logs");
+        this.collapsedEvents = dropped(meterRegistry, "collapsed");
+        this.terminated = Counter.builder(METRIC_PREFIX + ".client.terminated")
+                .description("Clients disconnected because their send queue exceeded the limit").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".clients", clients, Map::size)
+                .description("Connected WebSocket clients").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".clients.degraded", clients,
+                        map -> map.values().stream().filter(ClientSendQueue::isDegraded).count())
+                .description("Clients currently in degraded mode").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".clients.queued.bytes", clients,
+                        map -> map.values().stream().mapToLong(ClientSendQueue::queuedBytes).sum())
+                .description("Unsent bytes across all client send queues").register(meterRegistry);
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(METRIC_PREFIX + ".client.dropped")
+                .description("Frames or events withheld from degraded clients")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                ClientSendQueue queue = new ClientSendQueue(session, config.getDegradeLagMillis(),
+                        config.getDegradeQueuedBytes(), config.getMaxQueuedBytes(), ClientBackpressure.this);
+                clients.put(session.getId(), queue);
+                super.afterConnectionEstablished(queue);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                ClientSendQueue queue = clients.get(session.getId());
+                if (queue != null) {
+                    queue.stop();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 推送给降级客户端的帧：丢弃日志、合并中间事件；其余帧原样放行
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        ClientSendQueue client = clients.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        if (client == null || !client.evaluate()) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return message;
+        }
+        if (destination.endsWith(LOGS_SUFFIX)) {
+            droppedLogs.increment();
+            client.recordDropped(1);
+            return null;
+        }
+        if (destination.indexOf('/', DESTINATION_PREFIX.length()) >= 0) {
+            return message;
+        }
+        if (message.getPayload() instanceof WireFrame frame) {
+            return collapse(message, frame.json(), client, frame);
+        }
+        return message.getPayload() instanceof byte[] payload ? collapse(message, payload, client, null) : message;
+    }
+
+    /**
+     * 把事件帧中连续的中间事件合并为 SUMMARY 事件，状态事件保持原位
+     *
+     * @param frame 原帧未编码时（简单代理）为其 WireFrame，合并结果仍交给编码拦截器按客户端格式编码
+     */
+    private Message<?> collapse(Message<?> message, byte[] payload, ClientSendQueue client, WireFrame frame) {
+        try {
+            JsonNode events = objectMapper.readTree(payload);
+            if (!events.isArray()) {
+                return message;
+            }
+            ArrayNode reduced = objectMapper.createArrayNode();
+            Map<String, Integer> run = new LinkedHashMap<>();
+            JsonNode runStart = null;
+            for (JsonNode event : events) {
+                if (STATUS_EVENTS.contains(event.path("eventType").asText())) {
+                    if (runStart != null) {
+                        reduced.add(summary(runStart, run));
+                        run.clear();
+                        runStart = null;
+                    }
+                    reduced.add(event);
+                } else {
+                    runStart = runStart == null ? event : runStart;
+                    run.merge(event.path("eventType").asText("UNKNOWN"), 1, Integer::sum);
+                }
+            }
+            if (runStart != null) {
+                reduced.add(summary(runStart, run));
+            }
+            int collapsed = events.size() - reduced.size();
+            if (collapsed <= 0) {
+                return message;
+            }
+            collapsedEvents.increment(collapsed);
+            client.recordDropped(collapsed);
+            Object collapsedPayload = frame != null ? frame.withValue(reduced) : objectMapper.writeValueAsBytes(reduced);
+            return MessageBuilder.createMessage(collapsedPayload, message.getHeaders());
+        } catch (IOException e) {
+            log.debug("Could not collapse event frame for client {}: {}", client.getId(), e.getMessage());
+            return message;
+        }
+    }
+
+    private ObjectNode summary(JsonNode first, Map<String, Integer> counts) {
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.set("sessionId", first.get("sessionId"));
+        summary.set("agentName", first.get("agentName"));
+        summary.put("eventType", AgentExecutionEvent.EventType.SUMMARY.name());
+        summary.put("status", AgentExecutionEvent.ExecutionStatus.RUNNING.name());
+        summary.put("output", "连接较慢，已合并 " + total + " 个中间事件：" + counts.entrySet().stream()
+                .map(entry -> entry.getKey() + "×" + entry.getValue())
+                .collect(Collectors.joining(", ")));
+        return summary;
+    }
+
+    /**
+     * 每个客户端的积压情况，按积压时间降序
+     */
+    public List<ClientStats> clientStats() {
+        return clients.values().stream()
+                .map(ClientSendQueue::stats)
+                .sorted(Comparator.comparingLong(ClientStats::lagMillis).reversed())
+                .toList();
+    }
+
+    void recordLag(long nanos) {
+        lag.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onDegraded(ClientSendQueue client, long lagNanos, long queuedBytes) {
+        log.info("WebSocket client {} is falling behind ({} ms, {} KB unsent), switching to degraded mode",
+                client.getId(), TimeUnit.NANOSECONDS.toMillis(lagNanos), queuedBytes / 1024);
+    }
+
+    void onRecovered(ClientSendQueue client) {
+        log.info("WebSocket client {} caught up, leaving degraded mode", client.getId());
+    }
+
+    void onTerminated(ClientSendQueue client) {
+        terminated.increment();
+        log.warn("WebSocket client {} exceeded {} unsent bytes, disconnecting", client.getId(), config.getMaxQueuedBytes());
+    }
+
+    void onClosed(ClientSendQueue client) {
+        clients.remove(client.getId(), client);
+    }
+}
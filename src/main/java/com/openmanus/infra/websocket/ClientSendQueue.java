@@ -0,0 +1,165 @@
+package com.openmanus.infra.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个客户端的发送队列
+ *
+ * sendMessage 只把帧放入无界链表队列并立即返回，由该客户端专属的虚拟线程按顺序写入连接，
+ * 因此慢客户端只会让自己的队列变长，不会占住 clientOutboundChannel 的线程。
+ * 队列中未发送的字节数超过上限时断开连接（客户端可重连并按 seq 补发）。
+ *
+ * 降级判断带滞回：最早的未发送帧等待超过 degradeLag 或未发送字节数超过 degradeBytes 时进入降级，
+ * 两者都回落到阈值的四分之一以下时恢复
+ */
+@Slf4j
+class ClientSendQueue extends WebSocketSessionDecorator {
+
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final long degradeLagNanos;
+    private final long degradeBytes;
+    private final long maxQueuedBytes;
+    private final ClientBackpressure owner;
+    private final Thread sender;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean degraded;
+
+    ClientSendQueue(WebSocketSession delegate, long degradeLagMillis, long degradeBytes, long maxQueuedBytes,
+                    ClientBackpressure owner) {
+        super(delegate);
+        this.degradeLagNanos = TimeUnit.MILLISECONDS.toNanos(degradeLagMillis);
+        this.degradeBytes = degradeBytes;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.owner = owner;
+        this.sender = Thread.ofVirtual().name("ws-send-" + delegate.getId()).start(this::sendLoop);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closed.get()) {
+            throw new IOException("WebSocket session " + getId() + " is closed");
+        }
+        long bytes = message.getPayloadLength();
+        if (queuedBytes.get() + bytes > maxQueuedBytes) {
+            owner.onTerminated(this);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            throw new SessionLimitExceededException(String.format("Client %s has %d unsent bytes, limit %d",
+                    getId(), queuedBytes.get(), maxQueuedBytes), CloseStatus.SESSION_NOT_RELIABLE);
+        }
+        queuedBytes.addAndGet(bytes);
+        queue.add(new Queued(message, System.nanoTime()));
+    }
+
+    private void sendLoop() {
+        try {
+            while (!closed.get()) {
+                Queued next = queue.take();
+                owner.recordLag(System.nanoTime() - next.enqueuedNanos);
+                getDelegate().sendMessage(next.message);
+                long sent = next.message.getPayloadLength();
+                queuedBytes.updateAndGet(bytes -> Math.max(0, bytes - sent));
+                sentFrames.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.debug("Send to WebSocket session {} failed: {}", getId(), e.getMessage());
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    /**
+     * 根据当前积压重新计算是否降级
+     *
+     * @return 当前是否处于降级模式
+     */
+    boolean evaluate() {
+        long lag = lagNanos();
+        long bytes = queuedBytes.get();
+        if (!degraded && (lag > degradeLagNanos || bytes > degradeBytes)) {
+            degraded = true;
+            owner.onDegraded(this, lag, bytes);
+        } else if (degraded && lag <= degradeLagNanos / 4 && bytes <= degradeBytes / 4) {
+            degraded = false;
+            owner.onRecovered(this);
+        }
+        return degraded;
+    }
+
+    /**
+     * 最早的未发送帧已等待的时间，队列为空时为 0
+     */
+    long lagNanos() {
+        Queued oldest = queue.peek();
+        return oldest == null ? 0 : System.nanoTime() - oldest.enqueuedNanos;
+    }
+
+    long queuedBytes() {
+        return queuedBytes.get();
+    }
+
+    boolean isDegraded() {
+        return degraded;
+    }
+
+    void recordDropped(int frames) {
+        droppedFrames.addAndGet(frames);
+    }
+
+    ClientBackpressure.ClientStats stats() {
+        return new ClientBackpressure.ClientStats(getId(), queue.size(), queuedBytes.get(),
+                TimeUnit.NANOSECONDS.toMillis(lagNanos()), degraded, sentFrames.get(), droppedFrames.get());
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        stop();
+        super.close(status);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            close(status);
+        } catch (IOException e) {
+            log.debug("Closing WebSocket session {} failed: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 停止发送线程并丢弃未发送的帧
+     */
+    void stop() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (Thread.currentThread() != sender) {
+            sender.interrupt();
+        }
+        queue.clear();
+        queuedBytes.set(0);
+        owner.onClosed(this);
+    }
+
+    private record Queued(WebSocketMessage<?> message, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推送帧的编码协商
+ *
+ * 1. 客户端在 STOMP CONNECT 帧中携带 accept-encoding 头（如 "cbor, json"）选择格式，默认 JSON。
+ *    二进制格式以 WebSocket 二进制帧下发，content-type 为 application/octet-stream，实际格式见 encoding 头；
+ *    SockJS 只能传输文本帧，经 SockJS 连接的客户端总是使用 JSON，二进制格式需直连 /ws/websocket
+ * 2. 发布时内容包装为 {@link WireFrame}，经简单代理扇出后在 clientOutboundChannel 上按订阅者的格式取出编码，
+ *    每种格式每帧只序列化一次
+ * 3. RELAY 模式下外部代理只转发字节，发布时即编码为 JSON，不支持二进制协商
+ *
+ * 通过 Micrometer 导出：openmanus.wire.encode（timer）、openmanus.wire.frame.bytes（distribution），均带 format 标签
+ */
+@Slf4j
+@Component
+public class WireEncodings implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    public static final String ACCEPT_ENCODING_HEADER = "accept-encoding";
+    public static final String ENCODING_HEADER = "encoding";
+
+    private static final String METRIC_PREFIX = "openmanus.wire";
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, Timer> encodeTimers = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, DistributionSummary> frameBytes = new EnumMap<>(WireFormat.class);
+    private final boolean brokerRelay;
+    private final ConcurrentMap<String, WireFormat> sessionFormats = new ConcurrentHashMap<>();
+    private final Set<String> sockJsSessions = ConcurrentHashMap.newKeySet();
+
+    public WireEncodings(ObjectMapper objectMapper, OpenManusProperties properties, MeterRegistry meterRegistry) {
+        this(objectMapper, properties.getWebsocket().getBroker().getMode()
+                == OpenManusProperties.WebSocketSettings.BrokerConfig.Mode.RELAY, meterRegistry);
+    }
+
+    WireEncodings(ObjectMapper objectMapper, boolean brokerRelay, MeterRegistry meterRegistry) {
+        this.brokerRelay = brokerRelay;
+        for (WireFormat format : WireFormat.values()) {
+            if (!format.isAvailable()) {
+                continue;
+            }
+            mappers.put(format, format.createMapper(objectMapper));
+            encodeTimers.put(format, Timer.builder(METRIC_PREFIX + ".encode")
+                    .description("Time to serialize a pushed frame")
+                    .tag("format", format.getToken())
+                    .register(meterRegistry));
+            frameBytes.put(format, DistributionSummary.builder(METRIC_PREFIX + ".frame.bytes")
+                    .description("Serialized size of pushed frames")
+                    .tag("format", format.getToken())
+                    .baseUnit("bytes")
+                    .register(meterRegistry));
+        }
+        log.info("推送帧编码格式: {}{}", mappers.keySet(), brokerRelay ? "（RELAY 模式仅 JSON）" : "");
+    }
+
+    /**
+     * 包装待发布的内容，立即完成 JSON 编码
+     */
+    public WireFrame frame(Object value) {
+        return new WireFrame(value, this);
+    }
+
+    /**
+     * 交给消息代理的内容：简单代理直接传递 WireFrame，外部代理需要字节
+     */
+    public Object brokerPayload(WireFrame frame) {
+        return brokerRelay ? frame.json() : frame;
+    }
+
+    /**
+     * 会话协商的格式
+     *
+     * @param sessionId STOMP/WebSocket 会话ID
+     */
+    public WireFormat formatOf(String sessionId) {
+        return sessionId == null ? WireFormat.JSON : sessionFormats.getOrDefault(sessionId, WireFormat.JSON);
+    }
+
+    /**
+     * 构造发给某个客户端的消息，按该客户端协商的格式取出编码
+     *
+     * @param frame 推送帧
+     * @param headers 目标客户端的消息头（需包含会话ID），会被修改
+     */
+    public Message<byte[]> toClient(WireFrame frame, SimpMessageHeaderAccessor headers) {
+        WireFormat format = formatOf(headers.getSessionId());
+        if (format.isBinary()) {
+            headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            headers.setNativeHeader(ENCODING_HEADER, format.getToken());
+        } else {
+            headers.setContentType(format.getMimeType());
+        }
+        return MessageBuilder.createMessage(frame.bytes(format), headers.getMessageHeaders());
+    }
+
+    byte[] encode(Object value, WireFormat format) {
+        ObjectMapper mapper = mappers.get(format);
+        if (mapper == null) {
+            throw new MessageConversionException("Wire format " + format + " is not on the classpath");
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = mapper.writeValueAsBytes(value);
+            encodeTimers.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            frameBytes.get(format).record(bytes.length);
+            return bytes;
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not encode " + value.getClass().getName() + " as " + format, e);
+        }
+    }
+
+    /**
+     * 入站：CONNECT 时协商格式，DISCONNECT 时清理；出站：把 WireFrame 替换为订阅者格式的字节
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.MESSAGE && message.getPayload() instanceof WireFrame frame) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+            return toClient(frame, headers);
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(sessionId, SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(ACCEPT_ENCODING_HEADER));
+        } else if (type == SimpMessageType.DISCONNECT) {
+            sessionFormats.remove(sessionId);
+        }
+        return message;
+    }
+
+    private void negotiate(String sessionId, String accepted) {
+        WireFormat format = brokerRelay || sockJsSessions.contains(sessionId)
+                ? WireFormat.JSON : WireFormat.negotiate(accepted);
+        if (format == WireFormat.JSON) {
+            sessionFormats.remove(sessionId);
+        } else {
+            sessionFormats.put(sessionId, format);
+        }
+        if (accepted != null) {
+            log.debug("WebSocket session {} accepts [{}], using {}", sessionId, accepted, format);
+        }
+    }
+
+    /**
+     * 记录经 SockJS 建立的连接，它们只能接收文本帧
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                    sockJsSessions.add(session.getId());
+                }
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sockJsSessions.remove(session.getId());
+                sessionFormats.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 当前可用的格式
+     */
+    public Set<WireFormat> availableFormats() {
+        return Set.copyOf(mappers.keySet());
+    }
+}
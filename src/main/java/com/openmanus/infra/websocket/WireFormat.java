@@ -0,0 +1,86 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Locale;
+
+/**
+ * 推送帧的编码格式
+ *
+ * 二进制格式使用 Jackson 的对应 dataformat 模块，模块被排除出类路径时不可用，协商时回退为 JSON
+ */
+public enum WireFormat {
+
+    JSON("json", MimeTypeUtils.APPLICATION_JSON, null),
+    CBOR("cbor", new MimeType("application", "cbor"), "com.fasterxml.jackson.dataformat.cbor.CBORFactory"),
+    SMILE("smile", new MimeType("application", "x-jackson-smile"), "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+
+    private final String token;
+    private final MimeType mimeType;
+    private final String factoryClassName;
+
+    WireFormat(String token, MimeType mimeType, String factoryClassName) {
+        this.token = token;
+        this.mimeType = mimeType;
+        this.factoryClassName = factoryClassName;
+    }
+
+    /**
+     * 协商头中使用的名称，如 cbor
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public MimeType getMimeType() {
+        return mimeType;
+    }
+
+    public boolean isBinary() {
+        return factoryClassName != null;
+    }
+
+    /**
+     * 对应的 Jackson dataformat 模块是否在类路径上
+     */
+    public boolean isAvailable() {
+        return factoryClassName == null || ClassUtils.isPresent(factoryClassName, WireFormat.class.getClassLoader());
+    }
+
+    /**
+     * 基于 JSON ObjectMapper 创建本格式的 ObjectMapper，沿用其模块和序列化配置
+     */
+    ObjectMapper createMapper(ObjectMapper jsonMapper) {
+        if (factoryClassName == null) {
+            return jsonMapper;
+        }
+        Class<?> factoryClass = ClassUtils.resolveClassName(factoryClassName, WireFormat.class.getClassLoader());
+        return jsonMapper.copyWith((JsonFactory) BeanUtils.instantiateClass(factoryClass));
+    }
+
+    /**
+     * 按客户端给出的顺序选择第一个可用的格式
+     *
+     * @param accepted 逗号分隔的格式名，如 "cbor, json"
+     * @return 选中的格式，没有可用的二进制格式时为 JSON
+     */
+    public static WireFormat negotiate(String accepted) {
+        if (accepted == null) {
+            return JSON;
+        }
+        for (String candidate : accepted.split(",")) {
+            String token = candidate.trim().toLowerCase(Locale.ROOT);
+            for (WireFormat format : values()) {
+                if (format.token.equals(token) && format.isAvailable()) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,60 @@
+package com.openmanus.infra.websocket;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 推送帧的内容及其各格式的编码结果
+ *
+ * 同一帧会发给多个订阅者、写入回放缓冲并推送到 SSE 流，每种格式最多序列化一次，所有订阅者共享同一份字节。
+ * JSON 编码在创建时完成（回放缓冲按它计算大小，SSE 直接使用），二进制编码在第一个需要它的订阅者出现时完成
+ */
+public final class WireFrame {
+
+    private final Object value;
+    private final WireEncodings encodings;
+    private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(WireFormat.values().length);
+
+    WireFrame(Object value, WireEncodings encodings) {
+        this.value = value;
+        this.encodings = encodings;
+        this.encoded.set(WireFormat.JSON.ordinal(), encodings.encode(value, WireFormat.JSON));
+    }
+
+    /**
+     * 编码前的消息内容
+     */
+    public Object value() {
+        return value;
+    }
+
+    /**
+     * JSON 编码
+     */
+    public byte[] json() {
+        return encoded.get(WireFormat.JSON.ordinal());
+    }
+
+    /**
+     * 指定格式的编码，首次调用时序列化
+     */
+    public byte[] bytes(WireFormat format) {
+        byte[] bytes = encoded.get(format.ordinal());
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = encoded.get(format.ordinal());
+                if (bytes == null) {
+                    bytes = encodings.encode(value, format);
+                    encoded.set(format.ordinal(), bytes);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 以相同的编码配置包装新的内容，如降级时合并后的事件
+     */
+    public WireFrame withValue(Object newValue) {
+        return new WireFrame(newValue, encodings);
+    }
+}
@@ -0,0 +1,210 @@
+package com.openmanus.agent.base;
+
+import com.openmanus.agent.tool.annotation.SerialTool;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AbstractAgentExecutor 并行工具调度和指标测试
+ */
+public class AbstractAgentExecutorTest {
+
+    /**
+     * 测试用工具：记录并发度，slow 方法会短暂阻塞
+     */
+    public static class SlowTools {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger serialOverlap = new AtomicInteger();
+
+        @Tool("slow lookup")
+        public String slow(@P("key") String key) throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+                return "slow:" + key;
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Tool("write something")
+        @SerialTool
+        public String write(@P("key") String key) {
+            if (running.get() > 0) {
+                serialOverlap.incrementAndGet();
+            }
+            return "write:" + key;
+        }
+    }
+
+    /**
+     * 第一轮返回一组工具调用，第二轮返回最终答案，并记录第二轮收到的消息
+     */
+    static class ScriptedChatModel implements ChatModel {
+        final List<ToolExecutionRequest> requests;
+        final List<ChatMessage> secondTurn = new ArrayList<>();
+        int turn;
+
+        ScriptedChatModel(List<ToolExecutionRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            if (turn++ == 0) {
+                return ChatResponse.builder().aiMessage(AiMessage.from(requests)).build();
+            }
+            secondTurn.addAll(chatRequest.messages());
+            return ChatResponse.builder().aiMessage(AiMessage.from("done")).build();
+        }
+    }
+
+    private static ToolExecutionRequest request(String id, String name, String key) {
+        return ToolExecutionRequest.builder()
+                .id(id)
+                .name(name)
+                .arguments("{\"key\": \"" + key + "\"}")
+                .build();
+    }
+
+    private static AgentHandoff agent(ChatModel chatModel, SlowTools tools, boolean parallel, int maxConcurrency) {
+        return AgentHandoff.builder()
+                .chatModel(chatModel)
+                .toolFromObject(tools)
+                .parallelToolCalls(parallel)
+                .maxConcurrentToolCalls(maxConcurrency)
+                .build();
+    }
+
+    private static List<String> toolResultIds(List<ChatMessage> messages) {
+        return messages.stream()
+                .filter(ToolExecutionResultMessage.class::isInstance)
+                .map(m -> ((ToolExecutionResultMessage) m).id())
+                .toList();
+    }
+
+    @Test
+    void parallelDispatchKeepsRequestOrder() {
+        SlowTools tools = new SlowTools();
+        ScriptedChatModel model = new ScriptedChatModel(List.of(
+                request("1", "slow", "a"),
+                request("2", "slow", "b"),
+                request("3", "slow", "c")));
+
+        long start = System.nanoTime();
+        String answer = agent(model, tools, true, 4).execute(request("0", "agent_handoff_supervisor", "{}"), null);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("done", answer);
+        assertEquals(List.of("1", "2", "3"), toolResultIds(model.secondTurn));
+        assertEquals(3, tools.maxRunning.get());
+        assertTrue(elapsedMs < 550, "parallel calls should overlap, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void concurrencyCapAndSerialToolsAreRespected() {
+        SlowTools tools = new SlowTools();
+        ScriptedChatModel model = new ScriptedChatModel(List.of(
+                request("1", "slow", "a"),
+                request("2", "slow", "b"),
+                request("3", "slow", "c"),
+                request("4", "write", "d"),
+                request("5", "slow", "e")));
+
+        agent(model, tools, true, 2).execute(request("0", "agent_handoff_supervisor", "{}"), null);
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), toolResultIds(model.secondTurn));
+        assertEquals(2, tools.maxRunning.get());
+        assertEquals(0, tools.serialOverlap.get());
+    }
+
+    @Test
+    void failingToolCancelsBlockedSiblings() throws Exception {
+        CountDownLatch blockerInterrupted = new CountDownLatch(1);
+        ScriptedChatModel model = new ScriptedChatModel(List.of(
+                request("1", "block", "a"),
+                request("2", "fail", "b")));
+        AgentHandoff agent = AgentHandoff.builder()
+                .chatModel(model)
+                .tool(Map.entry(ToolSpecification.builder().name("block").build(), (request, memoryId) -> {
+                    try {
+                        Thread.sleep(10_000);
+                        return "finished";
+                    } catch (InterruptedException e) {
+                        blockerInterrupted.countDown();
+                        return "interrupted";
+                    }
+                }))
+                .tool(Map.entry(ToolSpecification.builder().name("fail").build(), (request, memoryId) -> {
+                    throw new IllegalStateException("tool broke");
+                }))
+                .parallelToolCalls(true)
+                .build();
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class,
+                () -> agent.execute(request("0", "agent_handoff_supervisor", "{}"), null));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 2_000, "failure should not wait for the blocked tool, took " + elapsedMs + "ms");
+        assertTrue(blockerInterrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sequentialDispatchWhenDisabled() {
+        SlowTools tools = new SlowTools();
+        ScriptedChatModel model = new ScriptedChatModel(List.of(
+                request("1", "slow", "a"),
+                request("2", "slow", "b")));
+
+        agent(model, tools, false, 4).execute(request("0", "agent_handoff_supervisor", "{}"), null);
+
+        assertEquals(List.of("1", "2"), toolResultIds(model.secondTurn));
+        assertEquals(1, tools.maxRunning.get());
+    }
+
+    @Test
+    void executionIterationsToolAndLlmCallsAreTimed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScriptedChatModel model = new ScriptedChatModel(List.of(request("1", "write", "a")));
+        AgentHandoff agent = AgentHandoff.builder()
+                .chatModel(model)
+                .toolFromObject(new SlowTools())
+                .meterRegistry(registry)
+                .build();
+
+        agent.execute(request("0", "agent_handoff_supervisor", "{}"), null);
+
+        String name = agent.name();
+        assertEquals(1, registry.get("openmanus.agent.executions")
+                .tags("agent", name, "outcome", "success").timer().count());
+        assertEquals(2, registry.get("openmanus.agent.iteration").tag("agent", name).timer().count());
+        assertEquals(2.0, registry.get("openmanus.agent.iterations").tag("agent", name).summary().totalAmount());
+        assertEquals(2, registry.get("openmanus.agent.llm.calls")
+                .tags("agent", name, "mode", "blocking", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("openmanus.agent.tool.calls")
+                .tags("agent", name, "tool", "write", "outcome", "success").timer().count());
+    }
+}
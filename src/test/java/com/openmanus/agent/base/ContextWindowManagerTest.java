@@ -0,0 +1,71 @@
+package com.openmanus.agent.base;
+
+import com.openmanus.infra.exception.TokenLimitExceededException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ContextWindowManager 历史压缩测试
+ */
+public class ContextWindowManagerTest {
+
+    private static final OpenAiTokenCountEstimator ESTIMATOR = new OpenAiTokenCountEstimator("gpt-4o");
+
+    private static List<ChatMessage> history(int toolResults, int resultChars) {
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(UserMessage.from("question"));
+        for (int i = 0; i < toolResults; i++) {
+            messages.add(AiMessage.from("thinking " + i));
+            messages.add(ToolExecutionResultMessage.from(String.valueOf(i), "browseWeb", "word ".repeat(resultChars / 5)));
+        }
+        return messages;
+    }
+
+    @Test
+    void historyUnderBudgetIsUntouched() {
+        List<ChatMessage> messages = history(3, 500);
+        List<ChatMessage> original = List.copyOf(messages);
+
+        new ContextWindowManager(ESTIMATOR, 10_000, 1, 100).open(List.of()).fit(messages);
+
+        for (int i = 0; i < messages.size(); i++) {
+            assertSame(original.get(i), messages.get(i));
+        }
+    }
+
+    @Test
+    void olderToolResultsAreCompactedFirst() {
+        List<ChatMessage> messages = history(4, 4000);
+        ChatMessage newest = messages.get(messages.size() - 1);
+
+        int total = new ContextWindowManager(ESTIMATOR, 2_000, 1, 100).open(List.of()).fit(messages);
+
+        assertTrue(total <= 2_000);
+        assertSame(newest, messages.get(messages.size() - 1));
+        ToolExecutionResultMessage oldest = (ToolExecutionResultMessage) messages.get(2);
+        assertEquals("0", oldest.id());
+        assertTrue(oldest.text().contains("已压缩"));
+    }
+
+    @Test
+    void throwsWhenCompactionCannotFit() {
+        List<ChatMessage> messages = history(2, 4000);
+        messages.add(UserMessage.from("long ".repeat(2000)));
+
+        ContextWindowManager.Window window = new ContextWindowManager(ESTIMATOR, 1_000, 1, 100).open(List.of());
+
+        assertThrows(TokenLimitExceededException.class, () -> window.fit(messages));
+    }
+}
@@ -1,6 +1,7 @@
 package com.openmanus.agent.tool;
 
 import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.slf4j.Logger;
@@ -20,7 +21,7 @@ public class BrowserToolTest {
         // Mock properties
         OpenManusProperties properties = new OpenManusProperties();
         // Initialize with null SessionSandboxManager (safe as long as MDC sessionId is not set in tests)
-        browserTool = new BrowserTool(null, properties);
+        browserTool = new BrowserTool(null, properties, new SimpleMeterRegistry());
     }
     
     @Test
@@ -95,7 +96,7 @@ public class BrowserToolTest {
      * 手动测试方法 - 可以在IDE中直接运行
      */
     public static void main(String[] args) {
-        BrowserTool tool = new BrowserTool(null, new OpenManusProperties());
+        BrowserTool tool = new BrowserTool(null, new OpenManusProperties(), new SimpleMeterRegistry());
         
         System.out.println("=== BrowserTool 搜索功能测试 ===\n");
         
@@ -0,0 +1,131 @@
+package com.openmanus.agent.tool;
+
+import com.openmanus.agent.tool.annotation.CacheableTool;
+import com.openmanus.agent.tool.annotation.ToolCacheEvict;
+import com.openmanus.infra.config.OpenManusProperties;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ToolResultCache 会话级缓存测试
+ */
+public class ToolResultCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ToolResultCache cache = new ToolResultCache(new OpenManusProperties(), registry);
+
+    @BeforeEach
+    void setUp() {
+        MDC.put("sessionId", "s1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @CacheableTool(ttlSeconds = 60, pathArgument = "filePath")
+    void readFile() {
+    }
+
+    @CacheableTool(ttlSeconds = 60, failurePrefixes = "访问网页失败")
+    void browseWeb() {
+    }
+
+    @ToolCacheEvict(pathArgument = "filePath")
+    void writeFile() {
+    }
+
+    private static ToolExecutionRequest request(String name, String arguments) {
+        return ToolExecutionRequest.builder().id("1").name(name).arguments(arguments).build();
+    }
+
+    private ToolExecutor readExecutor(AtomicInteger calls) throws NoSuchMethodException {
+        return cache.decorate("readFile", (request, memoryId) -> "content-" + calls.incrementAndGet(),
+                getClass().getDeclaredMethod("readFile").getAnnotation(CacheableTool.class), null);
+    }
+
+    @Test
+    void identicalArgumentsHitTheCache() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ToolExecutor read = readExecutor(calls);
+
+        String first = read.execute(request("readFile", "{\"filePath\": \"a.txt\", \"x\": 1}"), null);
+        String second = read.execute(request("readFile", "{\"x\":1,\"filePath\":\"a.txt\"}"), null);
+
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1.0, registry.get("openmanus.tool.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void cacheIsScopedToSession() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ToolExecutor read = readExecutor(calls);
+
+        read.execute(request("readFile", "{\"filePath\": \"a.txt\"}"), null);
+        MDC.put("sessionId", "s2");
+        read.execute(request("readFile", "{\"filePath\": \"a.txt\"}"), null);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void writesInvalidateMatchingPaths() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ToolExecutor read = readExecutor(calls);
+        ToolExecutor write = cache.decorate("writeFile", (request, memoryId) -> "ok", null,
+                getClass().getDeclaredMethod("writeFile").getAnnotation(ToolCacheEvict.class));
+
+        read.execute(request("readFile", "{\"filePath\": \"dir/a.txt\"}"), null);
+        read.execute(request("readFile", "{\"filePath\": \"dir/b.txt\"}"), null);
+        write.execute(request("writeFile", "{\"filePath\": \"dir/./a.txt\", \"content\": \"new\"}"), null);
+
+        assertEquals("content-3", read.execute(request("readFile", "{\"filePath\": \"dir/a.txt\"}"), null));
+        assertEquals("content-2", read.execute(request("readFile", "{\"filePath\": \"dir/b.txt\"}"), null));
+    }
+
+    @Test
+    void failedResultsAreNotCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ToolExecutor browse = cache.decorate("browseWeb", (request, memoryId) ->
+                        calls.incrementAndGet() == 1 ? "访问网页失败: Connection reset" : "网页内容: ok",
+                getClass().getDeclaredMethod("browseWeb").getAnnotation(CacheableTool.class), null);
+
+        assertEquals("访问网页失败: Connection reset", browse.execute(request("browseWeb", "{\"url\": \"a.com\"}"), null));
+        assertEquals("网页内容: ok", browse.execute(request("browseWeb", "{\"url\": \"a.com\"}"), null));
+        assertEquals("网页内容: ok", browse.execute(request("browseWeb", "{\"url\": \"a.com\"}"), null));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void pythonRunsInvalidateFileResultsAndMissingFilesAreNotCached() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        ToolExecutor read = cache.decorate("readFile",
+                (request, memoryId) -> reads.incrementAndGet() < 2 ? "文件不存在: out.txt" : "文件内容:\n42",
+                FileTool.class.getDeclaredMethod("readFile", String.class).getAnnotation(CacheableTool.class), null);
+        ToolExecutor list = cache.decorate("listDirectory", (request, memoryId) -> "目录内容:\n[文件] a.txt",
+                FileTool.class.getDeclaredMethod("listDirectory", String.class).getAnnotation(CacheableTool.class), null);
+        ToolExecutor python = cache.decorate("executePython", (request, memoryId) -> "ok", null,
+                PythonTool.class.getDeclaredMethod("executePython", String.class, String.class)
+                        .getAnnotation(ToolCacheEvict.class));
+
+        assertEquals("文件不存在: out.txt", read.execute(request("readFile", "{\"filePath\": \"out.txt\"}"), null));
+        list.execute(request("listDirectory", "{\"dirPath\": \".\"}"), null);
+        assertEquals(1, cache.getStats().get("entries"));
+        python.execute(request("executePython", "{\"code\": \"open('out.txt','w').write('42')\"}"), null);
+        assertEquals(0, cache.getStats().get("entries"));
+
+        assertEquals("文件内容:\n42", read.execute(request("readFile", "{\"filePath\": \"out.txt\"}"), null));
+    }
+}
@@ -0,0 +1,107 @@
+package com.openmanus.infra.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应并发上限与令牌桶测试
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static long deadline(long millis) {
+        return System.nanoTime() + millis * MS;
+    }
+
+    @Test
+    void throttleHalvesLimitAndSuccessGrowsItBack() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 16, 2.0);
+
+        assertTrue(limit.acquire(deadline(0)));
+        limit.release(0, 0, AdaptiveConcurrencyLimit.Outcome.THROTTLED);
+        assertEquals(4, limit.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(0, 0, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+        }
+        assertTrue(limit.getLimit() > 4);
+    }
+
+    @Test
+    void longGenerationsDoNotShrinkTheLimit() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 16, 2.0);
+
+        for (int i = 0; i < 10; i++) {
+            // 短回答几乎只有首 token 开销；长生成耗时长，但每 token 速度与基线一致
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(800 * MS, 10, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(4_000 * MS, 200, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(41_000 * MS, 2_000, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+        }
+
+        assertTrue(limit.getLimit() >= 8, "limit " + limit.getLimit());
+        assertEquals(20.0, limit.getBaselineMillisPerToken(), 1.0);
+    }
+
+    @Test
+    void slowerTokensShrinkTheLimitAndTheBaselineDriftsTowardThem() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 16, 2.0);
+        assertTrue(limit.acquire(deadline(0)));
+        limit.release(4_000 * MS, 200, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(12_000 * MS, 200, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+        }
+        assertTrue(limit.getLimit() < 8, "limit " + limit.getLimit());
+
+        // 服务端持续变慢时基线缓慢上移，而不是永远以历史最小值为准
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.acquire(deadline(0)));
+            limit.release(12_000 * MS, 200, AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+        }
+        assertTrue(limit.getBaselineMillisPerToken() > 30, "baseline " + limit.getBaselineMillisPerToken());
+        assertTrue(limit.getLimit() >= 8, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void callersQueueUntilPermitIsReleasedOrDeadlinePasses() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 2.0);
+        assertTrue(limit.acquire(deadline(0)));
+
+        assertFalse(limit.acquire(deadline(50)));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Boolean> waiter = executor.submit(() -> limit.acquire(deadline(5_000)));
+            while (limit.getWaiting() == 0) {
+                Thread.sleep(5);
+            }
+            limit.release(0, 0, AdaptiveConcurrencyLimit.Outcome.IGNORED);
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, limit.getInFlight());
+    }
+
+    @Test
+    void tokenBucketRejectsWhenRefillWouldMissDeadline() throws Exception {
+        TokenBucket bucket = new TokenBucket(60);
+
+        assertTrue(bucket.acquire(60, deadline(0)));
+        assertFalse(bucket.acquire(1, deadline(100)));
+
+        bucket.debit(30);
+        assertTrue(bucket.available() < -29);
+    }
+}
@@ -0,0 +1,76 @@
+package com.openmanus.infra.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MpscRingBuffer 无锁队列测试
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    void offerFailsWhenFullAndSlotsAreReused() {
+        MpscRingBuffer<Integer> queue = new MpscRingBuffer<>(3);
+        assertEquals(4, queue.capacity());
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(99));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void concurrentProducersLoseNothingWhileConsumerDrains() throws Exception {
+        MpscRingBuffer<Integer> queue = new MpscRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 2_000;
+        Set<Integer> received = new HashSet<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!queue.offer(base + i)) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                return;
+                            }
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+                Integer value = queue.poll();
+                if (value != null) {
+                    assertTrue(received.add(value));
+                } else {
+                    Thread.yield();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(producers * perProducer, received.size());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.openmanus.infra.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SingleFlight 请求合并测试
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 启动 leader 并等待它开始执行，再启动若干等待者
+     */
+    private List<Future<String>> race(CountDownLatch leaderStarted, Callable<String> leaderCall,
+                                      int followers) throws InterruptedException {
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> flights.execute("k", leaderCall)));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < followers; i++) {
+            futures.add(executor.submit(() -> flights.execute("k", () -> "follower-ran")));
+        }
+        Thread.sleep(100);
+        return futures;
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        List<Future<String>> futures = race(started, () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "result";
+        }, 4);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("result", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, flights.inFlightCount());
+    }
+
+    @Test
+    void failurePropagatesToEveryWaiter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = race(started, () -> {
+            started.countDown();
+            release.await();
+            throw new IOException("upstream down");
+        }, 3);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void cancelledLeaderLetsWaitersRetry() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+
+        List<Future<String>> futures = race(started, () -> {
+            started.countDown();
+            Thread.sleep(60_000);
+            return "never";
+        }, 2);
+        futures.get(0).cancel(true);
+
+        assertEquals("follower-ran", futures.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals("follower-ran", futures.get(2).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,94 @@
+package com.openmanus.infra.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * CachingChatModel / LlmResponseCache 精确匹配缓存测试
+ */
+public class CachingChatModelTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final ChatModel backend = new ChatModel() {
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            return ChatResponse.builder().aiMessage(AiMessage.from("answer-" + calls.incrementAndGet())).build();
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    private static ChatRequest request(String text, double temperature) {
+        return ChatRequest.builder().messages(UserMessage.from(text)).temperature(temperature).build();
+    }
+
+    private CachingChatModel model(LlmResponseCache cache) {
+        return new CachingChatModel(backend, cache, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void deterministicRequestsAreServedFromCache() {
+        CachingChatModel model = model(new LlmResponseCache(directory, 1 << 20, 16));
+
+        String first = model.chat(request("plan", 0.0)).aiMessage().text();
+        String second = model.chat(request("plan", 0.0)).aiMessage().text();
+
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void sampledRequestsBypassCacheUnlessOptedIn() {
+        CachingChatModel model = model(new LlmResponseCache(directory, 1 << 20, 16));
+
+        model.chat(request("plan", 0.7));
+        model.chat(request("plan", 0.7));
+        assertEquals(2, calls.get());
+
+        MDC.put(CachingChatModel.OPT_IN_MDC_KEY, "true");
+        model.chat(request("plan", 0.7));
+        model.chat(request("plan", 0.7));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void diskTierSurvivesRestartAndEvictsLeastRecentlyUsed() {
+        LlmResponseCache cache = new LlmResponseCache(directory, 1 << 20, 16);
+        model(cache).chat(request("persisted", 0.0));
+
+        CachingChatModel restarted = model(new LlmResponseCache(directory, 1 << 20, 16));
+        assertEquals("answer-1", restarted.chat(request("persisted", 0.0)).aiMessage().text());
+        assertEquals(1, calls.get());
+
+        LlmResponseCache tiny = new LlmResponseCache(directory.resolve("tiny"), 500, 0);
+        ChatResponse response = ChatResponse.builder().aiMessage(AiMessage.from("x".repeat(100))).build();
+        tiny.put("a", response);
+        tiny.put("b", response);
+        tiny.get("a");
+        tiny.put("c", response);
+
+        assertNotNull(tiny.get("a"));
+        assertNull(tiny.get("b"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.AdaptiveConcurrencyLimit;
+import com.openmanus.infra.concurrent.TokenBucket;
+import com.openmanus.infra.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OutboundLimiter 并发上限调整与超时归还测试
+ */
+public class OutboundLimiterTest {
+
+    private static String generate(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "answer";
+    }
+
+    @Test
+    void mixedShortAndLongResponsesKeepTheLimit() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 1, 8, 2.0);
+        OutboundLimiter limiter = new OutboundLimiter("default", null, null, concurrencyLimit,
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 5; i++) {
+            // 一次短回答之后是几次耗时长得多、但每 token 速度相同的正常生成
+            limiter.execute(0, () -> generate(1), result -> 10);
+            limiter.execute(0, () -> generate(20), result -> 200);
+            limiter.execute(0, () -> generate(60), result -> 600);
+        }
+
+        assertTrue(concurrencyLimit.getLimit() >= 4, "limit " + concurrencyLimit.getLimit());
+    }
+
+    @Test
+    void timedOutCallGivesBackEarlierReservations() {
+        TokenBucket requests = new TokenBucket(60);
+        TokenBucket tokens = new TokenBucket(1_000);
+        OutboundLimiter limiter = new OutboundLimiter("default", requests, tokens,
+                new AdaptiveConcurrencyLimit(1, 1, 1, 2.0), Duration.ofMillis(50), new SimpleMeterRegistry());
+
+        OutboundLimiter.Permit held = limiter.acquire(100);
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(100));
+
+        // 第二次调用在并发上限处超时，RPM 和 TPM 预扣的令牌都已归还
+        assertTrue(requests.available() > 58.5, "rpm " + requests.available());
+        assertTrue(tokens.available() > 899, "tpm " + tokens.available());
+        held.release(AdaptiveConcurrencyLimit.Outcome.SUCCESS, 0);
+    }
+}
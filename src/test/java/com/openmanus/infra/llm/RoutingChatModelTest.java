@@ -0,0 +1,107 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.concurrent.CircuitBreaker;
+import com.openmanus.infra.concurrent.LatencyWindow;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RoutingChatModel 对冲与故障转移测试
+ */
+public class RoutingChatModelTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("plan")).build();
+
+    private static ChatModel backend(String answer, long delayMillis, AtomicInteger calls) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("cancelled", e);
+                }
+                return ChatResponse.builder().aiMessage(AiMessage.from(answer)).build();
+            }
+        };
+    }
+
+    private static ChatModel failing(AtomicInteger calls) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                calls.incrementAndGet();
+                throw new IllegalStateException("502 Bad Gateway");
+            }
+        };
+    }
+
+    private static RoutingChatModel.Endpoint endpoint(String name, ChatModel model, int weight, CircuitBreaker breaker) {
+        return new RoutingChatModel.Endpoint(name, model, weight, breaker, new LatencyWindow(50));
+    }
+
+    private static RoutingChatModel router(List<RoutingChatModel.Endpoint> endpoints) {
+        return new RoutingChatModel(endpoints, true, 0.95, Duration.ofMillis(50), Duration.ofMillis(10),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndLoserCancelled() throws Exception {
+        CountDownLatch loserCancelled = new CountDownLatch(1);
+        ChatModel slow = new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    loserCancelled.countDown();
+                }
+                throw new IllegalStateException("cancelled");
+            }
+        };
+        AtomicInteger fastCalls = new AtomicInteger();
+        RoutingChatModel model = router(List.of(
+                endpoint("slow", slow, 1_000_000, new CircuitBreaker(5, Duration.ofSeconds(30))),
+                endpoint("fast", backend("fast", 0, fastCalls), 1, new CircuitBreaker(5, Duration.ofSeconds(30)))));
+
+        long start = System.nanoTime();
+        String answer = model.chat(REQUEST).aiMessage().text();
+
+        assertEquals("fast", answer);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(loserCancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsOverAndOpensCircuitAfterRepeatedFailures() {
+        AtomicInteger brokenCalls = new AtomicInteger();
+        AtomicInteger healthyCalls = new AtomicInteger();
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(5));
+        RoutingChatModel model = router(List.of(
+                endpoint("broken", failing(brokenCalls), 1_000_000, breaker),
+                endpoint("healthy", backend("ok", 0, healthyCalls), 1, new CircuitBreaker(2, Duration.ofMinutes(5)))));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", model.chat(REQUEST).aiMessage().text());
+        }
+
+        assertEquals(2, brokenCalls.get());
+        assertEquals(5, healthyCalls.get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,106 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.agent.base.AbstractAgentExecutor;
+import com.openmanus.domain.service.EmbeddingStoreService;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SemanticCachingChatModel 语义缓存测试
+ */
+public class SemanticCachingChatModelTest {
+
+    /**
+     * 词袋哈希向量，足以让改写后的句子得到较高的相似度
+     */
+    static class BagOfWordsEmbeddingModel implements EmbeddingModel {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            return Response.from(segments.stream().map(segment -> {
+                float[] vector = new float[64];
+                for (String word : segment.text().toLowerCase().split("\\W+")) {
+                    vector[Math.floorMod(word.hashCode(), vector.length)] += 1;
+                }
+                Embedding embedding = Embedding.from(vector);
+                embedding.normalize();
+                return embedding;
+            }).toList());
+        }
+    }
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmbeddingStoreService embeddingStoreService =
+            new EmbeddingStoreService(new InMemoryEmbeddingStore<>(), new BagOfWordsEmbeddingModel(), registry);
+    private final ChatModel backend = new ChatModel() {
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            return ChatResponse.builder().aiMessage(AiMessage.from("answer-" + calls.incrementAndGet())).build();
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    private SemanticCachingChatModel model(Duration ttl) {
+        return new SemanticCachingChatModel(backend, embeddingStoreService, registry, 0.8, ttl);
+    }
+
+    private static String ask(ChatModel model, String agent, String prompt) {
+        MDC.put(AbstractAgentExecutor.AGENT_NAME_MDC_KEY, agent);
+        return model.chat(ChatRequest.builder().messages(UserMessage.from(prompt)).build()).aiMessage().text();
+    }
+
+    @Test
+    void paraphraseInSameNamespaceHits() {
+        SemanticCachingChatModel model = model(Duration.ofMinutes(5));
+
+        String first = ask(model, "search_agent", "how do I sort a list in java quickly");
+        String second = ask(model, "search_agent", "how to sort a list in java quickly");
+
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, registry.get("openmanus.llm.semantic_cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1, registry.get("openmanus.llm.semantic_cache.similarity").summary().count());
+    }
+
+    @Test
+    void namespacesAreIsolated() {
+        SemanticCachingChatModel model = model(Duration.ofMinutes(5));
+
+        ask(model, "thinking_agent", "how do I sort a list in java quickly");
+        ask(model, "code_agent", "how do I sort a list in java quickly");
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void expiredEntriesAreIgnored() {
+        SemanticCachingChatModel model = model(Duration.ZERO);
+
+        ask(model, "search_agent", "how do I sort a list in java quickly");
+        ask(model, "search_agent", "how do I sort a list in java quickly");
+
+        assertEquals(2, calls.get());
+    }
+}
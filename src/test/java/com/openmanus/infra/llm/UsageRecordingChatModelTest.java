@@ -0,0 +1,122 @@
+package com.openmanus.infra.llm;
+
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.exception.TokenBudgetExceededException;
+import com.openmanus.infra.monitoring.TokenUsageTracker;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UsageRecordingChatModel 用量记录与会话预算测试
+ */
+public class UsageRecordingChatModelTest {
+
+    /**
+     * 每 4 个字符计 1 个 Token
+     */
+    static class CharCountEstimator implements TokenCountEstimator {
+        @Override
+        public int estimateTokenCountInText(String text) {
+            return text.length() / 4;
+        }
+
+        @Override
+        public int estimateTokenCountInMessage(ChatMessage message) {
+            return message instanceof AiMessage ai ? estimateTokenCountInText(ai.text())
+                    : estimateTokenCountInText(((UserMessage) message).singleText());
+        }
+
+        @Override
+        public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+            int total = 0;
+            for (ChatMessage message : messages) {
+                total += estimateTokenCountInMessage(message);
+            }
+            return total;
+        }
+    }
+
+    private final OpenManusProperties properties = new OpenManusProperties();
+    private final TokenUsageTracker tracker;
+
+    UsageRecordingChatModelTest() {
+        OpenManusProperties.LlmConfig.BudgetConfig.ModelPrice price =
+                new OpenManusProperties.LlmConfig.BudgetConfig.ModelPrice();
+        price.setInputPerMillionTokens(1_000);
+        price.setOutputPerMillionTokens(4_000);
+        properties.getLlm().getBudget().getModelPrices().put("qwen-max", price);
+        properties.getLlm().getBudget().setMaxTokensPerSession(200);
+        tracker = new TokenUsageTracker(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    private static ChatModel backend(TokenUsage tokenUsage) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from("sixteen chars ok"))
+                        .modelName("qwen-max")
+                        .tokenUsage(tokenUsage)
+                        .build();
+            }
+        };
+    }
+
+    private static ChatRequest request(String text) {
+        return ChatRequest.builder().messages(UserMessage.from(text)).build();
+    }
+
+    @Test
+    void usageIsRecordedPerSessionAndAgentAndBudgetStopsTheSession() {
+        ChatModel model = new UsageRecordingChatModel(
+                backend(new TokenUsage(60, 40)), tracker, new CharCountEstimator());
+
+        MDC.put("sessionId", "s1");
+        MDC.put("agentName", "thinking_agent");
+        model.chat(request("plan the trip"));
+        MDC.put("agentName", "search_agent");
+        model.chat(request("find flights"));
+
+        TokenUsageTracker.SessionUsage usage = tracker.sessionUsage("s1").orElseThrow();
+        assertEquals(2, usage.total().calls());
+        assertEquals(200, usage.total().totalTokens());
+        assertEquals(0.44, usage.total().cost(), 1e-9);
+        assertEquals(100, usage.agents().get("thinking_agent").totalTokens());
+        assertEquals(100, usage.agents().get("search_agent").totalTokens());
+
+        assertThrows(TokenBudgetExceededException.class, () -> tracker.checkBudget("s1"));
+        tracker.checkBudget("s2");
+    }
+
+    @Test
+    void missingTokenUsageIsEstimatedLocally() {
+        ChatModel model = new UsageRecordingChatModel(backend(null), tracker, new CharCountEstimator());
+
+        MDC.put("sessionId", "s3");
+        model.chat(request("twelve chars"));
+
+        TokenUsageTracker.Totals total = tracker.sessionUsage("s3").orElseThrow().total();
+        assertEquals(3, total.inputTokens());
+        assertEquals(4, total.outputTokens());
+        assertTrue(tracker.sessionUsage("s3").orElseThrow().agents().containsKey("unknown"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.openmanus.infra.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * WebSocketLogAppender 合并、等待中继服务与停止时排空测试
+ */
+public class WebSocketLogAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketLogAppender appender = new WebSocketLogAppender();
+    private RecordingRelay relay;
+
+    /**
+     * 记录收到的帧，failing 时模拟发送失败
+     */
+    private class RecordingRelay extends LogRelayService {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final boolean failing;
+
+        private RecordingRelay(boolean failing) {
+            super(null, meterRegistry);
+            this.failing = failing;
+        }
+
+        @Override
+        public boolean relayLog(String sessionId, Map<String, Object> logMessage) {
+            if (failing) {
+                throw new IllegalStateException("broker unavailable");
+            }
+            frames.add(sessionId + "|" + logMessage.get("level") + "|" + logMessage.get("message"));
+            return true;
+        }
+    }
+
+    private void start() {
+        appender.setContext(context);
+        appender.setFlushIntervalMillis(1);
+        appender.start();
+    }
+
+    private void register(boolean failing) {
+        relay = new RecordingRelay(failing);
+        relay.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appender.stop();
+        if (relay != null) {
+            relay.destroy();
+        }
+    }
+
+    private void log(String sessionId, Level level, String message) {
+        LoggingEvent event = new LoggingEvent("test", context.getLogger("test"), level, message, null, null);
+        event.addMarker(LogMarkers.TO_FRONTEND);
+        event.setMDCPropertyMap(Map.of("sessionId", sessionId));
+        appender.doAppend(event);
+    }
+
+    private void awaitFrames(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (relay.frames.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, relay.frames.size(), relay.frames.toString());
+    }
+
+    @Test
+    void linesWaitForTheRelayServiceAndMergeBySessionAndLevel() throws Exception {
+        start();
+        log("s1", Level.INFO, "a");
+        log("s1", Level.INFO, "b");
+        log("s1", Level.WARN, "c");
+        log("s2", Level.WARN, "d");
+        log("s2", Level.WARN, "e");
+        log("s1", Level.WARN, "f");
+        Thread.sleep(20);
+
+        // 中继服务出现后，之前留在队列中的日志一并发送
+        register(false);
+        awaitFrames(4);
+
+        assertEquals(List.of("s1|INFO|a\nb", "s1|WARN|c", "s2|WARN|d\ne", "s1|WARN|f"), relay.frames);
+        assertEquals(0, appender.getDiscardedCount());
+    }
+
+    @Test
+    void stopDrainsQueuedLinesToTheRelayService() {
+        start();
+        for (int i = 0; i < 100; i++) {
+            log("s1", Level.INFO, "line " + i);
+        }
+        register(false);
+        appender.stop();
+
+        // 每帧最多 50 行
+        assertEquals(2, relay.frames.size(), relay.frames.toString());
+        assertEquals(0, appender.getDiscardedCount());
+    }
+
+    @Test
+    void stopWithoutRelayServiceDiscardsQueuedLines() {
+        start();
+        for (int i = 0; i < 10; i++) {
+            log("s1", Level.INFO, "line " + i);
+        }
+        appender.stop();
+
+        assertEquals(10, appender.getDiscardedCount());
+    }
+
+    @Test
+    void linesOfAFailedFrameAreCountedAsDiscarded() {
+        start();
+        log("s1", Level.INFO, "a");
+        log("s1", Level.INFO, "b");
+        log("s2", Level.INFO, "c");
+        register(true);
+        appender.stop();
+
+        assertEquals(3, appender.getDiscardedCount());
+    }
+}
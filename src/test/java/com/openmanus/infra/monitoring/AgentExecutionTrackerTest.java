@@ -0,0 +1,81 @@
+package com.openmanus.infra.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.model.AgentExecutionEvent;
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.tracing.ExecutionTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AgentExecutionTracker 按会话路由监听器测试
+ */
+public class AgentExecutionTrackerTest {
+
+    private final AgentExecutionTracker tracker =
+            new AgentExecutionTracker(new OpenManusProperties(), new SimpleMeterRegistry(), disabledBlobStore(),
+                    ExecutionTracer.NOOP);
+
+    private static PayloadBlobStore disabledBlobStore() {
+        OpenManusProperties.MonitoringConfig.BlobConfig config = new OpenManusProperties.MonitoringConfig.BlobConfig();
+        config.setThresholdBytes(0);
+        return new PayloadBlobStore(new ObjectMapper(), config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sessionListenersOnlyReceiveTheirOwnSessionEvents() {
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        List<String> monitor = new CopyOnWriteArrayList<>();
+        tracker.addSessionListener("s1", event -> first.add(event.getSessionId()));
+        tracker.addSessionListener("s2", event -> second.add(event.getSessionId()));
+        tracker.addListener(event -> monitor.add(event.getSessionId()));
+
+        tracker.startAgentExecution("s1", "agent", "TEST", "in");
+        tracker.startAgentExecution("s2", "agent", "TEST", "in");
+        tracker.publishStreamChunk("s1", "agent", "chunk");
+
+        assertEquals(List.of("s1", "s1"), first);
+        assertEquals(List.of("s2"), second);
+        assertEquals(List.of("s1", "s2", "s1"), monitor);
+    }
+
+    @Test
+    void closedRegistrationStopsDelivery() {
+        List<AgentExecutionEvent> received = new CopyOnWriteArrayList<>();
+        AgentExecutionTracker.ListenerRegistration registration = tracker.addSessionListener("s1", received::add);
+
+        tracker.startAgentExecution("s1", "agent", "TEST", "in");
+        registration.close();
+        registration.close();
+        tracker.endAgentExecution("s1", "agent", "TEST", "out", AgentExecutionEvent.ExecutionStatus.SUCCESS);
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void sessionStatisticsAreMaintainedIncrementally() {
+        tracker.startAgentExecution("s1", "supervisor", "SUPERVISOR", "in");
+        tracker.startAgentExecution("s1", "search_agent", "EXECUTOR", "query");
+        tracker.recordAgentError("s1", "search_agent", "EXECUTOR", "timeout");
+        tracker.endAgentExecution("s1", "supervisor", "SUPERVISOR", "out", AgentExecutionEvent.ExecutionStatus.SUCCESS);
+
+        Map<String, Object> stats = tracker.getSessionStatistics("s1");
+        assertEquals(4L, stats.get("totalEvents"));
+        assertEquals(2, stats.get("agentCount"));
+        assertEquals(1L, stats.get("successCount"));
+        assertEquals(1L, stats.get("errorCount"));
+        assertEquals(Map.of("SUPERVISOR", 2L, "EXECUTOR", 2L), stats.get("agentTypeStats"));
+        assertEquals(0, tracker.getActiveSessionCount());
+
+        tracker.clearSession("s1");
+        assertTrue(tracker.getSessionStatistics("s1").isEmpty());
+    }
+}
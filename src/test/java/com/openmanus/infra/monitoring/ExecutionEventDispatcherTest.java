@@ -0,0 +1,72 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.domain.model.AgentExecutionEvent;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ExecutionEventDispatcher 异步批量推送测试
+ */
+public class ExecutionEventDispatcherTest {
+
+    private final List<Map.Entry<String, Object>> frames = new CopyOnWriteArrayList<>();
+    private ExecutionEventDispatcher dispatcher;
+
+    private ExecutionEventDispatcher dispatcher(long batchWindowMillis) {
+        OpenManusProperties.MonitoringConfig.DispatchConfig config = new OpenManusProperties.MonitoringConfig.DispatchConfig();
+        config.setBatchWindowMillis(batchWindowMillis);
+        dispatcher = new ExecutionEventDispatcher((sessionId, destination, payload) -> frames.add(Map.entry(destination, payload)),
+                config, new SimpleMeterRegistry());
+        return dispatcher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventsWithinWindowAreBatchedPerSessionAndChunksCoalesced() {
+        ExecutionEventDispatcher dispatcher = dispatcher(200);
+
+        dispatcher.dispatch(AgentExecutionEvent.createStartEvent("s1", "agent", "TEST", "in"));
+        dispatcher.dispatch(AgentExecutionEvent.createStreamChunkEvent("s1", "agent", "Hel"));
+        dispatcher.dispatch(AgentExecutionEvent.createStreamChunkEvent("s1", "agent", "lo"));
+        dispatcher.send("s1", "/result", "done");
+        dispatcher.shutdown();
+
+        assertEquals(2, frames.size());
+        assertEquals("/topic/executions/s1", frames.get(0).getKey());
+        List<AgentExecutionEvent> events = (List<AgentExecutionEvent>) frames.get(0).getValue();
+        assertEquals(2, events.size());
+        assertEquals("Hello", events.get(1).getOutput());
+        assertEquals(Map.entry("/topic/executions/s1/result", "done"), frames.get(1));
+    }
+
+    @Test
+    void resultIsSentAfterEarlierEventsOfTheSameSession() {
+        ExecutionEventDispatcher dispatcher = dispatcher(0);
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(AgentExecutionEvent.createStreamChunkEvent("s1", "agent-" + i, "x"));
+        }
+        dispatcher.send("s1", "/result", "done");
+        dispatcher.shutdown();
+
+        assertEquals("/topic/executions/s1/result", frames.get(frames.size() - 1).getKey());
+        long events = frames.stream()
+                .filter(frame -> frame.getKey().equals("/topic/executions/s1"))
+                .mapToLong(frame -> ((List<?>) frame.getValue()).size())
+                .sum();
+        assertEquals(100, events);
+    }
+}
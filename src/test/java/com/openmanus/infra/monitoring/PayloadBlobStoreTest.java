@@ -0,0 +1,98 @@
+package com.openmanus.infra.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.model.PayloadReference;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PayloadBlobStore 测试：小内容原样保留，大内容转存为引用，相同内容只存一份，超出总大小时淘汰最久未用的，
+ * 同一目录下的多个实例互不影响
+ */
+public class PayloadBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private PayloadBlobStore store(long maxTotalBytes) {
+        OpenManusProperties.MonitoringConfig.BlobConfig config = new OpenManusProperties.MonitoringConfig.BlobConfig();
+        config.setThresholdBytes(100);
+        config.setPreviewChars(10);
+        config.setDirectory(directory.toString());
+        config.setMaxTotalBytes(maxTotalBytes);
+        return new PayloadBlobStore(new ObjectMapper(), config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void largePayloadsAreOffloadedOnceAndReadableByReference() throws Exception {
+        PayloadBlobStore store = store(1024 * 1024);
+        String small = "short output";
+        assertSame(small, store.offload(small));
+
+        String large = "x".repeat(500);
+        PayloadReference first = assertInstanceOf(PayloadReference.class, store.offload(large));
+        PayloadReference second = assertInstanceOf(PayloadReference.class, store.offload(new String(large)));
+        assertEquals(first.getBlobId(), second.getBlobId());
+        assertEquals(500, first.getSize());
+        assertEquals("x".repeat(10), first.getPreview());
+        assertEquals(PayloadBlobStore.HREF_PREFIX + first.getBlobId(), first.getHref());
+
+        PayloadBlobStore.Blob blob = store.get(first.getBlobId()).orElseThrow();
+        assertArrayEquals(large.getBytes(StandardCharsets.UTF_8), blob.content());
+        assertTrue(blob.contentType().isCompatibleWith(MediaType.TEXT_PLAIN));
+
+        PayloadReference json = assertInstanceOf(PayloadReference.class, store.offload(Map.of("result", large)));
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getContentType());
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(2, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedBlobIsEvictedBeyondDiskBudget() throws Exception {
+        PayloadBlobStore store = store(250);
+        PayloadReference a = store.offloadText("a".repeat(120));
+        Thread.sleep(5);
+        PayloadReference b = store.offloadText("b".repeat(120));
+        Thread.sleep(5);
+        store.get(a.getBlobId());
+        PayloadReference c = store.offloadText("c".repeat(120));
+
+        assertTrue(store.get(a.getBlobId()).isPresent());
+        assertTrue(store.get(b.getBlobId()).isEmpty());
+        assertTrue(store.get(c.getBlobId()).isPresent());
+    }
+
+    @Test
+    void instancesSharingADirectoryKeepEachOthersBlobs() throws Exception {
+        Path unrelated = Files.writeString(directory.resolve("a".repeat(64) + ".txt"), "not ours");
+        PayloadBlobStore first = store(1024 * 1024);
+        PayloadReference reference = first.offloadText("x".repeat(500));
+
+        PayloadBlobStore second = store(1024 * 1024);
+        assertTrue(first.get(reference.getBlobId()).isPresent());
+
+        second.close();
+        first.close();
+        assertTrue(first.get(reference.getBlobId()).isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(unrelated), files.toList());
+        }
+    }
+}
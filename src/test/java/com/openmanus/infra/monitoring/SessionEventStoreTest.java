@@ -0,0 +1,76 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.domain.model.AgentExecutionEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SessionEventStore 有界事件存储测试
+ */
+public class SessionEventStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static AgentExecutionEvent event(String sessionId, String output) {
+        AgentExecutionEvent event = AgentExecutionEvent.builder()
+                .sessionId(sessionId)
+                .eventId(output)
+                .eventType(AgentExecutionEvent.EventType.INTERMEDIATE_RESULT)
+                .build();
+        event.setOutput(output);
+        return event;
+    }
+
+    private double evicted(String name, String reason) {
+        return meterRegistry.counter("openmanus.tracker.evicted." + name, "reason", reason).count();
+    }
+
+    @Test
+    void ringBufferKeepsMostRecentEvents() {
+        SessionEventStore store = new SessionEventStore(3, Long.MAX_VALUE, Duration.ofHours(1), meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            store.append("s1", event("s1", "e" + i));
+        }
+
+        List<AgentExecutionEvent> events = store.snapshot("s1");
+        assertEquals(List.of("e2", "e3", "e4"), events.stream().map(AgentExecutionEvent::getEventId).toList());
+        assertEquals(2, evicted("events", "cap"));
+    }
+
+    @Test
+    void memoryBudgetEvictsLeastRecentlyActiveSession() {
+        long eventBytes = SessionEventStore.estimateBytes(event("s1", "x".repeat(1000)));
+        SessionEventStore store = new SessionEventStore(100, eventBytes * 7 / 2, Duration.ofHours(1), meterRegistry);
+
+        store.append("s1", event("s1", "x".repeat(1000)));
+        store.append("s2", event("s2", "x".repeat(1000)));
+        store.append("s3", event("s3", "x".repeat(1000)));
+        List<String> evicted = store.append("s2", event("s2", "x".repeat(1000)));
+
+        assertEquals(List.of("s1"), evicted);
+        assertTrue(store.snapshot("s1").isEmpty());
+        assertEquals(eventBytes * 3, store.totalBytes());
+        assertEquals(1, evicted("sessions", "budget"));
+    }
+
+    @Test
+    void idleSessionsAreEvictedUnlessKept() throws InterruptedException {
+        SessionEventStore store = new SessionEventStore(100, Long.MAX_VALUE, Duration.ofMillis(20), meterRegistry);
+        store.append("idle", event("idle", "a"));
+        store.append("running", event("running", "b"));
+        Thread.sleep(50);
+
+        List<String> evicted = store.evictIdle("running"::equals);
+
+        assertEquals(List.of("idle"), evicted);
+        assertEquals(1, store.sessionCount());
+        assertEquals(1, evicted("events", "ttl"));
+    }
+}
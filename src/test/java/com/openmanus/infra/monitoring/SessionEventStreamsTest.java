@@ -0,0 +1,132 @@
+package com.openmanus.infra.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.controller.AgentController;
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.sse.SessionEventStreams;
+import com.openmanus.infra.websocket.WireEncodings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * SessionEventStreams 测试：经控制器打开 SSE 流，检查收到的事件 id 与事件名
+ */
+public class SessionEventStreamsTest {
+
+    private static final String TOPIC = "/topic/executions/s1";
+    private static final String STREAM_URL = "/api/agent/sessions/s1/stream";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SessionReplayBuffer buffer;
+    private SessionEventStreams streams;
+    private MockMvc mockMvc;
+
+    private void setUp(int maxFrames) {
+        OpenManusProperties.MonitoringConfig.ReplayConfig config = new OpenManusProperties.MonitoringConfig.ReplayConfig();
+        config.setMaxFramesPerSession(maxFrames);
+        config.setMaxBytesPerSession(Long.MAX_VALUE);
+        WireEncodings encodings = new WireEncodings(new ObjectMapper(), new OpenManusProperties(), meterRegistry);
+        buffer = new SessionReplayBuffer(new SimpMessagingTemplate(new ExecutorSubscribableChannel()), message -> { },
+                encodings, config, meterRegistry);
+        streams = new SessionEventStreams(buffer, meterRegistry);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AgentController(null, null, null, streams)).build();
+    }
+
+    private MvcResult open(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        return result;
+    }
+
+    /**
+     * 等待流结束，按 "id:event" 返回收到的事件
+     */
+    private static List<String> received(MvcResult result) throws Exception {
+        result.getAsyncResult(TimeUnit.SECONDS.toMillis(5));
+        List<String> events = new ArrayList<>();
+        for (String block : result.getResponse().getContentAsString().split("\n\n")) {
+            String id = null;
+            String name = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                }
+            }
+            if (id != null) {
+                events.add(id + ":" + name);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 写线程在结束响应后才注销流
+     */
+    private void awaitStreamsClosed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (streams.streamCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, streams.streamCount());
+    }
+
+    @Test
+    void lastEventIdResumesAtTheNextFrameAndResultEndsTheStream() throws Exception {
+        setUp(100);
+        buffer.publish("s1", TOPIC, Map.of("n", 1));
+        buffer.publish("s1", TOPIC + "/logs", Map.of("n", 2));
+        buffer.publish("s1", TOPIC, Map.of("n", 3));
+
+        MvcResult stream = open(get(STREAM_URL).header("Last-Event-ID", "1"));
+        // 在其他线程发布，回放与实时帧之间既不重复也不遗漏
+        CompletableFuture.runAsync(() -> {
+            buffer.publish("s1", TOPIC + "/logs", Map.of("n", 4));
+            buffer.publish("s1", TOPIC + "/result", Map.of("n", 5));
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("2:log", "3:event", "4:log", "5:result"), received(stream));
+        awaitStreamsClosed();
+    }
+
+    @Test
+    void missingOrInvalidLastEventIdStartsFromTheOldestFrame() throws Exception {
+        setUp(100);
+        buffer.publish("s1", TOPIC, Map.of("n", 1));
+        buffer.publish("s1", TOPIC + "/result", Map.of("n", 2));
+
+        assertEquals(List.of("1:event", "2:result"), received(open(get(STREAM_URL))));
+        assertEquals(List.of("1:event", "2:result"), received(open(get(STREAM_URL).param("lastEventId", "abc"))));
+        assertEquals(List.of("2:result"), received(open(get(STREAM_URL).param("lastEventId", "1"))));
+    }
+
+    @Test
+    void streamThatFallsTooFarBehindIsClosed() throws Exception {
+        setUp(10_000);
+        for (int i = 1; i <= 5_000; i++) {
+            buffer.publish("s1", TOPIC + "/logs", Map.of("n", i));
+        }
+
+        // 回放在写线程启动前全部入队，超过待发送上限后流直接结束，客户端凭 Last-Event-ID 重连
+        assertEquals(List.of(), received(open(get(STREAM_URL))));
+        assertEquals(1.0, meterRegistry.get("openmanus.sse.streams.overflowed").counter().count());
+        awaitStreamsClosed();
+    }
+}
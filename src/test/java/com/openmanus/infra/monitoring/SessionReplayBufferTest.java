@@ -0,0 +1,127 @@
+package com.openmanus.infra.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.infra.config.OpenManusProperties;
+import com.openmanus.infra.websocket.WireEncodings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SessionReplayBuffer 回放测试：使用同步通道和真实的简单代理
+ */
+public class SessionReplayBufferTest {
+
+    private static final String TOPIC = "/topic/executions/s1";
+
+    private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+    private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+    private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+    private final SimpleBrokerMessageHandler broker =
+            new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+
+    private SessionReplayBuffer replayBuffer(int maxFrames) {
+        OpenManusProperties.MonitoringConfig.ReplayConfig config = new OpenManusProperties.MonitoringConfig.ReplayConfig();
+        config.setMaxFramesPerSession(maxFrames);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WireEncodings encodings = new WireEncodings(new ObjectMapper(), new OpenManusProperties(), meterRegistry);
+        clientOutbound.addInterceptor(encodings);
+        clientOutbound.subscribe(delivered::add);
+        SessionReplayBuffer buffer = new SessionReplayBuffer(new SimpMessagingTemplate(brokerChannel), delivered::add,
+                encodings, config, meterRegistry);
+        clientInbound.addInterceptor(encodings);
+        clientInbound.addInterceptor(buffer);
+        broker.start();
+        return buffer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    private void subscribe(String subscriptionId, String destination, String fromSeq) {
+        SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        connect.setSessionId("ws-" + subscriptionId);
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId("ws-" + subscriptionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        if (fromSeq != null) {
+            accessor.setNativeHeader(SessionReplayBuffer.FROM_SEQ_HEADER, fromSeq);
+        }
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private List<String> deliveredTo(String subscriptionId) {
+        return delivered.stream()
+                .filter(message -> subscriptionId.equals(SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders())))
+                .map(message -> SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(SessionReplayBuffer.SEQ_HEADER)
+                        + ":" + new String((byte[]) message.getPayload()))
+                .toList();
+    }
+
+    @Test
+    void lateSubscriberGetsBacklogForItsDestinationThenLiveFramesWithoutDuplicates() throws Exception {
+        SessionReplayBuffer buffer = replayBuffer(100);
+        buffer.publish("s1", TOPIC, Map.of("n", 1));
+        buffer.publish("s1", TOPIC + "/logs", Map.of("n", 2));
+        buffer.publish("s1", TOPIC, Map.of("n", 3));
+
+        subscribe("events", TOPIC, "1");
+        subscribe("plain", TOPIC, null);
+        // 在其他线程发布，确认订阅处理结束后会话锁已释放
+        CompletableFuture.runAsync(() -> buffer.publish("s1", TOPIC, Map.of("n", 4))).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1:{\"n\":1}", "3:{\"n\":3}", "4:{\"n\":4}"), deliveredTo("events"));
+        assertEquals(List.of("4:{\"n\":4}"), deliveredTo("plain"));
+    }
+
+    @Test
+    void replayStartsAtRequestedSequenceAndOldestFramesAreDropped() {
+        SessionReplayBuffer buffer = replayBuffer(2);
+        for (int i = 1; i <= 4; i++) {
+            buffer.publish("s1", TOPIC, Map.of("n", i));
+        }
+
+        subscribe("from-start", TOPIC, "1");
+        subscribe("resume", TOPIC, "4");
+
+        assertEquals(List.of("3:{\"n\":3}", "4:{\"n\":4}"), deliveredTo("from-start"));
+        assertEquals(List.of("4:{\"n\":4}"), deliveredTo("resume"));
+    }
+
+    @Test
+    void listenerGetsBacklogAcrossDestinationsThenLiveFramesUntilCancelled() {
+        SessionReplayBuffer buffer = replayBuffer(100);
+        buffer.publish("s1", TOPIC, Map.of("n", 1));
+        buffer.publish("s1", TOPIC + "/logs", Map.of("n", 2));
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        Runnable cancel = buffer.listen("s1", 2, (seq, destination, payload) ->
+                received.add(seq + ":" + destination.substring(TOPIC.length()) + ":" + new String(payload.json())));
+        buffer.publish("s1", TOPIC + "/result", Map.of("n", 3));
+        cancel.run();
+        buffer.publish("s1", TOPIC, Map.of("n", 4));
+
+        assertEquals(List.of("2:/logs:{\"n\":2}", "3:/result:{\"n\":3}"), received);
+    }
+}
@@ -0,0 +1,112 @@
+package com.openmanus.infra.monitoring;
+
+import com.openmanus.infra.config.OpenManusProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TimeSeriesStore 分桶、汇总与直方图精度测试
+ */
+public class TimeSeriesStoreTest {
+
+    /**
+     * 可手动推进的时钟
+     */
+    static class ManualClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    private TimeSeriesStore store(int maxSeries) {
+        OpenManusProperties.MonitoringConfig.TimeSeriesConfig config =
+                new OpenManusProperties.MonitoringConfig.TimeSeriesConfig();
+        config.setMinuteBuckets(10);
+        config.setHourBuckets(3);
+        config.setMaxSeriesPerMetric(maxSeries);
+        return new TimeSeriesStore(config, clock);
+    }
+
+    @Test
+    void minuteBucketsRollOffWhileHourBucketsKeepTheTotals() {
+        TimeSeriesStore store = store(10);
+        for (int i = 1; i <= 100; i++) {
+            store.record(TimeSeriesStore.Metric.TOOL, "search", i * 10L, i % 10 == 0);
+        }
+        clock.advance(Duration.ofMinutes(5));
+        store.record(TimeSeriesStore.Metric.TOOL, "search", 50, false);
+
+        TimeSeriesStore.TimeSeries lastMinutes = store.query(TimeSeriesStore.Metric.TOOL, "search", Duration.ofMinutes(10));
+        assertEquals(Duration.ofMinutes(1), lastMinutes.resolution());
+        assertEquals(10, lastMinutes.points().size());
+        assertEquals(101, lastMinutes.summary().count());
+        assertEquals(10, lastMinutes.summary().errors());
+        assertEquals(100, lastMinutes.points().get(4).count());
+        assertEquals(1, lastMinutes.points().get(9).count());
+
+        clock.advance(Duration.ofMinutes(8));
+        assertEquals(1, store.query(TimeSeriesStore.Metric.TOOL, "search", Duration.ofMinutes(10)).summary().count());
+
+        TimeSeriesStore.TimeSeries lastHours = store.query(TimeSeriesStore.Metric.TOOL, null, Duration.ofHours(2));
+        assertEquals(Duration.ofHours(1), lastHours.resolution());
+        assertEquals(101, lastHours.summary().count());
+        assertEquals(1000, lastHours.summary().max());
+        assertEquals(950, lastHours.summary().p95(), 950 / 16.0);
+    }
+
+    @Test
+    void keysBeyondTheLimitShareOneSeries() {
+        TimeSeriesStore store = store(2);
+        store.record(TimeSeriesStore.Metric.PHASE, "thinking_agent", 10, false);
+        store.record(TimeSeriesStore.Metric.PHASE, "search_agent", 10, false);
+        store.record(TimeSeriesStore.Metric.PHASE, "code_agent", 10, false);
+        store.record(TimeSeriesStore.Metric.PHASE, "file_agent", 10, false);
+
+        assertEquals(List.of("_other", "search_agent", "thinking_agent"), store.keys(TimeSeriesStore.Metric.PHASE));
+        assertEquals(2, store.query(TimeSeriesStore.Metric.PHASE, "_other", Duration.ofMinutes(1)).summary().count());
+        assertEquals(4, store.query(TimeSeriesStore.Metric.PHASE, null, Duration.ofMinutes(1)).summary().count());
+    }
+
+    @Test
+    void histogramPercentilesStayWithinOneSubBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        for (double percentile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            double expected = percentile * 100_000;
+            double actual = histogram.valueAtPercentile(percentile);
+            assertTrue(Math.abs(actual - expected) <= expected / 16, percentile + ": " + actual);
+        }
+        assertEquals(100_000, histogram.max());
+        assertEquals(50_000.5, histogram.mean(), 1e-9);
+    }
+}
@@ -0,0 +1,163 @@
+package com.openmanus.infra.relay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 简单代理与外部 STOMP 代理（RELAY 模式）的吞吐量和扇出延迟对比
+ *
+ * 默认不运行，需要嵌入式代理：
+ * mvn -Pbroker-relay test -Dtest=BrokerRelayBenchmark -Dbenchmark=true [-Dbenchmark.subscribers=50 -Dbenchmark.messages=2000]
+ *
+ * 每个订阅者模拟一个浏览器连接订阅同一个会话主题，服务端发布 N 条消息，
+ * 统计从发布到送达每个订阅者的延迟分布，以及全部送达所需时间折算的每秒送达数
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BrokerRelayBenchmark {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("benchmark.subscribers", 50);
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 2000);
+    private static final String DESTINATION = "/topic/executions/benchmark";
+    private static final byte[] EMPTY = new byte[0];
+
+    @Test
+    void simpleBrokerVersusRelay() throws Exception {
+        Result simple = run(Harness.simple());
+        Result relay;
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker(0)) {
+            relay = run(Harness.relay(broker.getPort()));
+        }
+
+        System.out.printf("%d subscribers x %d messages%n", SUBSCRIBERS, MESSAGES);
+        System.out.printf("%-8s %14s %10s %10s %10s%n", "broker", "deliveries/s", "p50 ms", "p99 ms", "max ms");
+        for (Result result : List.of(simple, relay)) {
+            System.out.printf("%-8s %14.0f %10.2f %10.2f %10.2f%n", result.name, result.deliveriesPerSecond,
+                    result.p50Millis, result.p99Millis, result.maxMillis);
+        }
+    }
+
+    private Result run(Harness harness) throws Exception {
+        int total = SUBSCRIBERS * MESSAGES;
+        CountDownLatch connected = new CountDownLatch(SUBSCRIBERS);
+        CountDownLatch subscribed = new CountDownLatch(harness.receipts ? SUBSCRIBERS : 0);
+        CountDownLatch delivered = new CountDownLatch(total);
+        long[] latencies = new long[total];
+        AtomicInteger received = new AtomicInteger();
+
+        harness.outbound.subscribe(message -> {
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+            if (accessor.getMessageType() == SimpMessageType.CONNECT_ACK || accessor.getCommand() == StompCommand.CONNECTED) {
+                connected.countDown();
+            } else if (accessor.getCommand() == StompCommand.RECEIPT) {
+                subscribed.countDown();
+            } else if (accessor.getMessageType() == SimpMessageType.MESSAGE) {
+                long sentNanos = Long.parseLong(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+                int index = received.getAndIncrement();
+                if (index < total) {
+                    latencies[index] = System.nanoTime() - sentNanos;
+                }
+                delivered.countDown();
+            }
+        });
+
+        harness.broker.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!harness.broker.isBrokerAvailable() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(harness.broker.isBrokerAvailable(), harness.name + " broker did not become available");
+
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+                connect.setSessionId("client-" + i);
+                connect.setAcceptVersion("1.2");
+                connect.setHeartbeat(0, 0);
+                harness.inbound.send(MessageBuilder.createMessage(EMPTY, connect.getMessageHeaders()));
+            }
+            assertTrue(connected.await(10, TimeUnit.SECONDS), harness.name + " clients did not connect");
+
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+                subscribe.setSessionId("client-" + i);
+                subscribe.setSubscriptionId("sub-" + i);
+                subscribe.setDestination(DESTINATION);
+                if (harness.receipts) {
+                    subscribe.setReceipt("subscribed-" + i);
+                }
+                harness.inbound.send(MessageBuilder.createMessage(EMPTY, subscribe.getMessageHeaders()));
+            }
+            assertTrue(subscribed.await(10, TimeUnit.SECONDS), harness.name + " subscriptions were not confirmed");
+
+            SimpMessagingTemplate template = new SimpMessagingTemplate(harness.brokerChannel);
+            template.setMessageConverter(new StringMessageConverter());
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                template.convertAndSend(DESTINATION, Long.toString(System.nanoTime()));
+            }
+            assertTrue(delivered.await(60, TimeUnit.SECONDS),
+                    harness.name + " delivered " + received.get() + " of " + total);
+            long elapsedNanos = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new Result(harness.name, total / (elapsedNanos / 1e9),
+                    millis(latencies[total / 2]), millis(latencies[(int) (total * 0.99)]), millis(latencies[total - 1]));
+        } finally {
+            harness.broker.stop();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * 同步通道上的代理处理器：入站（浏览器）、出站（推送给浏览器）、代理通道（服务端发布）
+     */
+    private record Harness(String name, AbstractBrokerMessageHandler broker, ExecutorSubscribableChannel inbound,
+                           ExecutorSubscribableChannel outbound, ExecutorSubscribableChannel brokerChannel,
+                           boolean receipts) {
+
+        static Harness simple() {
+            ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            return new Harness("simple", new SimpleBrokerMessageHandler(inbound, outbound, brokerChannel,
+                    List.of("/topic")), inbound, outbound, brokerChannel, false);
+        }
+
+        static Harness relay(int port) {
+            ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(inbound, outbound, brokerChannel,
+                    List.of("/topic"));
+            relay.setRelayHost("127.0.0.1");
+            relay.setRelayPort(port);
+            return new Harness("relay", relay, inbound, outbound, brokerChannel, true);
+        }
+    }
+
+    private record Result(String name, double deliveriesPerSecond, double p50Millis, double p99Millis,
+                          double maxMillis) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.openmanus.infra.relay;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * 进程内 ActiveMQ Artemis STOMP 代理，用于在单机上测试和压测 RELAY 模式（需要 -Pbroker-relay）
+ *
+ * /topic/ 前缀映射为多播地址，每个订阅者都会收到消息，与简单代理的语义一致。
+ * 单独运行 main 方法会在 61613 端口启动代理，应用以 relay-local profile 启动后即可连接：
+ * mvn -Pbroker-relay spring-boot:run -Dspring-boot.run.profiles=relay-local -Dspring-boot.run.useTestClasspath=true
+ */
+public class EmbeddedStompBroker implements AutoCloseable {
+
+    private final EmbeddedActiveMQ server = new EmbeddedActiveMQ();
+    private final int port;
+
+    /**
+     * @param port 监听端口，0 表示随机选择空闲端口
+     */
+    public EmbeddedStompBroker(int port) throws Exception {
+        this.port = port == 0 ? freePort() : port;
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        configuration.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + this.port
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        server.setConfiguration(configuration);
+        server.start();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedStompBroker broker = new EmbeddedStompBroker(args.length > 0 ? Integer.parseInt(args[0]) : 61613);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                broker.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }));
+        System.out.println("Embedded STOMP broker listening on 127.0.0.1:" + broker.getPort());
+        Thread.currentThread().join();
+    }
+}
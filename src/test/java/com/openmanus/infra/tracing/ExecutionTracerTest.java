@@ -0,0 +1,160 @@
+package com.openmanus.infra.tracing;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.model.DetailedExecutionFlow;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ExecutionTracer 父子关系、跨线程传递、执行流程和导出测试
+ */
+public class ExecutionTracerTest {
+
+    private static OpenManusProperties.MonitoringConfig.TracingConfig config(Path directory) {
+        OpenManusProperties.MonitoringConfig.TracingConfig config =
+                new OpenManusProperties.MonitoringConfig.TracingConfig();
+        config.setFileExport(directory != null);
+        config.setDirectory(directory != null ? directory.toString() : null);
+        return config;
+    }
+
+    private static <T> T withSession(String sessionId, Supplier<T> body) {
+        MDC.put("sessionId", sessionId);
+        try {
+            return body.get();
+        } finally {
+            MDC.remove("sessionId");
+        }
+    }
+
+    @Test
+    void parallelSubAgentsAttachToSupervisorAndBecomePhases() {
+        ExecutionTracer tracer = new ExecutionTracer(config(null), UnaryOperator.identity(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+        ExecutorService pool = TtlExecutors.getTtlExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+
+        withSession("s1", () -> tracer.trace("workflow", Span.Kind.WORKFLOW, workflow ->
+                tracer.trace("invoke_agent supervisor", Span.Kind.AGENT, supervisor -> {
+                    supervisor.setAttribute(ExecutionFlows.AGENT_NAME, "supervisor");
+                    List<CompletableFuture<Span>> children = List.of("thinking_agent", "search_agent").stream()
+                            .map(name -> CompletableFuture.supplyAsync(() ->
+                                    tracer.trace("invoke_agent " + name, Span.Kind.AGENT, agent -> {
+                                        agent.setAttribute(ExecutionFlows.AGENT_NAME, name);
+                                        return tracer.trace("execute_tool search", Span.Kind.TOOL, tool -> {
+                                            tool.setAttribute(ExecutionFlows.TOOL_NAME, "search");
+                                            tool.setOutput("result of " + name);
+                                            return tool;
+                                        });
+                                    }), pool))
+                            .toList();
+                    children.forEach(CompletableFuture::join);
+                    return null;
+                })));
+        pool.shutdown();
+
+        Trace trace = tracer.sessionTrace("s1").orElseThrow();
+        assertTrue(trace.isComplete());
+        assertEquals(6, trace.getSpans().size());
+        Map<String, Span> byName = trace.getSpans().stream()
+                .collect(Collectors.toMap(Span::getName, span -> span, (a, b) -> a));
+        String supervisorId = byName.get("invoke_agent supervisor").getSpanId();
+        assertEquals(byName.get("workflow").getSpanId(), byName.get("invoke_agent supervisor").getParentSpanId());
+        assertEquals(supervisorId, byName.get("invoke_agent thinking_agent").getParentSpanId());
+        assertEquals(supervisorId, byName.get("invoke_agent search_agent").getParentSpanId());
+        assertTrue(trace.getSpans().stream().allMatch(span -> "s1".equals(span.getSessionId())));
+
+        DetailedExecutionFlow flow = ExecutionFlows.from(trace);
+        assertEquals(DetailedExecutionFlow.WorkflowStatus.COMPLETED, flow.getStatus());
+        assertEquals(2, flow.getPhases().size());
+        for (DetailedExecutionFlow.ExecutionPhase phase : flow.getPhases()) {
+            assertEquals(1, phase.getToolCalls().size());
+            assertEquals("result of " + phase.getAgentName(), phase.getToolCalls().get(0).getResult());
+        }
+    }
+
+    @Test
+    void criticalPathFollowsLatestFinishingChildren() {
+        ExecutionTracer tracer = new ExecutionTracer(config(null), UnaryOperator.identity(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+
+        withSession("s2", () -> tracer.trace("workflow", Span.Kind.WORKFLOW, root -> {
+            tracer.trace("fast", Span.Kind.TOOL, span -> sleep(5));
+            tracer.trace("slow", Span.Kind.AGENT, span -> tracer.trace("chat", Span.Kind.LLM, llm -> sleep(20)));
+            return null;
+        }));
+
+        Trace trace = tracer.sessionTrace("s2").orElseThrow();
+        List<String> path = trace.criticalPath().stream().map(Span::getName).toList();
+        assertEquals(List.of("workflow", "fast", "slow", "chat"), path);
+    }
+
+    @Test
+    void failedSpanIsRecordedAndExportedAsOtlpJson(@TempDir Path directory) throws Exception {
+        ExecutionTracer tracer = new ExecutionTracer(config(directory), UnaryOperator.identity(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+
+        try {
+            withSession("s3", () -> tracer.trace("workflow", Span.Kind.WORKFLOW, root ->
+                    tracer.trace("chat", Span.Kind.LLM, llm -> {
+                        llm.setAttribute(ExecutionFlows.INPUT_TOKENS, 12);
+                        throw new IllegalStateException("model unavailable");
+                    })));
+        } catch (IllegalStateException expected) {
+            // 异常原样抛出
+        }
+        tracer.shutdown();
+
+        Trace trace = tracer.sessionTrace("s3").orElseThrow();
+        assertEquals(Span.Status.ERROR, trace.getRoot().getStatus());
+        ExecutionTracer.Statistics statistics = tracer.statistics();
+        assertEquals(0, statistics.running());
+        assertEquals(0, statistics.completed());
+        assertEquals(1, statistics.failed());
+        assertEquals(1, statistics.executions());
+        assertEquals(DetailedExecutionFlow.WorkflowStatus.FAILED, ExecutionFlows.from(trace).getStatus());
+
+        Path file;
+        long deadline = System.currentTimeMillis() + 5_000;
+        do {
+            try (var files = Files.list(directory)) {
+                file = files.findFirst().orElse(null);
+            }
+        } while ((file == null || Files.size(file) == 0) && System.currentTimeMillis() < deadline);
+        JsonNode request = new ObjectMapper().readTree(Files.readAllLines(file).get(0));
+        JsonNode spans = request.at("/resourceSpans/0/scopeSpans/0/spans");
+        assertEquals(2, spans.size());
+        JsonNode chat = spans.get(1);
+        assertEquals(trace.getTraceId(), chat.get("traceId").asText());
+        assertEquals(spans.get(0).get("spanId").asText(), chat.get("parentSpanId").asText());
+        assertEquals(2, chat.at("/status/code").asInt());
+        assertEquals("model unavailable", chat.at("/status/message").asText());
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
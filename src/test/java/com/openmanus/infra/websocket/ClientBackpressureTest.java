@@ -0,0 +1,127 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.infra.config.OpenManusProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ClientBackpressure 测试：发送被阻塞的慢客户端进入降级模式，积压清空后恢复
+ */
+public class ClientBackpressureTest {
+
+    private static final String TOPIC = "/topic/executions/s1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ClientBackpressure backpressure;
+    private ClientSendQueue client;
+
+    private void connectSlowClient() throws Exception {
+        OpenManusProperties.WebSocketSettings.BackpressureConfig config =
+                new OpenManusProperties.WebSocketSettings.BackpressureConfig();
+        config.setDegradeLagMillis(60_000);
+        config.setDegradeQueuedBytes(1000);
+        backpressure = new ClientBackpressure(objectMapper, config, new SimpleMeterRegistry());
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("c1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(session).sendMessage(any());
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        backpressure.decorate(handler).afterConnectionEstablished(session);
+
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        client = (ClientSendQueue) decorated.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    private Message<byte[]> frame(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("c1");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static String event(String type) {
+        return "{\"sessionId\":\"s1\",\"agentName\":\"search\",\"eventType\":\"" + type + "\"}";
+    }
+
+    @Test
+    void degradedClientLosesLogsAndGetsCollapsedEventsButKeepsResults() throws Exception {
+        connectSlowClient();
+        Message<byte[]> events = frame(TOPIC, "[" + String.join(",", event("AGENT_START"),
+                event("LLM_STREAM_CHUNK"), event("LLM_STREAM_CHUNK"), event("TOOL_CALL"), event("AGENT_END")) + "]");
+        assertSame(events, backpressure.preSend(events, null), "healthy client gets frames unchanged");
+
+        client.sendMessage(new TextMessage("x".repeat(2000)));
+        assertTrue(client.evaluate());
+
+        assertNull(backpressure.preSend(frame(TOPIC + "/logs", "[\"line\"]"), null));
+        Message<byte[]> result = frame(TOPIC + "/result", "{\"status\":\"completed\"}");
+        assertSame(result, backpressure.preSend(result, null));
+
+        Message<?> collapsed = backpressure.preSend(events, null);
+        JsonNode reduced = objectMapper.readTree((byte[]) collapsed.getPayload());
+        assertEquals(List.of("AGENT_START", "SUMMARY", "AGENT_END"),
+                reduced.findValuesAsText("eventType"));
+        assertEquals("search", reduced.get(1).get("agentName").asText());
+        assertTrue(reduced.get(1).get("output").asText().contains("LLM_STREAM_CHUNK×2, TOOL_CALL×1"));
+        assertEquals(TOPIC, SimpMessageHeaderAccessor.getDestination(collapsed.getHeaders()));
+
+        ClientBackpressure.ClientStats stats = backpressure.clientStats().get(0);
+        assertTrue(stats.degraded());
+        assertEquals(3, stats.droppedFrames());
+    }
+
+    @Test
+    void clientRecoversOnceBacklogDrains() throws Exception {
+        connectSlowClient();
+        client.sendMessage(new TextMessage("x".repeat(2000)));
+        assertTrue(client.evaluate());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.queuedBytes() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Message<byte[]> logs = frame(TOPIC + "/logs", "[\"line\"]");
+        assertSame(logs, backpressure.preSend(logs, null));
+        assertFalse(client.isDegraded());
+        assertEquals(1, backpressure.clientStats().get(0).sentFrames());
+    }
+}
@@ -0,0 +1,122 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmanus.domain.model.AgentExecutionEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 执行事件推送编码的大小和序列化开销对比
+ *
+ * 默认不运行：
+ * mvn test -Dtest=WireEncodingBenchmark -Dbenchmark=true [-Dbenchmark.iterations=20000]
+ *
+ * legacy：原路径，复杂的 input/output 先由事件内部的 ObjectMapper 转为字符串，再由 MappingJackson2MessageConverter 整体序列化；
+ * 其余为 WireEncodings 路径，input/output 保存为 JSON 树，每种格式只序列化一次。
+ * 每次迭代构造并编码一帧（一批事件），简单代理的扇出共享编码结果，订阅者数量不影响编码开销
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class WireEncodingBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20000);
+    private static final int EVENTS_PER_FRAME = 8;
+    private static final int ROUNDS = 3;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void compareEncodings() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        ObjectMapper legacyEventMapper = new ObjectMapper();
+        WireEncodings encodings = new WireEncodings(objectMapper, false, new SimpleMeterRegistry());
+        Map<String, Supplier<byte[]>> paths = new LinkedHashMap<>();
+        paths.put("legacy", () -> (byte[]) converter.toMessage(batch(value -> {
+            try {
+                return legacyEventMapper.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }), null).getPayload());
+        for (WireFormat format : WireFormat.values()) {
+            if (format.isAvailable()) {
+                paths.put(format.getToken(), () -> encodings.frame(batch(null)).bytes(format));
+            } else {
+                System.out.printf("%s skipped: dataformat module not on the classpath%n", format.getToken());
+            }
+        }
+
+        // 前几轮用于 JIT 预热，只报告最后一轮
+        List<Result> results = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            results.clear();
+            paths.forEach((name, encode) -> results.add(measure(name, encode)));
+        }
+
+        System.out.printf("%d frames x %d events%n", ITERATIONS, EVENTS_PER_FRAME);
+        System.out.printf("%-8s %14s %14s%n", "format", "bytes/frame", "us/frame");
+        for (Result result : results) {
+            System.out.printf("%-8s %14d %14.2f%n", result.name, result.bytesPerFrame, result.microsPerFrame);
+        }
+    }
+
+    private Result measure(String name, Supplier<byte[]> encode) {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes += encode.get().length;
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(name, bytes / ITERATIONS, elapsed / 1e3 / ITERATIONS);
+    }
+    /**
+     * 一批典型事件：带结构化输入输出的工具调用结果
+     *
+     * @param stringify 为 null 时按当前方式保存 input/output，否则模拟原有的字符串化
+     */
+    private static List<AgentExecutionEvent> batch(Function<Object, String> stringify) {
+        List<AgentExecutionEvent> events = new ArrayList<>(EVENTS_PER_FRAME);
+        for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+            Object input = Map.of("tool", "web_search", "query", "java virtual threads pinning " + i, "limit", 5);
+            Object output = Map.of("results", List.of(
+                    Map.of("title", "JEP 444: Virtual Threads", "url", "https://openjdk.org/jeps/444", "score", 0.93),
+                    Map.of("title", "Pinning and synchronized", "url", "https://example.org/pinning", "score", 0.81)),
+                    "elapsedMillis", 412 + i);
+            AgentExecutionEvent event = AgentExecutionEvent.builder()
+                    .sessionId("b3c1f0de-7d0a-4c1e-9a52-4b8f9d2e6a10")
+                    .eventId("evt-" + i)
+                    .agentName("search_agent")
+                    .agentType("TOOL")
+                    .eventType(AgentExecutionEvent.EventType.TOOL_CALL_END)
+                    .status(AgentExecutionEvent.ExecutionStatus.SUCCESS)
+                    .startTime(LocalDateTime.of(2026, 1, 1, 12, 0, i))
+                    .endTime(LocalDateTime.of(2026, 1, 1, 12, 0, i + 1))
+                    .duration(1000L)
+                    .build();
+            if (stringify == null) {
+                event.setInput(input);
+                event.setOutput(output);
+            } else {
+                event.setInput(stringify.apply(input));
+                event.setOutput(stringify.apply(output));
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    private record Result(String name, long bytesPerFrame, double microsPerFrame) {
+    }
+}
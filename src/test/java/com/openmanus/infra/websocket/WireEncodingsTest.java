@@ -0,0 +1,91 @@
+package com.openmanus.infra.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * WireEncodings 测试：经简单代理扇出的帧只序列化一次，协商不到可用的二进制格式时回退为 JSON
+ */
+public class WireEncodingsTest {
+
+    private static final String TOPIC = "/topic/executions/s1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WireEncodings encodings = new WireEncodings(new ObjectMapper(), false, meterRegistry);
+    private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+    private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+    private final SimpleBrokerMessageHandler broker =
+            new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    private void connectAndSubscribe(String sessionId, String acceptEncoding) {
+        SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        connect.setSessionId(sessionId);
+        if (acceptEncoding != null) {
+            connect.setNativeHeader(WireEncodings.ACCEPT_ENCODING_HEADER, acceptEncoding);
+        }
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        subscribe.setSessionId(sessionId);
+        subscribe.setSubscriptionId("sub-" + sessionId);
+        subscribe.setDestination(TOPIC);
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+    }
+
+    @Test
+    void frameIsEncodedOnceAndSharedByAllSubscribers() {
+        List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+        clientInbound.addInterceptor(encodings);
+        clientOutbound.addInterceptor(encodings);
+        clientOutbound.subscribe(delivered::add);
+        broker.start();
+        connectAndSubscribe("a", null);
+        connectAndSubscribe("b", "json");
+        connectAndSubscribe("c", "no-such-format, json");
+
+        WireFrame frame = encodings.frame(List.of(Map.of("eventType", "AGENT_START")));
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(TOPIC);
+        brokerChannel.send(MessageBuilder.createMessage(encodings.brokerPayload(frame), headers.getMessageHeaders()));
+
+        List<Message<?>> messages = delivered.stream()
+                .filter(message -> SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE)
+                .toList();
+        assertEquals(3, messages.size());
+        for (Message<?> message : messages) {
+            assertSame(frame.json(), message.getPayload());
+            assertEquals(MimeTypeUtils.APPLICATION_JSON, SimpMessageHeaderAccessor.wrap(message).getContentType());
+        }
+        assertEquals(1, meterRegistry.get("openmanus.wire.encode").tag("format", "json").timer().count());
+    }
+
+    @Test
+    void negotiationPicksFirstKnownFormatAndFallsBackToJson() {
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(null));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("msgpack"));
+        assertEquals(WireFormat.CBOR, WireFormat.negotiate("cbor"));
+        assertEquals(WireFormat.SMILE, WireFormat.negotiate("msgpack, smile, cbor"));
+    }
+}